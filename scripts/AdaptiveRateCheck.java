@@ -0,0 +1,182 @@
+import src.main.java.AdaptiveRateController;
+import src.main.java.ScreenCaptureService;
+import src.main.java.ScriptedScreenSource;
+
+import java.awt.Rectangle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应速率检查 - AIMD 的降速、恢复、上下限和采样规则
+ *
+ * <p>由 scripts/adaptive-check.sh 编译运行，任一检查失败时以非0状态退出。
+ * 屏幕来源使用 {@link ScriptedScreenSource}：不预定变化时目标"不响应"，
+ * 点击后预定下一帧变化即目标"立即响应"，截图服务和控制器按生产环境的方式在截图线程上判定。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class AdaptiveRateCheck {
+
+    private static final Rectangle REGION = new Rectangle(100, 100, 64, 64);
+    private static final int INITIAL_MS = 100;
+    private static final int MIN_MS = 10;
+    private static final int MAX_MS = 1000;
+    private static final int TIMEOUT_MS = 200;
+    private static final int VERDICT_WAIT_MS = 5000;
+
+    private static int failures;
+
+    private static ScriptedScreenSource source;
+    private static AdaptiveRateController controller;
+
+    public static void main(String[] args) throws InterruptedException {
+        source = new ScriptedScreenSource(0x204060);
+        ScreenCaptureService service = new ScreenCaptureService(source);
+        service.start();
+        controller = new AdaptiveRateController(service, REGION, INITIAL_MS, MIN_MS, MAX_MS, TIMEOUT_MS);
+
+        System.out.println("== 采样规则 ==");
+        controller.onClick();
+        report(controller.getSkippedCount() == 1 && controller.currentIntervalMs() == INITIAL_MS,
+                "未订阅时的点击不采样，间隔保持 " + INITIAL_MS + "ms");
+        controller.start();
+        awaitCaptures(2);
+
+        System.out.println("== 不响应时乘性降速（超时 " + TIMEOUT_MS + "ms）==");
+        checkBackOff();
+
+        System.out.println("== 响应后加性恢复 ==");
+        checkRecovery();
+
+        System.out.println("== 点击前的变化不算响应 ==");
+        checkChangeBeforeClick();
+
+        controller.stop();
+        controller.onClick();
+        report(service.getSubscriptionCount() == 0 && controller.getSkippedCount() == 3,
+                "停止后取消订阅，之后的点击不采样");
+        service.stop();
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " 项检查失败");
+            System.exit(1);
+        }
+        System.out.println("✅ 全部检查通过");
+    }
+
+    /**
+     * 每次超时速率减半，间隔 100 → 200 → 400 → 800 → 1000（最大间隔）
+     */
+    private static void checkBackOff() throws InterruptedException {
+        int[] expected = {200, 400, 800, MAX_MS};
+        for (int interval : expected) {
+            long elapsed = clickAndAwait(false);
+            report(controller.currentIntervalMs() == interval && elapsed >= TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS),
+                    String.format("%.0fms 后判定超时，间隔 %dms（期望 %dms）", elapsed / 1e6,
+                            controller.currentIntervalMs(), interval));
+        }
+
+        // 上一次点击判定前的点击不采样；最大间隔时再超时不再增加
+        controller.onClick();
+        long pendingSince = System.nanoTime();
+        controller.onClick();
+        report(controller.getSkippedCount() == 2, "上一次点击尚未判定时，本次点击不采样");
+        awaitVerdict(controller.getFailureCount(), pendingSince);
+        report(controller.currentIntervalMs() == MAX_MS && controller.getFailureCount() == expected.length + 1,
+                "已到最大间隔时再超时，间隔保持 " + MAX_MS + "ms");
+    }
+
+    /**
+     * 每次响应速率增加初始速率的 10%（1 次/秒），直到最高速率（最小间隔对应的 100 次/秒）
+     */
+    private static void checkRecovery() throws InterruptedException {
+        long successes = controller.getSuccessCount();
+        double step = 1000.0 / INITIAL_MS * 0.1;
+        double maxRate = 1000.0 / MIN_MS;
+        boolean exact = true;
+        long slowest = 0;
+        int steps = 0;
+        while (controller.currentRate() < maxRate && steps < 1000) {
+            double before = controller.currentRate();
+            slowest = Math.max(slowest, clickAndAwait(true));
+            steps++;
+            double expected = Math.min(maxRate, before + step);
+            exact &= Math.abs(controller.currentRate() - expected) < 1e-9;
+            if (steps == 9) {
+                report(controller.currentIntervalMs() == INITIAL_MS,
+                        "9 次响应后回到初始间隔 " + INITIAL_MS + "ms（实际 " + controller.currentIntervalMs() + "ms）");
+            }
+        }
+        report(exact, "每次响应速率增加 " + step + " 次/秒");
+        report(controller.getSuccessCount() - successes == steps && steps == 99
+                && controller.currentIntervalMs() == MIN_MS,
+                steps + " 次响应从 " + MAX_MS + "ms 恢复到最小间隔 " + MIN_MS + "ms（期望 99 次）");
+        report(slowest < TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS),
+                String.format("画面变化在超时前被识别（最慢 %.1fms）", slowest / 1e6));
+
+        clickAndAwait(true);
+        report(controller.currentIntervalMs() == MIN_MS, "已到最小间隔时再响应，间隔保持 " + MIN_MS + "ms");
+        clickAndAwait(false);
+        report(controller.currentIntervalMs() == MIN_MS * 2,
+                "再次超时后速率减半，间隔 " + controller.currentIntervalMs() + "ms（期望 " + MIN_MS * 2 + "ms）");
+    }
+
+    /**
+     * 点击之前已经截到的变化不能说明目标响应了这次点击
+     */
+    private static void checkChangeBeforeClick() throws InterruptedException {
+        int interval = controller.currentIntervalMs();
+        source.changeAfter(0);
+        awaitCaptures(2);
+        long failuresBefore = controller.getFailureCount();
+        clickAndAwait(false);
+        report(controller.getFailureCount() == failuresBefore + 1 && controller.currentIntervalMs() == interval * 2,
+                "点击前发生的变化不算响应，判定为超时，间隔 " + controller.currentIntervalMs() + "ms");
+    }
+
+    /**
+     * 点击一次并等待判定
+     *
+     * @param respond 目标是否在点击后立即响应（下一帧画面变化）
+     * @return 点击到判定的耗时（纳秒）
+     */
+    private static long clickAndAwait(boolean respond) throws InterruptedException {
+        long verdicts = controller.getSuccessCount() + controller.getFailureCount();
+        long start = System.nanoTime();
+        controller.onClick();
+        if (respond) {
+            source.changeAfter(0);
+        }
+        return awaitVerdict(verdicts, start);
+    }
+
+    private static long awaitVerdict(long verdicts, long start) throws InterruptedException {
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(VERDICT_WAIT_MS);
+        while (controller.getSuccessCount() + controller.getFailureCount() == verdicts) {
+            if (System.nanoTime() - deadline > 0) {
+                report(false, "等待判定超过 " + VERDICT_WAIT_MS + "ms");
+                System.exit(1);
+            }
+            Thread.sleep(1);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 等待截图线程再截取若干帧
+     */
+    private static void awaitCaptures(int frames) throws InterruptedException {
+        long target = source.getCaptureCount() + frames;
+        while (source.getCaptureCount() < target) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void report(boolean ok, String message) {
+        if (!ok) {
+            failures++;
+        }
+        System.out.println((ok ? "  ✅ " : "  ❌ ") + message);
+    }
+}
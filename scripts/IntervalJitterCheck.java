@@ -0,0 +1,308 @@
+import src.main.java.IntervalJitter;
+import src.main.java.IntervalJitter.Distribution;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 随机间隔模型检查 - 分布拟合、闭区间边界、种子重放和采样耗时基准
+ *
+ * <p>由 scripts/jitter-check.sh 编译运行，任一检查失败时以非0状态退出。
+ * 每种分布的期望概率由模型的截断分布函数在每个整数的取整区间上积分得到，
+ * 再与采样结果比较均值、方差（5倍标准误差以内）和卡方拟合（显著性 0.001）。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class IntervalJitterCheck {
+
+    private static final int SAMPLES = 200_000;
+    private static final double Z_LIMIT = 5.0;
+    private static final double CHI_SQUARE_Z = 3.09;
+    private static final int BENCHMARK_SAMPLES = 5_000_000;
+
+    private static int failures;
+
+    public static void main(String[] args) throws InterruptedException {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 20261019L;
+        System.out.println("== 分布拟合（种子 " + seed + "，每项 " + SAMPLES + " 次采样）==");
+        int[][] ranges = {{50, 150}, {1, 1000}, {0, 3}, {200, 201}};
+        for (int[] range : ranges) {
+            for (Distribution distribution : Distribution.values()) {
+                checkFit(distribution, range[0], range[1], seed);
+            }
+        }
+        checkDegenerate(seed);
+
+        System.out.println("== 种子重放 ==");
+        checkReplay(seed);
+
+        System.out.println("== 采样耗时 ==");
+        benchmark(seed);
+        benchmarkThreads(seed, Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " 项检查失败");
+            System.exit(1);
+        }
+        System.out.println("✅ 全部检查通过");
+    }
+
+    /**
+     * 比较采样结果与模型的期望分布
+     */
+    private static void checkFit(Distribution distribution, int min, int max, long seed) {
+        double[] expected = expectedPmf(distribution, min, max);
+        IntervalJitter.Sampler sampler = new IntervalJitter(distribution, min, max).newSampler(seed);
+        long[] counts = new long[max - min + 1];
+        int outside = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            int value = sampler.nextInterval();
+            if (value < min || value > max) {
+                outside++;
+            } else {
+                counts[value - min]++;
+            }
+        }
+
+        double mean = 0;
+        double variance = 0;
+        double fourth = 0;
+        double sampleMean = 0;
+        for (int k = 0; k < counts.length; k++) {
+            mean += expected[k] * (min + k);
+            sampleMean += counts[k] * (double) (min + k);
+        }
+        sampleMean /= SAMPLES;
+        double sampleVariance = 0;
+        for (int k = 0; k < counts.length; k++) {
+            double d = min + k - mean;
+            variance += expected[k] * d * d;
+            fourth += expected[k] * d * d * d * d;
+            double s = min + k - sampleMean;
+            sampleVariance += counts[k] * s * s;
+        }
+        sampleVariance /= SAMPLES - 1;
+        double meanZ = (sampleMean - mean) / Math.sqrt(variance / SAMPLES);
+        // 只有两个取值时方差由均值决定，不单独检验
+        double varianceZ = max - min < 2 ? 0 : (sampleVariance - variance)
+                / Math.sqrt((fourth - (SAMPLES - 3.0) / (SAMPLES - 1) * variance * variance) / SAMPLES);
+
+        double chiSquare = 0;
+        int bins = 0;
+        double binExpected = 0;
+        double binObserved = 0;
+        for (int k = 0; k < counts.length; k++) {
+            // 合并相邻的小概率取值，保证每组期望次数不少于5
+            binExpected += expected[k] * SAMPLES;
+            binObserved += counts[k];
+            if (binExpected >= 5 || k == counts.length - 1) {
+                if (binExpected > 0) {
+                    chiSquare += (binObserved - binExpected) * (binObserved - binExpected) / binExpected;
+                    bins++;
+                }
+                binExpected = 0;
+                binObserved = 0;
+            }
+        }
+        int df = Math.max(1, bins - 1);
+        double critical = df * Math.pow(1 - 2.0 / (9 * df) + CHI_SQUARE_Z * Math.sqrt(2.0 / (9 * df)), 3);
+
+        boolean endpoints = distribution != Distribution.UNIFORM || (counts[0] > 0 && counts[counts.length - 1] > 0);
+        boolean ok = outside == 0 && Math.abs(meanZ) <= Z_LIMIT && Math.abs(varianceZ) <= Z_LIMIT
+                && (bins < 2 || chiSquare <= critical) && endpoints;
+        report(ok, String.format("%-6s [%d, %d] 均值 %.3f/%.3f (z=%.1f) 方差 %.3f/%.3f (z=%.1f) χ²=%.1f/%.1f (df=%d)%s%s",
+                distribution.getDisplayName(), min, max, sampleMean, mean, meanZ, sampleVariance, variance,
+                varianceZ, chiSquare, critical, df, outside > 0 ? " 越界 " + outside : "",
+                endpoints ? "" : " 未取到端点"));
+    }
+
+    /**
+     * 最小值等于最大值时总是返回该值
+     */
+    private static void checkDegenerate(long seed) {
+        for (Distribution distribution : Distribution.values()) {
+            IntervalJitter.Sampler sampler = new IntervalJitter(distribution, 75, 75).newSampler(seed);
+            boolean ok = true;
+            for (int i = 0; i < 1000; i++) {
+                ok &= sampler.nextInterval() == 75;
+            }
+            report(ok, distribution.getDisplayName() + " [75, 75] 恒为 75");
+        }
+    }
+
+    /**
+     * 同一种子产生相同的间隔和保持时间序列，保持时间采样不影响间隔序列
+     */
+    private static void checkReplay(long seed) {
+        for (Distribution distribution : Distribution.values()) {
+            IntervalJitter jitter = new IntervalJitter(distribution, 20, 500);
+            IntervalJitter.Sampler a = jitter.newSampler(seed);
+            IntervalJitter.Sampler b = jitter.newSampler(seed);
+            IntervalJitter.Sampler withoutHolds = jitter.newSampler(seed);
+            IntervalJitter.Sampler other = jitter.newSampler(seed + 1);
+            boolean same = true;
+            boolean independent = true;
+            int differences = 0;
+            for (int i = 0; i < 10_000; i++) {
+                int interval = a.nextInterval();
+                same &= interval == b.nextInterval() && a.nextHoldDelay(20, 50) == b.nextHoldDelay(20, 50);
+                independent &= interval == withoutHolds.nextInterval();
+                if (interval != other.nextInterval()) {
+                    differences++;
+                }
+            }
+            report(same && independent && differences > 0, String.format(
+                    "%s 同种子序列一致: %s，保持时间不影响间隔: %s，不同种子相异 %d/10000",
+                    distribution.getDisplayName(), same, independent, differences));
+        }
+    }
+
+    /**
+     * 单线程每次采样的耗时，与 Math.random() 比较
+     */
+    private static void benchmark(long seed) {
+        int sink = 0;
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_SAMPLES; i++) {
+                sink += 50 + (int) (Math.random() * 100);
+            }
+            if (print) {
+                printRate("Math.random()", System.nanoTime() - start);
+            }
+            for (Distribution distribution : Distribution.values()) {
+                IntervalJitter.Sampler sampler = new IntervalJitter(distribution, 50, 150).newSampler(seed);
+                start = System.nanoTime();
+                for (int i = 0; i < BENCHMARK_SAMPLES; i++) {
+                    sink += sampler.nextInterval();
+                }
+                if (print) {
+                    printRate(distribution.getDisplayName(), System.nanoTime() - start);
+                }
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * 多个线程同时采样：Math.random() 共享一个生成器，采样器每个线程独立
+     */
+    private static void benchmarkThreads(long seed, int threads) throws InterruptedException {
+        int perThread = BENCHMARK_SAMPLES / threads;
+        for (int round = 0; round < 2; round++) {
+            long shared = runThreads(threads, index -> {
+                int sink = 0;
+                for (int i = 0; i < perThread; i++) {
+                    sink += 50 + (int) (Math.random() * 100);
+                }
+                return sink;
+            });
+            long local = runThreads(threads, index -> {
+                IntervalJitter.Sampler sampler = new IntervalJitter(Distribution.UNIFORM, 50, 150)
+                        .newSampler(seed + index);
+                int sink = 0;
+                for (int i = 0; i < perThread; i++) {
+                    sink += sampler.nextInterval();
+                }
+                return sink;
+            });
+            if (round == 1) {
+                System.out.println("  " + threads + " 个线程同时采样（总耗时 / 总次数）:");
+                printRate("Math.random()", shared);
+                printRate("均匀分布", local);
+            }
+        }
+    }
+
+    private static long runThreads(int threads, IntUnaryOperator work)
+            throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        int[] sinks = new int[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> sinks[index] = work.applyAsInt(index));
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void printRate(String label, long nanos) {
+        System.out.println(String.format("  %-14s %.1f ns/次", label, nanos / (double) BENCHMARK_SAMPLES));
+    }
+
+    private static void report(boolean ok, String message) {
+        if (!ok) {
+            failures++;
+        }
+        System.out.println((ok ? "  ✅ " : "  ❌ ") + message);
+    }
+
+    /**
+     * 模型的期望概率：截断在 [min, max] 内的连续分布取整到最近的整数
+     */
+    private static double[] expectedPmf(Distribution distribution, int min, int max) {
+        double[] pmf = new double[max - min + 1];
+        if (min == max) {
+            pmf[0] = 1;
+            return pmf;
+        }
+        if (distribution == Distribution.UNIFORM) {
+            Arrays.fill(pmf, 1.0 / pmf.length);
+            return pmf;
+        }
+        DoubleUnaryOperator cdf;
+        double span = 6.0;
+        switch (distribution) {
+            case GAUSSIAN: {
+                double mean = (min + max) / 2.0;
+                double sigma = (max - min) / span;
+                cdf = x -> normalCdf((x - mean) / sigma);
+                break;
+            }
+            case LOG_NORMAL: {
+                double lower = Math.max(1, min);
+                double upper = Math.max(lower, max);
+                double mu = (Math.log(lower) + Math.log(upper)) / 2.0;
+                double sigma = (Math.log(upper) - Math.log(lower)) / span;
+                cdf = x -> x <= 0 ? 0 : normalCdf((Math.log(x) - mu) / sigma);
+                break;
+            }
+            case POISSON:
+            default: {
+                double meanOffset = (max - min) / 2.0;
+                cdf = x -> x <= min ? 0 : 1 - Math.exp(-(x - min) / meanOffset);
+                break;
+            }
+        }
+        double total = cdf.applyAsDouble(max) - cdf.applyAsDouble(min);
+        for (int k = 0; k < pmf.length; k++) {
+            double low = Math.max(min, min + k - 0.5);
+            double high = Math.min(max, min + k + 0.5);
+            pmf[k] = (cdf.applyAsDouble(high) - cdf.applyAsDouble(low)) / total;
+        }
+        return pmf;
+    }
+
+    /**
+     * 标准正态分布函数（Abramowitz-Stegun 7.1.26，误差小于 1.5e-7）
+     */
+    private static double normalCdf(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+                + t * (-1.453152073 + t * 1.061405429)))) * Math.exp(-x * x);
+        return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+}
@@ -0,0 +1,289 @@
+import src.main.java.TemplateMatcher;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 模板匹配检查 - 在合成的 1080p 截图上验证定位结果和耗时
+ *
+ * <p>由 scripts/template-check.sh 编译运行，任一检查失败时以非0状态退出。
+ * 合成截图由随机色块和细线组成（接近界面截图的纹理），再贴上若干随机图标作为定位目标
+ * （与实际使用的按钮、图标一样有足够的细节），检查整屏和限定区域的定位位置、
+ * 不存在的模板不会误报，以及整屏定位的耗时。直接从截图裁剪的低纹理区域（只有一条边缘的色块）
+ * 可能在别处有几乎一样的区域，只要求找回的比例。整屏定位耗时的中位数必须低于 20ms（锚点点击每次都要定位）。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class TemplateMatcherCheck {
+
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final int TEMPLATE_SIZE = 32;
+    private static final double THRESHOLD = 0.9;
+    private static final int TRIALS = 20;
+    private static final double CROP_FOUND_RATIO = 0.9;
+    private static final int TIMING_RUNS = 50;
+    private static final double TIME_LIMIT_MS = 20;
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 20261019L;
+        Random random = new Random(seed);
+        BufferedImage frame = syntheticFrame(random);
+        Rectangle roi = new Rectangle(600, 300, 400, 300);
+        Rectangle whole = new Rectangle(0, 0, WIDTH, HEIGHT);
+        BufferedImage[] icons = new BufferedImage[TRIALS];
+        Rectangle[] placed = new Rectangle[TRIALS];
+        BufferedImage[] insideIcons = new BufferedImage[TRIALS];
+        Rectangle[] insidePlaced = new Rectangle[TRIALS];
+        List<Rectangle> occupied = new ArrayList<>();
+        Graphics2D g = frame.createGraphics();
+        for (int i = 0; i < TRIALS; i++) {
+            icons[i] = icon(random);
+            placed[i] = freeTarget(random, whole, occupied);
+            g.drawImage(icons[i], placed[i].x, placed[i].y, null);
+            insideIcons[i] = icon(random);
+            insidePlaced[i] = freeTarget(random, roi, occupied);
+            g.drawImage(insideIcons[i], insidePlaced[i].x, insidePlaced[i].y, null);
+        }
+        g.dispose();
+
+        System.out.println("== 定位（种子 " + seed + "，" + WIDTH + "x" + HEIGHT + "，模板 " + TEMPLATE_SIZE + "x"
+                + TEMPLATE_SIZE + "）==");
+        checkIcons(frame, whole, icons, placed, insidePlaced);
+        checkRegionOfInterest(frame, roi, insideIcons, insidePlaced, icons, placed);
+        checkAbsent(frame, random);
+        checkCrops(frame, random);
+
+        System.out.println("== 整屏定位耗时 ==");
+        checkTiming(frame, button(random), "色块较大的按钮");
+        checkTiming(frame, icons[0], "细节较多的图标");
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " 项检查失败");
+            System.exit(1);
+        }
+        System.out.println("✅ 全部检查通过");
+    }
+
+    /**
+     * 从整屏中找回所有图标（包括搜索区域内的图标）
+     */
+    private static void checkIcons(BufferedImage frame, Rectangle whole, BufferedImage[] icons, Rectangle[] placed,
+                                   Rectangle[] insidePlaced) {
+        int found = 0;
+        double worst = 1;
+        for (int i = 0; i < TRIALS; i++) {
+            TemplateMatcher.Match match = find(frame, whole, icons[i]);
+            if (at(match, placed[i])) {
+                found++;
+                worst = Math.min(worst, match.score);
+            } else {
+                System.out.println("    未找到 " + describe(placed[i], match));
+            }
+        }
+        report(found == TRIALS, String.format("整屏定位图标 %d/%d，最低得分 %.4f", found, TRIALS, worst));
+    }
+
+    /**
+     * 限定搜索区域：区域内的图标能找到，坐标相对整屏；区域外的图标不会被找到
+     */
+    private static void checkRegionOfInterest(BufferedImage frame, Rectangle roi, BufferedImage[] insideIcons,
+                                              Rectangle[] insidePlaced, BufferedImage[] icons, Rectangle[] placed) {
+        int inside = 0;
+        int outsideMisses = 0;
+        int outsideTotal = 0;
+        for (int i = 0; i < TRIALS; i++) {
+            TemplateMatcher.Match match = find(frame, roi, insideIcons[i]);
+            if (at(match, insidePlaced[i])) {
+                inside++;
+            } else {
+                System.out.println("    区域内未找到 " + describe(insidePlaced[i], match));
+            }
+            if (!roi.intersects(placed[i])) {
+                outsideTotal++;
+                match = find(frame, roi, icons[i]);
+                if (match == null) {
+                    outsideMisses++;
+                } else {
+                    System.out.println("    区域外误报 " + describe(placed[i], match));
+                }
+            }
+        }
+        report(inside == TRIALS && outsideMisses == outsideTotal, String.format(
+                "区域内定位 %d/%d，区域外图标未被误报 %d/%d", inside, TRIALS, outsideMisses, outsideTotal));
+    }
+
+    /**
+     * 截图中不存在的图标不会超过阈值
+     */
+    private static void checkAbsent(BufferedImage frame, Random random) {
+        int rejected = 0;
+        for (int i = 0; i < TRIALS; i++) {
+            TemplateMatcher.Match match = find(frame, new Rectangle(0, 0, WIDTH, HEIGHT), icon(random));
+            if (match == null) {
+                rejected++;
+            } else {
+                System.out.println("    误报 " + match.x + "," + match.y + " (" + match.score + ")");
+            }
+        }
+        report(rejected == TRIALS, String.format("不存在的图标未被误报 %d/%d（阈值 %.2f）", rejected, TRIALS, THRESHOLD));
+    }
+
+    /**
+     * 直接从截图随机裁剪的区域（可能只有一条边缘），要求大部分能找回原位置
+     */
+    private static void checkCrops(BufferedImage frame, Random random) {
+        Rectangle whole = new Rectangle(0, 0, WIDTH, HEIGHT);
+        int found = 0;
+        for (int i = 0; i < TRIALS; i++) {
+            Rectangle target = randomTarget(random, whole);
+            TemplateMatcher.Match match = find(frame, whole,
+                    frame.getSubimage(target.x, target.y, TEMPLATE_SIZE, TEMPLATE_SIZE));
+            if (at(match, target)) {
+                found++;
+            }
+        }
+        report(found >= TRIALS * CROP_FOUND_RATIO, String.format("随机裁剪区域找回 %d/%d（要求不少于 %.0f%%）",
+                found, TRIALS, CROP_FOUND_RATIO * 100));
+    }
+
+    /**
+     * 整屏定位耗时（预热后，包含降采样、积分图构建和候选点重新评分）
+     */
+    private static void checkTiming(BufferedImage frame, BufferedImage image, String label) {
+        Rectangle whole = new Rectangle(0, 0, WIDTH, HEIGHT);
+        TemplateMatcher.Template template = TemplateMatcher.prepare(copy(image));
+        for (int i = 0; i < TIMING_RUNS; i++) {
+            TemplateMatcher.find(frame, whole, template, THRESHOLD);
+        }
+        long[] nanos = new long[TIMING_RUNS];
+        for (int i = 0; i < TIMING_RUNS; i++) {
+            long start = System.nanoTime();
+            TemplateMatcher.find(frame, whole, template, THRESHOLD);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double median = nanos[TIMING_RUNS / 2] / 1_000_000.0;
+        double p90 = nanos[TIMING_RUNS * 9 / 10] / 1_000_000.0;
+        report(median < TIME_LIMIT_MS, String.format("%s 中位数 %.2fms / P90 %.2fms（要求中位数 < %.0fms，%d 个处理器）",
+                label, median, p90, TIME_LIMIT_MS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    private static boolean at(TemplateMatcher.Match match, Rectangle target) {
+        return match != null && match.x == target.x && match.y == target.y;
+    }
+
+    private static String describe(Rectangle target, TemplateMatcher.Match match) {
+        return target.x + "," + target.y + " -> "
+                + (match != null ? match.x + "," + match.y + " (" + match.score + ")" : "null");
+    }
+
+    private static TemplateMatcher.Match find(BufferedImage frame, Rectangle roi, BufferedImage template) {
+        return TemplateMatcher.find(frame, roi, TemplateMatcher.prepare(copy(template)), THRESHOLD);
+    }
+
+    private static Rectangle randomTarget(Random random, Rectangle area) {
+        return new Rectangle(area.x + random.nextInt(area.width - TEMPLATE_SIZE + 1),
+                area.y + random.nextInt(area.height - TEMPLATE_SIZE + 1), TEMPLATE_SIZE, TEMPLATE_SIZE);
+    }
+
+    /**
+     * 随机色块和细线组成的合成截图
+     */
+    private static BufferedImage syntheticFrame(Random random) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(random.nextInt(0xFFFFFF)));
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        for (int i = 0; i < 6000; i++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillRect(random.nextInt(WIDTH), random.nextInt(HEIGHT), 4 + random.nextInt(60), 4 + random.nextInt(40));
+        }
+        for (int i = 0; i < 4000; i++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            int x = random.nextInt(WIDTH);
+            int y = random.nextInt(HEIGHT);
+            g.drawLine(x, y, x + random.nextInt(41) - 20, y + random.nextInt(41) - 20);
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * 不与已放置图标重叠的随机位置
+     */
+    private static Rectangle freeTarget(Random random, Rectangle area, List<Rectangle> occupied) {
+        while (true) {
+            Rectangle target = randomTarget(random, area);
+            boolean free = true;
+            for (Rectangle other : occupied) {
+                free &= !other.intersects(target);
+            }
+            if (free) {
+                occupied.add(target);
+                return target;
+            }
+        }
+    }
+
+    /**
+     * 随机图标：带边框的底色上叠加若干小色块，细节程度与界面上的按钮、图标相当
+     */
+    private static BufferedImage icon(Random random) {
+        BufferedImage image = new BufferedImage(TEMPLATE_SIZE, TEMPLATE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(random.nextInt(0xFFFFFF)));
+        g.fillRect(0, 0, TEMPLATE_SIZE, TEMPLATE_SIZE);
+        g.setColor(new Color(random.nextInt(0xFFFFFF)));
+        g.drawRect(0, 0, TEMPLATE_SIZE - 1, TEMPLATE_SIZE - 1);
+        for (int i = 0; i < 12; i++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillRect(2 + random.nextInt(TEMPLATE_SIZE - 8), 2 + random.nextInt(TEMPLATE_SIZE - 8),
+                    2 + random.nextInt(6), 2 + random.nextInt(6));
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * 随机按钮：边框、底色和一个较大的色块，没有小于降采样块的细节
+     */
+    private static BufferedImage button(Random random) {
+        BufferedImage image = new BufferedImage(TEMPLATE_SIZE, TEMPLATE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(random.nextInt(0xFFFFFF)));
+        g.fillRect(0, 0, TEMPLATE_SIZE, TEMPLATE_SIZE);
+        g.setColor(new Color(random.nextInt(0xFFFFFF)));
+        g.fillRect(8, 8, TEMPLATE_SIZE - 16, TEMPLATE_SIZE - 16);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * 复制为独立图像（与截图得到的参考图一样不共享缓冲区）
+     */
+    private static BufferedImage copy(BufferedImage source) {
+        BufferedImage image = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return image;
+    }
+
+    private static void report(boolean ok, String message) {
+        if (!ok) {
+            failures++;
+        }
+        System.out.println((ok ? "  ✅ " : "  ❌ ") + message);
+    }
+}
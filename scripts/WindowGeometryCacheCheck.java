@@ -0,0 +1,177 @@
+import src.main.java.FakeWindowGeometryProvider;
+import src.main.java.WindowGeometryCache;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 窗口位置缓存检查 - 有效期、命中率、未找到结果的缓存和查询失败
+ *
+ * <p>由 scripts/window-cache-check.sh 编译运行，任一检查失败时以非0状态退出。
+ * 窗口来源使用 {@link FakeWindowGeometryProvider}，时间来源是手动推进的时钟，
+ * 每次实际查询固定耗时 {@value #QUERY_MS}ms，结果与运行环境的速度无关。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class WindowGeometryCacheCheck {
+
+    private static final int TTL_MS = 500;
+    private static final int QUERY_MS = 2;
+    private static final String TITLE = "记事本";
+    private static final Rectangle BOUNDS = new Rectangle(100, 200, 800, 600);
+    private static final Rectangle MOVED = new Rectangle(300, 250, 800, 600);
+
+    private static int failures;
+
+    private static long now;
+    private static FakeWindowGeometryProvider windows;
+    private static WindowGeometryCache cache;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("== 有效期（" + TTL_MS + "ms，每次查询 " + QUERY_MS + "ms）==");
+        checkExpiry();
+
+        System.out.println("== 未找到的窗口 ==");
+        checkNotFound();
+
+        System.out.println("== 命中率和查询耗时 ==");
+        checkHitRate();
+
+        System.out.println("== 跳过缓存和查询失败 ==");
+        checkFreshAndFailure();
+
+        if (failures > 0) {
+            System.out.println("❌ " + failures + " 项检查失败");
+            System.exit(1);
+        }
+        System.out.println("✅ 全部检查通过");
+    }
+
+    /**
+     * 创建新的窗口来源和缓存，时钟归零
+     */
+    private static void setUp() {
+        now = 0;
+        windows = new FakeWindowGeometryProvider();
+        cache = new WindowGeometryCache(title -> {
+            advance(QUERY_MS);
+            return windows.findWindow(title);
+        }, TTL_MS, () -> now);
+    }
+
+    private static void advance(long ms) {
+        now += TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+
+    /**
+     * 有效期内返回缓存结果（窗口移动也不重新查询），有效期从查询结束时开始计算
+     */
+    private static void checkExpiry() throws IOException {
+        setUp();
+        windows.setWindow(TITLE + " - 未命名", BOUNDS);
+        Rectangle first = cache.find(TITLE);
+        report(BOUNDS.equals(first) && windows.getQueries() == 1, "首次查询找到窗口: " + first);
+
+        first.translate(10, 10);
+        windows.setWindow(TITLE + " - 未命名", MOVED);
+        advance(TTL_MS - 1);
+        Rectangle cached = cache.find(TITLE);
+        report(BOUNDS.equals(cached) && windows.getQueries() == 1,
+                "有效期内（" + (TTL_MS - 1) + "ms 后）不重新查询，返回未被调用方修改的缓存位置");
+
+        advance(1);
+        Rectangle refreshed = cache.find(TITLE);
+        report(MOVED.equals(refreshed) && windows.getQueries() == 2,
+                "查询结束 " + TTL_MS + "ms 后过期，重新查询得到移动后的位置: " + refreshed);
+    }
+
+    /**
+     * 未找到的结果同样缓存，有效期内不重复查询窗口系统
+     */
+    private static void checkNotFound() throws IOException {
+        setUp();
+        Rectangle missing = cache.find(TITLE);
+        report(missing == null && windows.getQueries() == 1, "窗口不存在时返回 null");
+
+        windows.setWindow(TITLE, BOUNDS);
+        for (int i = 0; i < 5; i++) {
+            advance(TTL_MS / 10);
+            missing = cache.find(TITLE);
+        }
+        report(missing == null && windows.getQueries() == 1, "有效期内重复查询返回缓存的 null，不重新查询");
+
+        advance(TTL_MS);
+        Rectangle found = cache.find(TITLE);
+        report(BOUNDS.equals(found) && windows.getQueries() == 2, "过期后重新查询，找到新打开的窗口: " + found);
+    }
+
+    /**
+     * 1 次实际查询 + 9 次命中，命中率 0.9，平均和最长查询耗时都是单次查询耗时
+     */
+    private static void checkHitRate() throws IOException {
+        setUp();
+        report(cache.getHitRate() == 0 && cache.getLookups() == 0, "没有查询时命中率为 0");
+
+        windows.setWindow(TITLE, BOUNDS);
+        for (int i = 0; i < 10; i++) {
+            cache.find(TITLE);
+            advance(TTL_MS / 20);
+        }
+        report(cache.getLookups() == 10 && Math.abs(cache.getHitRate() - 0.9) < 1e-9,
+                String.format("10 次查询命中率 %.2f（期望 0.90）", cache.getHitRate()));
+        long queryNanos = TimeUnit.MILLISECONDS.toNanos(QUERY_MS);
+        report(cache.getAverageQueryNanos() == queryNanos && cache.getMaxQueryNanos() == queryNanos,
+                String.format("平均查询耗时 %.1fms，最长 %.1fms（期望 %dms）", cache.getAverageQueryNanos() / 1e6,
+                        cache.getMaxQueryNanos() / 1e6, QUERY_MS));
+
+        // 不同标题各自缓存，统计合计
+        windows.setWindow("浏览器", MOVED);
+        cache.find("浏览器");
+        cache.find("浏览器");
+        report(cache.getLookups() == 12 && Math.abs(cache.getHitRate() - 10.0 / 12) < 1e-9,
+                String.format("不同标题分别缓存，12 次查询命中率 %.3f（期望 %.3f）", cache.getHitRate(), 10.0 / 12));
+
+        cache.reset();
+        report(cache.getLookups() == 0 && cache.getHitRate() == 0 && cache.getMaxQueryNanos() == 0,
+                "重置后统计清零");
+        int queries = windows.getQueries();
+        cache.find(TITLE);
+        report(windows.getQueries() == queries + 1, "重置后清空缓存，重新查询");
+    }
+
+    /**
+     * findFresh 总是重新查询；查询失败不缓存，下一次继续查询
+     */
+    private static void checkFreshAndFailure() throws IOException {
+        setUp();
+        windows.setWindow(TITLE, BOUNDS);
+        cache.find(TITLE);
+        windows.setWindow(TITLE, MOVED);
+        Rectangle fresh = cache.findFresh(TITLE);
+        report(MOVED.equals(fresh) && windows.getQueries() == 2, "跳过缓存直接查询得到最新位置: " + fresh);
+        Rectangle cached = cache.find(TITLE);
+        report(MOVED.equals(cached) && windows.getQueries() == 2, "直接查询的结果刷新缓存");
+
+        advance(TTL_MS);
+        windows.failNextQuery("wmctrl 未安装");
+        boolean thrown = false;
+        try {
+            cache.find(TITLE);
+        } catch (IOException e) {
+            thrown = true;
+        }
+        report(thrown, "查询失败时抛出 IOException");
+        Rectangle retried = cache.find(TITLE);
+        report(MOVED.equals(retried) && windows.getQueries() == 4, "失败结果不缓存，下一次重新查询成功");
+    }
+
+    private static void report(boolean ok, String message) {
+        if (!ok) {
+            failures++;
+        }
+        System.out.println((ok ? "  ✅ " : "  ❌ ") + message);
+    }
+}
@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+# 自适应速率检查：用按脚本变化的屏幕来源检查 AIMD 的降速、恢复、上下限和采样规则，失败时返回非0
+# 用法: scripts/adaptive-check.sh
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+OUT=out
+CHECK_OUT="$OUT/scripts"
+
+javac -encoding UTF-8 --release 8 src/main/java/*.java -d "$OUT"
+javac -encoding UTF-8 --release 8 -cp "$OUT" scripts/AdaptiveRateCheck.java -d "$CHECK_OUT"
+java -Djava.awt.headless=true -cp "$OUT:$CHECK_OUT" AdaptiveRateCheck
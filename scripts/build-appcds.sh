@@ -0,0 +1,23 @@
+#!/usr/bin/env bash
+# 编译 V2 并生成 AppCDS 类数据归档，缩短启动时间（需要 JDK 13+）
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+OUT=out
+ARCHIVE="$OUT/mouseclicker-v2.jsa"
+MAIN=src.main.java.HotkeyPositionMouseClickerV2
+
+JAVA_MAJOR=$(java -XshowSettings:properties -version 2>&1 | awk -F'= ' '/java.specification.version/ {print $2}')
+if [ "${JAVA_MAJOR%%.*}" -lt 13 ]; then
+    echo "需要 JDK 13 或更高版本才能生成 AppCDS 归档（当前: $JAVA_MAJOR）" >&2
+    exit 1
+fi
+
+javac -encoding UTF-8 --release 8 src/main/java/*.java -d "$OUT"
+
+# 训练运行：界面就绪后自动退出，JVM 退出时把加载过的类写入归档
+rm -f "$ARCHIVE"
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dmouseclicker.exitWhenReady=true -cp "$OUT" "$MAIN"
+
+echo "已生成 $ARCHIVE"
+echo "启动命令: java -XX:SharedArchiveFile=$ARCHIVE -cp $OUT $MAIN"
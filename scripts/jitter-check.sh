@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+# 随机间隔模型检查：各分布的均值/方差/卡方拟合、闭区间边界、种子重放和采样耗时，失败时返回非0
+# 用法: scripts/jitter-check.sh [随机种子]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+OUT=out
+CHECK_OUT="$OUT/scripts"
+
+javac -encoding UTF-8 --release 8 src/main/java/*.java -d "$OUT"
+javac -encoding UTF-8 --release 8 -cp "$OUT" scripts/IntervalJitterCheck.java -d "$CHECK_OUT"
+java -cp "$OUT:$CHECK_OUT" IntervalJitterCheck "$@"
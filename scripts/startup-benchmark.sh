@@ -0,0 +1,30 @@
+#!/usr/bin/env bash
+# V2 启动耗时基准：分别在不使用和使用 AppCDS 归档时启动若干次，输出首次绘制和界面就绪耗时
+# 用法: scripts/startup-benchmark.sh [次数]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+OUT=out
+ARCHIVE="$OUT/mouseclicker-v2.jsa"
+MAIN=src.main.java.HotkeyPositionMouseClickerV2
+
+if [ ! -d "$OUT" ]; then
+    javac -encoding UTF-8 --release 8 src/main/java/*.java -d "$OUT"
+fi
+
+run() {
+    local label=$1
+    shift
+    echo "== $label =="
+    for _ in $(seq "$RUNS"); do
+        java "$@" -Dmouseclicker.exitWhenReady=true -cp "$OUT" "$MAIN"
+    done
+}
+
+run "默认启动"
+if [ -f "$ARCHIVE" ]; then
+    run "AppCDS 归档" -XX:SharedArchiveFile="$ARCHIVE"
+else
+    echo "未找到 $ARCHIVE，跳过 AppCDS 对比（先运行 scripts/build-appcds.sh）"
+fi
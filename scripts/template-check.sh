@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+# 模板匹配检查：在合成的 1080p 截图上验证整屏/限定区域定位、不误报，以及整屏定位耗时（中位数低于 20ms），失败时返回非0
+# 用法: scripts/template-check.sh [随机种子]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+OUT=out
+CHECK_OUT="$OUT/scripts"
+
+javac -encoding UTF-8 --release 8 src/main/java/*.java -d "$OUT"
+javac -encoding UTF-8 --release 8 -cp "$OUT" scripts/TemplateMatcherCheck.java -d "$CHECK_OUT"
+java -Djava.awt.headless=true -cp "$OUT:$CHECK_OUT" TemplateMatcherCheck "$@"
@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+# 窗口位置缓存检查：有效期、命中率、未找到结果的缓存和查询失败（模拟窗口来源和时钟），失败时返回非0
+# 用法: scripts/window-cache-check.sh
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+OUT=out
+CHECK_OUT="$OUT/scripts"
+
+javac -encoding UTF-8 --release 8 src/main/java/*.java -d "$OUT"
+javac -encoding UTF-8 --release 8 -cp "$OUT" scripts/WindowGeometryCacheCheck.java -d "$CHECK_OUT"
+java -Djava.awt.headless=true -cp "$OUT:$CHECK_OUT" WindowGeometryCacheCheck
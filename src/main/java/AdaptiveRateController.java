@@ -0,0 +1,194 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 自适应速率控制器 - 目标程序跟不上时自动降速
+ *
+ * <p>工作方式：
+ * <ul>
+ *   <li>点击线程每次点击（或每轮）后调用 {@link #onClick()}，该调用不会阻塞</li>
+ *   <li>通过 {@link ScreenCaptureService} 订阅检测区域，判定在截图线程上完成</li>
+ *   <li>响应窗口内区域发生变化视为目标已响应，速率加性增加；
+ *       超时仍未变化视为丢失，速率乘性减半（AIMD）</li>
+ *   <li>点击线程通过 {@link #currentIntervalMs()} 读取当前间隔</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class AdaptiveRateController {
+
+    /**
+     * 每次成功后增加的速率占初始速率的比例
+     */
+    private static final double ADDITIVE_INCREASE_RATIO = 0.1;
+
+    /**
+     * 每次失败后速率的缩减系数
+     */
+    private static final double MULTIPLICATIVE_DECREASE = 0.5;
+
+    /**
+     * 每秒毫秒数
+     */
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private final ScreenCaptureService captureService;
+    private final Rectangle region;
+    private final long responseTimeoutNanos;
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveStep;
+
+    /**
+     * 当前速率（次/秒），仅截图线程写入
+     */
+    private volatile double rate;
+
+    /**
+     * 当前间隔（毫秒），点击线程读取
+     */
+    private volatile int intervalMs;
+
+    /**
+     * 待采样的点击时间戳（纳秒），0表示没有待处理的采样
+     */
+    private final AtomicLong pendingClickNanos = new AtomicLong();
+
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    private volatile ScreenCaptureService.Subscription subscription;
+
+    /**
+     * 构造函数
+     *
+     * @param captureService 截图服务
+     * @param region 检测区域
+     * @param initialIntervalMs 初始间隔（毫秒）
+     * @param minIntervalMs 允许的最小间隔（毫秒）
+     * @param maxIntervalMs 允许的最大间隔（毫秒）
+     * @param responseTimeoutMs 点击后等待目标响应的最长时间（毫秒）
+     */
+    public AdaptiveRateController(ScreenCaptureService captureService, Rectangle region,
+            int initialIntervalMs, int minIntervalMs, int maxIntervalMs, int responseTimeoutMs) {
+        if (minIntervalMs < 1 || minIntervalMs > maxIntervalMs) {
+            throw new IllegalArgumentException("间隔范围无效: " + minIntervalMs + " - " + maxIntervalMs);
+        }
+        this.captureService = captureService;
+        this.region = new Rectangle(region);
+        this.responseTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, responseTimeoutMs));
+        this.minRate = MILLIS_PER_SECOND / maxIntervalMs;
+        this.maxRate = MILLIS_PER_SECOND / minIntervalMs;
+        int initial = Math.max(minIntervalMs, Math.min(maxIntervalMs, initialIntervalMs));
+        this.additiveStep = (MILLIS_PER_SECOND / initial) * ADDITIVE_INCREASE_RATIO;
+        setRate(MILLIS_PER_SECOND / initial);
+    }
+
+    /**
+     * 订阅检测区域，开始判定
+     */
+    public synchronized void start() {
+        if (subscription != null) {
+            return;
+        }
+        subscription = captureService.subscribe(region, ScreenCaptureService.DEFAULT_FRAME_INTERVAL_MS,
+                this::onFrame);
+    }
+
+    /**
+     * 取消订阅
+     */
+    public synchronized void stop() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+    }
+
+    /**
+     * 通知发生了一次点击（或一轮点击），不阻塞调用线程
+     *
+     * <p>如果上一次点击尚未判定完成，本次点击不会被采样。
+     */
+    public void onClick() {
+        if (subscription == null || !pendingClickNanos.compareAndSet(0L, System.nanoTime())) {
+            skippedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 当前建议的间隔（毫秒）
+     */
+    public int currentIntervalMs() {
+        return intervalMs;
+    }
+
+    /**
+     * 当前速率（次/秒）
+     */
+    public double currentRate() {
+        return rate;
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * 截图线程回调：在响应窗口内检测到变化即为成功，超时为失败
+     */
+    private void onFrame(ScreenCaptureService.Frame frame, boolean changed) {
+        long clickNanos = pendingClickNanos.get();
+        if (clickNanos == 0L) {
+            return;
+        }
+        long elapsed = frame.getTimestampNanos() - clickNanos;
+        if (elapsed <= 0) {
+            // 这一帧在点击之前截取，不能说明目标是否响应
+            return;
+        }
+        if (!frame.hasPrevious()) {
+            // 截图簇刚重建，没有上一帧可比较，既不算响应也不算超时
+            return;
+        }
+        if (changed) {
+            evaluate(true);
+            pendingClickNanos.set(0L);
+        } else if (elapsed >= responseTimeoutNanos) {
+            evaluate(false);
+            pendingClickNanos.set(0L);
+        }
+    }
+
+    /**
+     * 根据判定结果执行AIMD调整
+     */
+    void evaluate(boolean responded) {
+        if (responded) {
+            successCount.incrementAndGet();
+            setRate(Math.min(maxRate, rate + additiveStep));
+        } else {
+            failureCount.incrementAndGet();
+            setRate(Math.max(minRate, rate * MULTIPLICATIVE_DECREASE));
+        }
+    }
+
+    private void setRate(double newRate) {
+        rate = newRate;
+        intervalMs = Math.max(1, (int) Math.round(MILLIS_PER_SECOND / newRate));
+    }
+}
@@ -0,0 +1,250 @@
+package src.main.java;
+
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.PointerInfo;
+import java.awt.Robot;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点击安全保护 - 紧急停止和按键释放保证
+ *
+ * <p>功能：
+ * <ul>
+ *   <li>看门狗线程每个周期读取真实鼠标位置：鼠标被甩到任一显示器角落（程序移动到的位置本身在角落时除外），
+ *       或偏离程序移动到的位置（用户在争夺鼠标）时，立即释放按键并通知停止</li>
+ *   <li>所有按下/释放都经过本类记录，任何退出路径（正常结束、中断、看门狗停止、
+ *       JVM 关闭钩子）都会释放仍处于按下状态的按键</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class ClickFailsafe implements AutoCloseable {
+
+    /**
+     * 停止回调
+     */
+    public interface AbortListener {
+
+        /**
+         * 看门狗触发停止，在看门狗线程上调用，按键已经释放
+         *
+         * @param reason 停止原因
+         * @param detectedNanos 检测到异常时的 {@link System#nanoTime()}
+         */
+        void onAbort(String reason, long detectedNanos);
+    }
+
+    /**
+     * 看门狗检测周期（毫秒）
+     */
+    public static final int TICK_MS = 10;
+
+    /**
+     * 角落判定范围（像素）
+     */
+    private static final int CORNER_SIZE = 5;
+
+    /**
+     * 允许的鼠标位置偏差（像素），用于容忍缩放取整
+     */
+    private static final int POSITION_TOLERANCE = 10;
+
+    /**
+     * 程序移动鼠标后的容忍时间（毫秒），期间不判定位置偏离
+     */
+    private static final int MOVE_GRACE_MS = 50;
+
+    private final Robot robot;
+    private final AbortListener listener;
+    private final Thread shutdownHook;
+
+    /**
+     * 当前按下的按键掩码，press/release/releaseAll 互斥
+     */
+    private int pressedMask;
+
+    private volatile boolean hasExpectation;
+    private volatile int expectedX;
+    private volatile int expectedY;
+    private volatile long expectedSinceNanos;
+
+    private volatile boolean aborted;
+    private volatile String abortReason;
+    private volatile long abortDetectedNanos;
+    private volatile long releaseLatencyNanos;
+
+    private Thread watchdog;
+
+    /**
+     * 构造函数
+     *
+     * @param robot 用于按下和释放按键的 Robot
+     * @param listener 看门狗停止回调
+     */
+    public ClickFailsafe(Robot robot, AbortListener listener) {
+        this.robot = robot;
+        this.listener = listener;
+        this.shutdownHook = new Thread(this::releaseAll, "ClickFailsafeShutdown");
+    }
+
+    /**
+     * 启动看门狗并注册关闭钩子
+     */
+    public synchronized void start() {
+        if (watchdog != null) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        watchdog = new Thread(this::watch, "ClickFailsafe");
+        watchdog.setDaemon(true);
+        watchdog.setPriority(Thread.MAX_PRIORITY);
+        watchdog.start();
+    }
+
+    /**
+     * 停止看门狗，释放所有按键并注销关闭钩子
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            thread = watchdog;
+            watchdog = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM 正在关闭，钩子会负责释放
+            }
+        }
+        releaseAll();
+    }
+
+    /**
+     * 按下按键，已触发停止后不再按下
+     */
+    public synchronized void press(int buttonMask) {
+        if (aborted) {
+            return;
+        }
+        pressedMask |= buttonMask;
+        robot.mousePress(buttonMask);
+    }
+
+    /**
+     * 释放按键
+     */
+    public synchronized void release(int buttonMask) {
+        if ((pressedMask & buttonMask) != 0) {
+            pressedMask &= ~buttonMask;
+            robot.mouseRelease(buttonMask);
+        }
+    }
+
+    /**
+     * 释放所有仍处于按下状态的按键，可重复调用
+     */
+    public synchronized void releaseAll() {
+        int mask = pressedMask;
+        pressedMask = 0;
+        for (int bit = Integer.lowestOneBit(mask); bit != 0; bit = Integer.lowestOneBit(mask)) {
+            mask &= ~bit;
+            try {
+                robot.mouseRelease(bit);
+            } catch (RuntimeException e) {
+                // 继续释放其余按键
+            }
+        }
+    }
+
+    /**
+     * 程序即将把鼠标移动到指定位置，需在 mouseMove 之前调用
+     */
+    public void expect(int x, int y) {
+        expectedSinceNanos = System.nanoTime();
+        expectedX = x;
+        expectedY = y;
+        hasExpectation = true;
+    }
+
+    /**
+     * 不再检查鼠标位置偏离（例如暂停期间或恢复鼠标位置时）
+     */
+    public void clearExpectation() {
+        hasExpectation = false;
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    public String getAbortReason() {
+        return abortReason;
+    }
+
+    /**
+     * 检测到异常的时间（System.nanoTime），未触发时为 0
+     */
+    public long getAbortDetectedNanos() {
+        return abortDetectedNanos;
+    }
+
+    /**
+     * 从检测到异常到按键全部释放的耗时（纳秒）
+     */
+    public long getReleaseLatencyNanos() {
+        return releaseLatencyNanos;
+    }
+
+    private void watch() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MS);
+        long graceNanos = TimeUnit.MILLISECONDS.toNanos(MOVE_GRACE_MS);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                PointerInfo info = MouseInfo.getPointerInfo();
+                long now = System.nanoTime();
+                if (info != null) {
+                    Point location = info.getLocation();
+                    String reason = check(location, now, graceNanos);
+                    if (reason != null) {
+                        abort(reason, now);
+                        return;
+                    }
+                }
+                TimeUnit.NANOSECONDS.sleep(tickNanos);
+            }
+        } catch (InterruptedException e) {
+            // 正常停止
+        }
+    }
+
+    private String check(Point location, long now, long graceNanos) {
+        boolean expecting = hasExpectation;
+        int x = expectedX;
+        int y = expectedY;
+        boolean atExpected = expecting && Math.abs(location.x - x) <= POSITION_TOLERANCE
+                && Math.abs(location.y - y) <= POSITION_TOLERANCE;
+        // 程序自己把鼠标移到角落附近的位置（如开始按钮、最大化窗口的关闭按钮）不算甩到角落
+        if (!atExpected && ScreenGeometry.get().isInCorner(location.x, location.y, CORNER_SIZE)) {
+            return "鼠标移到了屏幕角落 (" + location.x + ", " + location.y + ")";
+        }
+        if (expecting && !atExpected && now - expectedSinceNanos > graceNanos) {
+            return "鼠标被移动到 (" + location.x + ", " + location.y + ")，预期位置 (" + x + ", " + y + ")";
+        }
+        return null;
+    }
+
+    private void abort(String reason, long detectedNanos) {
+        aborted = true;
+        abortReason = reason;
+        abortDetectedNanos = detectedNanos;
+        releaseAll();
+        releaseLatencyNanos = System.nanoTime() - detectedNanos;
+        listener.onAbort(reason, detectedNanos);
+    }
+}
@@ -0,0 +1,234 @@
+package src.main.java;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 点击时间线 - 记录每次点击各阶段耗时的环形缓冲区，可导出为 Chrome trace JSON
+ *
+ * <p>设计要点：
+ * <ul>
+ *   <li>关闭时 {@link #begin()} 只读取一个 volatile 标志并返回 0，{@link #end} 直接返回，没有其他开销</li>
+ *   <li>开启时事件写入预分配的并列原子数组，不创建对象；写满后覆盖最早的事件</li>
+ *   <li>写入方通过原子序号领取槽位，先把槽位标记为写入中，写完后发布序号（顺序锁）；
+ *       导出时在读取字段前后各检查一次序号，跳过尚未写完或读取期间被覆盖的槽位</li>
+ *   <li>导出文件可在 {@code chrome://tracing} 或 Perfetto 中按时间线查看</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class ClickTrace {
+
+    /**
+     * 默认容量（事件数，必须是2的幂）
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * 时间线阶段
+     */
+    public enum Phase {
+        RESOLVE("定位", Lane.CLICK),
+        CONDITION("条件等待", Lane.CLICK),
+        MOVE("移动", Lane.CLICK),
+        SETTLE("移动后等待", Lane.CLICK),
+        PRESS("按下", Lane.CLICK),
+        HOLD("按住", Lane.CLICK),
+        RELEASE("释放", Lane.CLICK),
+        WAIT("间隔等待", Lane.CLICK),
+        LOG("界面日志", Lane.EDT);
+
+        private final String label;
+        private final Lane lane;
+
+        Phase(String label, Lane lane) {
+            this.label = label;
+            this.lane = lane;
+        }
+    }
+
+    /**
+     * 时间线中的行（Chrome trace 中的线程）
+     */
+    private enum Lane {
+        CLICK(1, "点击线程"),
+        EDT(2, "事件分发线程");
+
+        private final int tid;
+        private final String name;
+
+        Lane(int tid, String name) {
+            this.tid = tid;
+            this.name = name;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final int mask;
+    private final AtomicLongArray starts;
+    private final AtomicLongArray durations;
+
+    /**
+     * 阶段序号（高32位）和附加参数（低32位）
+     */
+    private final AtomicLongArray tags;
+
+    /**
+     * 每个槽位已写完的事件序号 + 1（0 表示空槽或正在写入）
+     */
+    private final AtomicLongArray published;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    private volatile boolean enabled;
+
+    /**
+     * 时间线的时间原点（System.nanoTime）
+     */
+    private volatile long originNanos = System.nanoTime();
+
+    /**
+     * 构造函数
+     *
+     * @param capacity 容量（事件数，向上取整为2的幂）
+     */
+    public ClickTrace(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.starts = new AtomicLongArray(size);
+        this.durations = new AtomicLongArray(size);
+        this.tags = new AtomicLongArray(size);
+        this.published = new AtomicLongArray(size);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 清空已记录的事件，并以当前时间为时间线原点
+     */
+    public void reset() {
+        for (int i = 0; i < published.length(); i++) {
+            published.set(i, 0);
+        }
+        nextSequence.set(0);
+        originNanos = System.nanoTime();
+    }
+
+    /**
+     * 开始一个阶段
+     *
+     * @return 开始时间（System.nanoTime），未开启时返回 0
+     */
+    public long begin() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 结束一个阶段并记录
+     *
+     * @param phase 阶段
+     * @param startNanos {@link #begin()} 的返回值，为 0 时忽略
+     * @param arg 附加参数（如位置序号）
+     */
+    public void end(Phase phase, long startNanos, int arg) {
+        if (startNanos == 0L) {
+            return;
+        }
+        long duration = System.nanoTime() - startNanos;
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) sequence & mask;
+        // 先标记为写入中，有序写入保证字段不会早于标记可见
+        published.set(slot, 0);
+        starts.lazySet(slot, startNanos);
+        durations.lazySet(slot, duration);
+        tags.lazySet(slot, ((long) phase.ordinal() << 32) | (arg & 0xFFFFFFFFL));
+        published.lazySet(slot, sequence + 1);
+    }
+
+    /**
+     * 已记录的事件数（不超过容量）
+     */
+    public int size() {
+        return (int) Math.min(nextSequence.get(), mask + 1L);
+    }
+
+    /**
+     * 导出为 Chrome trace JSON（时间单位为微秒）
+     *
+     * @param out 输出
+     * @return 导出的事件数
+     */
+    public int exportChromeTrace(Writer out) throws IOException {
+        long end = nextSequence.get();
+        long first = Math.max(0, end - (mask + 1));
+        long origin = originNanos;
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        for (Lane lane : Lane.values()) {
+            out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + lane.tid
+                    + ",\"args\":{\"name\":\"" + lane.name + "\"}},\n");
+        }
+        int exported = 0;
+        StringBuilder line = new StringBuilder(128);
+        for (long sequence = first; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+            // 读取前后序号一致才说明字段属于同一个已写完的事件
+            if (published.get(slot) != sequence + 1) {
+                continue;
+            }
+            long start = starts.get(slot);
+            long duration = durations.get(slot);
+            long tag = tags.get(slot);
+            if (published.get(slot) != sequence + 1) {
+                continue;
+            }
+            Phase phase = PHASES[(int) (tag >>> 32)];
+            int arg = (int) tag;
+            line.setLength(0);
+            if (exported > 0) {
+                line.append(",\n");
+            }
+            line.append("{\"name\":\"").append(phase.label)
+                    .append("\",\"cat\":\"").append(phase.name().toLowerCase())
+                    .append("\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(phase.lane.tid)
+                    .append(",\"ts\":");
+            appendMicros(line, start - origin);
+            line.append(",\"dur\":");
+            appendMicros(line, duration);
+            line.append(",\"args\":{\"pos\":").append(arg).append("}}");
+            out.write(line.toString());
+            exported++;
+        }
+        out.write("\n]}\n");
+        out.flush();
+        return exported;
+    }
+
+    /**
+     * 以微秒输出纳秒值，保留3位小数
+     */
+    private static void appendMicros(StringBuilder sb, long nanos) {
+        if (nanos < 0) {
+            sb.append('-');
+            nanos = -nanos;
+        }
+        sb.append(nanos / 1000).append('.');
+        long fraction = nanos % 1000;
+        if (fraction < 100) {
+            sb.append('0');
+        }
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+}
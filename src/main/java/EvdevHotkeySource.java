@@ -0,0 +1,213 @@
+package src.main.java;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * evdev 全局快捷键来源 - 直接读取 Linux 键盘设备 /dev/input/eventN
+ *
+ * <p>每个键盘设备一个高优先级守护线程，阻塞读取 input_event，
+ * 识别到 Ctrl+2（停止）/ Ctrl+3（暂停）时立即回调。读取设备需要当前用户在 input 组中（或 root）。
+ * 键盘设备从 /proc/bus/input/devices 中带 kbd 处理器且支持按键重复的条目中选取。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class EvdevHotkeySource implements GlobalHotkeySource {
+
+    private static final String DEVICE_LIST = "/proc/bus/input/devices";
+    private static final String DEVICE_DIR = "/dev/input/";
+
+    /**
+     * input_event 结构：64位系统为 timeval(16) + type(2) + code(2) + value(4)
+     */
+    private static final int EVENT_SIZE_64 = 24;
+    private static final int EVENT_SIZE_32 = 16;
+
+    /**
+     * 每次最多读取的事件数
+     */
+    private static final int EVENTS_PER_READ = 64;
+
+    /**
+     * 支持按键重复（EV_REP）的事件类型位，用于区分键盘和电源键等设备
+     */
+    private static final long EV_REP_BIT = 1L << 0x14;
+
+    private static final int EV_KEY = 0x01;
+    private static final int KEY_RELEASE = 0;
+    private static final int KEY_PRESS = 1;
+
+    private static final int KEY_2 = 3;
+    private static final int KEY_3 = 4;
+    private static final int KEY_LEFTCTRL = 29;
+    private static final int KEY_RIGHTCTRL = 97;
+
+    private final List<Thread> readers = new ArrayList<>();
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    @Override
+    public synchronized void start(Listener listener) throws IOException {
+        if (!readers.isEmpty()) {
+            return;
+        }
+        List<String> devices = findKeyboards();
+        if (devices.isEmpty()) {
+            throw new IOException("未找到键盘设备");
+        }
+        IOException lastError = null;
+        for (String device : devices) {
+            try {
+                channels.add(FileChannel.open(Paths.get(DEVICE_DIR + device), StandardOpenOption.READ));
+            } catch (IOException e) {
+                lastError = e;
+            }
+        }
+        if (channels.isEmpty()) {
+            throw new IOException("没有权限读取 " + DEVICE_DIR + "（请将当前用户加入 input 组）", lastError);
+        }
+        int eventSize = "32".equals(System.getProperty("sun.arch.data.model")) ? EVENT_SIZE_32 : EVENT_SIZE_64;
+        for (int i = 0; i < channels.size(); i++) {
+            FileChannel channel = channels.get(i);
+            Thread reader = new Thread(() -> readLoop(channel, eventSize, listener), "GlobalHotkey-" + i);
+            reader.setDaemon(true);
+            reader.setPriority(Thread.MAX_PRIORITY);
+            readers.add(reader);
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        // FileChannel 可中断，中断读取线程会关闭通道并结束阻塞读取
+        for (Thread reader : readers) {
+            reader.interrupt();
+        }
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // 忽略关闭时的异常
+            }
+        }
+        readers.clear();
+        channels.clear();
+    }
+
+    @Override
+    public synchronized String describe() {
+        return "evdev，" + channels.size() + " 个键盘设备";
+    }
+
+    private void readLoop(FileChannel channel, int eventSize, Listener listener) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(eventSize * EVENTS_PER_READ).order(ByteOrder.nativeOrder());
+        int typeOffset = eventSize - 8;
+        boolean leftCtrl = false;
+        boolean rightCtrl = false;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                buffer.clear();
+                if (channel.read(buffer) < 0) {
+                    return;
+                }
+                long now = System.nanoTime();
+                buffer.flip();
+                while (buffer.remaining() >= eventSize) {
+                    int base = buffer.position();
+                    int type = buffer.getShort(base + typeOffset) & 0xFFFF;
+                    int code = buffer.getShort(base + typeOffset + 2) & 0xFFFF;
+                    int value = buffer.getInt(base + typeOffset + 4);
+                    buffer.position(base + eventSize);
+                    if (type != EV_KEY || (value != KEY_PRESS && value != KEY_RELEASE)) {
+                        continue;
+                    }
+                    boolean pressed = value == KEY_PRESS;
+                    if (code == KEY_LEFTCTRL) {
+                        leftCtrl = pressed;
+                    } else if (code == KEY_RIGHTCTRL) {
+                        rightCtrl = pressed;
+                    } else if (pressed && (leftCtrl || rightCtrl)) {
+                        Hotkey hotkey = toHotkey(code);
+                        if (hotkey != null) {
+                            listener.onHotkey(hotkey, now);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // 通道被关闭（停止监听或设备拔出）
+        }
+    }
+
+    private static Hotkey toHotkey(int code) {
+        switch (code) {
+            case KEY_2:
+                return Hotkey.STOP;
+            case KEY_3:
+                return Hotkey.PAUSE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 从设备列表中找出键盘的 eventN 名称
+     */
+    static List<String> findKeyboards() throws IOException {
+        Path path = Paths.get(DEVICE_LIST);
+        List<String> keyboards = new ArrayList<>();
+        if (!Files.isReadable(path)) {
+            throw new IOException("无法读取 " + DEVICE_LIST);
+        }
+        String handlers = null;
+        long eventBits = 0;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.startsWith("H: Handlers=")) {
+                handlers = line.substring("H: Handlers=".length());
+            } else if (line.startsWith("B: EV=")) {
+                try {
+                    eventBits = Long.parseLong(line.substring("B: EV=".length()).trim(), 16);
+                } catch (NumberFormatException e) {
+                    eventBits = 0;
+                }
+            } else if (line.trim().isEmpty()) {
+                addKeyboard(keyboards, handlers, eventBits);
+                handlers = null;
+                eventBits = 0;
+            }
+        }
+        addKeyboard(keyboards, handlers, eventBits);
+        return keyboards;
+    }
+
+    private static void addKeyboard(List<String> keyboards, String handlers, long eventBits) {
+        if (handlers == null || (eventBits & EV_REP_BIT) == 0) {
+            return;
+        }
+        String[] names = handlers.trim().split("\\s+");
+        boolean isKeyboard = false;
+        String event = null;
+        for (String name : names) {
+            if ("kbd".equals(name)) {
+                isKeyboard = true;
+            } else if (name.startsWith("event")) {
+                event = name;
+            }
+        }
+        if (isKeyboard && event != null) {
+            keyboards.add(event);
+        }
+    }
+}
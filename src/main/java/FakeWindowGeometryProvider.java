@@ -0,0 +1,72 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 固定数据的窗口来源 - 不访问窗口系统，由代码设置窗口位置
+ *
+ * <p>用于检查脚本和没有窗口管理器的环境：按标题部分匹配已设置的窗口（多个匹配时取最先设置的），
+ * 统计实际查询次数，便于确认缓存是否命中；也可以让下一次查询抛出 {@link IOException}。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class FakeWindowGeometryProvider implements WindowGeometryProvider {
+
+    private final Map<String, Rectangle> windows = new LinkedHashMap<>();
+    private int queries;
+    private String failure;
+
+    /**
+     * 设置（或移动）一个窗口
+     *
+     * @param title 窗口标题
+     * @param bounds 窗口边界（屏幕坐标）
+     */
+    public synchronized void setWindow(String title, Rectangle bounds) {
+        windows.put(title, new Rectangle(bounds));
+    }
+
+    /**
+     * 关闭一个窗口
+     */
+    public synchronized void removeWindow(String title) {
+        windows.remove(title);
+    }
+
+    /**
+     * 让下一次查询失败
+     *
+     * @param message 异常信息
+     */
+    public synchronized void failNextQuery(String message) {
+        failure = message;
+    }
+
+    /**
+     * 实际查询次数（包括失败的查询）
+     */
+    public synchronized int getQueries() {
+        return queries;
+    }
+
+    @Override
+    public synchronized Rectangle findWindow(String title) throws IOException {
+        queries++;
+        if (failure != null) {
+            String message = failure;
+            failure = null;
+            throw new IOException(message);
+        }
+        for (Map.Entry<String, Rectangle> window : windows.entrySet()) {
+            if (window.getKey().contains(title)) {
+                return new Rectangle(window.getValue());
+            }
+        }
+        return null;
+    }
+}
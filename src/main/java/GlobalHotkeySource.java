@@ -0,0 +1,90 @@
+package src.main.java;
+
+import java.io.IOException;
+
+/**
+ * 全局快捷键来源 - 不依赖窗口焦点的系统级按键监听
+ *
+ * <p>事件在来源自己的线程上回调，不经过 EDT，回调中应只做设置标志之类的轻量操作。
+ * 生产环境在 Linux 上直接读取 evdev 键盘设备，调试时可以替换为 {@link SimulatedHotkeySource}。
+ * 只提供停止和暂停：开始在其他程序中也会被触发（Ctrl+1 是常用快捷键），仍然只在本窗口获得焦点时有效。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public interface GlobalHotkeySource extends AutoCloseable {
+
+    /**
+     * 快捷键动作
+     */
+    enum Hotkey {
+        STOP,
+        PAUSE
+    }
+
+    /**
+     * 快捷键回调
+     */
+    interface Listener {
+
+        /**
+         * 快捷键按下
+         *
+         * @param hotkey 快捷键动作
+         * @param eventNanos 读到按键事件时的 {@link System#nanoTime()}
+         */
+        void onHotkey(Hotkey hotkey, long eventNanos);
+    }
+
+    /**
+     * 开始监听
+     *
+     * @param listener 回调
+     * @throws IOException 无法访问系统输入设备
+     */
+    void start(Listener listener) throws IOException;
+
+    /**
+     * 停止监听并释放资源
+     */
+    @Override
+    void close();
+
+    /**
+     * 来源描述，用于日志
+     */
+    String describe();
+
+    /**
+     * 当前系统的全局快捷键来源（设置了 {@value SimulatedHotkeySource#SCRIPT_PROPERTY} 时使用模拟来源）
+     *
+     * @return 快捷键来源，当前系统不支持时 {@link #start} 会抛出 {@link IOException}
+     * @throws IllegalArgumentException 模拟脚本格式错误
+     */
+    static GlobalHotkeySource forCurrentPlatform() {
+        String script = System.getProperty(SimulatedHotkeySource.SCRIPT_PROPERTY);
+        if (script != null) {
+            return new SimulatedHotkeySource(script);
+        }
+        String osName = System.getProperty("os.name").toLowerCase();
+        if (osName.contains("linux")) {
+            return new EvdevHotkeySource();
+        }
+        return new GlobalHotkeySource() {
+            @Override
+            public void start(Listener listener) throws IOException {
+                throw new IOException("当前系统不支持全局快捷键（仅支持 Linux）");
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public String describe() {
+                return "不支持";
+            }
+        };
+    }
+}
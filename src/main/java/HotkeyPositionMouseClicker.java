@@ -61,12 +61,12 @@ public class HotkeyPositionMouseClicker {
     private static final int NORMAL_MODE_MAX_DELAY = 50;
 
     /**
-     * 极速模式鼠标移动延迟（毫秒）
+     * 极速模式鼠标移动延迟（毫秒，未校准时的默认值）
      */
     private static final int FAST_MODE_MOVE_DELAY = 10;
 
     /**
-     * 普通模式鼠标移动延迟（毫秒）
+     * 普通模式鼠标移动延迟（毫秒，未校准时的默认值）
      */
     private static final int NORMAL_MODE_MOVE_DELAY = 50;
 
@@ -193,7 +193,17 @@ public class HotkeyPositionMouseClicker {
     /**
      * 点击线程
      */
-    private Thread clickThread;
+    private volatile Thread clickThread;
+
+    /**
+     * 本次运行的安全保护（仅运行期间存在）
+     */
+    private volatile ClickFailsafe failsafe;
+
+    /**
+     * 本次运行中因光标已在目标位置而跳过的移动次数（仅点击线程写入）
+     */
+    private long elidedMoves;
 
     /**
      * 配置管理器
@@ -250,6 +260,12 @@ public class HotkeyPositionMouseClicker {
      */
     private boolean fastMode = false;
 
+    /**
+     * 鼠标移动后的等待时间（毫秒），V2"校准延迟"测得后保存在配置中
+     */
+    private int fastMoveDelay = FAST_MODE_MOVE_DELAY;
+    private int normalMoveDelay = NORMAL_MODE_MOVE_DELAY;
+
     /**
      * 点击X坐标（-1表示当前位置）
      */
@@ -641,10 +657,9 @@ public class HotkeyPositionMouseClicker {
             clickX = Integer.parseInt(xText);
             clickY = Integer.parseInt(yText);
 
-            Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-            if (clickX < 0 || clickX > screenSize.width
-                    || clickY < 0 || clickY > screenSize.height) {
-                showError("坐标超出屏幕范围！屏幕尺寸: " + screenSize.width + "x" + screenSize.height);
+            ScreenGeometry geometry = ScreenGeometry.get();
+            if (!geometry.contains(clickX, clickY)) {
+                showError("坐标不在任何显示器上！当前显示器:\n" + geometry.describe());
                 return false;
             }
 
@@ -670,7 +685,7 @@ public class HotkeyPositionMouseClicker {
                     Point originalPos = MouseInfo.getPointerInfo().getLocation();
                     robot.mouseMove(clickX, clickY);
                     Thread.sleep(TEST_POSITION_DELAY);
-                    performClick();
+                    performClick(newJitter().newSampler(IntervalJitter.newSeed()));
                     robot.mouseMove(originalPos.x, originalPos.y);
                     appendLog("✅ 位置测试完成");
                 }
@@ -708,7 +723,35 @@ public class HotkeyPositionMouseClicker {
             }
 
             appendLogStartClicking();
-            int executedClicks = performClicking(originalPos);
+            elidedMoves = 0;
+            long seed = IntervalJitter.newSeed();
+            IntervalJitter.Sampler sampler = newJitter().newSampler(seed);
+            appendLog("🎲 随机种子: " + seed);
+            ClickFailsafe guard = new ClickFailsafe(robot, (reason, detectedNanos) -> {
+                appendLog("🛡️ 安全停止: " + reason);
+                clicking.set(false);
+                Thread thread = clickThread;
+                if (thread != null) {
+                    thread.interrupt();
+                }
+            });
+            failsafe = guard;
+            guard.start();
+            int executedClicks;
+            try {
+                executedClicks = performClicking(originalPos, sampler);
+            } finally {
+                guard.close();
+                failsafe = null;
+            }
+            if (guard.isAborted()) {
+                appendLog(String.format("🛡️ 安全停止耗时: 检测到释放按键 %.2fms，检测到停止点击 %.2fms",
+                        guard.getReleaseLatencyNanos() / 1_000_000.0,
+                        (System.nanoTime() - guard.getAbortDetectedNanos()) / 1_000_000.0));
+            }
+            if (elidedMoves > 0) {
+                appendLog("🔁 光标已在目标位置，跳过重复移动 " + elidedMoves + " 次");
+            }
 
             restoreMousePosition(originalPos);
             clicking.set(false);
@@ -760,26 +803,38 @@ public class HotkeyPositionMouseClicker {
      * 执行点击循环
      * 
      * @param originalPos 原始鼠标位置
+     * @param sampler 点击线程私有的随机采样器
      * @return 执行的点击次数
      */
-    private int performClicking(Point originalPos) {
+    private int performClicking(Point originalPos, IntervalJitter.Sampler sampler) {
         int executedClicks = 0;
+        boolean moved = false;
 
         while (clicking.get() && (clickCount == 0 || executedClicks < clickCount)) {
             try {
                 if (!useCurrentPosition) {
-                    robot.mouseMove(clickX, clickY);
-                    int moveDelay = fastMode ? FAST_MODE_MOVE_DELAY : NORMAL_MODE_MOVE_DELAY;
-                    Thread.sleep(moveDelay);
+                    ClickFailsafe guard = failsafe;
+                    if (guard != null) {
+                        guard.expect(clickX, clickY);
+                    }
+                    // 固定位置每次都相同，光标仍在原处时不必重复移动和等待
+                    if (moved && isPointerAt(clickX, clickY)) {
+                        elidedMoves++;
+                    } else {
+                        robot.mouseMove(clickX, clickY);
+                        int moveDelay = fastMode ? fastMoveDelay : normalMoveDelay;
+                        Thread.sleep(moveDelay);
+                        moved = true;
+                    }
                 }
 
-                performClick();
+                performClick(sampler);
                 executedClicks++;
 
                 updateClickCountLog(executedClicks);
 
                 if (clicking.get()) {
-                    int waitTime = calculateWaitTime();
+                    int waitTime = calculateWaitTime(sampler);
                     Thread.sleep(waitTime);
                 }
             } catch (InterruptedException e) {
@@ -792,14 +847,36 @@ public class HotkeyPositionMouseClicker {
         return executedClicks;
     }
 
+    /**
+     * 光标是否正位于指定坐标
+     */
+    private static boolean isPointerAt(int x, int y) {
+        PointerInfo pointer = MouseInfo.getPointerInfo();
+        if (pointer == null) {
+            return false;
+        }
+        Point location = pointer.getLocation();
+        return location.x == x && location.y == y;
+    }
+
+    /**
+     * 根据当前设置创建随机间隔模型（V1 使用均匀分布）
+     * 
+     * @return 随机间隔模型
+     */
+    private IntervalJitter newJitter() {
+        return new IntervalJitter(IntervalJitter.Distribution.UNIFORM, minInterval, maxInterval);
+    }
+
     /**
      * 计算等待时间
      * 
+     * @param sampler 随机采样器
      * @return 等待时间（毫秒）
      */
-    private int calculateWaitTime() {
+    private int calculateWaitTime(IntervalJitter.Sampler sampler) {
         if (randomInterval) {
-            return minInterval + (int) (Math.random() * (maxInterval - minInterval));
+            return sampler.nextInterval();
         }
         return clickInterval;
     }
@@ -850,24 +927,35 @@ public class HotkeyPositionMouseClicker {
 
     /**
      * 执行点击操作
+     * 
+     * @param sampler 随机采样器
      */
-    private void performClick() {
+    private void performClick(IntervalJitter.Sampler sampler) {
+        ClickFailsafe guard = failsafe;
+        int buttonMask = getButtonMask();
         try {
-            robot.mousePress(getButtonMask());
+            if (guard != null) {
+                guard.press(buttonMask);
+            } else {
+                robot.mousePress(buttonMask);
+            }
             int clickDelay = fastMode ? FAST_MODE_CLICK_DELAY
-                    : (NORMAL_MODE_MIN_DELAY + (int) (Math.random()
-                            * (NORMAL_MODE_MAX_DELAY - NORMAL_MODE_MIN_DELAY)));
+                    : sampler.nextHoldDelay(NORMAL_MODE_MIN_DELAY, NORMAL_MODE_MAX_DELAY);
             Thread.sleep(clickDelay);
-            robot.mouseRelease(getButtonMask());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            // 不抛出运行时异常，只记录日志
+            appendLog("⚠️ 点击操作被中断");
+        } finally {
             try {
-                robot.mouseRelease(getButtonMask());
+                if (guard != null) {
+                    guard.release(buttonMask);
+                } else {
+                    robot.mouseRelease(buttonMask);
+                }
             } catch (Exception ex) {
                 // 忽略释放时的异常
             }
-            // 不抛出运行时异常，只记录日志
-            appendLog("⚠️ 点击操作被中断");
         }
     }
 
@@ -884,6 +972,11 @@ public class HotkeyPositionMouseClicker {
                     Thread.currentThread().interrupt();
                     // 记录日志而不是使用System.out
                 }
+                // 点击线程未能及时退出时，也保证按键不会保持按下
+                ClickFailsafe guard = failsafe;
+                if (guard != null) {
+                    guard.releaseAll();
+                }
             }
         }
     }
@@ -1004,6 +1097,8 @@ public class HotkeyPositionMouseClicker {
         buttonType = prefs.getInt("button", BUTTON_TYPE_LEFT);
         randomInterval = prefs.getBoolean("random", false);
         fastMode = prefs.getBoolean("fastMode", false);
+        fastMoveDelay = prefs.getInt("fastMoveDelay", FAST_MODE_MOVE_DELAY);
+        normalMoveDelay = prefs.getInt("normalMoveDelay", NORMAL_MODE_MOVE_DELAY);
         minInterval = prefs.getInt("minInterval", DEFAULT_MIN_INTERVAL);
         maxInterval = prefs.getInt("maxInterval", DEFAULT_MAX_INTERVAL);
         clickX = prefs.getInt("clickX", CURRENT_POSITION);
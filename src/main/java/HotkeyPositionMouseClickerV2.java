@@ -1,13 +1,42 @@
 package src.main.java;
 
 import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.prefs.Preferences;
 
@@ -64,12 +93,12 @@ public class HotkeyPositionMouseClickerV2 {
     private static final int NORMAL_MODE_MAX_DELAY = 50;
 
     /**
-     * 极速模式鼠标移动延迟（毫秒）
+     * 极速模式鼠标移动延迟（毫秒，未校准时的默认值）
      */
     private static final int FAST_MODE_MOVE_DELAY = 10;
 
     /**
-     * 普通模式鼠标移动延迟（毫秒）
+     * 普通模式鼠标移动延迟（毫秒，未校准时的默认值）
      */
     private static final int NORMAL_MODE_MOVE_DELAY = 50;
 
@@ -178,10 +207,183 @@ public class HotkeyPositionMouseClickerV2 {
      */
     private static final String FONT_MONOSPACED = "Monospaced";
 
+    /**
+     * 自适应速率：点击后等待目标响应的最长时间（毫秒）
+     */
+    private static final int ADAPTIVE_RESPONSE_TIMEOUT_MS = 100;
+
+    /**
+     * 自适应速率：最大间隔相对初始间隔的倍数
+     */
+    private static final int ADAPTIVE_MAX_BACKOFF_FACTOR = 8;
+
+    /**
+     * 自适应速率：以鼠标为中心的检测区域边长（像素）
+     */
+    private static final int ADAPTIVE_REGION_SIZE = 9;
+
+    /**
+     * 图像锚点参考图边长（像素）
+     */
+    private static final int ANCHOR_TEMPLATE_SIZE = 32;
+
+    /**
+     * 定位方式前缀：图像锚点
+     */
+    private static final String ANCHOR_PREFIX_IMAGE = "图像:";
+
+    /**
+     * 定位方式前缀：窗口相对坐标
+     */
+    private static final String ANCHOR_PREFIX_WINDOW = "窗口:";
+
+    /**
+     * 窗口位置缓存有效期（毫秒）
+     */
+    private static final int WINDOW_CACHE_TTL_MS = 500;
+
+    /**
+     * 应用数据目录名（位于用户主目录下）
+     */
+    private static final String APP_DATA_DIR_NAME = ".mouseclicker";
+
+    /**
+     * 图像锚点目录名
+     */
+    private static final String ANCHOR_DIR_NAME = "anchors";
+
+    /**
+     * 位置文件名（位于应用数据目录下）
+     */
+    private static final String POSITIONS_FILE_NAME = "positions.dat";
+
+    /**
+     * 位置导出的默认文件名
+     */
+    private static final String POSITIONS_EXPORT_FILE_NAME = "positions.csv";
+
+    /**
+     * 导入确认框中最多显示的错误条数
+     */
+    private static final int IMPORT_ERROR_PREVIEW = 20;
+
+    /**
+     * 旧版本逐个保存在配置中的位置键名前缀
+     */
+    private static final String[] LEGACY_POSITION_KEYS = {"posX", "posY", "posNote", "posAnchor", "posCondition",
+            "posDisplay", "posDisplayX", "posDisplayY"};
+
+    /**
+     * 检查重复位置时最多输出的条数
+     */
+    private static final int DUPLICATE_LOG_LIMIT = 10;
+
+    /**
+     * 显示器布局检查周期（毫秒）
+     */
+    private static final int DISPLAY_CHECK_INTERVAL_MS = 2000;
+
+    /**
+     * 编辑位置后延迟保存的等待时间（毫秒，连续编辑只保存一次）
+     */
+    private static final int DEFERRED_SAVE_DELAY_MS = 1000;
+
+    /**
+     * 关闭窗口时等待位置文件写完的最长时间（毫秒）
+     */
+    private static final int POSITION_WRITE_TIMEOUT_MS = 5000;
+
+    /**
+     * 逐个测试位置时默认在每个位置停留的时间（毫秒）
+     */
+    private static final int DEFAULT_TEST_DWELL = 100;
+
+    /**
+     * 默认目标速率
+     */
+    private static final double DEFAULT_RATE_TARGET = 10;
+
+    /**
+     * 目标速率运行时，界面刷新目标/预测/实际速率的周期（毫秒）
+     */
+    private static final int RATE_DISPLAY_INTERVAL_MS = 500;
+
+    /**
+     * 启动占位窗口尺寸
+     */
+    private static final int STARTUP_FRAME_WIDTH = 560;
+    private static final int STARTUP_FRAME_HEIGHT = 420;
+
+    /**
+     * 系统属性：界面就绪后输出启动耗时并退出（用于启动基准测试和生成 AppCDS 归档）
+     */
+    private static final String PROP_EXIT_WHEN_READY = "mouseclicker.exitWhenReady";
+
+    /**
+     * 计划运行检查刻度（毫秒）
+     */
+    private static final int SCHEDULER_TICK_MS = 1000;
+
+    /**
+     * 计划规则预览的触发次数
+     */
+    private static final int SCHEDULE_PREVIEW_COUNT = 5;
+
+    /**
+     * 计划运行时间显示格式
+     */
+    private static final DateTimeFormatter SCHEDULE_TIME_FORMAT = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss");
+
+    /**
+     * 运行记录对话框显示的最近运行次数
+     */
+    private static final int RUN_HISTORY_COUNT = 50;
+
+    /**
+     * 延迟校准的采样次数
+     */
+    private static final int CALIBRATION_SAMPLES = 40;
+
+    /**
+     * 时间线导出的默认文件名
+     */
+    private static final String TRACE_FILE_NAME = "click-trace.json";
+
+    /**
+     * 默认配置名称
+     */
+    private static final String DEFAULT_PROFILE_NAME = "默认";
+
+    /**
+     * 停止原因
+     */
+    private static final String STOP_REASON_COMPLETED = "完成";
+    private static final String STOP_REASON_USER = "手动停止";
+    private static final String STOP_REASON_HOTKEY = "快捷键停止";
+    private static final String STOP_REASON_FAILSAFE = "安全停止";
+    private static final String STOP_REASON_CONDITION = "条件超时";
+    private static final String STOP_REASON_INTERRUPTED = "中断";
+    private static final String STOP_REASON_DURATION = "运行时长已到";
+    private static final String STOP_REASON_CLICK_LIMIT = "点击数已达上限";
+    private static final String STOP_REASON_END_TIME = "到达结束时间";
+    private static final String STOP_REASON_FAILURES = "连续验证失败";
+    private static final String STOP_REASON_NOT_STARTED = "计划运行未启动";
+
+    /**
+     * 结束时间格式（只写时间时取下一次到达的时刻）
+     */
+    private static final DateTimeFormatter END_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm[:ss]");
+    private static final DateTimeFormatter END_TIME_OF_DAY_FORMAT = DateTimeFormatter.ofPattern("HH:mm[:ss]");
+
     /**
      * 位置列表表格列名
      */
-    private static final String[] POSITION_TABLE_COLUMNS = {"序号", "X坐标", "Y坐标", "备注"};
+    private static final String[] POSITION_TABLE_COLUMNS = {"序号", "X坐标", "Y坐标", "备注", "定位", "条件"};
+
+    /**
+     * 取色条件的默认颜色容差
+     */
+    private static final int DEFAULT_COLOR_TOLERANCE = 10;
 
     /**
      * Robot对象
@@ -194,15 +396,80 @@ public class HotkeyPositionMouseClickerV2 {
     private AtomicBoolean clicking = new AtomicBoolean(false);
 
     /**
-     * 点击线程
+     * 暂停状态标志
      */
-    private Thread clickThread;
+    private final AtomicBoolean paused = new AtomicBoolean(false);
+
+    /**
+     * 暂停等待使用的锁
+     */
+    private final Object pauseLock = new Object();
+
+    /**
+     * 停止请求时间（System.nanoTime），0表示没有停止请求
+     */
+    private volatile long haltRequestNanos;
+
+    /**
+     * 暂停请求时间（System.nanoTime）
+     */
+    private volatile long pauseRequestNanos;
+
+    /**
+     * 全局快捷键来源，不可用时为 null
+     */
+    private GlobalHotkeySource globalHotkeys;
+
+    /**
+     * 点击线程（全局快捷键线程也会读取）
+     */
+    private volatile Thread clickThread;
+
+    /**
+     * 本次运行的安全保护（仅运行期间存在）
+     */
+    private volatile ClickFailsafe failsafe;
+
+    /**
+     * 本次运行的断点（仅运行期间存在，只由点击线程写入）
+     */
+    private RunCheckpoint runCheckpoint;
 
     /**
      * 配置管理器
      */
     private Preferences prefs;
 
+    /**
+     * 启动计时：构造开始、首次绘制、界面就绪（System.nanoTime）
+     */
+    private final long startupNanos;
+    private volatile long firstPaintNanos;
+    private long readyNanos;
+
+    /**
+     * 后台加载任务：配置和Robot与首屏绘制并行
+     */
+    private final CompletableFuture<Void> preferencesReady;
+    private final CompletableFuture<Robot> robotReady;
+
+    /**
+     * 计划运行调度器
+     */
+    private final Clock clock = Clock.systemDefaultZone();
+    private final RunScheduler scheduler = new RunScheduler(clock, SCHEDULER_TICK_MS, new ScheduledRunListener());
+
+    /**
+     * 计划运行对话框（首次打开时创建）
+     */
+    private JDialog scheduleDialog;
+    private DefaultTableModel scheduleTableModel;
+
+    /**
+     * 批量生成对话框（首次打开时创建）
+     */
+    private JDialog generateDialog;
+
     /**
      * 是否为Mac系统
      */
@@ -228,6 +495,14 @@ public class HotkeyPositionMouseClickerV2 {
      */
     private int clickCount = 0;
 
+    /**
+     * 运行限制：时长（秒）、总点击数、结束时间、连续验证失败次数（0 或空表示不限）
+     */
+    private int limitSeconds = 0;
+    private long limitClicks = 0;
+    private String limitEndTime = "";
+    private int limitFailures = 0;
+
     /**
      * 按钮类型
      */
@@ -254,15 +529,192 @@ public class HotkeyPositionMouseClickerV2 {
     private boolean fastMode = false;
 
     /**
-     * 点击位置列表
+     * 鼠标移动后的等待时间（毫秒），通过"校准延迟"测得后保存在配置中
+     */
+    private int fastMoveDelay = FAST_MODE_MOVE_DELAY;
+    private int normalMoveDelay = NORMAL_MODE_MOVE_DELAY;
+
+    /**
+     * 随机间隔分布类型
+     */
+    private IntervalJitter.Distribution jitterDistribution = IntervalJitter.Distribution.UNIFORM;
+
+    /**
+     * 固定随机种子（null表示每次运行随机生成）
+     */
+    private Long jitterSeed = null;
+
+    /**
+     * 配置名称（用于运行记录按配置汇总）
+     */
+    private String profileName = DEFAULT_PROFILE_NAME;
+
+    /**
+     * 是否在运行期间记录点击时间线
+     */
+    private boolean traceEnabled = false;
+
+    /**
+     * 相邻位置目标相同时是否连发（跳过两者之间的间隔）
+     */
+    private boolean burstRepeats = false;
+
+    /**
+     * 是否启用自适应速率
+     */
+    private boolean adaptiveRate = false;
+
+    /**
+     * 自适应速率检测时机：true为每轮结束后检测，false为每次点击后检测
+     */
+    private boolean adaptivePerCycle = false;
+
+    /**
+     * 自适应速率检测区域（null表示未设置）
+     */
+    private Rectangle adaptiveRegion = null;
+
+    /**
+     * 当前运行的自适应速率控制器（仅运行期间非空）
+     */
+    private volatile AdaptiveRateController rateController;
+
+    /**
+     * 目标速率的单位（null表示不使用目标速率，按点击间隔等待）和目标值
+     */
+    private RateTargetSolver.Unit rateTargetUnit = null;
+    private double rateTarget = DEFAULT_RATE_TARGET;
+
+    /**
+     * 当前运行的目标速率求解器（仅运行期间非空）
+     */
+    private volatile RateTargetSolver rateSolver;
+
+    /**
+     * 运行期间刷新速率显示（首次使用时创建）
+     */
+    private Timer rateDisplayTimer;
+
+    /**
+     * 截图服务（所有像素相关功能共享），使用独立的Robot，避免截图与点击线程争用同一个Robot的锁
+     */
+    private ScreenCaptureService captureService;
+
+    /**
+     * 窗口位置缓存（首次使用窗口相对位置时创建）
+     */
+    private WindowGeometryCache windowCache;
+
+    /**
+     * 运行记录（首次使用时打开）
+     */
+    private RunJournal runJournal;
+
+    /**
+     * 是否有尚未换算的显示器布局变化（启动时需要按保存的显示器位置换算一次）
+     */
+    private boolean displayLayoutPending = true;
+
+    /**
+     * 当前运行中各位置的条件监视器（下标与位置列表一致，无条件为 null）
+     */
+    private WaitCondition.Monitor[] conditionMonitors = new WaitCondition.Monitor[0];
+
+    /**
+     * 条件等待统计（仅点击线程写入）
+     */
+    private int conditionWaits;
+    private int conditionTimeouts;
+    private long conditionWaitNanos;
+
+    /**
+     * 本次运行的停止原因（由首个停止请求写入）
      */
-    private List<ClickPosition> clickPositions = new ArrayList<>();
+    private volatile String stopReason = STOP_REASON_COMPLETED;
+
+    /**
+     * 本次运行的点击统计（仅点击线程写入）
+     */
+    private long runClicks;
+    private long lastClickNanos;
+
+    /**
+     * 本次运行的截止时刻（System.nanoTime，没有时间限制时为 Long.MAX_VALUE）及对应的停止原因
+     */
+    private volatile long runDeadlineNanos = Long.MAX_VALUE;
+    private String runDeadlineReason;
+    private IntervalHistogram runIntervals = new IntervalHistogram();
+
+    /**
+     * 本次运行中跳过的重复移动次数和连发的点击次数（仅点击线程写入）
+     */
+    private long elidedMoves;
+    private long burstClicks;
+
+    /**
+     * 点击时间线（勾选"记录点击时间线"时在运行期间开启）
+     */
+    private final ClickTrace trace = new ClickTrace(ClickTrace.DEFAULT_CAPACITY);
+
+    /**
+     * 已加载的图像锚点（名称 -> 锚点）
+     */
+    private final Map<String, ImageAnchor> imageAnchors = new ConcurrentHashMap<>();
+
+    /**
+     * 点击位置（界面、点击线程和持久化共用；点击线程只读取运行开始时的快照）
+     */
+    private final PositionStore positions = new PositionStore();
+
+    /**
+     * 位置编辑的撤销/重做历史（界面上的编辑都经过它）
+     */
+    private final PositionHistory history = new PositionHistory(positions, PositionHistory.DEFAULT_LIMIT);
+
+    /**
+     * 编辑位置后的延迟保存（首次使用时创建）
+     */
+    private Timer deferredSaveTimer;
+
+    /**
+     * 后台写位置文件的线程（写临时文件并刷盘，不占用事件线程）
+     */
+    private final ExecutorService positionWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "PositionWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 位置标记覆盖层（首次显示时创建）
+     */
+    private PositionOverlay positionOverlay;
+
+    /**
+     * 逐个测试位置时在每个位置停留的时间（毫秒）
+     */
+    private int testDwell = DEFAULT_TEST_DWELL;
+
+    /**
+     * 已解析的等待条件（条件文本 -> 条件）
+     */
+    private final Map<String, WaitCondition> parsedConditions = new ConcurrentHashMap<>();
+
+    /**
+     * 已写入或已交给后台写入位置文件的位置版本号（写入失败时重置，下次保存重试）
+     */
+    private volatile long savedPositionsVersion = -1;
+
+    /**
+     * 加载位置文件时的错误（界面就绪后输出）
+     */
+    private String positionsLoadError;
 
     /**
      * GUI组件引用
      */
     private JTable positionTable;
-    private DefaultTableModel tableModel;
+    private PositionTableModel tableModel;
     private JTextArea logArea;
     private JTextField intervalField;
     private JTextField countField;
@@ -271,26 +723,82 @@ public class HotkeyPositionMouseClickerV2 {
     private JCheckBox fastModeCheck;
     private JTextField minField;
     private JTextField maxField;
+    private JComboBox<IntervalJitter.Distribution> distributionCombo;
+    private JTextField seedField;
+    private JTextField profileField;
+    private JCheckBox traceCheck;
+    private JCheckBox burstCheck;
+    private JTextField undoLimitField;
+    private JTextField testDwellField;
+    private JTextField limitSecondsField;
+    private JTextField limitClicksField;
+    private JTextField limitEndTimeField;
+    private JTextField limitFailuresField;
+    private JButton overlayBtn;
+    private JLabel moveDelayLabel;
+    private JCheckBox adaptiveCheck;
+    private JComboBox<String> adaptiveModeCombo;
+    private JLabel adaptiveRegionLabel;
+    private JComboBox<String> rateModeCombo;
+    private JTextField rateTargetField;
+    private JLabel rateLabel;
     private JButton startBtn;
     private JButton stopBtn;
+    private JButton pauseBtn;
 
     /**
-     * 点击位置数据类
+     * 位置表格模型 - 直接读取位置列表，不保存副本
+     *
+     * <p>表格只为可见行调用 {@link #getValueAt}，修改位置列表后由调用方发出对应范围的
+     * 插入/删除/更新事件，不需要重建整个表格。单元格编辑在校验通过后才写回位置列表。
      */
-    private static class ClickPosition {
-        int x;
-        int y;
-        String note;
+    private class PositionTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int getRowCount() {
+            return positions.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return POSITION_TABLE_COLUMNS.length;
+        }
 
-        ClickPosition(int x, int y, String note) {
-            this.x = x;
-            this.y = y;
-            this.note = note;
+        @Override
+        public String getColumnName(int column) {
+            return POSITION_TABLE_COLUMNS[column];
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            // 序号列不可编辑，其他列可编辑
+            return column != 0;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            switch (column) {
+                case 0:
+                    return row + 1;
+                case 1:
+                    return positions.getX(row);
+                case 2:
+                    return positions.getY(row);
+                case 3:
+                    return positions.getAttributes(row).getNote();
+                case 4:
+                    return positions.getAttributes(row).getAnchor();
+                case 5:
+                default:
+                    return positions.getAttributes(row).getCondition();
+            }
         }
 
         @Override
-        public String toString() {
-            return "(" + x + ", " + y + ")" + (note != null && !note.isEmpty() ? " - " + note : "");
+        public void setValueAt(Object value, int row, int column) {
+            // 校验失败时会弹出提示框，放到编辑器关闭之后处理
+            SwingUtilities.invokeLater(() -> updatePositionFromTable(row, column, value));
         }
     }
 
@@ -298,11 +806,11 @@ public class HotkeyPositionMouseClickerV2 {
      * 构造函数
      */
     public HotkeyPositionMouseClickerV2() {
+        startupNanos = System.nanoTime();
         detectOperatingSystem();
-        initializePreferences();
-        initializeRobot();
         setupOSFeatures();
-        createGUI();
+        preferencesReady = CompletableFuture.runAsync(this::initializePreferences);
+        robotReady = CompletableFuture.supplyAsync(this::createRobot);
     }
 
     /**
@@ -324,15 +832,15 @@ public class HotkeyPositionMouseClickerV2 {
     }
 
     /**
-     * 初始化Robot对象
+     * 创建Robot对象（在后台线程执行）
      */
-    private void initializeRobot() {
+    private Robot createRobot() {
         try {
-            robot = new Robot();
-            robot.setAutoDelay(0);
+            Robot newRobot = new Robot();
+            newRobot.setAutoDelay(0);
+            return newRobot;
         } catch (AWTException e) {
-            showError("无法初始化机器人实例: " + e.getMessage());
-            System.exit(1);
+            throw new CompletionException(e);
         }
     }
 
@@ -354,6 +862,8 @@ public class HotkeyPositionMouseClickerV2 {
 
     /**
      * 创建GUI界面
+     *
+     * <p>先显示只有提示文字的窗口，配置和Robot在后台加载完成后再构建完整界面。
      */
     private void createGUI() {
         String title = isMac ? "鼠标连点器 V2 - 多位置版" : "鼠标连点器 V2 - Windows版";
@@ -361,18 +871,307 @@ public class HotkeyPositionMouseClickerV2 {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLayout(new BorderLayout(COMPONENT_SPACING, COMPONENT_SPACING));
 
-        JPanel mainPanel = createMainPanel();
-        JScrollPane scrollPane = createLogScrollPane();
-        JPanel hotkeyPanel = createHotkeyPanel();
-
-        frame.add(mainPanel, BorderLayout.NORTH);
-        frame.add(scrollPane, BorderLayout.CENTER);
-        frame.add(hotkeyPanel, BorderLayout.SOUTH);
-
-        setupHotkeys(frame, startBtn, stopBtn);
+        JLabel loadingLabel = new JLabel("⏳ 正在加载...", SwingConstants.CENTER) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                if (firstPaintNanos == 0) {
+                    firstPaintNanos = System.nanoTime();
+                }
+            }
+        };
+        loadingLabel.setPreferredSize(new Dimension(STARTUP_FRAME_WIDTH, STARTUP_FRAME_HEIGHT));
+        frame.add(loadingLabel, BorderLayout.CENTER);
         frame.pack();
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
+
+        preferencesReady.thenCombine(robotReady, (ignored, loadedRobot) -> loadedRobot)
+                .whenComplete((loadedRobot, error) -> SwingUtilities.invokeLater(
+                        () -> finishGUI(frame, loadedRobot, error)));
+    }
+
+    /**
+     * 后台加载完成后构建完整界面
+     */
+    private void finishGUI(JFrame frame, Robot loadedRobot, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            showError("无法初始化机器人实例: " + cause.getMessage());
+            System.exit(1);
+        }
+        robot = loadedRobot;
+        frame.getContentPane().removeAll();
+
+        JPanel mainPanel = createMainPanel();
+        JScrollPane scrollPane = createLogScrollPane();
+        JPanel hotkeyPanel = createHotkeyPanel();
+
+        frame.add(mainPanel, BorderLayout.NORTH);
+        frame.add(scrollPane, BorderLayout.CENTER);
+        frame.add(hotkeyPanel, BorderLayout.SOUTH);
+
+        boolean global = setupGlobalHotkeys();
+        setupHotkeys(frame, startBtn, stopBtn, global);
+        setupDisplayMonitor(frame);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                flushDeferredSave();
+            }
+        });
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.revalidate();
+        frame.repaint();
+        readyNanos = System.nanoTime();
+        reportStartupTime();
+
+        if (positionsLoadError != null) {
+            appendLog("⚠️ 位置文件加载失败，已改用配置中的位置: " + positionsLoadError);
+        }
+        scheduler.start();
+        int scheduleCount = scheduler.getSchedules().size();
+        if (scheduleCount > 0) {
+            appendLog("⏰ 已加载 " + scheduleCount + " 个计划运行");
+        }
+        // 窗口显示后再弹出提示
+        SwingUtilities.invokeLater(this::offerResume);
+    }
+
+    /**
+     * 计划运行回调：在调度线程上调用，转到 EDT 按"开始"按钮的流程启动
+     */
+    private class ScheduledRunListener implements RunScheduler.Listener {
+
+        @Override
+        public void onFire(RunScheduler.Schedule schedule, long scheduledMillis, boolean missed) {
+            SwingUtilities.invokeLater(() -> {
+                refreshScheduleTable();
+                if (clicking.get()) {
+                    appendLog("⏭️ 计划运行 [" + schedule.getTrigger() + "] 到期时连点正在进行，已跳过");
+                    return;
+                }
+                appendLog("⏰ 计划运行 [" + schedule.getTrigger() + "]"
+                        + (missed ? "（错过了 " + formatScheduleTime(scheduledMillis) + "，补跑一次）" : ""));
+                startFromSettings(false);
+            });
+        }
+
+        @Override
+        public void onSkipped(RunScheduler.Schedule schedule, long scheduledMillis) {
+            SwingUtilities.invokeLater(() -> {
+                refreshScheduleTable();
+                appendLog("⏭️ 计划运行 [" + schedule.getTrigger() + "] 错过了 "
+                        + formatScheduleTime(scheduledMillis) + "，按设置跳过");
+            });
+        }
+    }
+
+    private String formatScheduleTime(long millis) {
+        if (millis == ScheduleTrigger.NEVER) {
+            return "无";
+        }
+        return SCHEDULE_TIME_FORMAT.format(Instant.ofEpochMilli(millis).atZone(clock.getZone()));
+    }
+
+    /**
+     * 显示计划运行对话框
+     */
+    private void showScheduleDialog() {
+        if (scheduleDialog == null) {
+            scheduleDialog = createScheduleDialog();
+        }
+        refreshScheduleTable();
+        scheduleDialog.setVisible(true);
+    }
+
+    /**
+     * 创建计划运行对话框
+     */
+    private JDialog createScheduleDialog() {
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(startBtn), "计划运行");
+        dialog.setLayout(new BorderLayout(COMPONENT_SPACING, COMPONENT_SPACING));
+
+        JPanel inputPanel = new JPanel(new BorderLayout(COMPONENT_SPACING, COMPONENT_SPACING));
+        inputPanel.setBorder(BorderFactory.createEmptyBorder(BORDER_PADDING, BORDER_PADDING, 0, BORDER_PADDING));
+        JTextField specField = new JTextField("每隔:30分", 24);
+        JComboBox<RunScheduler.MissedRunPolicy> policyCombo = new JComboBox<>(RunScheduler.MissedRunPolicy.values());
+        JButton addBtn = new JButton("添加");
+        JPanel fieldPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        fieldPanel.add(new JLabel("规则:"));
+        fieldPanel.add(specField);
+        fieldPanel.add(new JLabel("错过时:"));
+        fieldPanel.add(policyCombo);
+        fieldPanel.add(addBtn);
+        JLabel previewLabel = new JLabel(" ");
+        JLabel helpLabel = new JLabel("格式: 每隔:N秒/分/时 | 定时:HH:mm | 定时:yyyy-MM-dd HH:mm | cron:分 时 日 月 周");
+        inputPanel.add(fieldPanel, BorderLayout.NORTH);
+        inputPanel.add(previewLabel, BorderLayout.CENTER);
+        inputPanel.add(helpLabel, BorderLayout.SOUTH);
+
+        scheduleTableModel = new DefaultTableModel(new String[]{"规则", "错过时", "下次运行"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable scheduleTable = new JTable(scheduleTableModel);
+        JScrollPane tableScrollPane = new JScrollPane(scheduleTable);
+        tableScrollPane.setPreferredSize(new Dimension(520, 160));
+
+        JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton removeBtn = new JButton("删除选中");
+        JButton closeBtn = new JButton("关闭");
+        actionPanel.add(removeBtn);
+        actionPanel.add(closeBtn);
+
+        // 输入规则时实时预览接下来的触发时间
+        Runnable updatePreview = () -> {
+            try {
+                ScheduleTrigger trigger = ScheduleTrigger.parse(specField.getText());
+                List<Long> times = scheduler.preview(trigger, SCHEDULE_PREVIEW_COUNT);
+                StringBuilder preview = new StringBuilder("接下来: ");
+                for (Long time : times) {
+                    preview.append(formatScheduleTime(time)).append("  ");
+                }
+                previewLabel.setText(times.isEmpty() ? "⚠️ 该规则不会再触发" : preview.toString());
+            } catch (IllegalArgumentException ex) {
+                previewLabel.setText("❌ " + ex.getMessage());
+            }
+        };
+        specField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                updatePreview.run();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                updatePreview.run();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                updatePreview.run();
+            }
+        });
+        updatePreview.run();
+
+        addBtn.addActionListener(e -> {
+            try {
+                ScheduleTrigger trigger = ScheduleTrigger.parse(specField.getText());
+                RunScheduler.Schedule schedule = new RunScheduler.Schedule(trigger,
+                        (RunScheduler.MissedRunPolicy) policyCombo.getSelectedItem());
+                scheduler.add(schedule);
+                refreshScheduleTable();
+                savePreferences();
+                appendLog("⏰ 已添加计划运行 [" + trigger + "]，下次运行: "
+                        + formatScheduleTime(schedule.getNextFireMillis()));
+            } catch (IllegalArgumentException ex) {
+                showError("规则格式错误: " + ex.getMessage());
+            }
+        });
+        removeBtn.addActionListener(e -> {
+            int row = scheduleTable.getSelectedRow();
+            List<RunScheduler.Schedule> schedules = scheduler.getSchedules();
+            if (row < 0 || row >= schedules.size()) {
+                showError("请先选择要删除的计划");
+                return;
+            }
+            scheduler.remove(schedules.get(row));
+            refreshScheduleTable();
+            savePreferences();
+            appendLog("🗑️ 已删除计划运行 [" + schedules.get(row).getTrigger() + "]");
+        });
+        closeBtn.addActionListener(e -> dialog.setVisible(false));
+
+        dialog.add(inputPanel, BorderLayout.NORTH);
+        dialog.add(tableScrollPane, BorderLayout.CENTER);
+        dialog.add(actionPanel, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(dialog.getOwner());
+        return dialog;
+    }
+
+    /**
+     * 刷新计划运行表格（对话框未创建时忽略）
+     */
+    private void refreshScheduleTable() {
+        if (scheduleTableModel == null) {
+            return;
+        }
+        scheduleTableModel.setRowCount(0);
+        for (RunScheduler.Schedule schedule : scheduler.getSchedules()) {
+            scheduleTableModel.addRow(new Object[]{schedule.getTrigger().getSpec(),
+                    schedule.getMissedRunPolicy().toString(), formatScheduleTime(schedule.getNextFireMillis())});
+        }
+    }
+
+    /**
+     * 输出启动耗时：从 JVM 启动到首次绘制和界面就绪
+     */
+    private void reportStartupTime() {
+        long paintNanos = firstPaintNanos != 0 ? firstPaintNanos : readyNanos;
+        long readyEpochMillis = System.currentTimeMillis();
+        long sinceReadyNanos = System.nanoTime() - readyNanos;
+        // 读取 JVM 启动时间需要加载管理接口，放到后台避免占用 EDT
+        Thread reporter = new Thread(() -> {
+            long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+            long mainOffsetMs = readyEpochMillis - jvmStartMillis
+                    - (readyNanos + sinceReadyNanos - startupNanos) / 1_000_000;
+            String message = String.format("⚡ 启动耗时: 首次绘制 %dms，界面就绪 %dms"
+                    + "（自 JVM 启动，其中 JVM 启动到 main %dms）",
+                    mainOffsetMs + (paintNanos - startupNanos) / 1_000_000,
+                    mainOffsetMs + (readyNanos - startupNanos) / 1_000_000, mainOffsetMs);
+            if (Boolean.getBoolean(PROP_EXIT_WHEN_READY)) {
+                System.out.println(message);
+                System.exit(0);
+            }
+            appendLog(message);
+        }, "StartupReport");
+        reporter.setDaemon(true);
+        reporter.start();
+    }
+
+    /**
+     * 监听显示器变化：窗口换到其他显示器时立即检查，另外定期检查热插拔和重新排列
+     */
+    private void setupDisplayMonitor(JFrame frame) {
+        frame.addPropertyChangeListener("graphicsConfiguration", e -> checkDisplayLayout());
+        Timer timer = new Timer(DISPLAY_CHECK_INTERVAL_MS, e -> checkDisplayLayout());
+        timer.start();
+    }
+
+    /**
+     * 重新读取显示器布局，变化时按显示器ID换算位置坐标
+     *
+     * <p>点击运行中不修改坐标，下次开始前再换算。
+     */
+    private void checkDisplayLayout() {
+        boolean changed = ScreenGeometry.refresh();
+        if (!changed && !displayLayoutPending) {
+            return;
+        }
+        if (clicking.get()) {
+            displayLayoutPending = true;
+            return;
+        }
+        displayLayoutPending = false;
+        ScreenGeometry geometry = ScreenGeometry.get();
+        int moved = positions.rebase(geometry);
+        if (changed) {
+            appendLog("🖥️ 显示器布局已变化（" + geometry.getDisplayCount() + " 个显示器）");
+            if (positionOverlay != null) {
+                positionOverlay.setGeometry(geometry);
+            }
+        }
+        if (moved > 0) {
+            appendLog("🖥️ 已按所在显示器调整 " + moved + " 个位置的坐标");
+            refreshPositionTable();
+            scheduleDeferredSave();
+        }
     }
 
     /**
@@ -405,15 +1204,14 @@ public class HotkeyPositionMouseClickerV2 {
         positionPanel.setBorder(BorderFactory.createTitledBorder("点击位置列表（按顺序循环点击）"));
 
         // 创建表格
-        tableModel = new DefaultTableModel(POSITION_TABLE_COLUMNS, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                // 序号列不可编辑，其他列可编辑
-                return column != 0;
+        tableModel = new PositionTableModel();
+        tableModel.addTableModelListener(e -> {
+            if (positionOverlay != null && positionOverlay.isShowing()) {
+                positionOverlay.update(positions.snapshot());
             }
-        };
+        });
         positionTable = new JTable(tableModel);
-        positionTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        positionTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         positionTable.getTableHeader().setReorderingAllowed(false);
 
         // 设置列宽
@@ -421,6 +1219,8 @@ public class HotkeyPositionMouseClickerV2 {
         positionTable.getColumn("X坐标").setPreferredWidth(80);
         positionTable.getColumn("Y坐标").setPreferredWidth(80);
         positionTable.getColumn("备注").setPreferredWidth(150);
+        positionTable.getColumn("定位").setPreferredWidth(120);
+        positionTable.getColumn("条件").setPreferredWidth(200);
 
         JScrollPane tableScrollPane = new JScrollPane(positionTable);
         tableScrollPane.setPreferredSize(new Dimension(400, 150));
@@ -429,35 +1229,58 @@ public class HotkeyPositionMouseClickerV2 {
         JPanel buttonPanel = new JPanel(new FlowLayout());
         JButton addPosBtn = new JButton("添加位置 (" + modifierKey + "P)");
         JButton deletePosBtn = new JButton("删除选中");
+        JButton duplicateBtn = new JButton("复制选中");
+        JButton offsetBtn = new JButton("偏移选中...");
         JButton moveUpBtn = new JButton("上移");
         JButton moveDownBtn = new JButton("下移");
         JButton clearAllBtn = new JButton("清空所有");
         JButton testPosBtn = new JButton("测试选中位置");
         JButton testAllBtn = new JButton("测试所有位置");
+        overlayBtn = new JButton("显示位置标记");
+        JButton addAnchorBtn = new JButton("添加图像锚点");
+        JButton pickColorBtn = new JButton("取色设为条件");
+        JButton generateBtn = new JButton("批量生成...");
+        JButton importBtn = new JButton("导入...");
+        JButton exportBtn = new JButton("导出...");
+        JButton undoBtn = new JButton("撤销 (" + modifierKey + "Z)");
+        JButton redoBtn = new JButton("重做 (" + modifierKey + "Y)");
 
         buttonPanel.add(addPosBtn);
         buttonPanel.add(deletePosBtn);
+        buttonPanel.add(duplicateBtn);
+        buttonPanel.add(offsetBtn);
         buttonPanel.add(moveUpBtn);
         buttonPanel.add(moveDownBtn);
         buttonPanel.add(clearAllBtn);
         buttonPanel.add(testPosBtn);
         buttonPanel.add(testAllBtn);
+        buttonPanel.add(overlayBtn);
+        buttonPanel.add(addAnchorBtn);
+        buttonPanel.add(pickColorBtn);
+        buttonPanel.add(generateBtn);
+        buttonPanel.add(importBtn);
+        buttonPanel.add(exportBtn);
+        buttonPanel.add(undoBtn);
+        buttonPanel.add(redoBtn);
 
         // 事件处理
         addPosBtn.addActionListener(e -> addCurrentPosition());
         deletePosBtn.addActionListener(e -> deleteSelectedPosition());
+        duplicateBtn.addActionListener(e -> duplicateSelectedPositions());
+        offsetBtn.addActionListener(e -> offsetSelectedPositions());
         moveUpBtn.addActionListener(e -> movePositionUp());
         moveDownBtn.addActionListener(e -> movePositionDown());
         clearAllBtn.addActionListener(e -> clearAllPositions());
         testPosBtn.addActionListener(e -> testSelectedPosition());
         testAllBtn.addActionListener(e -> testAllPositions());
-
-        // 表格编辑事件
-        positionTable.getModel().addTableModelListener(e -> {
-            if (e.getType() == javax.swing.event.TableModelEvent.UPDATE && e.getFirstRow() >= 0) {
-                SwingUtilities.invokeLater(() -> updatePositionFromTable(e.getFirstRow()));
-            }
-        });
+        overlayBtn.addActionListener(e -> togglePositionOverlay());
+        addAnchorBtn.addActionListener(e -> addImageAnchorPosition());
+        pickColorBtn.addActionListener(e -> pickColorCondition());
+        generateBtn.addActionListener(e -> showGenerateDialog());
+        importBtn.addActionListener(e -> importPositions());
+        exportBtn.addActionListener(e -> exportPositions());
+        undoBtn.addActionListener(e -> undoPositionEdit());
+        redoBtn.addActionListener(e -> redoPositionEdit());
 
         // 键盘快捷键：Delete键删除选中行
         positionTable.getInputMap(JComponent.WHEN_FOCUSED).put(
@@ -472,8 +1295,6 @@ public class HotkeyPositionMouseClickerV2 {
         positionPanel.add(tableScrollPane, BorderLayout.CENTER);
         positionPanel.add(buttonPanel, BorderLayout.SOUTH);
 
-        refreshPositionTable();
-
         return positionPanel;
     }
 
@@ -494,7 +1315,36 @@ public class HotkeyPositionMouseClickerV2 {
         fastModeCheck = new JCheckBox("极速模式（最大化点击速率）", fastMode);
         minField = new JTextField(String.valueOf(minInterval));
         maxField = new JTextField(String.valueOf(maxInterval));
-
+        distributionCombo = new JComboBox<>(IntervalJitter.Distribution.values());
+        distributionCombo.setSelectedItem(jitterDistribution);
+        seedField = new JTextField(jitterSeed != null ? String.valueOf(jitterSeed) : "");
+        profileField = new JTextField(profileName);
+        adaptiveCheck = new JCheckBox("自适应速率（检测目标响应）", adaptiveRate);
+        adaptiveModeCombo = new JComboBox<>(new String[]{"每次点击后检测", "每轮结束后检测"});
+        adaptiveModeCombo.setSelectedIndex(adaptivePerCycle ? 1 : 0);
+        JButton adaptiveRegionBtn = new JButton("设置检测区域 (鼠标处)");
+        adaptiveRegionBtn.addActionListener(e -> setAdaptiveRegionFromMouse());
+        adaptiveRegionLabel = new JLabel(formatRegion(adaptiveRegion));
+        traceCheck = new JCheckBox("记录点击时间线", traceEnabled);
+        burstCheck = new JCheckBox("相同位置连发（跳过间隔）", burstRepeats);
+        undoLimitField = new JTextField(String.valueOf(history.getLimit()));
+        testDwellField = new JTextField(String.valueOf(testDwell));
+        limitSecondsField = new JTextField(String.valueOf(limitSeconds));
+        limitClicksField = new JTextField(String.valueOf(limitClicks));
+        limitEndTimeField = new JTextField(limitEndTime);
+        limitFailuresField = new JTextField(String.valueOf(limitFailures));
+        rateModeCombo = new JComboBox<>(new String[]{"关闭（按点击间隔）", "次/秒", "轮/分钟"});
+        rateModeCombo.setSelectedIndex(rateTargetUnit == null ? 0 : rateTargetUnit.ordinal() + 1);
+        rateTargetField = new JTextField(formatRateTarget(rateTarget));
+        rateLabel = new JLabel("运行时显示");
+        JButton exportTraceBtn = new JButton("导出时间线...");
+        exportTraceBtn.addActionListener(e -> exportTrace());
+        JButton calibrateBtn = new JButton("校准延迟...");
+        calibrateBtn.addActionListener(e -> calibrateRobot());
+        moveDelayLabel = new JLabel(formatMoveDelays());
+
+        clickPanel.add(new JLabel("配置名称:"));
+        clickPanel.add(profileField);
         clickPanel.add(new JLabel("点击间隔(ms):"));
         clickPanel.add(intervalField);
         clickPanel.add(new JLabel("循环次数(0=无限):"));
@@ -507,6 +1357,38 @@ public class HotkeyPositionMouseClickerV2 {
         clickPanel.add(minField);
         clickPanel.add(new JLabel("最大间隔:"));
         clickPanel.add(maxField);
+        clickPanel.add(new JLabel("随机分布:"));
+        clickPanel.add(distributionCombo);
+        clickPanel.add(new JLabel("随机种子(留空=随机):"));
+        clickPanel.add(seedField);
+        clickPanel.add(adaptiveCheck);
+        clickPanel.add(adaptiveModeCombo);
+        clickPanel.add(adaptiveRegionBtn);
+        clickPanel.add(adaptiveRegionLabel);
+        clickPanel.add(traceCheck);
+        clickPanel.add(exportTraceBtn);
+        clickPanel.add(calibrateBtn);
+        clickPanel.add(moveDelayLabel);
+        clickPanel.add(burstCheck);
+        clickPanel.add(new JLabel());
+        clickPanel.add(new JLabel("撤销步数(0=不记录):"));
+        clickPanel.add(undoLimitField);
+        clickPanel.add(new JLabel("测试停留(ms):"));
+        clickPanel.add(testDwellField);
+        clickPanel.add(new JLabel("运行时长上限(秒,0=不限):"));
+        clickPanel.add(limitSecondsField);
+        clickPanel.add(new JLabel("总点击数上限(0=不限):"));
+        clickPanel.add(limitClicksField);
+        clickPanel.add(new JLabel("结束时间(HH:mm,留空=不限):"));
+        clickPanel.add(limitEndTimeField);
+        clickPanel.add(new JLabel("连续验证失败上限(0=不限):"));
+        clickPanel.add(limitFailuresField);
+        clickPanel.add(new JLabel("目标速率:"));
+        clickPanel.add(rateModeCombo);
+        clickPanel.add(new JLabel("目标值:"));
+        clickPanel.add(rateTargetField);
+        clickPanel.add(new JLabel("目标/预测/实际:"));
+        clickPanel.add(rateLabel);
 
         return clickPanel;
     }
@@ -520,24 +1402,26 @@ public class HotkeyPositionMouseClickerV2 {
 
         startBtn = new JButton("开始循环点击 (" + modifierKey + "1)");
         stopBtn = new JButton("停止 (" + modifierKey + "2)");
+        pauseBtn = new JButton("暂停/继续 (" + modifierKey + "3)");
         JButton saveBtn = new JButton("保存设置");
+        JButton scheduleBtn = new JButton("计划运行...");
+        JButton historyBtn = new JButton("运行记录...");
 
-        startBtn.addActionListener(e -> {
-            if (updateSettings(intervalField, countField, minField, maxField) && validatePositions()) {
-                buttonType = buttonCombo.getSelectedIndex();
-                randomInterval = randomCheck.isSelected();
-                fastMode = fastModeCheck.isSelected();
-                startClicking();
-            }
-        });
+        startBtn.addActionListener(e -> startFromSettings(true));
 
         stopBtn.addActionListener(e -> stopClicking());
+        pauseBtn.addActionListener(e -> togglePause(System.nanoTime()));
 
         saveBtn.addActionListener(e -> {
-            if (updateSettings(intervalField, countField, minField, maxField)) {
+            if (updateSettings(intervalField, countField, minField, maxField, true)) {
                 buttonType = buttonCombo.getSelectedIndex();
                 randomInterval = randomCheck.isSelected();
                 fastMode = fastModeCheck.isSelected();
+                jitterDistribution = (IntervalJitter.Distribution) distributionCombo.getSelectedItem();
+                adaptiveRate = adaptiveCheck.isSelected();
+                adaptivePerCycle = adaptiveModeCombo.getSelectedIndex() == 1;
+                traceEnabled = traceCheck.isSelected();
+                burstRepeats = burstCheck.isSelected();
                 savePreferences();
                 appendLog("✅ 设置已保存");
             }
@@ -545,7 +1429,13 @@ public class HotkeyPositionMouseClickerV2 {
 
         buttonPanel.add(startBtn);
         buttonPanel.add(stopBtn);
+        buttonPanel.add(pauseBtn);
         buttonPanel.add(saveBtn);
+        buttonPanel.add(scheduleBtn);
+        buttonPanel.add(historyBtn);
+
+        scheduleBtn.addActionListener(e -> showScheduleDialog());
+        historyBtn.addActionListener(e -> showRunHistory());
 
         return buttonPanel;
     }
@@ -586,6 +1476,7 @@ public class HotkeyPositionMouseClickerV2 {
         StringBuilder hotkeyText = new StringBuilder();
         hotkeyText.append(modifierKey).append("1:开始  ")
                 .append(modifierKey).append("2:停止  ")
+                .append(modifierKey).append("3:暂停/继续  ")
                 .append(modifierKey).append("P:添加当前位置");
 
         JLabel hotkeyLabel = new JLabel(hotkeyText.toString());
@@ -600,12 +1491,11 @@ public class HotkeyPositionMouseClickerV2 {
         try {
             Thread.sleep(GET_POSITION_DELAY);
             Point mousePos = MouseInfo.getPointerInfo().getLocation();
-            ClickPosition pos = new ClickPosition(mousePos.x, mousePos.y, "");
 
             // 检查是否重复
-            if (isDuplicatePosition(pos)) {
+            if (positions.indexOf(mousePos.x, mousePos.y) >= 0) {
                 int result = JOptionPane.showConfirmDialog(null,
-                        "位置 (" + pos.x + ", " + pos.y + ") 已存在，是否仍要添加？",
+                        "位置 (" + mousePos.x + ", " + mousePos.y + ") 已存在，是否仍要添加？",
                         "重复位置确认", JOptionPane.YES_NO_OPTION);
                 if (result != JOptionPane.YES_OPTION) {
                     appendLog("⏭️ 已跳过重复位置");
@@ -613,14 +1503,14 @@ public class HotkeyPositionMouseClickerV2 {
                 }
             }
 
-            clickPositions.add(pos);
-            refreshPositionTable();
-            appendLog("📌 已添加位置: " + pos);
+            int row = history.add("添加位置", mousePos.x, mousePos.y,
+                    createAttributes(mousePos.x, mousePos.y, "", "", ""));
+            tableModel.fireTableRowsInserted(row, row);
+            appendLog("📌 已添加位置: " + positions.describe(row));
             // 自动保存
-            savePreferences();
+            scheduleDeferredSave();
             // 自动选中新添加的行
-            positionTable.setRowSelectionInterval(clickPositions.size() - 1,
-                    clickPositions.size() - 1);
+            positionTable.setRowSelectionInterval(row, row);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             appendLog("❌ 添加位置失败: " + e.getMessage());
@@ -630,35 +1520,688 @@ public class HotkeyPositionMouseClickerV2 {
     }
 
     /**
-     * 检查位置是否重复
+     * 以当前鼠标位置为中心设置自适应速率检测区域
+     */
+    private void setAdaptiveRegionFromMouse() {
+        try {
+            Thread.sleep(GET_POSITION_DELAY);
+            Point mousePos = MouseInfo.getPointerInfo().getLocation();
+            int half = ADAPTIVE_REGION_SIZE / 2;
+            adaptiveRegion = new Rectangle(mousePos.x - half, mousePos.y - half,
+                    ADAPTIVE_REGION_SIZE, ADAPTIVE_REGION_SIZE);
+            adaptiveRegionLabel.setText(formatRegion(adaptiveRegion));
+            appendLog("🔍 已设置检测区域: " + formatRegion(adaptiveRegion));
+            savePreferences();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            appendLog("❌ 设置检测区域失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 格式化区域为 "x,y,w,h"
      */
-    private boolean isDuplicatePosition(ClickPosition pos) {
-        for (ClickPosition existing : clickPositions) {
-            if (existing.x == pos.x && existing.y == pos.y) {
-                return true;
+    private static String formatRegion(Rectangle region) {
+        if (region == null) {
+            return "未设置";
+        }
+        return region.x + "," + region.y + "," + region.width + "," + region.height;
+    }
+
+    /**
+     * 解析 "x,y,w,h" 格式的区域
+     */
+    private static Rectangle parseRegion(String text) {
+        String[] parts = text.split(",");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            return new Rectangle(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                    Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析保存的目标速率单位（空或无法识别时返回 null，即不使用目标速率）
+     */
+    private static RateTargetSolver.Unit parseRateUnit(String text) {
+        for (RateTargetSolver.Unit unit : RateTargetSolver.Unit.values()) {
+            if (unit.name().equals(text)) {
+                return unit;
             }
         }
-        return false;
+        return null;
     }
 
     /**
-     * 删除选中位置
+     * 获取截图服务（首次调用时创建独立的Robot并启动截图线程）
      */
-    private void deleteSelectedPosition() {
+    private synchronized ScreenCaptureService getCaptureService() throws AWTException {
+        if (captureService == null) {
+            Robot screenRobot = new Robot();
+            screenRobot.setAutoDelay(0);
+            captureService = new ScreenCaptureService(ScreenSource.fromRobot(screenRobot));
+            captureService.start();
+        }
+        return captureService;
+    }
+
+    /**
+     * 以当前鼠标位置为中心截取参考图像，添加图像锚点位置
+     */
+    private void addImageAnchorPosition() {
+        try {
+            Thread.sleep(GET_POSITION_DELAY);
+            Point mousePos = MouseInfo.getPointerInfo().getLocation();
+            int half = ANCHOR_TEMPLATE_SIZE / 2;
+            BufferedImage image = getCaptureService().snapshot(new Rectangle(mousePos.x - half,
+                    mousePos.y - half, ANCHOR_TEMPLATE_SIZE, ANCHOR_TEMPLATE_SIZE));
+            if (image == null) {
+                appendLog("❌ 添加图像锚点失败: 截图失败");
+                return;
+            }
+            ImageAnchor anchor = new ImageAnchor("anchor-" + System.currentTimeMillis(), image);
+            anchor.save(getAnchorDirectory());
+            imageAnchors.put(anchor.getName(), anchor);
+
+            int row = history.add("添加图像锚点位置", mousePos.x, mousePos.y,
+                    createAttributes(mousePos.x, mousePos.y, "", ANCHOR_PREFIX_IMAGE + anchor.getName(), ""));
+            tableModel.fireTableRowsInserted(row, row);
+            appendLog("🖼️ 已添加图像锚点位置: " + positions.describe(row));
+            scheduleDeferredSave();
+            positionTable.setRowSelectionInterval(row, row);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            appendLog("❌ 添加图像锚点失败: " + e.getMessage());
+        } catch (AWTException | IOException e) {
+            appendLog("❌ 添加图像锚点失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取鼠标处像素颜色，设为选中位置的等待条件
+     */
+    private void pickColorCondition() {
         int selectedRow = positionTable.getSelectedRow();
-        if (selectedRow >= 0 && selectedRow < clickPositions.size()) {
-            ClickPosition pos = clickPositions.remove(selectedRow);
-            refreshPositionTable();
-            appendLog("🗑️ 已删除位置: " + pos);
-            // 自动保存
-            savePreferences();
-            // 如果有其他位置，保持选中状态
-            if (!clickPositions.isEmpty()) {
-                int newSelection = Math.min(selectedRow, clickPositions.size() - 1);
-                positionTable.setRowSelectionInterval(newSelection, newSelection);
+        if (selectedRow < 0 || selectedRow >= positions.size()) {
+            showError("请先选择一个位置");
+            return;
+        }
+        try {
+            Thread.sleep(GET_POSITION_DELAY);
+            Point mousePos = MouseInfo.getPointerInfo().getLocation();
+            BufferedImage pixel = getCaptureService().snapshot(new Rectangle(mousePos.x, mousePos.y, 1, 1));
+            if (pixel == null) {
+                appendLog("❌ 取色失败: 截图失败");
+                return;
+            }
+            String condition = WaitCondition.pixelSpec(mousePos.x, mousePos.y, pixel.getRGB(0, 0),
+                    DEFAULT_COLOR_TOLERANCE);
+            parseCondition(condition);
+            history.setAttributes("设置取色条件", selectedRow,
+                    positions.getAttributes(selectedRow).withCondition(condition));
+            tableModel.fireTableRowsUpdated(selectedRow, selectedRow);
+            positionTable.setRowSelectionInterval(selectedRow, selectedRow);
+            appendLog("🎨 位置 " + (selectedRow + 1) + " 已设置条件: " + condition);
+            scheduleDeferredSave();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            appendLog("❌ 取色失败: " + e.getMessage());
+        } catch (AWTException e) {
+            appendLog("❌ 取色失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 显示批量生成对话框
+     */
+    private void showGenerateDialog() {
+        if (generateDialog == null) {
+            generateDialog = createGenerateDialog();
+        }
+        generateDialog.setVisible(true);
+    }
+
+    /**
+     * 创建批量生成对话框
+     */
+    private JDialog createGenerateDialog() {
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(startBtn), "批量生成位置");
+        dialog.setLayout(new BorderLayout(COMPONENT_SPACING, COMPONENT_SPACING));
+
+        JPanel inputPanel = new JPanel(new BorderLayout(COMPONENT_SPACING, COMPONENT_SPACING));
+        inputPanel.setBorder(BorderFactory.createEmptyBorder(BORDER_PADDING, BORDER_PADDING, 0, BORDER_PADDING));
+        JTextField specField = new JTextField("网格:100,100,400,300,10,5", 32);
+        JPanel fieldPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        fieldPanel.add(new JLabel("规则:"));
+        fieldPanel.add(specField);
+        JLabel previewLabel = new JLabel(" ");
+        JLabel helpLabel = new JLabel("<html>格式: 网格:x,y,宽,高,列,行 | 折线:点数,x1,y1,x2,y2,... | 圆:x,y,半径,点数<br>"
+                + "椭圆:x,y,半径x,半径y,点数 | 散布:x,y,宽,高,最小距离[,种子]<br>"
+                + "生成的位置插入到选中行之后（未选中时添加到末尾）</html>");
+        inputPanel.add(fieldPanel, BorderLayout.NORTH);
+        inputPanel.add(previewLabel, BorderLayout.CENTER);
+        inputPanel.add(helpLabel, BorderLayout.SOUTH);
+
+        JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton generateBtn = new JButton("生成");
+        JButton closeBtn = new JButton("关闭");
+        actionPanel.add(generateBtn);
+        actionPanel.add(closeBtn);
+
+        // 输入规则时实时预览生成的位置数
+        Runnable updatePreview = () -> {
+            try {
+                PositionGenerator generator = PositionGenerator.parse(specField.getText());
+                previewLabel.setText("将生成" + (generator.isRandom() ? "约 " : " ")
+                        + generator.estimateCount() + " 个位置");
+            } catch (IllegalArgumentException ex) {
+                previewLabel.setText("❌ " + ex.getMessage());
             }
+        };
+        specField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                updatePreview.run();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                updatePreview.run();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                updatePreview.run();
+            }
+        });
+        updatePreview.run();
+
+        generateBtn.addActionListener(e -> {
+            PositionGenerator generator;
+            try {
+                generator = PositionGenerator.parse(specField.getText());
+            } catch (IllegalArgumentException ex) {
+                showError("规则格式错误: " + ex.getMessage());
+                return;
+            }
+            generateBtn.setEnabled(false);
+            long start = System.nanoTime();
+            CompletableFuture.supplyAsync(generator::generate).whenComplete((points, error) ->
+                    SwingUtilities.invokeLater(() -> {
+                        generateBtn.setEnabled(true);
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error;
+                            appendLog("❌ 批量生成失败: " + cause.getMessage());
+                            return;
+                        }
+                        insertGeneratedPositions(generator, points, System.nanoTime() - start);
+                    }));
+        });
+        closeBtn.addActionListener(e -> dialog.setVisible(false));
+
+        dialog.add(inputPanel, BorderLayout.NORTH);
+        dialog.add(actionPanel, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(dialog.getOwner());
+        return dialog;
+    }
+
+    /**
+     * 把生成的位置一次性插入位置列表（跳过不在任何显示器上的点），只通知一次表格、保存一次
+     *
+     * @param elapsedNanos 生成耗时
+     */
+    private void insertGeneratedPositions(PositionGenerator generator, PositionGenerator.Points points,
+            long elapsedNanos) {
+        int[] xs = points.getXs();
+        int[] ys = points.getYs();
+        PositionStore.Attributes[] attrs = new PositionStore.Attributes[points.size()];
+        // 每个显示器只创建一个属性对象
+        Map<ScreenGeometry.Display, PositionStore.Attributes> displayAttributes = new HashMap<>();
+        PositionStore.Attributes base = new PositionStore.Attributes(generator.getLabel(), "", "", "", 0, 0);
+        ScreenGeometry geometry = ScreenGeometry.get();
+        int count = 0;
+        for (int i = 0; i < points.size(); i++) {
+            ScreenGeometry.Display display = geometry.displayAt(xs[i], ys[i]);
+            if (display == null) {
+                continue;
+            }
+            PositionStore.Attributes displayAttrs = displayAttributes.get(display);
+            if (displayAttrs == null) {
+                Rectangle bounds = display.getBounds();
+                displayAttrs = base.withDisplay(display.getId(), bounds.x, bounds.y);
+                displayAttributes.put(display, displayAttrs);
+            }
+            xs[count] = xs[i];
+            ys[count] = ys[i];
+            attrs[count] = displayAttrs;
+            count++;
+        }
+        int skipped = points.size() - count;
+        if (count == 0) {
+            appendLog("⚠️ 生成的 " + points.size() + " 个位置都不在任何显示器上，未添加");
+            return;
+        }
+
+        int selectedRow = positionTable.getSelectedRow();
+        int index = selectedRow >= 0 && selectedRow < positions.size() ? selectedRow + 1 : positions.size();
+        history.insertRange("批量生成 " + generator.getLabel(), index, xs, ys, 0, count, attrs);
+        tableModel.fireTableRowsInserted(index, index + count - 1);
+        positionTable.setRowSelectionInterval(index, index + count - 1);
+        positionTable.scrollRectToVisible(positionTable.getCellRect(index, 0, true));
+        appendLog(String.format("🧩 已生成 %d 个位置 [%s]，耗时 %.1fms%s%s", count, generator.getSpec(),
+                elapsedNanos / 1_000_000.0,
+                generator.isRandom() ? "，种子: " + generator.getSeed() : "",
+                skipped > 0 ? "，跳过 " + skipped + " 个不在显示器上的点" : ""));
+        scheduleDeferredSave();
+    }
+
+    /**
+     * 从 CSV/JSON 文件导入位置（后台流式读取并校验，完成后一次插入）
+     */
+    private void importPositions() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("位置文件 (*.csv, *.json)",
+                "csv", "json"));
+        if (chooser.showOpenDialog(SwingUtilities.getWindowAncestor(startBtn)) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        boolean replace = false;
+        if (!positions.isEmpty()) {
+            Object[] options = {"追加到末尾", "替换现有位置", "取消"};
+            int choice = JOptionPane.showOptionDialog(null, "当前已有 " + positions.size() + " 个位置，导入的位置要如何处理？",
+                    "导入位置", JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE, null, options,
+                    options[0]);
+            if (choice != 0 && choice != 1) {
+                return;
+            }
+            replace = choice == 1;
+        }
+        boolean replaceExisting = replace;
+        appendLog("📥 正在导入 " + file + " ...");
+        Thread importThread = new Thread(() -> {
+            long start = System.nanoTime();
+            PositionStore.Batch batch = new PositionStore.Batch();
+            ScreenGeometry geometry = ScreenGeometry.get();
+            // 同一定位方式只校验一次（图像锚点需要检查文件），合法时记为空字符串
+            Map<String, String> anchorErrors = new HashMap<>();
+            try {
+                PositionTransfer.Report report = PositionTransfer.read(file, (x, y, note, anchor, condition) -> {
+                    String anchorError = anchorErrors.computeIfAbsent(anchor, spec -> {
+                        String error = validateAnchorSpec(spec);
+                        return error != null ? error : "";
+                    });
+                    if (!anchorError.isEmpty()) {
+                        return anchorError.replace('\n', ' ');
+                    }
+                    if (!anchor.startsWith(ANCHOR_PREFIX_WINDOW) && !geometry.contains(x, y)) {
+                        return "坐标 (" + x + ", " + y + ") 不在任何显示器上";
+                    }
+                    try {
+                        parseCondition(condition);
+                    } catch (IllegalArgumentException e) {
+                        return "条件格式错误: " + e.getMessage();
+                    }
+                    batch.add(x, y, attachDisplay(x, y, new PositionStore.Attributes(note, anchor, condition,
+                            "", 0, 0)));
+                    return null;
+                });
+                long elapsed = System.nanoTime() - start;
+                SwingUtilities.invokeLater(() -> finishImport(file, report, batch, replaceExisting, elapsed));
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> showError("导入失败: " + e.getMessage()));
+            }
+        }, "ImportThread");
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+
+    /**
+     * 导入读取完成后，确认错误并一次插入位置列表
+     */
+    private void finishImport(File file, PositionTransfer.Report report, PositionStore.Batch batch,
+            boolean replace, long elapsedNanos) {
+        if (report.getErrorCount() > 0) {
+            StringBuilder message = new StringBuilder();
+            message.append("共 ").append(report.getRows()).append(" 行，其中 ").append(report.getErrorCount())
+                    .append(" 行有错误：\n");
+            List<String> errors = report.getErrors();
+            for (int i = 0; i < errors.size() && i < IMPORT_ERROR_PREVIEW; i++) {
+                message.append(errors.get(i)).append('\n');
+            }
+            if (report.getErrorCount() > IMPORT_ERROR_PREVIEW) {
+                message.append("...\n");
+            }
+            for (String error : errors) {
+                appendLog("⚠️ 导入 " + error);
+            }
+            if (batch.size() == 0) {
+                showError(message.append("没有可以导入的位置").toString());
+                return;
+            }
+            message.append("\n是否跳过错误行，导入其余 ").append(batch.size()).append(" 个位置？");
+            int result = JOptionPane.showConfirmDialog(null, message.toString(), "导入位置",
+                    JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (result != JOptionPane.YES_OPTION) {
+                appendLog("⏭️ 已取消导入");
+                return;
+            }
+        } else if (batch.size() == 0) {
+            showError("文件中没有位置");
+            return;
+        }
+
+        int index = replace ? 0 : positions.size();
+        if (replace) {
+            history.replaceAll("导入 " + file.getName(), batch);
         } else {
+            history.insert("导入 " + file.getName(), index, batch);
+        }
+        if (replace) {
+            refreshPositionTable();
+        } else {
+            tableModel.fireTableRowsInserted(index, index + batch.size() - 1);
+        }
+        appendLog(String.format("📥 已从 %s 导入 %d 个位置%s，耗时 %.1fms", file.getName(), batch.size(),
+                report.getErrorCount() > 0 ? "（跳过 " + report.getErrorCount() + " 行错误）" : "",
+                elapsedNanos / 1_000_000.0));
+        scheduleDeferredSave();
+    }
+
+    /**
+     * 把位置列表导出为 CSV/JSON 文件（按扩展名选择格式）
+     */
+    private void exportPositions() {
+        if (positions.isEmpty()) {
+            showError("位置列表为空，无法导出");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(POSITIONS_EXPORT_FILE_NAME));
+        if (chooser.showSaveDialog(SwingUtilities.getWindowAncestor(startBtn)) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        PositionStore.Snapshot snapshot = positions.snapshot();
+        Thread exportThread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                int exported = PositionTransfer.write(file, snapshot);
+                appendLog(String.format("📤 已导出 %d 个位置到 %s，耗时 %.1fms", exported, file,
+                        (System.nanoTime() - start) / 1_000_000.0));
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> showError("导出失败: " + e.getMessage()));
+            }
+        }, "ExportThread");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
+    /**
+     * 获取图像锚点目录
+     */
+    private File getAnchorDirectory() {
+        return new File(new File(System.getProperty("user.home"), APP_DATA_DIR_NAME), ANCHOR_DIR_NAME);
+    }
+
+    /**
+     * 获取图像锚点（按需从磁盘加载）
+     *
+     * @return 锚点，加载失败时返回 null
+     */
+    private ImageAnchor getImageAnchor(String name) {
+        ImageAnchor anchor = imageAnchors.get(name);
+        if (anchor != null) {
+            return anchor;
+        }
+        try {
+            anchor = ImageAnchor.load(getAnchorDirectory(), name);
+            imageAnchors.put(name, anchor);
+            return anchor;
+        } catch (IOException e) {
+            appendLog("⚠️ 图像锚点加载失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 校验定位方式
+     *
+     * @return 错误信息，合法时返回 null
+     */
+    private String validateAnchorSpec(String spec) {
+        if (spec.isEmpty()) {
+            return null;
+        }
+        if (spec.startsWith(ANCHOR_PREFIX_IMAGE)) {
+            String name = spec.substring(ANCHOR_PREFIX_IMAGE.length());
+            if (!ImageAnchor.exists(getAnchorDirectory(), name)) {
+                return "图像锚点 \"" + name + "\" 不存在";
+            }
+            return null;
+        }
+        if (spec.startsWith(ANCHOR_PREFIX_WINDOW)) {
+            if (spec.substring(ANCHOR_PREFIX_WINDOW.length()).trim().isEmpty()) {
+                return "请填写窗口标题，例如 \"" + ANCHOR_PREFIX_WINDOW + "记事本\"";
+            }
+            return null;
+        }
+        return "无法识别的定位方式: " + spec + "\n留空表示绝对坐标，\"" + ANCHOR_PREFIX_IMAGE + "名称\"表示图像锚点，\""
+                + ANCHOR_PREFIX_WINDOW + "标题\"表示相对窗口的坐标";
+    }
+
+    /**
+     * 解析位置在屏幕上的实际点击坐标
+     *
+     * @param x 保存的X坐标
+     * @param y 保存的Y坐标
+     * @param anchorSpec 定位方式
+     * @return 点击坐标，图像锚点或窗口未找到时返回 null
+     */
+    private Point resolveTarget(int x, int y, String anchorSpec) {
+        if (anchorSpec.startsWith(ANCHOR_PREFIX_WINDOW)) {
+            try {
+                Rectangle window = getWindowCache().find(getWindowTitle(anchorSpec));
+                return window != null ? new Point(window.x + x, window.y + y) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        if (anchorSpec.startsWith(ANCHOR_PREFIX_IMAGE)) {
+            ImageAnchor anchor = getImageAnchor(anchorSpec.substring(ANCHOR_PREFIX_IMAGE.length()));
+            if (anchor == null) {
+                return null;
+            }
+            try {
+                return anchor.locate(getCaptureService(), getSearchBounds(), new Point(x, y));
+            } catch (AWTException e) {
+                return null;
+            }
+        }
+        return new Point(x, y);
+    }
+
+    /**
+     * 创建位置属性，并记录坐标所在的显示器（窗口相对坐标不记录）
+     */
+    private static PositionStore.Attributes createAttributes(int x, int y, String note, String anchor,
+            String condition) {
+        PositionStore.Attributes attrs = new PositionStore.Attributes(note, anchor, condition, "", 0, 0);
+        return attachDisplay(x, y, attrs);
+    }
+
+    /**
+     * 根据坐标重新记录所在显示器
+     */
+    private static PositionStore.Attributes attachDisplay(int x, int y, PositionStore.Attributes attrs) {
+        ScreenGeometry.Display display = attrs.getAnchor().startsWith(ANCHOR_PREFIX_WINDOW) ? null
+                : ScreenGeometry.get().displayAt(x, y);
+        if (display == null) {
+            return attrs.withDisplay("", 0, 0);
+        }
+        Rectangle bounds = display.getBounds();
+        return attrs.withDisplay(display.getId(), bounds.x, bounds.y);
+    }
+
+    /**
+     * 解析等待条件（结果按条件文本缓存）
+     *
+     * @param spec 条件文本
+     * @return 条件，空文本返回 null
+     * @throws IllegalArgumentException 条件格式错误
+     */
+    private WaitCondition parseCondition(String spec) {
+        if (spec == null || spec.isEmpty()) {
+            return null;
+        }
+        WaitCondition condition = parsedConditions.get(spec);
+        if (condition == null) {
+            condition = WaitCondition.parse(spec);
+            parsedConditions.put(spec, condition);
+        }
+        return condition;
+    }
+
+    /**
+     * 获取窗口位置缓存（首次调用时创建）
+     */
+    private synchronized WindowGeometryCache getWindowCache() {
+        if (windowCache == null) {
+            windowCache = new WindowGeometryCache(WindowGeometryProvider.forCurrentPlatform(), WINDOW_CACHE_TTL_MS);
+        }
+        return windowCache;
+    }
+
+    private static String getWindowTitle(String anchor) {
+        return anchor.substring(ANCHOR_PREFIX_WINDOW.length()).trim();
+    }
+
+    /**
+     * 在绝对坐标和窗口相对坐标之间换算
+     *
+     * @param anchor 定位方式
+     * @param point 待换算的坐标
+     * @param toWindow true 表示屏幕坐标转为窗口相对坐标，false 表示反向
+     * @return 换算后的坐标，不是窗口定位时原样返回
+     * @throws IOException 窗口查询失败或窗口不存在
+     */
+    private Point convertWindowRelative(String anchor, Point point, boolean toWindow) throws IOException {
+        if (!anchor.startsWith(ANCHOR_PREFIX_WINDOW)) {
+            return point;
+        }
+        String title = getWindowTitle(anchor);
+        Rectangle window = getWindowCache().findFresh(title);
+        if (window == null) {
+            throw new IOException("未找到标题包含 \"" + title + "\" 的窗口");
+        }
+        return toWindow ? new Point(point.x - window.x, point.y - window.y)
+                : new Point(point.x + window.x, point.y + window.y);
+    }
+
+    /**
+     * 输出本次运行的窗口定位统计
+     */
+    private void appendWindowStats() {
+        WindowGeometryCache cache;
+        synchronized (this) {
+            cache = windowCache;
+        }
+        if (cache == null || cache.getLookups() == 0) {
+            return;
+        }
+        appendLog(String.format("🪟 窗口定位: 查询 %d 次，缓存命中率 %.1f%%，窗口系统查询平均 %.1fms / 最长 %.1fms",
+                cache.getLookups(), cache.getHitRate() * 100, cache.getAverageQueryNanos() / 1_000_000.0,
+                cache.getMaxQueryNanos() / 1_000_000.0));
+        cache.reset();
+    }
+
+    /**
+     * 图像锚点的搜索范围
+     */
+    private Rectangle getSearchBounds() {
+        return ScreenGeometry.get().getVirtualBounds();
+    }
+
+    /**
+     * 输出本次运行使用过的图像锚点统计，并释放锚点的截图订阅
+     */
+    private void appendAnchorStats() {
+        for (ImageAnchor anchor : imageAnchors.values()) {
+            anchor.invalidate();
+            if (anchor.getCacheHits() + anchor.getCacheMisses() == 0) {
+                continue;
+            }
+            appendLog(String.format("🖼️ 锚点 %s: 缓存命中 %d 次，缓存失效 %d 次，最近匹配耗时 %.1fms",
+                    anchor.getName(), anchor.getCacheHits(), anchor.getCacheMisses(),
+                    anchor.getLastMatchNanos() / 1_000_000.0));
+        }
+    }
+
+    /**
+     * 获取选中的位置行（升序）
+     */
+    private int[] getSelectedPositionRows() {
+        int[] rows = positionTable.getSelectedRows();
+        int count = 0;
+        for (int row : rows) {
+            if (row < positions.size()) {
+                rows[count++] = row;
+            }
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * 选中指定的行（升序，只产生一次选择事件）
+     */
+    private void selectPositionRows(int[] rows) {
+        ListSelectionModel selection = positionTable.getSelectionModel();
+        selection.setValueIsAdjusting(true);
+        selection.clearSelection();
+        int start = 0;
+        for (int i = 1; i <= rows.length; i++) {
+            if (i == rows.length || rows[i] != rows[i - 1] + 1) {
+                selection.addSelectionInterval(rows[start], rows[i - 1]);
+                start = i;
+            }
+        }
+        selection.setValueIsAdjusting(false);
+        if (rows.length > 0) {
+            positionTable.scrollRectToVisible(positionTable.getCellRect(rows[0], 0, true));
+        }
+    }
+
+    /**
+     * 删除选中位置（支持多选，一次删除、一次保存）
+     */
+    private void deleteSelectedPosition() {
+        int[] rows = getSelectedPositionRows();
+        if (rows.length == 0) {
             showError("请先选择一个位置");
+            return;
+        }
+        String description = rows.length == 1 ? positions.describe(rows[0]) : rows.length + " 个位置";
+        boolean contiguous = rows[rows.length - 1] - rows[0] == rows.length - 1;
+        history.removeAll(rows.length == 1 ? "删除位置" : "删除 " + rows.length + " 个位置", rows);
+        // 删除事件会重绘其后所有行，序号随之更新
+        if (contiguous) {
+            tableModel.fireTableRowsDeleted(rows[0], rows[rows.length - 1]);
+        } else {
+            refreshPositionTable();
+        }
+        appendLog("🗑️ 已删除位置: " + description);
+        // 自动保存
+        scheduleDeferredSave();
+        // 如果有其他位置，保持选中状态
+        if (!positions.isEmpty()) {
+            int newSelection = Math.min(rows[0], positions.size() - 1);
+            positionTable.setRowSelectionInterval(newSelection, newSelection);
         }
     }
 
@@ -666,63 +2209,232 @@ public class HotkeyPositionMouseClickerV2 {
      * 上移选中位置
      */
     private void movePositionUp() {
-        int selectedRow = positionTable.getSelectedRow();
-        if (selectedRow > 0 && selectedRow < clickPositions.size()) {
-            ClickPosition pos = clickPositions.remove(selectedRow);
-            clickPositions.add(selectedRow - 1, pos);
-            refreshPositionTable();
-            positionTable.setRowSelectionInterval(selectedRow - 1, selectedRow - 1);
-            appendLog("⬆️ 位置已上移");
-        } else if (selectedRow < 0) {
+        moveSelectedPositions(true);
+    }
+
+    /**
+     * 下移选中位置
+     */
+    private void movePositionDown() {
+        moveSelectedPositions(false);
+    }
+
+    /**
+     * 把选中的各个连续区间整体上移或下移一位（已在顶端或底端的区间不动）
+     */
+    private void moveSelectedPositions(boolean up) {
+        int[] rows = getSelectedPositionRows();
+        if (rows.length == 0) {
             showError("请先选择一个位置");
+            return;
+        }
+        String label = (up ? "上移" : "下移") + (rows.length == 1 ? "位置" : " " + rows.length + " 个位置");
+        int[] moved = history.moveRows(label, rows, up);
+        if (moved == null) {
+            return;
+        }
+        int first = Math.max(0, rows[0] - 1);
+        int last = Math.min(positions.size() - 1, rows[rows.length - 1] + 1);
+        tableModel.fireTableRowsUpdated(first, last);
+        selectPositionRows(moved);
+        appendLog((up ? "⬆️ " : "⬇️ ") + (rows.length == 1 ? "位置" : rows.length + " 个位置")
+                + (up ? "已上移" : "已下移"));
+        scheduleDeferredSave();
+    }
+
+    /**
+     * 复制选中位置，插入到最后一个选中位置之后
+     */
+    private void duplicateSelectedPositions() {
+        int[] rows = getSelectedPositionRows();
+        if (rows.length == 0) {
+            showError("请先选择一个位置");
+            return;
+        }
+        PositionStore.Snapshot snapshot = positions.snapshot();
+        PositionStore.Batch batch = new PositionStore.Batch();
+        for (int row : rows) {
+            batch.add(snapshot.getX(row), snapshot.getY(row), snapshot.getAttributes(row));
+        }
+        int index = rows[rows.length - 1] + 1;
+        history.insert("复制 " + rows.length + " 个位置", index, batch);
+        tableModel.fireTableRowsInserted(index, index + rows.length - 1);
+        positionTable.setRowSelectionInterval(index, index + rows.length - 1);
+        positionTable.scrollRectToVisible(positionTable.getCellRect(index, 0, true));
+        appendLog("📑 已复制 " + rows.length + " 个位置，插入到第 " + (index + 1) + " 行");
+        scheduleDeferredSave();
+    }
+
+    /**
+     * 把选中位置整体偏移 (dx, dy)
+     *
+     * <p>相对窗口定位的位置只偏移相对坐标；其余位置偏移后必须仍在显示器上，并重新记录所在显示器。
+     */
+    private void offsetSelectedPositions() {
+        int[] rows = getSelectedPositionRows();
+        if (rows.length == 0) {
+            showError("请先选择一个位置");
+            return;
+        }
+        String input = JOptionPane.showInputDialog(null,
+                "把选中的 " + rows.length + " 个位置偏移 dx,dy 像素（例如 10,-5）:", "偏移选中位置",
+                JOptionPane.QUESTION_MESSAGE);
+        if (input == null || input.trim().isEmpty()) {
+            return;
+        }
+        String[] parts = input.trim().split("\\s*[,，\\s]\\s*");
+        int dx;
+        int dy;
+        try {
+            if (parts.length != 2) {
+                throw new NumberFormatException();
+            }
+            dx = Integer.parseInt(parts[0]);
+            dy = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            showError("请输入两个整数，格式: dx,dy");
+            return;
+        }
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+
+        PositionStore.Snapshot snapshot = positions.snapshot();
+        ScreenGeometry geometry = ScreenGeometry.get();
+        int[] xs = new int[rows.length];
+        int[] ys = new int[rows.length];
+        PositionStore.Attributes[] attrs = new PositionStore.Attributes[rows.length];
+        int offScreen = 0;
+        int firstOffScreen = -1;
+        for (int k = 0; k < rows.length; k++) {
+            int row = rows[k];
+            PositionStore.Attributes current = snapshot.getAttributes(row);
+            int x = snapshot.getX(row) + dx;
+            int y = snapshot.getY(row) + dy;
+            xs[k] = x;
+            ys[k] = y;
+            if (current.getAnchor().startsWith(ANCHOR_PREFIX_WINDOW)) {
+                attrs[k] = current;
+                continue;
+            }
+            ScreenGeometry.Display display = geometry.displayAt(x, y);
+            if (display == null) {
+                if (offScreen++ == 0) {
+                    firstOffScreen = row;
+                }
+                continue;
+            }
+            // 仍在原显示器上时沿用原属性，避免逐个创建
+            Rectangle bounds = display.getBounds();
+            attrs[k] = display.getId().equals(current.getDisplayId()) && bounds.x == current.getDisplayOriginX()
+                    && bounds.y == current.getDisplayOriginY()
+                    ? current : current.withDisplay(display.getId(), bounds.x, bounds.y);
+        }
+        if (offScreen > 0) {
+            showError("偏移后有 " + offScreen + " 个位置不在任何显示器上（第一个是第 " + (firstOffScreen + 1)
+                    + " 行），未修改\n当前显示器:\n" + geometry.describe());
+            return;
+        }
+
+        history.setAll("偏移 " + rows.length + " 个位置", rows.clone(), xs, ys, attrs);
+        tableModel.fireTableRowsUpdated(rows[0], rows[rows.length - 1]);
+        appendLog("↔️ 已把 " + rows.length + " 个位置偏移 (" + dx + ", " + dy + ")");
+        scheduleDeferredSave();
+    }
+
+    /**
+     * 清空所有位置
+     */
+    private void clearAllPositions() {
+        if (positions.isEmpty()) {
+            showError("位置列表已经为空");
+            return;
+        }
+        int result = JOptionPane.showConfirmDialog(null,
+                "确定要清空所有 " + positions.size() + " 个位置吗？（可撤销）", "确认",
+                JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (result == JOptionPane.YES_OPTION) {
+            int count = positions.size();
+            history.clear("清空位置");
+            refreshPositionTable();
+            appendLog("🗑️ 已清空所有 " + count + " 个位置");
+            // 自动保存
+            scheduleDeferredSave();
+        }
+    }
+
+    /**
+     * 撤销最近一次位置编辑
+     */
+    private void undoPositionEdit() {
+        if (positionTable.isEditing()) {
+            positionTable.getCellEditor().cancelCellEditing();
+        }
+        String label = history.undo();
+        if (label == null) {
+            appendLog("⚠️ 没有可撤销的位置编辑");
+            return;
+        }
+        refreshPositionTable();
+        appendLog("↩️ 已撤销: " + label + "（共 " + positions.size() + " 个位置）");
+        scheduleDeferredSave();
+    }
+
+    /**
+     * 重做最近一次撤销的位置编辑
+     */
+    private void redoPositionEdit() {
+        if (positionTable.isEditing()) {
+            positionTable.getCellEditor().cancelCellEditing();
+        }
+        String label = history.redo();
+        if (label == null) {
+            appendLog("⚠️ 没有可重做的位置编辑");
+            return;
         }
+        refreshPositionTable();
+        appendLog("↪️ 已重做: " + label + "（共 " + positions.size() + " 个位置）");
+        scheduleDeferredSave();
     }
 
     /**
-     * 下移选中位置
+     * 延迟保存：连续编辑、撤销/重做时只在停下后写一次位置文件
      */
-    private void movePositionDown() {
-        int selectedRow = positionTable.getSelectedRow();
-        if (selectedRow >= 0 && selectedRow < clickPositions.size() - 1) {
-            ClickPosition pos = clickPositions.remove(selectedRow);
-            clickPositions.add(selectedRow + 1, pos);
-            refreshPositionTable();
-            positionTable.setRowSelectionInterval(selectedRow + 1, selectedRow + 1);
-            appendLog("⬇️ 位置已下移");
-        } else if (selectedRow < 0) {
-            showError("请先选择一个位置");
+    private void scheduleDeferredSave() {
+        if (deferredSaveTimer == null) {
+            deferredSaveTimer = new Timer(DEFERRED_SAVE_DELAY_MS, e -> savePreferences());
+            deferredSaveTimer.setRepeats(false);
         }
+        deferredSaveTimer.restart();
     }
 
     /**
-     * 清空所有位置
+     * 立即执行尚未进行的延迟保存，并等待后台写完位置文件（关闭窗口时调用）
      */
-    private void clearAllPositions() {
-        if (clickPositions.isEmpty()) {
-            showError("位置列表已经为空");
-            return;
-        }
-        int result = JOptionPane.showConfirmDialog(null,
-                "确定要清空所有 " + clickPositions.size() + " 个位置吗？此操作不可恢复！", "确认",
-                JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
-        if (result == JOptionPane.YES_OPTION) {
-            int count = clickPositions.size();
-            clickPositions.clear();
-            refreshPositionTable();
-            appendLog("🗑️ 已清空所有 " + count + " 个位置");
-            // 自动保存
+    private void flushDeferredSave() {
+        if (deferredSaveTimer != null && deferredSaveTimer.isRunning()) {
+            deferredSaveTimer.stop();
             savePreferences();
         }
+        positionWriter.shutdown();
+        try {
+            if (!positionWriter.awaitTermination(POSITION_WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                System.err.println("⚠️ 位置文件未能在 " + POSITION_WRITE_TIMEOUT_MS + "ms 内写完");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
      * 测试选中位置
      */
     private void testSelectedPosition() {
-        int selectedRow = positionTable.getSelectedRow();
-        if (selectedRow >= 0 && selectedRow < clickPositions.size()) {
-            ClickPosition pos = clickPositions.get(selectedRow);
-            testSinglePosition(pos);
+        int[] rows = getSelectedPositionRows();
+        if (rows.length == 1) {
+            testSinglePosition(positions.snapshot(), rows[0]);
+        } else if (rows.length > 1) {
+            testPositions(positions.snapshot(), rows);
         } else {
             showError("请先选择一个位置");
         }
@@ -730,15 +2442,25 @@ public class HotkeyPositionMouseClickerV2 {
 
     /**
      * 测试单个位置
+     *
+     * @param snapshot 位置快照
+     * @param index 位置下标
      */
-    private void testSinglePosition(ClickPosition pos) {
+    private void testSinglePosition(PositionStore.Snapshot snapshot, int index) {
+        hidePositionOverlay();
         Thread testThread = new Thread(() -> {
             try {
-                appendLog("🎯 测试位置: " + pos);
+                appendLog("🎯 测试位置: " + snapshot.describe(index));
                 Point originalPos = MouseInfo.getPointerInfo().getLocation();
-                robot.mouseMove(pos.x, pos.y);
+                Point target = resolveTarget(snapshot.getX(index), snapshot.getY(index),
+                        snapshot.getAttributes(index).getAnchor());
+                if (target == null) {
+                    appendLog("❌ 位置测试失败: 未找到定位目标（图像锚点或窗口）");
+                    return;
+                }
+                robot.mouseMove(target.x, target.y);
                 Thread.sleep(500);
-                performClick();
+                performClick(newJitter().newSampler(IntervalJitter.newSeed()), 0);
                 robot.mouseMove(originalPos.x, originalPos.y);
                 appendLog("✅ 位置测试完成");
             } catch (InterruptedException e) {
@@ -751,31 +2473,113 @@ public class HotkeyPositionMouseClickerV2 {
         testThread.start();
     }
 
+    /**
+     * 显示或隐藏位置标记覆盖层（一次画出所有位置，不移动鼠标）
+     */
+    private void togglePositionOverlay() {
+        if (positionOverlay != null && positionOverlay.isShowing()) {
+            hidePositionOverlay();
+            return;
+        }
+        if (positions.isEmpty()) {
+            showError("位置列表为空，无法显示标记");
+            return;
+        }
+        if (!PositionOverlay.isSupported()) {
+            showError("当前系统不支持透明窗口，无法显示位置标记");
+            return;
+        }
+        if (positionOverlay == null) {
+            positionOverlay = new PositionOverlay(new PositionOverlay.OriginResolver() {
+                @Override
+                public Point originOf(PositionStore.Attributes attrs) {
+                    String anchor = attrs.getAnchor();
+                    if (!anchor.startsWith(ANCHOR_PREFIX_WINDOW)) {
+                        return new Point(0, 0);
+                    }
+                    try {
+                        Rectangle window = getWindowCache().find(getWindowTitle(anchor));
+                        return window != null ? window.getLocation() : null;
+                    } catch (IOException e) {
+                        return null;
+                    }
+                }
+
+                @Override
+                public Color colorOf(PositionStore.Attributes attrs) {
+                    String anchor = attrs.getAnchor();
+                    if (anchor.startsWith(ANCHOR_PREFIX_WINDOW)) {
+                        return PositionOverlay.COLOR_WINDOW;
+                    }
+                    return anchor.startsWith(ANCHOR_PREFIX_IMAGE) ? PositionOverlay.COLOR_IMAGE
+                            : PositionOverlay.COLOR_ABSOLUTE;
+                }
+            });
+        }
+        long start = System.nanoTime();
+        positionOverlay.show(positions.snapshot(), ScreenGeometry.get());
+        overlayBtn.setText("隐藏位置标记");
+        int unresolved = positionOverlay.getUnresolvedCount();
+        appendLog(String.format("🗺️ 已显示 %d 个位置标记，耗时 %.1fms（红色: 屏幕坐标，橙色: 图像锚点，蓝色: 窗口相对）%s",
+                positions.size() - unresolved, (System.nanoTime() - start) / 1_000_000.0,
+                unresolved > 0 ? "，" + unresolved + " 个窗口相对位置未找到窗口" : ""));
+    }
+
+    /**
+     * 隐藏位置标记覆盖层
+     */
+    private void hidePositionOverlay() {
+        if (positionOverlay != null && positionOverlay.isShowing()) {
+            positionOverlay.hide();
+            overlayBtn.setText("显示位置标记");
+        }
+    }
+
     /**
      * 测试所有位置（按顺序）
      */
     private void testAllPositions() {
-        if (clickPositions.isEmpty()) {
+        if (positions.isEmpty()) {
             showError("位置列表为空，无法测试");
             return;
         }
 
+        testPositions(positions.snapshot(), null);
+    }
+
+    /**
+     * 按顺序测试多个位置
+     *
+     * @param snapshot 位置快照
+     * @param rows 要测试的位置下标（升序），null 表示全部
+     */
+    private void testPositions(PositionStore.Snapshot snapshot, int[] rows) {
+        int total = rows != null ? rows.length : snapshot.size();
+        int dwell = testDwell;
+        // 标记圆环会挡住点击，逐个测试前先隐藏
+        hidePositionOverlay();
         Thread testThread = new Thread(() -> {
             try {
-                appendLog("🎯 开始测试所有 " + clickPositions.size() + " 个位置");
+                appendLog("🎯 开始测试" + (rows != null ? "选中的 " : "所有 ") + total + " 个位置");
                 Point originalPos = MouseInfo.getPointerInfo().getLocation();
-
-                for (int i = 0; i < clickPositions.size(); i++) {
-                    ClickPosition pos = clickPositions.get(i);
-                    appendLog("📍 测试位置 " + (i + 1) + "/" + clickPositions.size() + ": " + pos);
-                    robot.mouseMove(pos.x, pos.y);
-                    Thread.sleep(300);
-                    performClick();
-                    Thread.sleep(200);
+                IntervalJitter.Sampler sampler = newJitter().newSampler(IntervalJitter.newSeed());
+
+                for (int k = 0; k < total; k++) {
+                    int i = rows != null ? rows[k] : k;
+                    appendLog("📍 测试位置 " + (k + 1) + "/" + total + ": " + snapshot.describe(i));
+                    Point target = resolveTarget(snapshot.getX(i), snapshot.getY(i),
+                            snapshot.getAttributes(i).getAnchor());
+                    if (target == null) {
+                        appendLog("⚠️ 未找到定位目标（图像锚点或窗口），已跳过");
+                        continue;
+                    }
+                    robot.mouseMove(target.x, target.y);
+                    Thread.sleep(dwell);
+                    performClick(sampler, i + 1);
                 }
 
                 robot.mouseMove(originalPos.x, originalPos.y);
-                appendLog("✅ 所有位置测试完成");
+                appendLog(rows != null ? "✅ 选中位置测试完成" : "✅ 所有位置测试完成");
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 appendLog("❌ 位置测试被中断");
@@ -787,121 +2591,264 @@ public class HotkeyPositionMouseClickerV2 {
     }
 
     /**
-     * 更新表格中的位置数据
+     * 校验表格中编辑的单元格，通过后写回位置列表
+     *
+     * @param row 行号
+     * @param column 列号
+     * @param value 编辑后的值
      */
-    private void updatePositionFromTable(int row) {
-        if (row < 0 || row >= clickPositions.size()) {
+    private void updatePositionFromTable(int row, int column, Object value) {
+        if (row < 0 || row >= positions.size()) {
             return;
         }
 
         try {
-            Object xObj = tableModel.getValueAt(row, 1);
-            Object yObj = tableModel.getValueAt(row, 2);
-            Object noteObj = tableModel.getValueAt(row, 3);
-
-            if (xObj == null || yObj == null) {
-                refreshPositionTable();
-                return;
-            }
-
-            String xText = xObj.toString().trim();
-            String yText = yObj.toString().trim();
-            String note = noteObj != null ? noteObj.toString().trim() : "";
+            PositionStore.Attributes current = positions.getAttributes(row);
+            String text = value != null ? value.toString().trim() : "";
+            String xText = column == 1 ? text : String.valueOf(positions.getX(row));
+            String yText = column == 2 ? text : String.valueOf(positions.getY(row));
+            String note = column == 3 ? text : current.getNote();
+            String anchor = column == 4 ? text : current.getAnchor();
+            String condition = column == 5 ? text : current.getCondition();
 
             if (xText.isEmpty() || yText.isEmpty()) {
                 showError("X坐标和Y坐标不能为空");
-                refreshPositionTable();
                 return;
             }
 
             int x = Integer.parseInt(xText);
             int y = Integer.parseInt(yText);
 
-            Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-            if (x < 0 || x > screenSize.width || y < 0 || y > screenSize.height) {
-                showError("坐标 (" + x + ", " + y + ") 超出屏幕范围！\n屏幕尺寸: "
-                        + screenSize.width + " x " + screenSize.height);
-                refreshPositionTable();
+            String anchorError = validateAnchorSpec(anchor);
+            if (anchorError != null) {
+                showError(anchorError);
+                return;
+            }
+
+            // 切换定位方式时换算坐标，点击位置保持不变
+            boolean converted = !anchor.equals(current.getAnchor())
+                    && (current.getAnchor().startsWith(ANCHOR_PREFIX_WINDOW)
+                    || anchor.startsWith(ANCHOR_PREFIX_WINDOW));
+            if (converted) {
+                try {
+                    Point screen = convertWindowRelative(current.getAnchor(), new Point(x, y), false);
+                    Point target = convertWindowRelative(anchor, screen, true);
+                    x = target.x;
+                    y = target.y;
+                } catch (IOException e) {
+                    showError("无法换算窗口坐标: " + e.getMessage());
+                    return;
+                }
+            }
+
+            ScreenGeometry geometry = ScreenGeometry.get();
+            if (!anchor.startsWith(ANCHOR_PREFIX_WINDOW) && !geometry.contains(x, y)) {
+                showError("坐标 (" + x + ", " + y + ") 不在任何显示器上！\n当前显示器:\n"
+                        + geometry.describe());
+                return;
+            }
+
+            try {
+                parseCondition(condition);
+            } catch (IllegalArgumentException e) {
+                showError("条件格式错误: " + e.getMessage() + "\n示例: 像素:100,200,#FF0000,10;超时:3000;失败:跳过");
                 return;
             }
 
-            clickPositions.get(row).x = x;
-            clickPositions.get(row).y = y;
-            clickPositions.get(row).note = note;
-            appendLog("✏️ 已更新位置 " + (row + 1) + ": " + clickPositions.get(row));
+            history.set("编辑位置", row, x, y, createAttributes(x, y, note, anchor, condition));
+            tableModel.fireTableRowsUpdated(row, row);
+            appendLog("✏️ 已更新位置 " + (row + 1) + ": " + positions.describe(row));
             // 自动保存位置列表
-            savePreferences();
+            scheduleDeferredSave();
         } catch (NumberFormatException e) {
             showError("请输入有效的坐标数字（必须是整数）");
-            refreshPositionTable();
         }
     }
 
     /**
-     * 刷新位置表格
+     * 整个位置列表发生变化后刷新表格
      */
     private void refreshPositionTable() {
-        tableModel.setRowCount(0);
-        for (int i = 0; i < clickPositions.size(); i++) {
-            ClickPosition pos = clickPositions.get(i);
-            tableModel.addRow(new Object[]{i + 1, pos.x, pos.y, pos.note});
+        if (tableModel != null) {
+            tableModel.fireTableDataChanged();
         }
     }
 
     /**
-     * 验证位置列表
+     * 验证位置列表，通过后在 EDT 上执行 onValid
+     *
+     * <p>窗口相对位置要查询窗口系统（会启动外部进程），查询在后台线程进行，完成后回到 EDT 继续。
+     *
+     * @param interactive 是否由用户操作触发，见 {@link #reportInvalid}
+     * @param onValid 验证通过后执行
      */
-    private boolean validatePositions() {
-        if (clickPositions.isEmpty()) {
-            showError("请至少添加一个点击位置！\n提示：将鼠标移动到目标位置，然后按 " + modifierKey + "P 或点击\"添加位置\"按钮");
-            return false;
+    private void validatePositions(boolean interactive, Runnable onValid) {
+        if (positions.isEmpty()) {
+            reportInvalid(interactive, "请至少添加一个点击位置！\n提示：将鼠标移动到目标位置，然后按 " + modifierKey
+                    + "P 或点击\"添加位置\"按钮");
+            return;
         }
 
-        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-        for (int i = 0; i < clickPositions.size(); i++) {
-            ClickPosition pos = clickPositions.get(i);
-            if (pos.x < 0 || pos.x > screenSize.width || pos.y < 0 || pos.y > screenSize.height) {
-                showError("位置 " + (i + 1) + " (" + pos.x + ", " + pos.y + ") 超出屏幕范围！\n"
-                        + "屏幕尺寸: " + screenSize.width + " x " + screenSize.height + "\n"
+        checkDisplayLayout();
+        ScreenGeometry geometry = ScreenGeometry.get();
+        PositionStore.Snapshot snapshot = positions.snapshot();
+        // 同一窗口只查询一次（标题 -> 第一个使用它的位置）
+        Map<String, Integer> windowRows = new LinkedHashMap<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            String anchor = snapshot.getAttributes(i).getAnchor();
+            if (anchor.startsWith(ANCHOR_PREFIX_WINDOW)) {
+                windowRows.putIfAbsent(getWindowTitle(anchor), i);
+                continue;
+            }
+            if (!geometry.contains(snapshot.getX(i), snapshot.getY(i))) {
+                reportInvalid(interactive, "位置 " + (i + 1) + " (" + snapshot.getX(i) + ", " + snapshot.getY(i)
+                        + ") 不在任何显示器上！\n" + "当前显示器:\n" + geometry.describe() + "\n"
                         + "请在表格中编辑该位置的坐标");
                 // 自动选中问题位置
                 positionTable.setRowSelectionInterval(i, i);
-                return false;
+                return;
+            }
+        }
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            WaitCondition condition;
+            try {
+                condition = parseCondition(snapshot.getAttributes(i).getCondition());
+            } catch (IllegalArgumentException e) {
+                reportInvalid(interactive, "位置 " + (i + 1) + " 的条件格式错误: " + e.getMessage());
+                positionTable.setRowSelectionInterval(i, i);
+                return;
+            }
+            if (condition != null && condition.getFailAction() == WaitCondition.FailAction.GOTO
+                    && condition.getGotoStep() > snapshot.size()) {
+                reportInvalid(interactive, "位置 " + (i + 1) + " 的条件要转到位置 " + condition.getGotoStep()
+                        + "，但列表只有 " + snapshot.size() + " 个位置");
+                positionTable.setRowSelectionInterval(i, i);
+                return;
             }
         }
 
         // 检查重复位置并提示
-        checkDuplicatePositions();
-        return true;
+        checkDuplicatePositions(snapshot);
+        if (windowRows.isEmpty()) {
+            onValid.run();
+            return;
+        }
+        WindowGeometryCache cache = getWindowCache();
+        CompletableFuture.runAsync(() -> {
+            for (Map.Entry<String, Integer> window : windowRows.entrySet()) {
+                int row = window.getValue();
+                try {
+                    if (cache.findFresh(window.getKey()) == null) {
+                        appendLog("⚠️ 位置 " + (row + 1) + " 的窗口 \"" + window.getKey()
+                                + "\" 当前不存在，运行时找不到将跳过该位置");
+                    }
+                } catch (IOException e) {
+                    SwingUtilities.invokeLater(() -> {
+                        reportInvalid(interactive, "位置 " + (row + 1) + " 无法查询窗口: " + e.getMessage());
+                        // 查询期间位置列表可能已被编辑
+                        if (row < positions.size()) {
+                            positionTable.setRowSelectionInterval(row, row);
+                        }
+                    });
+                    return;
+                }
+            }
+            SwingUtilities.invokeLater(onValid);
+        });
     }
 
     /**
-     * 检查并提示重复位置
+     * 检查并提示重复位置（按坐标哈希，只输出前几处）
      */
-    private void checkDuplicatePositions() {
-        for (int i = 0; i < clickPositions.size(); i++) {
-            for (int j = i + 1; j < clickPositions.size(); j++) {
-                ClickPosition pos1 = clickPositions.get(i);
-                ClickPosition pos2 = clickPositions.get(j);
-                if (pos1.x == pos2.x && pos1.y == pos2.y) {
-                    appendLog("⚠️ 检测到重复位置: 位置" + (i + 1) + " 和 位置" + (j + 1)
-                            + " 坐标相同 (" + pos1.x + ", " + pos1.y + ")");
-                }
+    private void checkDuplicatePositions(PositionStore.Snapshot snapshot) {
+        Map<Long, Integer> firstIndex = new HashMap<>(snapshot.size() * 2);
+        int duplicates = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            long key = ((long) snapshot.getX(i) << 32) | (snapshot.getY(i) & 0xFFFFFFFFL);
+            Integer first = firstIndex.putIfAbsent(key, i);
+            if (first == null) {
+                continue;
+            }
+            if (++duplicates <= DUPLICATE_LOG_LIMIT) {
+                appendLog("⚠️ 检测到重复位置: 位置" + (first + 1) + " 和 位置" + (i + 1)
+                        + " 坐标相同 (" + snapshot.getX(i) + ", " + snapshot.getY(i) + ")");
             }
         }
+        if (duplicates > DUPLICATE_LOG_LIMIT) {
+            appendLog("⚠️ 共有 " + duplicates + " 个重复位置，仅显示前 " + DUPLICATE_LOG_LIMIT + " 个");
+        }
+    }
+
+    /**
+     * 按界面上的设置开始运行（开始按钮、快捷键和计划运行共用）
+     *
+     * @param interactive 是否由用户操作触发；计划运行无人值守，设置冲突时只写日志，不弹出对话框
+     */
+    private void startFromSettings(boolean interactive) {
+        if (!updateSettings(intervalField, countField, minField, maxField, interactive)) {
+            return;
+        }
+        validatePositions(interactive, () -> startValidated(interactive));
+    }
+
+    /**
+     * 设置和位置验证通过后读取界面上的选项并开始运行
+     */
+    private void startValidated(boolean interactive) {
+        if (clicking.get()) {
+            // 后台查询窗口期间已经开始了另一次运行
+            return;
+        }
+        buttonType = buttonCombo.getSelectedIndex();
+        randomInterval = randomCheck.isSelected();
+        fastMode = fastModeCheck.isSelected();
+        jitterDistribution = (IntervalJitter.Distribution) distributionCombo.getSelectedItem();
+        adaptiveRate = adaptiveCheck.isSelected();
+        adaptivePerCycle = adaptiveModeCombo.getSelectedIndex() == 1;
+        traceEnabled = traceCheck.isSelected();
+        burstRepeats = burstCheck.isSelected();
+        if (adaptiveRate && adaptiveRegion == null) {
+            reportInvalid(interactive, "已启用自适应速率，请先设置检测区域");
+            return;
+        }
+        if (adaptiveRate && rateTargetUnit != null) {
+            if (interactive) {
+                showError("自适应速率和目标速率不能同时使用，请关闭其中一个");
+                return;
+            }
+            // 无人值守时自适应速率优先，startRateTarget 会跳过目标速率
+            appendLog("⚠️ 自适应速率和目标速率同时启用，本次按自适应速率运行");
+        }
+        startClicking();
     }
 
     /**
      * 开始点击
      */
     private void startClicking() {
+        startClicking(null);
+    }
+
+    /**
+     * 开始循环点击
+     *
+     * @param resume 从断点继续时为断点进度，否则为 null
+     */
+    private void startClicking(RunCheckpoint.State resume) {
         if (!clicking.compareAndSet(false, true)) {
             return;
         }
+        haltRequestNanos = 0;
+        stopReason = STOP_REASON_COMPLETED;
+        paused.set(false);
+        // 运行期间编辑位置列表不影响本次运行，下次开始时生效
+        PositionStore.Snapshot snapshot = positions.snapshot();
+        hidePositionOverlay();
 
         clickThread = new Thread(() -> {
             appendLog("🚀 连点器启动中...3秒后开始");
-            appendLog("📍 将按顺序循环点击 " + clickPositions.size() + " 个位置");
+            appendLog("📍 将按顺序循环点击 " + snapshot.size() + " 个位置");
 
             Point originalPos = MouseInfo.getPointerInfo().getLocation();
 
@@ -911,9 +2858,77 @@ public class HotkeyPositionMouseClickerV2 {
                 return;
             }
 
-            appendLog("🎯 开始循环点击（总位置数: " + clickPositions.size() + "）");
-            int executedCycles = performCycleClicking(originalPos);
+            long seed = resume != null ? resume.getSeed()
+                    : jitterSeed != null ? jitterSeed : IntervalJitter.newSeed();
+            IntervalJitter.Sampler sampler = newJitter().newSampler(seed);
+            appendLog("🎲 随机种子: " + seed + "（填入\"随机种子\"可重放本次运行）");
+
+            startRateController();
+            startRateTarget(snapshot);
+            startConditionMonitors(snapshot);
+            runClicks = resume != null ? resume.getTotalClicks() : 0;
+            lastClickNanos = 0;
+            runIntervals = new IntervalHistogram();
+            elidedMoves = 0;
+            burstClicks = 0;
+            long runStartMillis = System.currentTimeMillis();
+            try {
+                runCheckpoint = RunCheckpoint.begin(getCheckpointFile(), snapshot, clickCount, seed, runStartMillis,
+                        resume);
+            } catch (IOException e) {
+                runCheckpoint = null;
+                appendLog("⚠️ 断点文件无法创建，本次运行中断后不能继续: " + e.getMessage());
+            }
+            startRunLimits();
+            if (traceEnabled) {
+                trace.reset();
+                trace.setEnabled(true);
+            }
 
+            ClickFailsafe guard = new ClickFailsafe(robot, (reason, detectedNanos) -> {
+                appendLog("🛡️ 安全停止: " + reason);
+                requestHalt(detectedNanos, STOP_REASON_FAILSAFE);
+            });
+            failsafe = guard;
+            guard.start();
+            int executedCycles;
+            try {
+                appendLog("🎯 开始循环点击（总位置数: " + snapshot.size() + "）");
+                if (resume != null) {
+                    appendLog("⏯️ 从断点继续: 第 " + (resume.getCycle() + 1) + " 轮 位置 " + (resume.getPosition() + 1)
+                            + "，已点击 " + resume.getTotalClicks() + " 次");
+                }
+                executedCycles = performCycleClicking(originalPos, sampler, snapshot,
+                        resume != null ? resume.getCycle() : 0, resume != null ? resume.getPosition() : 0);
+            } finally {
+                guard.close();
+                failsafe = null;
+                closeCheckpoint();
+            }
+            long haltNanos = haltRequestNanos;
+            if (haltNanos != 0) {
+                appendLog(String.format("⏱️ 停止响应: 停止请求到停止点击 %.2fms",
+                        (System.nanoTime() - haltNanos) / 1_000_000.0));
+            }
+            if (guard.isAborted()) {
+                appendLog(String.format("🛡️ 安全停止耗时: 检测到释放按键 %.2fms（检测周期 %dms）",
+                        guard.getReleaseLatencyNanos() / 1_000_000.0, ClickFailsafe.TICK_MS));
+            }
+            paused.set(false);
+
+            stopRateController();
+            stopRateTarget();
+            stopConditionMonitors();
+            appendAnchorStats();
+            appendWindowStats();
+            if (elidedMoves > 0 || burstClicks > 0) {
+                appendLog("🔁 重复位置: 跳过移动 " + elidedMoves + " 次，连发 " + burstClicks + " 次");
+            }
+            recordRun(runStartMillis, executedCycles, seed);
+            if (trace.isEnabled()) {
+                trace.setEnabled(false);
+                appendLog("🧭 点击时间线已记录 " + trace.size() + " 个事件，可点击\"导出时间线...\"保存");
+            }
             restoreMousePosition(originalPos);
             clicking.set(false);
             appendLogFinal(executedCycles);
@@ -923,6 +2938,177 @@ public class HotkeyPositionMouseClickerV2 {
         clickThread.start();
     }
 
+    /**
+     * 启动自适应速率控制器
+     */
+    private void startRateController() {
+        if (!adaptiveRate || adaptiveRegion == null) {
+            return;
+        }
+        try {
+            AdaptiveRateController controller = new AdaptiveRateController(getCaptureService(),
+                    adaptiveRegion, clickInterval, MIN_INTERVAL_THRESHOLD,
+                    Math.max(clickInterval * ADAPTIVE_MAX_BACKOFF_FACTOR, maxInterval),
+                    ADAPTIVE_RESPONSE_TIMEOUT_MS);
+            controller.start();
+            rateController = controller;
+            appendLog("📈 自适应速率已启用，检测区域: " + formatRegion(adaptiveRegion));
+        } catch (AWTException e) {
+            appendLog("⚠️ 自适应速率启动失败，使用固定间隔: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 停止自适应速率控制器并输出统计
+     */
+    private void stopRateController() {
+        AdaptiveRateController controller = rateController;
+        if (controller == null) {
+            return;
+        }
+        rateController = null;
+        controller.stop();
+        appendLog(String.format("📈 自适应速率: 最终 %.1f 次/秒（间隔 %dms），响应 %d 次，丢失 %d 次，未采样 %d 次",
+                controller.currentRate(), controller.currentIntervalMs(), controller.getSuccessCount(),
+                controller.getFailureCount(), controller.getSkippedCount()));
+    }
+
+    /**
+     * 启动目标速率求解器（点击线程调用），步骤耗时先按移动和按下延迟估计，第一次点击后改用实测值
+     */
+    private void startRateTarget(PositionStore.Snapshot snapshot) {
+        if (rateTargetUnit == null) {
+            return;
+        }
+        if (rateController != null) {
+            appendLog("⚠️ 自适应速率已启用，本次忽略目标速率");
+            return;
+        }
+        double holdMs = fastMode ? FAST_MODE_CLICK_DELAY : (NORMAL_MODE_MIN_DELAY + NORMAL_MODE_MAX_DELAY) / 2.0;
+        double estimatedMs = (fastMode ? fastMoveDelay : normalMoveDelay) + holdMs;
+        RateTargetSolver solver = new RateTargetSolver(rateTarget, rateTargetUnit, snapshot.size(),
+                estimatedMs * 1_000_000);
+        rateSolver = solver;
+        appendLog(String.format("🎯 目标速率: %s %s（%.1f 次/秒），预计步骤耗时 %.1fms，预测 %.1f 次/秒",
+                formatRateTarget(rateTarget), rateTargetUnit, solver.getTargetRate(), estimatedMs,
+                solver.getPredictedRate()));
+        if (solver.getPredictedRate() < solver.getTargetRate()) {
+            appendLog("⚠️ 步骤耗时超过目标间隔，目标速率可能无法达到，可开启快速模式或校准延迟");
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (rateDisplayTimer == null) {
+                rateDisplayTimer = new Timer(RATE_DISPLAY_INTERVAL_MS, e -> updateRateLabel());
+            }
+            updateRateLabel();
+            rateDisplayTimer.start();
+        });
+    }
+
+    /**
+     * 停止目标速率求解器并输出统计（界面上保留最后的速率）
+     */
+    private void stopRateTarget() {
+        RateTargetSolver solver = rateSolver;
+        if (solver == null) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            rateDisplayTimer.stop();
+            rateLabel.setText(formatRates(solver));
+        });
+        rateSolver = null;
+        appendLog(String.format("🎯 目标速率: 目标 %.1f 次/秒，预测 %.1f，实际 %.1f，步骤耗时 %.1fms",
+                solver.getTargetRate(), solver.getPredictedRate(), solver.getAchievedRate(),
+                solver.getStepCostMillis()));
+    }
+
+    /**
+     * 刷新速率显示
+     */
+    private void updateRateLabel() {
+        RateTargetSolver solver = rateSolver;
+        if (solver != null) {
+            rateLabel.setText(formatRates(solver));
+        }
+    }
+
+    private static String formatRates(RateTargetSolver solver) {
+        return String.format("%.1f / %.1f / %.1f 次/秒（步骤 %.1fms）", solver.getTargetRate(),
+                solver.getPredictedRate(), solver.getAchievedRate(), solver.getStepCostMillis());
+    }
+
+    private static String formatRateTarget(double target) {
+        return target == Math.rint(target) ? String.valueOf((long) target) : String.valueOf(target);
+    }
+
+    /**
+     * 为带条件的位置创建条件监视器（属性相同的位置共用一个监视器）
+     */
+    private void startConditionMonitors(PositionStore.Snapshot snapshot) {
+        conditionWaits = 0;
+        conditionTimeouts = 0;
+        conditionWaitNanos = 0;
+        int attributeCount = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            attributeCount = Math.max(attributeCount, snapshot.getAttributeId(i) + 1);
+        }
+        WaitCondition.Monitor[] monitors = new WaitCondition.Monitor[attributeCount];
+        try {
+            for (int i = 0; i < snapshot.size(); i++) {
+                int id = snapshot.getAttributeId(i);
+                if (monitors[id] != null) {
+                    continue;
+                }
+                WaitCondition condition = parseCondition(snapshot.getAttributes(i).getCondition());
+                if (condition != null) {
+                    monitors[id] = condition.monitor(getCaptureService());
+                }
+            }
+        } catch (AWTException e) {
+            appendLog("⚠️ 条件检测启动失败，将忽略所有条件: " + e.getMessage());
+        }
+        conditionMonitors = monitors;
+    }
+
+    /**
+     * 关闭条件监视器并输出统计
+     */
+    private void stopConditionMonitors() {
+        WaitCondition.Monitor[] monitors = conditionMonitors;
+        conditionMonitors = new WaitCondition.Monitor[0];
+        for (WaitCondition.Monitor monitor : monitors) {
+            if (monitor != null) {
+                monitor.close();
+            }
+        }
+        if (conditionWaits > 0) {
+            appendLog(String.format("⏱️ 条件等待: %d 次，超时 %d 次，平均等待 %.1fms", conditionWaits,
+                    conditionTimeouts, conditionWaitNanos / 1_000_000.0 / conditionWaits));
+        }
+    }
+
+    /**
+     * 等待位置的条件满足
+     *
+     * @param attributeId 位置的属性编号
+     * @return 条件满足或无条件时返回 true，超时返回 false
+     */
+    private boolean awaitCondition(int attributeId) throws InterruptedException {
+        WaitCondition.Monitor[] monitors = conditionMonitors;
+        WaitCondition.Monitor monitor = attributeId < monitors.length ? monitors[attributeId] : null;
+        if (monitor == null) {
+            return true;
+        }
+        long start = System.nanoTime();
+        boolean satisfied = monitor.await();
+        conditionWaits++;
+        conditionWaitNanos += System.nanoTime() - start;
+        if (!satisfied) {
+            conditionTimeouts++;
+        }
+        return satisfied;
+    }
+
     /**
      * 执行倒计时
      */
@@ -947,31 +3133,131 @@ public class HotkeyPositionMouseClickerV2 {
 
     /**
      * 执行循环点击
+     *
+     * @param snapshot 本次运行的位置快照
+     * @param startCycle 已完成的轮数（从断点继续时非 0）
+     * @param startPosition 第一轮从哪个位置开始（从断点继续时非 0）
      */
-    private int performCycleClicking(Point originalPos) {
-        int executedCycles = 0;
-        int totalClicks = 0;
+    private int performCycleClicking(Point originalPos, IntervalJitter.Sampler sampler,
+            PositionStore.Snapshot snapshot, int startCycle, int startPosition) {
+        int executedCycles = startCycle;
+        int count = snapshot.size();
+        Point lastMoveTarget = null;
+        RunCheckpoint checkpoint = runCheckpoint;
+        int firstPosition = startPosition;
+        int consecutiveFailures = 0;
 
         while (clicking.get() && (clickCount == 0 || executedCycles < clickCount)) {
             // 按顺序点击所有位置
-            for (int i = 0; i < clickPositions.size() && clicking.get(); i++) {
+            for (int i = firstPosition; i < count && clicking.get(); i++) {
                 try {
-                    ClickPosition pos = clickPositions.get(i);
-                    robot.mouseMove(pos.x, pos.y);
-                    int moveDelay = fastMode ? FAST_MODE_MOVE_DELAY : NORMAL_MODE_MOVE_DELAY;
-                    Thread.sleep(moveDelay);
+                    PositionStore.Attributes attrs = snapshot.getAttributes(i);
+                    long traceStart = trace.begin();
+                    boolean conditionMet = awaitCondition(snapshot.getAttributeId(i));
+                    trace.end(ClickTrace.Phase.CONDITION, traceStart, i + 1);
+                    if (!conditionMet) {
+                        WaitCondition condition = parseCondition(attrs.getCondition());
+                        final int failedPos = i + 1;
+                        SwingUtilities.invokeLater(() -> appendLog("⏱️ 位置" + failedPos
+                                + " 等待条件超时，处理方式: " + condition.describeFailAction()));
+                        if (++consecutiveFailures >= limitFailures && limitFailures > 0) {
+                            haltForLimit(STOP_REASON_FAILURES, "连续 " + consecutiveFailures + " 次验证失败");
+                            break;
+                        }
+                        if (condition.getFailAction() == WaitCondition.FailAction.STOP) {
+                            requestHalt(System.nanoTime(), STOP_REASON_CONDITION);
+                            break;
+                        } else if (condition.getFailAction() == WaitCondition.FailAction.RESTART) {
+                            i = -1;
+                            continue;
+                        } else if (condition.getFailAction() == WaitCondition.FailAction.GOTO) {
+                            i = condition.getGotoStep() - 2;
+                            continue;
+                        }
+                        // 跳过本位置的点击
+                        if (clicking.get() && i < count - 1) {
+                            waitInterval(sampler, i + 1);
+                        }
+                        continue;
+                    }
+                    if (!awaitResume()) {
+                        break;
+                    }
+                    traceStart = trace.begin();
+                    Point target = resolveTarget(snapshot.getX(i), snapshot.getY(i), attrs.getAnchor());
+                    trace.end(ClickTrace.Phase.RESOLVE, traceStart, i + 1);
+                    if (target == null) {
+                        final int skippedPos = i + 1;
+                        SwingUtilities.invokeLater(() -> appendLog("⚠️ 位置" + skippedPos
+                                + " 未找到定位目标（图像锚点或窗口），已跳过"));
+                        if (++consecutiveFailures >= limitFailures && limitFailures > 0) {
+                            haltForLimit(STOP_REASON_FAILURES, "连续 " + consecutiveFailures + " 次验证失败");
+                            break;
+                        }
+                        if (clicking.get() && i < count - 1) {
+                            waitInterval(sampler, i + 1);
+                        }
+                        continue;
+                    }
+                    ClickFailsafe guard = failsafe;
+                    if (guard != null) {
+                        guard.expect(target.x, target.y);
+                    }
+                    // 目标与上次移动相同且光标仍在原处时，不必重复移动和等待
+                    if (target.equals(lastMoveTarget) && isPointerAt(target)) {
+                        elidedMoves++;
+                    } else {
+                        traceStart = trace.begin();
+                        robot.mouseMove(target.x, target.y);
+                        trace.end(ClickTrace.Phase.MOVE, traceStart, i + 1);
+                        int moveDelay = fastMode ? fastMoveDelay : normalMoveDelay;
+                        traceStart = trace.begin();
+                        Thread.sleep(moveDelay);
+                        trace.end(ClickTrace.Phase.SETTLE, traceStart, i + 1);
+                        lastMoveTarget = target;
+                    }
 
-                    performClick();
-                    totalClicks++;
+                    // 时间限制在按下前检查，截止后不再多点一次（没有时间限制时不读时钟）
+                    long deadline = runDeadlineNanos;
+                    if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0) {
+                        haltForLimit(runDeadlineReason, null);
+                        break;
+                    }
+                    if (limitClicks > 0 && runClicks >= limitClicks) {
+                        haltForLimit(STOP_REASON_CLICK_LIMIT, "已点击 " + runClicks + " 次");
+                        break;
+                    }
+                    performClick(sampler, i + 1);
+                    consecutiveFailures = 0;
+                    long clickNanos = System.nanoTime();
+                    if (lastClickNanos != 0) {
+                        runIntervals.record(clickNanos - lastClickNanos);
+                    }
+                    lastClickNanos = clickNanos;
+                    RateTargetSolver solver = rateSolver;
+                    if (solver != null) {
+                        solver.onClick(clickNanos);
+                    }
+                    long totalClicks = ++runClicks;
+                    if (checkpoint != null) {
+                        checkpoint.update(executedCycles, i + 1, totalClicks);
+                    }
+                    if (limitClicks > 0 && totalClicks >= limitClicks) {
+                        haltForLimit(STOP_REASON_CLICK_LIMIT, "已点击 " + totalClicks + " 次");
+                    }
+                    AdaptiveRateController controller = rateController;
+                    if (controller != null && !adaptivePerCycle) {
+                        controller.onClick();
+                    }
 
                     // 更新日志
                     final int currentCycle = executedCycles + 1;
                     final int currentPos = i + 1;
-                    final int currentTotal = totalClicks;
+                    final long currentTotal = totalClicks;
                     if (!fastMode || totalClicks % FAST_MODE_LOG_UPDATE_FREQUENCY == 0 || totalClicks == 1) {
                         SwingUtilities.invokeLater(() -> {
                             String message = "🖱️ 第" + currentCycle + "轮 位置" + currentPos + "/"
-                                    + clickPositions.size() + " (" + pos + ") - 总点击: " + currentTotal;
+                                    + count + " (" + snapshot.describe(currentPos - 1) + ") - 总点击: " + currentTotal;
                             if (clickCount > 0) {
                                 message += " (轮次 " + currentCycle + "/" + clickCount + ")";
                             }
@@ -980,44 +3266,182 @@ public class HotkeyPositionMouseClickerV2 {
                     }
 
                     // 位置之间的间隔（最后一个位置后使用循环间隔）
-                    if (clicking.get() && i < clickPositions.size() - 1) {
-                        int waitTime = calculateWaitTime();
-                        Thread.sleep(waitTime);
+                    if (clicking.get() && i < count - 1) {
+                        if (burstRepeats && isSameTarget(snapshot, i, i + 1)) {
+                            burstClicks++;
+                        } else {
+                            waitInterval(sampler, i + 1);
+                        }
                     }
 
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
+                    requestHalt(System.nanoTime(), STOP_REASON_INTERRUPTED);
                     SwingUtilities.invokeLater(() -> appendLog("🛑 连点被中断"));
                     return executedCycles;
                 }
             }
 
-            // 循环间隔
-            if (clicking.get() && (clickCount == 0 || executedCycles + 1 < clickCount)) {
-                try {
-                    int waitTime = calculateWaitTime();
-                    Thread.sleep(waitTime);
-                    executedCycles++;
-                    final int currentCycle = executedCycles;
-                    SwingUtilities.invokeLater(() -> appendLog("🔄 完成第 " + currentCycle + " 轮循环"));
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return executedCycles;
-                }
-            } else if (clicking.get()) {
-                executedCycles++;
-            }
+            firstPosition = 0;
+            AdaptiveRateController controller = rateController;
+            if (controller != null && adaptivePerCycle) {
+                controller.onClick();
+            }
+
+            // 循环间隔
+            if (clicking.get() && (clickCount == 0 || executedCycles + 1 < clickCount)) {
+                try {
+                    waitInterval(sampler, count);
+                    executedCycles++;
+                    if (checkpoint != null) {
+                        checkpoint.update(executedCycles, 0, runClicks);
+                    }
+                    final int currentCycle = executedCycles;
+                    SwingUtilities.invokeLater(() -> appendLog("🔄 完成第 " + currentCycle + " 轮循环"));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    requestHalt(System.nanoTime(), STOP_REASON_INTERRUPTED);
+                    return executedCycles;
+                }
+            } else if (clicking.get()) {
+                executedCycles++;
+            }
+        }
+
+        return executedCycles;
+    }
+
+    /**
+     * 根据当前设置创建随机间隔模型
+     */
+    private IntervalJitter newJitter() {
+        return new IntervalJitter(jitterDistribution, minInterval, maxInterval);
+    }
+
+    /**
+     * 两个位置是否指向同一目标（后一个位置没有等待条件时才可以连发）
+     */
+    private static boolean isSameTarget(PositionStore.Snapshot snapshot, int current, int next) {
+        return snapshot.getX(current) == snapshot.getX(next) && snapshot.getY(current) == snapshot.getY(next)
+                && snapshot.getAttributes(current).getAnchor().equals(snapshot.getAttributes(next).getAnchor())
+                && snapshot.getAttributes(next).getCondition().isEmpty();
+    }
+
+    /**
+     * 光标是否正位于指定坐标
+     */
+    private static boolean isPointerAt(Point point) {
+        PointerInfo pointer = MouseInfo.getPointerInfo();
+        return pointer != null && point.equals(pointer.getLocation());
+    }
+
+    /**
+     * 位置或循环之间的间隔等待
+     *
+     * <p>使用目标速率时，等待时间由求解器按下一次点击的预定时刻和实测步骤耗时算出。
+     *
+     * @param position 刚点击的位置序号（从1开始），用于时间线
+     */
+    private void waitInterval(IntervalJitter.Sampler sampler, int position) throws InterruptedException {
+        long traceStart = trace.begin();
+        RateTargetSolver solver = rateSolver;
+        long waitNanos = solver != null ? solver.nextWaitNanos(System.nanoTime())
+                : calculateWaitTime(sampler) * 1_000_000L;
+        long deadline = runDeadlineNanos;
+        if (deadline != Long.MAX_VALUE) {
+            // 截止时刻落在本次等待内时，只等到截止时刻就停止
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= waitNanos) {
+                if (remaining > 0) {
+                    TimeUnit.NANOSECONDS.sleep(remaining);
+                }
+                trace.end(ClickTrace.Phase.WAIT, traceStart, position);
+                haltForLimit(runDeadlineReason, null);
+                return;
+            }
+        }
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+        trace.end(ClickTrace.Phase.WAIT, traceStart, position);
+    }
+
+    /**
+     * 运行开始时计算截止时刻（时长和结束时间取较早者）
+     */
+    private void startRunLimits() {
+        long nowNanos = System.nanoTime();
+        long deadline = Long.MAX_VALUE;
+        String reason = null;
+        List<String> limits = new ArrayList<>();
+        if (limitSeconds > 0) {
+            deadline = nowNanos + limitSeconds * 1_000_000_000L;
+            reason = STOP_REASON_DURATION;
+            limits.add("时长 " + limitSeconds + " 秒");
+        }
+        if (!limitEndTime.isEmpty()) {
+            try {
+                long endMillis = resolveEndTime(limitEndTime);
+                long endNanos = nowNanos + Math.max(0, endMillis - clock.millis()) * 1_000_000L;
+                if (endNanos - deadline < 0) {
+                    deadline = endNanos;
+                    reason = STOP_REASON_END_TIME;
+                }
+                limits.add("结束于 " + formatScheduleTime(endMillis));
+            } catch (DateTimeParseException e) {
+                appendLog("⚠️ 结束时间格式错误，已忽略: " + limitEndTime);
+            }
+        }
+        if (limitClicks > 0) {
+            limits.add("最多 " + limitClicks + " 次点击");
+        }
+        if (limitFailures > 0) {
+            limits.add("连续 " + limitFailures + " 次验证失败即停止");
+        }
+        runDeadlineReason = reason;
+        runDeadlineNanos = deadline;
+        if (!limits.isEmpty()) {
+            appendLog("⏳ 运行限制: " + String.join("，", limits));
+        }
+    }
+
+    /**
+     * 达到运行限制时停止（点击线程调用）
+     *
+     * @param reason 停止原因
+     * @param detail 补充说明，可为 null
+     */
+    private void haltForLimit(String reason, String detail) {
+        if (requestHalt(System.nanoTime(), reason)) {
+            appendLog("⏹️ 已达到运行限制: " + reason + (detail != null ? "（" + detail + "）" : ""));
         }
+    }
 
-        return executedCycles;
+    /**
+     * 把结束时间换算为时间戳：只写时间时取下一次到达的时刻
+     *
+     * @throws DateTimeParseException 格式错误
+     */
+    private long resolveEndTime(String text) {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        if (text.indexOf('-') >= 0) {
+            return LocalDateTime.parse(text, END_TIME_FORMAT).atZone(clock.getZone()).toInstant().toEpochMilli();
+        }
+        ZonedDateTime end = now.with(LocalTime.parse(text, END_TIME_OF_DAY_FORMAT));
+        if (!end.isAfter(now)) {
+            end = end.plusDays(1);
+        }
+        return end.toInstant().toEpochMilli();
     }
 
     /**
      * 计算等待时间
      */
-    private int calculateWaitTime() {
+    private int calculateWaitTime(IntervalJitter.Sampler sampler) {
+        AdaptiveRateController controller = rateController;
+        if (controller != null) {
+            return controller.currentIntervalMs();
+        }
         if (randomInterval) {
-            return minInterval + (int) (Math.random() * (maxInterval - minInterval));
+            return sampler.nextInterval();
         }
         return clickInterval;
     }
@@ -1045,25 +3469,317 @@ public class HotkeyPositionMouseClickerV2 {
         });
     }
 
+    /**
+     * 运行结束（包括手动停止）：标记断点已完成，下次启动不再提示继续
+     */
+    private void closeCheckpoint() {
+        RunCheckpoint checkpoint = runCheckpoint;
+        if (checkpoint == null) {
+            return;
+        }
+        runCheckpoint = null;
+        try {
+            checkpoint.close();
+        } catch (IOException e) {
+            appendLog("⚠️ 断点文件关闭失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取断点文件
+     */
+    private File getCheckpointFile() {
+        return new File(new File(System.getProperty("user.home"), APP_DATA_DIR_NAME), RunCheckpoint.FILE_NAME);
+    }
+
+    /**
+     * 启动时检查上次运行是否中途退出（崩溃、断电），提示从断点继续
+     */
+    private void offerResume() {
+        File file = getCheckpointFile();
+        RunCheckpoint.State state;
+        try {
+            state = RunCheckpoint.readPending(file);
+        } catch (IOException e) {
+            appendLog("⚠️ 断点文件读取失败: " + e.getMessage());
+            return;
+        }
+        if (state == null) {
+            return;
+        }
+        try {
+            if (!state.hasRemaining()) {
+                RunCheckpoint.discard(file);
+                return;
+            }
+            PositionStore.Snapshot snapshot = positions.snapshot();
+            if (state.getPositionCount() != snapshot.size()
+                    || state.getFingerprint() != RunCheckpoint.fingerprint(snapshot)) {
+                appendLog("⚠️ 上次运行未正常结束，但位置列表已修改，无法从断点继续");
+                RunCheckpoint.discard(file);
+                return;
+            }
+            String budget = state.getClickCount() == 0 ? "无限循环"
+                    : "剩余 " + (state.getClickCount() - state.getCycle()) + " 轮";
+            int result = JOptionPane.showConfirmDialog(null,
+                    "上次运行在 " + formatScheduleTime(state.getUpdateMillis()) + " 中途退出：\n"
+                            + "第 " + (state.getCycle() + 1) + " 轮 位置 " + (state.getPosition() + 1) + "/"
+                            + state.getPositionCount() + "，已点击 " + state.getTotalClicks() + " 次（" + budget + "）\n\n"
+                            + "是否从中断处继续？",
+                    "从断点继续", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+            if (result != JOptionPane.YES_OPTION) {
+                RunCheckpoint.discard(file);
+                appendLog("⏭️ 已放弃上次中断的运行");
+                return;
+            }
+        } catch (IOException e) {
+            appendLog("⚠️ 断点文件更新失败: " + e.getMessage());
+            return;
+        }
+        validatePositions(true, () -> {
+            clickCount = state.getClickCount();
+            countField.setText(String.valueOf(clickCount));
+            startClicking(state);
+        });
+    }
+
+    /**
+     * 把本次运行写入运行记录
+     *
+     * <p>点击线程停止时通常处于中断状态，中断会关闭文件通道，因此写入交给后台线程完成。
+     */
+    private void recordRun(long startMillis, int executedCycles, long seed) {
+        RunJournal.Record record = new RunJournal.Record(profileName, startMillis, System.currentTimeMillis(),
+                executedCycles, runClicks, runIntervals.percentile(50), runIntervals.percentile(90),
+                runIntervals.percentile(99), stopReason, seed);
+        appendLog(String.format("📒 本次运行: %d 次点击，%.1f 次/秒，间隔 P50/P90/P99 = %d/%d/%dms，停止原因: %s",
+                record.clicks, record.achievedRate(), record.p50Ms, record.p90Ms, record.p99Ms, record.stopReason));
+        appendRunRecord(record);
+    }
+
+    /**
+     * 把没有启动的计划运行写入运行记录（0 次点击），运行历史中可以看到哪次计划被跳过
+     */
+    private void recordNotStarted() {
+        long now = System.currentTimeMillis();
+        appendRunRecord(new RunJournal.Record(profileName, now, now, 0, 0, 0, 0, 0, STOP_REASON_NOT_STARTED,
+                jitterSeed != null ? jitterSeed : 0));
+    }
+
+    /**
+     * 在后台线程追加运行记录
+     */
+    private void appendRunRecord(RunJournal.Record record) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                getRunJournal().append(record);
+            } catch (IOException e) {
+                appendLog("⚠️ 运行记录写入失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 获取运行记录（首次调用时打开）
+     */
+    private synchronized RunJournal getRunJournal() throws IOException {
+        if (runJournal == null) {
+            RunJournal journal = RunJournal.open(new File(System.getProperty("user.home"), APP_DATA_DIR_NAME));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    // 退出时忽略
+                }
+            }, "RunJournalShutdown"));
+            runJournal = journal;
+        }
+        return runJournal;
+    }
+
+    /**
+     * 显示运行记录：最近的运行和按配置汇总
+     */
+    private void showRunHistory() {
+        List<RunJournal.Record> records;
+        List<RunJournal.Aggregate> aggregates;
+        try {
+            RunJournal journal = getRunJournal();
+            records = journal.lastRuns(RUN_HISTORY_COUNT);
+            aggregates = journal.aggregates();
+        } catch (IOException e) {
+            showError("无法读取运行记录: " + e.getMessage());
+            return;
+        }
+
+        DefaultTableModel runModel = new DefaultTableModel(new String[]{"配置", "开始", "时长(s)", "轮数", "点击",
+                "次/秒", "P50/P90/P99(ms)", "停止原因", "种子"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        for (RunJournal.Record record : records) {
+            runModel.addRow(new Object[]{record.profile, formatScheduleTime(record.startMillis),
+                    String.format("%.1f", (record.endMillis - record.startMillis) / 1000.0), record.cycles,
+                    record.clicks, String.format("%.1f", record.achievedRate()),
+                    record.p50Ms + "/" + record.p90Ms + "/" + record.p99Ms, record.stopReason, record.seed});
+        }
+        DefaultTableModel aggregateModel = new DefaultTableModel(new String[]{"配置", "运行次数", "总轮数", "总点击",
+                "平均次/秒", "最近运行"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        for (RunJournal.Aggregate aggregate : aggregates) {
+            aggregateModel.addRow(new Object[]{aggregate.profile, aggregate.runs, aggregate.cycles, aggregate.clicks,
+                    String.format("%.1f", aggregate.averageRate()), formatScheduleTime(aggregate.lastStartMillis)});
+        }
+
+        JScrollPane runScrollPane = new JScrollPane(new JTable(runModel));
+        runScrollPane.setBorder(BorderFactory.createTitledBorder("最近 " + RUN_HISTORY_COUNT + " 次运行"));
+        runScrollPane.setPreferredSize(new Dimension(720, 240));
+        JScrollPane aggregateScrollPane = new JScrollPane(new JTable(aggregateModel));
+        aggregateScrollPane.setBorder(BorderFactory.createTitledBorder("按配置汇总"));
+        aggregateScrollPane.setPreferredSize(new Dimension(720, 120));
+
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(startBtn), "运行记录");
+        dialog.setLayout(new BorderLayout(COMPONENT_SPACING, COMPONENT_SPACING));
+        JButton closeBtn = new JButton("关闭");
+        closeBtn.addActionListener(e -> dialog.dispose());
+        JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        actionPanel.add(closeBtn);
+        dialog.add(runScrollPane, BorderLayout.NORTH);
+        dialog.add(aggregateScrollPane, BorderLayout.CENTER);
+        dialog.add(actionPanel, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(dialog.getOwner());
+        dialog.setVisible(true);
+    }
+
     /**
      * 执行点击操作
+     *
+     * @param position 位置序号（从1开始），用于时间线
      */
-    private void performClick() {
+    private void performClick(IntervalJitter.Sampler sampler, int position) {
+        ClickFailsafe guard = failsafe;
+        int buttonMask = getButtonMask();
         try {
-            robot.mousePress(getButtonMask());
+            long traceStart = trace.begin();
+            if (guard != null) {
+                guard.press(buttonMask);
+            } else {
+                robot.mousePress(buttonMask);
+            }
+            trace.end(ClickTrace.Phase.PRESS, traceStart, position);
             int clickDelay = fastMode ? FAST_MODE_CLICK_DELAY
-                    : (NORMAL_MODE_MIN_DELAY + (int) (Math.random()
-                            * (NORMAL_MODE_MAX_DELAY - NORMAL_MODE_MIN_DELAY)));
+                    : sampler.nextHoldDelay(NORMAL_MODE_MIN_DELAY, NORMAL_MODE_MAX_DELAY);
+            traceStart = trace.begin();
             Thread.sleep(clickDelay);
-            robot.mouseRelease(getButtonMask());
+            trace.end(ClickTrace.Phase.HOLD, traceStart, position);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            appendLog("⚠️ 点击操作被中断");
+        } finally {
             try {
-                robot.mouseRelease(getButtonMask());
+                long traceStart = trace.begin();
+                if (guard != null) {
+                    guard.release(buttonMask);
+                } else {
+                    robot.mouseRelease(buttonMask);
+                }
+                trace.end(ClickTrace.Phase.RELEASE, traceStart, position);
             } catch (Exception ex) {
                 // 忽略释放时的异常
             }
-            appendLog("⚠️ 点击操作被中断");
+        }
+    }
+
+    private String formatMoveDelays() {
+        boolean calibrated = prefs.get("fastMoveDelay", null) != null;
+        return "移动后等待: 极速 " + fastMoveDelay + "ms / 普通 " + normalMoveDelay + "ms"
+                + (calibrated ? "（已校准）" : "（默认）");
+    }
+
+    /**
+     * 校准 Robot 延迟：在测试窗口中测量调用耗时和移动后的稳定时间，结果保存在配置中
+     */
+    private void calibrateRobot() {
+        if (clicking.get()) {
+            showError("连点运行中，请先停止");
+            return;
+        }
+        int choice = JOptionPane.showConfirmDialog(SwingUtilities.getWindowAncestor(startBtn),
+                "校准时会在屏幕中央显示测试窗口，并移动鼠标在其中点击 " + CALIBRATION_SAMPLES
+                        + " 次。\n期间请不要操作鼠标，是否继续？", "校准延迟", JOptionPane.OK_CANCEL_OPTION);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+        startBtn.setEnabled(false);
+        Thread calibrationThread = new Thread(() -> {
+            Point originalPos = MouseInfo.getPointerInfo().getLocation();
+            ScreenGeometry.Display display = ScreenGeometry.get().displayAt(originalPos.x, originalPos.y);
+            Rectangle screen = display != null ? display.getBounds() : ScreenGeometry.get().getVirtualBounds();
+            appendLog("🔧 开始校准延迟（" + CALIBRATION_SAMPLES + " 次采样）...");
+            try {
+                RobotCalibrator.Result result = new RobotCalibrator(robot, CALIBRATION_SAMPLES).run(screen);
+                appendLog("🔧 mouseMove 耗时: " + result.move);
+                appendLog("🔧 mousePress 耗时: " + result.press);
+                appendLog("🔧 mouseRelease 耗时: " + result.release);
+                appendLog("🔧 移动后窗口响应: " + result.moveSettle
+                        + (result.settleTimeouts > 0 ? "（含超时 " + result.settleTimeouts + " 次）" : ""));
+                appendLog("🔧 点击后窗口响应: " + result.clickResponse
+                        + (result.timeouts > 0 ? "（超时 " + result.timeouts + " 次）" : ""));
+                if (result.moveSettle.getCount() == 0) {
+                    appendLog("❌ 校准失败: 没有移动后的响应样本，保留原有延迟");
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> {
+                    fastMoveDelay = result.fastMoveDelayMs;
+                    normalMoveDelay = result.normalMoveDelayMs;
+                    prefs.putInt("fastMoveDelay", fastMoveDelay);
+                    prefs.putInt("normalMoveDelay", normalMoveDelay);
+                    moveDelayLabel.setText(formatMoveDelays());
+                    appendLog("✅ 校准完成，移动后等待: 极速 " + fastMoveDelay + "ms（P90），普通 "
+                            + normalMoveDelay + "ms（P99 + 50%）");
+                });
+            } catch (IllegalStateException e) {
+                appendLog("❌ 校准失败: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                appendLog("🛑 校准被中断");
+            } finally {
+                robot.mouseMove(originalPos.x, originalPos.y);
+                SwingUtilities.invokeLater(() -> startBtn.setEnabled(true));
+            }
+        }, "CalibrationThread");
+        calibrationThread.setDaemon(true);
+        calibrationThread.start();
+    }
+
+    /**
+     * 导出点击时间线为 Chrome trace JSON
+     */
+    private void exportTrace() {
+        if (trace.size() == 0) {
+            showError("还没有记录时间线，请勾选\"记录点击时间线\"后运行一次");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(TRACE_FILE_NAME));
+        if (chooser.showSaveDialog(SwingUtilities.getWindowAncestor(startBtn)) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8))) {
+            int exported = trace.exportChromeTrace(out);
+            appendLog("🧭 已导出 " + exported + " 个时间线事件到 " + file
+                    + "（可在 chrome://tracing 或 ui.perfetto.dev 中打开）");
+        } catch (IOException e) {
+            showError("导出时间线失败: " + e.getMessage());
         }
     }
 
@@ -1071,16 +3787,100 @@ public class HotkeyPositionMouseClickerV2 {
      * 停止点击
      */
     private void stopClicking() {
-        if (clicking.compareAndSet(true, false)) {
-            if (clickThread != null && clickThread.isAlive()) {
-                clickThread.interrupt();
-                try {
-                    clickThread.join(THREAD_JOIN_TIMEOUT_MS);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+        Thread thread = clickThread;
+        if (requestHalt(System.nanoTime(), STOP_REASON_USER) && thread != null) {
+            try {
+                thread.join(THREAD_JOIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // 点击线程未能及时退出时，也保证按键不会保持按下
+            ClickFailsafe guard = failsafe;
+            if (guard != null) {
+                guard.releaseAll();
+            }
+        }
+    }
+
+    /**
+     * 请求停止点击，可在任意线程调用，不等待点击线程结束
+     *
+     * @param eventNanos 停止请求发生的时间（System.nanoTime）
+     * @param reason 停止原因，写入运行记录
+     * @return 是否由本次调用停止了运行
+     */
+    private boolean requestHalt(long eventNanos, String reason) {
+        if (!clicking.compareAndSet(true, false)) {
+            return false;
+        }
+        stopReason = reason;
+        haltRequestNanos = eventNanos;
+        Thread thread = clickThread;
+        if (thread != null && thread.isAlive()) {
+            thread.interrupt();
+        }
+        synchronized (pauseLock) {
+            pauseLock.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * 切换暂停状态，可在任意线程调用
+     *
+     * @param eventNanos 请求发生的时间（System.nanoTime）
+     */
+    private void togglePause(long eventNanos) {
+        if (!clicking.get()) {
+            return;
+        }
+        synchronized (pauseLock) {
+            boolean nowPaused = !paused.get();
+            pauseRequestNanos = eventNanos;
+            paused.set(nowPaused);
+            if (!nowPaused) {
+                pauseLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 暂停时阻塞点击线程，直到继续或停止
+     *
+     * @return 是否继续运行
+     */
+    private boolean awaitResume() throws InterruptedException {
+        if (!paused.get()) {
+            return clicking.get();
+        }
+        long latency = System.nanoTime() - pauseRequestNanos;
+        // 暂停期间允许用户使用鼠标
+        ClickFailsafe guard = failsafe;
+        if (guard != null) {
+            guard.clearExpectation();
+        }
+        SwingUtilities.invokeLater(() -> appendLog(String.format("⏸️ 已暂停（按键到暂停 %.2fms），按 %s3 继续",
+                latency / 1_000_000.0, modifierKey)));
+        synchronized (pauseLock) {
+            while (paused.get() && clicking.get()) {
+                long deadline = runDeadlineNanos;
+                if (deadline == Long.MAX_VALUE) {
+                    pauseLock.wait();
+                    continue;
+                }
+                // 暂停期间运行时长照常计算，到截止时刻直接停止
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    haltForLimit(runDeadlineReason, "暂停中");
+                    return false;
                 }
+                TimeUnit.NANOSECONDS.timedWait(pauseLock, remaining);
             }
         }
+        if (clicking.get()) {
+            SwingUtilities.invokeLater(() -> appendLog("▶️ 继续点击"));
+        }
+        return clicking.get();
     }
 
     /**
@@ -1102,12 +3902,17 @@ public class HotkeyPositionMouseClickerV2 {
     /**
      * 设置快捷键
      */
-    private void setupHotkeys(JFrame frame, JButton startBtn, JButton stopBtn) {
+    private void setupHotkeys(JFrame frame, JButton startBtn, JButton stopBtn, boolean globalActive) {
         JRootPane rootPane = frame.getRootPane();
         int menuShortcutKeyMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
 
+        // 开始只在本窗口获得焦点时有效，避免在其他程序中按 Ctrl+1 时误启动
         registerHotkey(rootPane, KeyEvent.VK_1, menuShortcutKeyMask, "start", startBtn);
-        registerHotkey(rootPane, KeyEvent.VK_2, menuShortcutKeyMask, "stop", stopBtn);
+        // 全局快捷键同样能收到窗口内的按键，不再重复注册，避免暂停被切换两次
+        if (!globalActive) {
+            registerHotkey(rootPane, KeyEvent.VK_2, menuShortcutKeyMask, "stop", stopBtn);
+            registerHotkey(rootPane, KeyEvent.VK_3, menuShortcutKeyMask, "pause", pauseBtn);
+        }
 
         // Ctrl/⌘P - 添加当前位置
         KeyStroke getPosKey = KeyStroke.getKeyStroke(KeyEvent.VK_P, menuShortcutKeyMask);
@@ -1118,6 +3923,58 @@ public class HotkeyPositionMouseClickerV2 {
                 addCurrentPosition();
             }
         });
+
+        // Ctrl/⌘Z - 撤销，Ctrl/⌘Y 或 Ctrl/⌘Shift+Z - 重做
+        InputMap inputMap = rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, menuShortcutKeyMask), "undoPosition");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, menuShortcutKeyMask), "redoPosition");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, menuShortcutKeyMask | InputEvent.SHIFT_DOWN_MASK),
+                "redoPosition");
+        rootPane.getActionMap().put("undoPosition", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                undoPositionEdit();
+            }
+        });
+        rootPane.getActionMap().put("redoPosition", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                redoPositionEdit();
+            }
+        });
+    }
+
+    /**
+     * 启动全局快捷键监听
+     *
+     * <p>停止和暂停在监听线程上直接修改标志，不经过 EDT。
+     *
+     * @return 全局快捷键是否可用
+     */
+    private boolean setupGlobalHotkeys() {
+        GlobalHotkeySource source;
+        try {
+            source = GlobalHotkeySource.forCurrentPlatform();
+        } catch (IllegalArgumentException e) {
+            appendLog("⚠️ 全局快捷键不可用: " + e.getMessage() + "，快捷键仅在本窗口获得焦点时有效");
+            return false;
+        }
+        try {
+            source.start((hotkey, eventNanos) -> {
+                if (hotkey == GlobalHotkeySource.Hotkey.STOP) {
+                    requestHalt(eventNanos, STOP_REASON_HOTKEY);
+                } else {
+                    togglePause(eventNanos);
+                }
+            });
+        } catch (IOException e) {
+            appendLog("⚠️ 全局快捷键不可用: " + e.getMessage() + "，快捷键仅在本窗口获得焦点时有效");
+            return false;
+        }
+        globalHotkeys = source;
+        Runtime.getRuntime().addShutdownHook(new Thread(source::close, "GlobalHotkeyShutdown"));
+        appendLog("⌨️ 全局快捷键已启用（" + source.describe() + "），其他程序在前台时也可停止");
+        return true;
     }
 
     /**
@@ -1140,9 +3997,11 @@ public class HotkeyPositionMouseClickerV2 {
 
     /**
      * 更新设置
+     *
+     * @param interactive 是否由用户操作触发，见 {@link #reportInvalid}
      */
     private boolean updateSettings(JTextField intervalField, JTextField countField,
-            JTextField minField, JTextField maxField) {
+            JTextField minField, JTextField maxField, boolean interactive) {
         try {
             clickInterval = Integer.parseInt(intervalField.getText());
             clickCount = Integer.parseInt(countField.getText());
@@ -1151,16 +4010,66 @@ public class HotkeyPositionMouseClickerV2 {
 
             if (clickInterval < MIN_INTERVAL_THRESHOLD || minInterval < MIN_INTERVAL_THRESHOLD
                     || maxInterval < MIN_INTERVAL_THRESHOLD) {
-                showError("间隔时间必须大于0");
+                reportInvalid(interactive, "间隔时间必须大于0");
                 return false;
             }
             if (minInterval >= maxInterval) {
-                showError("最小间隔必须小于最大间隔");
+                reportInvalid(interactive, "最小间隔必须小于最大间隔");
+                return false;
+            }
+            String seedText = seedField.getText().trim();
+            jitterSeed = seedText.isEmpty() ? null : Long.parseLong(seedText);
+            String profileText = profileField.getText().trim();
+            profileName = profileText.isEmpty() ? DEFAULT_PROFILE_NAME : profileText;
+            int undoLimit = Integer.parseInt(undoLimitField.getText().trim());
+            if (undoLimit < 0) {
+                reportInvalid(interactive, "撤销步数不能为负数");
                 return false;
             }
+            history.setLimit(undoLimit);
+            int dwell = Integer.parseInt(testDwellField.getText().trim());
+            if (dwell < 0) {
+                reportInvalid(interactive, "测试停留时间不能为负数");
+                return false;
+            }
+            testDwell = dwell;
+            int seconds = Integer.parseInt(limitSecondsField.getText().trim());
+            long clicks = Long.parseLong(limitClicksField.getText().trim());
+            int failures = Integer.parseInt(limitFailuresField.getText().trim());
+            if (seconds < 0 || clicks < 0 || failures < 0) {
+                reportInvalid(interactive, "运行限制不能为负数");
+                return false;
+            }
+            String endTime = limitEndTimeField.getText().trim();
+            if (!endTime.isEmpty()) {
+                try {
+                    if (resolveEndTime(endTime) <= clock.millis()) {
+                        reportInvalid(interactive, "结束时间已过: " + endTime);
+                        return false;
+                    }
+                } catch (DateTimeParseException e) {
+                    reportInvalid(interactive, "结束时间格式错误，示例: 18:30 或 2026-10-20 08:00");
+                    return false;
+                }
+            }
+            int rateMode = rateModeCombo.getSelectedIndex();
+            double target = rateTarget;
+            if (rateMode > 0) {
+                target = Double.parseDouble(rateTargetField.getText().trim());
+                if (!(target > 0) || Double.isInfinite(target)) {
+                    reportInvalid(interactive, "目标速率必须大于0");
+                    return false;
+                }
+            }
+            limitSeconds = seconds;
+            limitClicks = clicks;
+            limitFailures = failures;
+            limitEndTime = endTime;
+            rateTargetUnit = rateMode > 0 ? RateTargetSolver.Unit.values()[rateMode - 1] : null;
+            rateTarget = target;
             return true;
         } catch (NumberFormatException e) {
-            showError("请输入有效的数字");
+            reportInvalid(interactive, "请输入有效的数字");
             return false;
         }
     }
@@ -1174,17 +4083,62 @@ public class HotkeyPositionMouseClickerV2 {
         buttonType = prefs.getInt("button", BUTTON_TYPE_LEFT);
         randomInterval = prefs.getBoolean("random", false);
         fastMode = prefs.getBoolean("fastMode", false);
+        fastMoveDelay = prefs.getInt("fastMoveDelay", FAST_MODE_MOVE_DELAY);
+        normalMoveDelay = prefs.getInt("normalMoveDelay", NORMAL_MODE_MOVE_DELAY);
         minInterval = prefs.getInt("minInterval", DEFAULT_MIN_INTERVAL);
         maxInterval = prefs.getInt("maxInterval", DEFAULT_MAX_INTERVAL);
+        jitterDistribution = IntervalJitter.Distribution.parse(
+                prefs.get("jitterDistribution", IntervalJitter.Distribution.UNIFORM.name()));
+        adaptiveRate = prefs.getBoolean("adaptiveRate", false);
+        adaptivePerCycle = prefs.getBoolean("adaptivePerCycle", false);
+        adaptiveRegion = parseRegion(prefs.get("adaptiveRegion", ""));
+        profileName = prefs.get("profileName", DEFAULT_PROFILE_NAME);
+        traceEnabled = prefs.getBoolean("traceEnabled", false);
+        burstRepeats = prefs.getBoolean("burstRepeats", false);
+        history.setLimit(Math.max(0, prefs.getInt("undoLimit", PositionHistory.DEFAULT_LIMIT)));
+        testDwell = Math.max(0, prefs.getInt("testDwell", DEFAULT_TEST_DWELL));
+        limitSeconds = Math.max(0, prefs.getInt("limitSeconds", 0));
+        limitClicks = Math.max(0, prefs.getLong("limitClicks", 0));
+        limitEndTime = prefs.get("limitEndTime", "");
+        limitFailures = Math.max(0, prefs.getInt("limitFailures", 0));
+        rateTargetUnit = parseRateUnit(prefs.get("rateMode", ""));
+        rateTarget = prefs.getDouble("rateTarget", rateTarget);
+        if (!(rateTarget > 0) || Double.isInfinite(rateTarget)) {
+            rateTarget = DEFAULT_RATE_TARGET;
+        }
+        String seedText = prefs.get("jitterSeed", "");
+        try {
+            jitterSeed = seedText.isEmpty() ? null : Long.parseLong(seedText);
+        } catch (NumberFormatException e) {
+            jitterSeed = null;
+        }
 
-        // 加载位置列表
-        int positionCount = prefs.getInt("positionCount", 0);
-        clickPositions.clear();
-        for (int i = 0; i < positionCount; i++) {
-            int x = prefs.getInt("posX" + i, 0);
-            int y = prefs.getInt("posY" + i, 0);
-            String note = prefs.get("posNote" + i, "");
-            clickPositions.add(new ClickPosition(x, y, note));
+        // 加载位置列表（优先读取位置文件，没有时读取旧版本保存在配置中的位置）
+        File positionsFile = getPositionsFile();
+        boolean loaded = false;
+        if (positionsFile.isFile()) {
+            try {
+                positions.load(positionsFile);
+                savedPositionsVersion = positions.getVersion();
+                loaded = true;
+            } catch (IOException e) {
+                positionsLoadError = e.getMessage();
+            }
+        }
+        if (!loaded) {
+            loadLegacyPositions();
+        }
+
+        // 加载计划运行
+        int scheduleCount = prefs.getInt("scheduleCount", 0);
+        for (int i = 0; i < scheduleCount; i++) {
+            try {
+                ScheduleTrigger trigger = ScheduleTrigger.parse(prefs.get("scheduleSpec" + i, ""));
+                scheduler.add(new RunScheduler.Schedule(trigger,
+                        RunScheduler.MissedRunPolicy.parse(prefs.get("schedulePolicy" + i, ""))));
+            } catch (IllegalArgumentException e) {
+                // 规则格式已失效，丢弃该计划
+            }
         }
     }
 
@@ -1199,14 +4153,105 @@ public class HotkeyPositionMouseClickerV2 {
         prefs.putBoolean("fastMode", fastMode);
         prefs.putInt("minInterval", minInterval);
         prefs.putInt("maxInterval", maxInterval);
+        prefs.put("jitterDistribution", jitterDistribution.name());
+        prefs.put("jitterSeed", jitterSeed != null ? String.valueOf(jitterSeed) : "");
+        prefs.putBoolean("adaptiveRate", adaptiveRate);
+        prefs.putBoolean("adaptivePerCycle", adaptivePerCycle);
+        prefs.put("adaptiveRegion", adaptiveRegion != null ? formatRegion(adaptiveRegion) : "");
+        prefs.put("profileName", profileName);
+        prefs.putBoolean("traceEnabled", traceEnabled);
+        prefs.putBoolean("burstRepeats", burstRepeats);
+        prefs.putInt("undoLimit", history.getLimit());
+        prefs.putInt("testDwell", testDwell);
+        prefs.putInt("limitSeconds", limitSeconds);
+        prefs.putLong("limitClicks", limitClicks);
+        prefs.put("limitEndTime", limitEndTime);
+        prefs.putInt("limitFailures", limitFailures);
+        prefs.put("rateMode", rateTargetUnit != null ? rateTargetUnit.name() : "");
+        prefs.putDouble("rateTarget", rateTarget);
+
+        // 保存位置列表（未修改时不重写文件）
+        savePositions();
+
+        // 保存计划运行
+        List<RunScheduler.Schedule> schedules = scheduler.getSchedules();
+        prefs.putInt("scheduleCount", schedules.size());
+        for (int i = 0; i < schedules.size(); i++) {
+            prefs.put("scheduleSpec" + i, schedules.get(i).getTrigger().getSpec());
+            prefs.put("schedulePolicy" + i, schedules.get(i).getMissedRunPolicy().name());
+        }
+    }
+
+    /**
+     * 获取位置文件
+     */
+    private File getPositionsFile() {
+        return new File(new File(System.getProperty("user.home"), APP_DATA_DIR_NAME), POSITIONS_FILE_NAME);
+    }
+
+    /**
+     * 读取旧版本逐个保存在配置中的位置
+     */
+    private void loadLegacyPositions() {
+        int positionCount = prefs.getInt("positionCount", 0);
+        positions.clear();
+        for (int i = 0; i < positionCount; i++) {
+            int x = prefs.getInt("posX" + i, 0);
+            int y = prefs.getInt("posY" + i, 0);
+            String condition = prefs.get("posCondition" + i, "").trim();
+            try {
+                parseCondition(condition);
+            } catch (IllegalArgumentException e) {
+                // 条件格式已失效，丢弃条件保留位置
+                condition = "";
+            }
+            PositionStore.Attributes attrs = new PositionStore.Attributes(prefs.get("posNote" + i, ""),
+                    prefs.get("posAnchor" + i, ""), condition, "", 0, 0);
+            String displayId = prefs.get("posDisplay" + i, null);
+            attrs = displayId != null ? attrs.withDisplay(displayId, prefs.getInt("posDisplayX" + i, 0),
+                    prefs.getInt("posDisplayY" + i, 0)) : attachDisplay(x, y, attrs);
+            positions.add(x, y, attrs);
+        }
+    }
+
+    /**
+     * 把位置快照交给后台写入位置文件（未修改或已在排队时跳过）
+     */
+    private void savePositions() {
+        PositionStore.Snapshot data = positions.snapshot();
+        long version = data.getVersion();
+        if (version == savedPositionsVersion || positionWriter.isShutdown()) {
+            return;
+        }
+        savedPositionsVersion = version;
+        File file = getPositionsFile();
+        positionWriter.execute(() -> writePositions(data, file));
+    }
 
-        // 保存位置列表
-        prefs.putInt("positionCount", clickPositions.size());
-        for (int i = 0; i < clickPositions.size(); i++) {
-            ClickPosition pos = clickPositions.get(i);
-            prefs.putInt("posX" + i, pos.x);
-            prefs.putInt("posY" + i, pos.y);
-            prefs.put("posNote" + i, pos.note != null ? pos.note : "");
+    /**
+     * 在后台线程写位置文件，成功后删除配置中的旧版本位置
+     */
+    private void writePositions(PositionStore.Snapshot data, File file) {
+        try {
+            PositionStore.save(data, file);
+        } catch (IOException e) {
+            // 之后再保存时重新写入（期间已有新版本排队时不用重置）
+            SwingUtilities.invokeLater(() -> {
+                if (savedPositionsVersion == data.getVersion()) {
+                    savedPositionsVersion = -1;
+                }
+            });
+            appendLog("❌ 位置保存失败: " + e.getMessage());
+            return;
+        }
+        int legacyCount = prefs.getInt("positionCount", 0);
+        if (legacyCount > 0) {
+            for (int i = 0; i < legacyCount; i++) {
+                for (String key : LEGACY_POSITION_KEYS) {
+                    prefs.remove(key + i);
+                }
+            }
+            prefs.remove("positionCount");
         }
     }
 
@@ -1217,13 +4262,30 @@ public class HotkeyPositionMouseClickerV2 {
         JOptionPane.showMessageDialog(null, message, "错误", JOptionPane.ERROR_MESSAGE);
     }
 
+    /**
+     * 报告设置或位置验证失败
+     *
+     * @param interactive 是否由用户操作触发；计划运行无人值守，不弹出对话框，只写日志并记入运行记录
+     * @param message 错误消息
+     */
+    private void reportInvalid(boolean interactive, String message) {
+        if (interactive) {
+            showError(message);
+            return;
+        }
+        appendLog("❌ " + STOP_REASON_NOT_STARTED + ": " + message.replace("\n", " "));
+        recordNotStarted();
+    }
+
     /**
      * 追加日志
      */
     private void appendLog(String message) {
         SwingUtilities.invokeLater(() -> {
+            long traceStart = trace.begin();
             logArea.append(message + "\n");
             logArea.setCaretPosition(logArea.getDocument().getLength());
+            trace.end(ClickTrace.Phase.LOG, traceStart, 0);
         });
     }
 
@@ -1231,6 +4293,8 @@ public class HotkeyPositionMouseClickerV2 {
      * 主方法
      */
     public static void main(String[] args) {
+        // 先启动后台加载，与外观初始化并行
+        HotkeyPositionMouseClickerV2 app = new HotkeyPositionMouseClickerV2();
         try {
             String osName = System.getProperty("os.name").toLowerCase();
             if (osName.contains(OS_MAC)) {
@@ -1246,7 +4310,7 @@ public class HotkeyPositionMouseClickerV2 {
             }
         }
 
-        SwingUtilities.invokeLater(HotkeyPositionMouseClickerV2::new);
+        SwingUtilities.invokeLater(app::createGUI);
     }
 }
 
@@ -0,0 +1,240 @@
+package src.main.java;
+
+import javax.imageio.ImageIO;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图像锚点 - 运行时通过模板匹配定位点击目标
+ *
+ * <p>锚点保存一张小的参考图像和点击点在图像中的偏移。每次定位时依次尝试：
+ * <ol>
+ *   <li>上一次匹配位置（区域未变化时直接复用，否则在附近小区域重新匹配）</li>
+ *   <li>录制时坐标附近的局部区域</li>
+ *   <li>整个搜索范围</li>
+ * </ol>
+ * 匹配成功后通过 {@link ScreenCaptureService} 订阅该位置，只要区域没有变化就直接复用缓存，
+ * 不再截图和匹配；区域变化后重新匹配，直到某次匹配失败才清除缓存。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class ImageAnchor {
+
+    /**
+     * 锚点图像文件扩展名
+     */
+    private static final String IMAGE_EXTENSION = ".png";
+
+    /**
+     * 最低接受的匹配得分
+     */
+    private static final double MATCH_THRESHOLD = 0.9;
+
+    /**
+     * 缓存位置附近的搜索边距（像素）
+     */
+    private static final int CACHED_SEARCH_MARGIN = 16;
+
+    /**
+     * 录制坐标附近的局部搜索边距（像素）
+     */
+    private static final int LOCAL_SEARCH_MARGIN = 256;
+
+    /**
+     * 缓存位置的变化检测周期（毫秒）
+     */
+    private static final int WATCH_INTERVAL_MS = 50;
+
+    private final String name;
+    private final BufferedImage image;
+    private final TemplateMatcher.Template template;
+    private final int offsetX;
+    private final int offsetY;
+
+    /**
+     * 上一次匹配到的模板左上角（屏幕坐标），null表示无缓存
+     */
+    private volatile Point cachedLocation;
+
+    /**
+     * 缓存位置对应的截图时间（System.nanoTime）
+     */
+    private volatile long cachedAtNanos;
+
+    /**
+     * 对缓存位置的变化订阅
+     */
+    private ScreenCaptureService.Subscription watch;
+
+    private volatile long lastMatchNanos;
+    private volatile int cacheHits;
+    private volatile int cacheMisses;
+
+    /**
+     * 构造函数，点击点默认为图像中心
+     *
+     * @param name 锚点名称
+     * @param image 参考图像
+     */
+    public ImageAnchor(String name, BufferedImage image) {
+        this.name = name;
+        this.image = image;
+        this.template = TemplateMatcher.prepare(image);
+        this.offsetX = image.getWidth() / 2;
+        this.offsetY = image.getHeight() / 2;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 最近一次定位耗时（纳秒，不含截图）
+     */
+    public long getLastMatchNanos() {
+        return lastMatchNanos;
+    }
+
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    public int getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * 在屏幕上定位锚点
+     *
+     * @param captureService 截图服务
+     * @param searchBounds 允许搜索的屏幕范围
+     * @param hint 录制时的点击坐标，用于局部搜索
+     * @return 点击点的屏幕坐标，未找到时返回 null
+     */
+    public synchronized Point locate(ScreenCaptureService captureService, Rectangle searchBounds, Point hint) {
+        Point cached = cachedLocation;
+        if (cached != null && isUnchangedSince(cachedAtNanos)) {
+            cacheHits++;
+            lastMatchNanos = 0;
+            return new Point(cached.x + offsetX, cached.y + offsetY);
+        }
+        if (cached != null) {
+            Point found = locateIn(captureService, searchBounds, new Rectangle(cached.x - CACHED_SEARCH_MARGIN,
+                    cached.y - CACHED_SEARCH_MARGIN, template.getWidth() + 2 * CACHED_SEARCH_MARGIN,
+                    template.getHeight() + 2 * CACHED_SEARCH_MARGIN));
+            if (found != null) {
+                cacheHits++;
+                return found;
+            }
+            cacheMisses++;
+        }
+        if (hint != null) {
+            Point found = locateIn(captureService, searchBounds, new Rectangle(hint.x - LOCAL_SEARCH_MARGIN,
+                    hint.y - LOCAL_SEARCH_MARGIN, 2 * LOCAL_SEARCH_MARGIN, 2 * LOCAL_SEARCH_MARGIN));
+            if (found != null) {
+                return found;
+            }
+        }
+        Point found = locateIn(captureService, searchBounds, searchBounds);
+        if (found == null) {
+            invalidate();
+        }
+        return found;
+    }
+
+    /**
+     * 清除缓存的匹配位置并取消变化订阅
+     */
+    public synchronized void invalidate() {
+        cachedLocation = null;
+        if (watch != null) {
+            watch.close();
+            watch = null;
+        }
+    }
+
+    /**
+     * 缓存位置自指定时间以来是否确认没有变化
+     */
+    private boolean isUnchangedSince(long nanos) {
+        ScreenCaptureService.Subscription current = watch;
+        if (current == null) {
+            return false;
+        }
+        // 需要至少一帧晚于缓存时间的截图，且此后没有变化
+        return current.getLastFrameNanos() - nanos > 0 && current.getLastChangeNanos() - nanos <= 0;
+    }
+
+    private Point locateIn(ScreenCaptureService captureService, Rectangle searchBounds, Rectangle region) {
+        Rectangle roi = region.intersection(searchBounds);
+        if (roi.width < template.getWidth() || roi.height < template.getHeight()) {
+            return null;
+        }
+        long capturedAt = System.nanoTime();
+        BufferedImage frame = captureService.snapshot(roi);
+        if (frame == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        TemplateMatcher.Match match = TemplateMatcher.find(frame,
+                new Rectangle(0, 0, frame.getWidth(), frame.getHeight()), template, MATCH_THRESHOLD);
+        lastMatchNanos = System.nanoTime() - start;
+        if (match == null) {
+            return null;
+        }
+        Point topLeft = new Point(roi.x + match.x, roi.y + match.y);
+        if (!topLeft.equals(cachedLocation) || watch == null) {
+            if (watch != null) {
+                watch.close();
+            }
+            watch = captureService.subscribe(new Rectangle(topLeft.x, topLeft.y,
+                    template.getWidth(), template.getHeight()), WATCH_INTERVAL_MS, (f, changed) -> { });
+            // 新订阅的第一帧可能没有可比较的上一帧，以订阅后一个周期为基准
+            capturedAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WATCH_INTERVAL_MS);
+        }
+        cachedLocation = topLeft;
+        cachedAtNanos = capturedAt;
+        return new Point(topLeft.x + offsetX, topLeft.y + offsetY);
+    }
+
+    /**
+     * 保存参考图像
+     *
+     * @param directory 锚点目录
+     */
+    public void save(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建目录: " + directory);
+        }
+        ImageIO.write(image, "png", new File(directory, name + IMAGE_EXTENSION));
+    }
+
+    /**
+     * 加载参考图像
+     *
+     * @param directory 锚点目录
+     * @param name 锚点名称
+     * @return 锚点
+     */
+    public static ImageAnchor load(File directory, String name) throws IOException {
+        File file = new File(directory, name + IMAGE_EXTENSION);
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("无法读取锚点图像: " + file);
+        }
+        return new ImageAnchor(name, image);
+    }
+
+    /**
+     * 锚点图像文件是否存在
+     */
+    public static boolean exists(File directory, String name) {
+        return new File(directory, name + IMAGE_EXTENSION).isFile();
+    }
+}
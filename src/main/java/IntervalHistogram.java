@@ -0,0 +1,57 @@
+package src.main.java;
+
+/**
+ * 间隔直方图 - 以1毫秒为桶宽统计点击间隔，O(1) 记录、按需计算百分位
+ *
+ * <p>超过上限的间隔计入最后一个桶。只由点击线程写入，运行结束后读取。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class IntervalHistogram {
+
+    /**
+     * 统计上限（毫秒）
+     */
+    private static final int MAX_MS = 10_000;
+
+    private final long[] counts = new long[MAX_MS + 1];
+    private long total;
+
+    /**
+     * 记录一个间隔
+     *
+     * @param nanos 间隔（纳秒）
+     */
+    public void record(long nanos) {
+        int ms = (int) Math.min(MAX_MS, Math.max(0, nanos / 1_000_000));
+        counts[ms]++;
+        total++;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * 计算百分位
+     *
+     * @param percentile 百分位（0~100）
+     * @return 间隔（毫秒），没有数据时返回 0
+     */
+    public int percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int ms = 0; ms < counts.length; ms++) {
+            seen += counts[ms];
+            if (seen >= rank) {
+                return ms;
+            }
+        }
+        return MAX_MS;
+    }
+}
@@ -0,0 +1,246 @@
+package src.main.java;
+
+import java.util.SplittableRandom;
+
+/**
+ * 随机间隔模型 - 为连点器提供可插拔的间隔分布
+ *
+ * <p>功能特性：
+ * <ul>
+ *   <li>支持均匀、高斯、对数正态和泊松过程四种分布</li>
+ *   <li>每个线程持有独立的 {@link SplittableRandom}，无共享锁竞争</li>
+ *   <li>支持固定随机种子，可完整重放某次运行的间隔序列</li>
+ *   <li>所有分布的取值都落在 [最小值, 最大值] 闭区间内</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class IntervalJitter {
+
+    /**
+     * 截断分布时的最大重采样次数，超过后直接截断到边界
+     */
+    private static final int MAX_RESAMPLE_ATTEMPTS = 8;
+
+    /**
+     * 高斯分布中区间宽度对应的标准差个数（±3σ覆盖整个区间）
+     */
+    private static final double GAUSSIAN_SIGMA_SPAN = 6.0;
+
+    /**
+     * 未指定种子时使用的全局根生成器，只在创建采样器时加锁拆分
+     */
+    private static final SplittableRandom ROOT = new SplittableRandom();
+
+    /**
+     * 随机分布类型
+     */
+    public enum Distribution {
+        /**
+         * 均匀分布
+         */
+        UNIFORM("均匀分布"),
+
+        /**
+         * 高斯分布，均值为区间中点
+         */
+        GAUSSIAN("高斯分布"),
+
+        /**
+         * 对数正态分布，中位数为区间几何平均值
+         */
+        LOG_NORMAL("对数正态分布"),
+
+        /**
+         * 泊松过程，间隔服从从最小值起平移的指数分布
+         */
+        POISSON("泊松过程");
+
+        private final String displayName;
+
+        Distribution(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * 获取显示名称
+         */
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * 按名称解析分布，无法识别时返回均匀分布
+         */
+        public static Distribution parse(String name) {
+            for (Distribution d : values()) {
+                if (d.name().equals(name)) {
+                    return d;
+                }
+            }
+            return UNIFORM;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private final Distribution distribution;
+    private final int min;
+    private final int max;
+
+    /**
+     * 构造函数
+     *
+     * @param distribution 分布类型
+     * @param min 最小间隔（毫秒，包含）
+     * @param max 最大间隔（毫秒，包含）
+     */
+    public IntervalJitter(Distribution distribution, int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("最小值不能大于最大值: " + min + " > " + max);
+        }
+        this.distribution = distribution != null ? distribution : Distribution.UNIFORM;
+        this.min = min;
+        this.max = max;
+    }
+
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * 生成一个新的随机种子，用于记录和重放运行
+     */
+    public static long newSeed() {
+        synchronized (ROOT) {
+            return ROOT.nextLong();
+        }
+    }
+
+    /**
+     * 创建一个采样器，采样器只能由创建它的线程使用
+     *
+     * @param seed 随机种子
+     * @return 采样器
+     */
+    public Sampler newSampler(long seed) {
+        return new Sampler(this, new SplittableRandom(seed));
+    }
+
+    /**
+     * 线程私有采样器
+     *
+     * <p>同一种子创建的采样器产生完全相同的间隔序列和按键保持时间序列。
+     */
+    public static final class Sampler {
+
+        private final IntervalJitter jitter;
+        private final SplittableRandom intervalRandom;
+        private final SplittableRandom holdRandom;
+
+        private Sampler(IntervalJitter jitter, SplittableRandom random) {
+            this.jitter = jitter;
+            this.intervalRandom = random;
+            // 按键保持时间使用拆分出的独立序列，不影响间隔序列的可重放性
+            this.holdRandom = random.split();
+        }
+
+        /**
+         * 按配置的分布采样下一个间隔（毫秒）
+         */
+        public int nextInterval() {
+            return sample(jitter.distribution, jitter.min, jitter.max, intervalRandom);
+        }
+
+        /**
+         * 在 [min, max] 内均匀采样按键保持时间（毫秒）
+         */
+        public int nextHoldDelay(int min, int max) {
+            return uniform(min, max, holdRandom);
+        }
+    }
+
+    /**
+     * 从指定分布采样一个 [min, max] 内的整数
+     */
+    static int sample(Distribution distribution, int min, int max, SplittableRandom random) {
+        if (min == max) {
+            return min;
+        }
+        switch (distribution) {
+            case GAUSSIAN:
+                return gaussian(min, max, random);
+            case LOG_NORMAL:
+                return logNormal(min, max, random);
+            case POISSON:
+                return poisson(min, max, random);
+            case UNIFORM:
+            default:
+                return uniform(min, max, random);
+        }
+    }
+
+    private static int uniform(int min, int max, SplittableRandom random) {
+        return random.nextInt(min, max + 1);
+    }
+
+    private static int gaussian(int min, int max, SplittableRandom random) {
+        double mean = (min + max) / 2.0;
+        double sigma = (max - min) / GAUSSIAN_SIGMA_SPAN;
+        double value = mean;
+        for (int i = 0; i < MAX_RESAMPLE_ATTEMPTS; i++) {
+            value = mean + sigma * nextGaussian(random);
+            if (value >= min && value <= max) {
+                break;
+            }
+        }
+        return clamp(Math.round(value), min, max);
+    }
+
+    private static int logNormal(int min, int max, SplittableRandom random) {
+        // 间隔至少为1ms，保证对数有意义
+        double lower = Math.max(1, min);
+        double upper = Math.max(lower, max);
+        double mu = (Math.log(lower) + Math.log(upper)) / 2.0;
+        double sigma = (Math.log(upper) - Math.log(lower)) / GAUSSIAN_SIGMA_SPAN;
+        double value = Math.exp(mu);
+        for (int i = 0; i < MAX_RESAMPLE_ATTEMPTS; i++) {
+            value = Math.exp(mu + sigma * nextGaussian(random));
+            if (value >= min && value <= max) {
+                break;
+            }
+        }
+        return clamp(Math.round(value), min, max);
+    }
+
+    private static int poisson(int min, int max, SplittableRandom random) {
+        // 平移指数分布：截断前期望值为区间中点，超出最大值的样本重新采样
+        double meanOffset = (max - min) / 2.0;
+        double value = max;
+        for (int i = 0; i < MAX_RESAMPLE_ATTEMPTS; i++) {
+            value = min - meanOffset * Math.log(1.0 - random.nextDouble());
+            if (value <= max) {
+                break;
+            }
+        }
+        return clamp(Math.round(value), min, max);
+    }
+
+    /**
+     * Box-Muller 变换生成标准正态随机数（SplittableRandom 在 Java 8 中没有 nextGaussian）
+     */
+    private static double nextGaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+
+    private static int clamp(long value, int min, int max) {
+        return (int) Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,597 @@
+package src.main.java;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 批量位置生成器 - 按规则一次生成大量点击位置
+ *
+ * <p>规则文本格式（逗号可用中文逗号）：
+ * <ul>
+ *   <li>{@code 网格:x,y,宽,高,列,行} - 在矩形内均匀排列 列×行 个点（含四边）</li>
+ *   <li>{@code 折线:点数,x1,y1,x2,y2[,x3,y3...]} - 沿折线按长度均匀分布，含两端</li>
+ *   <li>{@code 圆:中心x,中心y,半径,点数} / {@code 椭圆:中心x,中心y,半径x,半径y,点数} - 沿周长均匀分布</li>
+ *   <li>{@code 散布:x,y,宽,高,最小距离[,种子]} - 泊松圆盘随机散布，任意两点距离不小于最小距离</li>
+ * </ul>
+ *
+ * <p>点数较多时分块并行生成。泊松圆盘散布把区域切成竖条，先并行填充偶数条、再并行填充奇数条，
+ * 同一阶段的竖条相隔足够远互不影响，因此相同种子的结果与线程调度无关。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class PositionGenerator {
+
+    /**
+     * 单次最多生成的位置数
+     */
+    public static final int MAX_POINTS = 1_000_000;
+
+    /**
+     * 并行分块大小（点数）
+     */
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * 椭圆周长查找表的分段数
+     */
+    private static final int ELLIPSE_SEGMENTS = 4096;
+
+    /**
+     * 泊松圆盘每个活动点的候选次数
+     */
+    private static final int SCATTER_ATTEMPTS = 30;
+
+    /**
+     * 泊松圆盘背景网格的最大格数（实测每格约 0.35 个点）
+     */
+    private static final long MAX_SCATTER_CELLS = 3L * MAX_POINTS;
+
+    /**
+     * 泊松圆盘的点密度（每 r² 面积的点数，实测约 0.7）
+     */
+    private static final double SCATTER_DENSITY = 0.7;
+
+    private enum Kind {
+        GRID,
+        POLYLINE,
+        ELLIPSE,
+        SCATTER
+    }
+
+    /**
+     * 生成结果
+     */
+    public static final class Points {
+        private final int[] xs;
+        private final int[] ys;
+        private final int size;
+
+        Points(int[] xs, int[] ys, int size) {
+            this.xs = xs;
+            this.ys = ys;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int[] getXs() {
+            return xs;
+        }
+
+        public int[] getYs() {
+            return ys;
+        }
+    }
+
+    private final String spec;
+    private final String label;
+    private final Kind kind;
+    private final int[] args;
+    private final long seed;
+
+    private PositionGenerator(String spec, String label, Kind kind, int[] args, long seed) {
+        this.spec = spec;
+        this.label = label;
+        this.kind = kind;
+        this.args = args;
+        this.seed = seed;
+    }
+
+    /**
+     * 解析规则文本
+     *
+     * @throws IllegalArgumentException 格式错误或点数超出上限
+     */
+    public static PositionGenerator parse(String spec) {
+        String text = spec.trim();
+        String[] kv = text.split("[:：]", 2);
+        if (kv.length != 2 || kv[1].trim().isEmpty()) {
+            throw new IllegalArgumentException("格式应为 类型:参数，例如 网格:100,100,400,300,10,5");
+        }
+        String keyword = kv[0].trim();
+        String[] fields = kv[1].trim().split("\\s*[,，]\\s*");
+        if ("网格".equals(keyword)) {
+            int[] args = parseInts(fields, 6, 6, "网格:x,y,宽,高,列,行");
+            requirePositive(args[2], "宽");
+            requirePositive(args[3], "高");
+            requirePositive(args[4], "列");
+            requirePositive(args[5], "行");
+            requireCount((long) args[4] * args[5]);
+            return new PositionGenerator(text, keyword, Kind.GRID, args, 0);
+        }
+        if ("折线".equals(keyword)) {
+            int[] args = parseInts(fields, 5, Integer.MAX_VALUE, "折线:点数,x1,y1,x2,y2[,x3,y3...]");
+            if (args.length % 2 != 1) {
+                throw new IllegalArgumentException("折线的坐标必须成对出现");
+            }
+            requirePositive(args[0], "点数");
+            requireCount(args[0]);
+            return new PositionGenerator(text, keyword, Kind.POLYLINE, args, 0);
+        }
+        if ("圆".equals(keyword)) {
+            int[] args = parseInts(fields, 4, 4, "圆:中心x,中心y,半径,点数");
+            requirePositive(args[2], "半径");
+            requirePositive(args[3], "点数");
+            requireCount(args[3]);
+            return new PositionGenerator(text, keyword, Kind.ELLIPSE,
+                    new int[]{args[0], args[1], args[2], args[2], args[3]}, 0);
+        }
+        if ("椭圆".equals(keyword)) {
+            int[] args = parseInts(fields, 5, 5, "椭圆:中心x,中心y,半径x,半径y,点数");
+            requirePositive(args[2], "半径x");
+            requirePositive(args[3], "半径y");
+            requirePositive(args[4], "点数");
+            requireCount(args[4]);
+            return new PositionGenerator(text, keyword, Kind.ELLIPSE, args, 0);
+        }
+        if ("散布".equals(keyword)) {
+            if (fields.length != 5 && fields.length != 6) {
+                throw new IllegalArgumentException("格式应为 散布:x,y,宽,高,最小距离[,种子]");
+            }
+            int[] args = parseInts(Arrays.copyOf(fields, 5), 5, 5, "散布:x,y,宽,高,最小距离[,种子]");
+            requirePositive(args[2], "宽");
+            requirePositive(args[3], "高");
+            requirePositive(args[4], "最小距离");
+            double cell = args[4] / Math.sqrt(2);
+            long cells = (long) Math.ceil(args[2] / cell) * (long) Math.ceil(args[3] / cell);
+            if (cells > MAX_SCATTER_CELLS) {
+                throw new IllegalArgumentException("最小距离相对区域太小，点数会超过上限 " + MAX_POINTS);
+            }
+            long seed;
+            try {
+                seed = fields.length == 6 ? Long.parseLong(fields[5]) : IntervalJitter.newSeed();
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("种子必须是整数: " + fields[5]);
+            }
+            return new PositionGenerator(text, keyword, Kind.SCATTER, args, seed);
+        }
+        throw new IllegalArgumentException("未知的生成类型: " + keyword + "（支持 网格、折线、圆、椭圆、散布）");
+    }
+
+    private static int[] parseInts(String[] fields, int min, int max, String usage) {
+        if (fields.length < min || fields.length > max) {
+            throw new IllegalArgumentException("格式应为 " + usage);
+        }
+        int[] values = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            try {
+                values[i] = Integer.parseInt(fields[i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("不是整数: " + fields[i] + "（格式应为 " + usage + "）");
+            }
+        }
+        return values;
+    }
+
+    private static void requirePositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + "必须大于0: " + value);
+        }
+    }
+
+    private static void requireCount(long count) {
+        if (count > MAX_POINTS) {
+            throw new IllegalArgumentException("点数 " + count + " 超过上限 " + MAX_POINTS);
+        }
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    /**
+     * 类型名称（用作生成位置的备注）
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 是否为随机散布（点数不固定，可用种子重放）
+     */
+    public boolean isRandom() {
+        return kind == Kind.SCATTER;
+    }
+
+    /**
+     * 散布使用的随机种子（其他类型为 0）
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 预计生成的点数（散布为按实测密度估算的近似值）
+     */
+    public int estimateCount() {
+        switch (kind) {
+            case GRID:
+                return args[4] * args[5];
+            case POLYLINE:
+                return args[0];
+            case ELLIPSE:
+                return args[4];
+            case SCATTER:
+            default:
+                double r = args[4];
+                return (int) Math.min(MAX_POINTS, (long) args[2] * args[3] * SCATTER_DENSITY / (r * r) + 1);
+        }
+    }
+
+    /**
+     * 生成位置
+     */
+    public Points generate() {
+        switch (kind) {
+            case GRID:
+                return grid();
+            case POLYLINE:
+                return polyline();
+            case ELLIPSE:
+                return ellipse();
+            case SCATTER:
+            default:
+                return new Scatter().generate();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    /**
+     * 分块填充坐标的函数
+     */
+    private interface RangeFiller {
+        void fill(int from, int to);
+    }
+
+    /**
+     * 按下标二分的并行填充任务
+     */
+    private static final class FillTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeFiller filler;
+        private final int from;
+        private final int to;
+
+        FillTask(RangeFiller filler, int from, int to) {
+            this.filler = filler;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                filler.fill(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FillTask(filler, from, mid), new FillTask(filler, mid, to));
+        }
+    }
+
+    private static void fillParallel(int count, RangeFiller filler) {
+        if (count <= CHUNK_SIZE) {
+            filler.fill(0, count);
+        } else {
+            ForkJoinPool.commonPool().invoke(new FillTask(filler, 0, count));
+        }
+    }
+
+    private Points grid() {
+        int x0 = args[0];
+        int y0 = args[1];
+        int width = args[2];
+        int height = args[3];
+        int columns = args[4];
+        int rows = args[5];
+        int count = columns * rows;
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        fillParallel(count, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                xs[i] = x0 + spread(i % columns, columns, width);
+                ys[i] = y0 + spread(i / columns, rows, height);
+            }
+        });
+        return new Points(xs, ys, count);
+    }
+
+    /**
+     * 第 index 个点（共 count 个）在长度 length 上的偏移，只有一个点时取中点
+     */
+    private static int spread(int index, int count, int length) {
+        if (count == 1) {
+            return length / 2;
+        }
+        return (int) Math.round((double) index * (length - 1) / (count - 1));
+    }
+
+    private Points polyline() {
+        int count = args[0];
+        int vertices = (args.length - 1) / 2;
+        double[] cumulative = new double[vertices];
+        for (int v = 1; v < vertices; v++) {
+            double dx = args[1 + 2 * v] - args[2 * v - 1];
+            double dy = args[2 + 2 * v] - args[2 * v];
+            cumulative[v] = cumulative[v - 1] + Math.sqrt(dx * dx + dy * dy);
+        }
+        double total = cumulative[vertices - 1];
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        fillParallel(count, (from, to) -> {
+            int segment = 1;
+            for (int i = from; i < to; i++) {
+                double s = count == 1 ? 0 : total * i / (count - 1);
+                segment = findSegment(cumulative, s, segment);
+                double length = cumulative[segment] - cumulative[segment - 1];
+                double t = length == 0 ? 0 : (s - cumulative[segment - 1]) / length;
+                int ax = args[2 * segment - 1];
+                int ay = args[2 * segment];
+                xs[i] = (int) Math.round(ax + (args[1 + 2 * segment] - ax) * t);
+                ys[i] = (int) Math.round(ay + (args[2 + 2 * segment] - ay) * t);
+            }
+        });
+        return new Points(xs, ys, count);
+    }
+
+    /**
+     * 在累计长度表中查找 s 所在的分段 [k-1, k]（从 hint 开始向后查找，块内单调）
+     */
+    private static int findSegment(double[] cumulative, double s, int hint) {
+        int last = cumulative.length - 1;
+        if (last == 0) {
+            return 0;
+        }
+        int k = Math.max(1, hint);
+        if (cumulative[k - 1] > s) {
+            k = 1;
+        }
+        while (k < last && cumulative[k] < s) {
+            k++;
+        }
+        return k;
+    }
+
+    private Points ellipse() {
+        int cx = args[0];
+        int cy = args[1];
+        int rx = args[2];
+        int ry = args[3];
+        int count = args[4];
+        // 按角度分段累计弧长，再按弧长反查角度，使椭圆上的点间距均匀
+        double[] cumulative = new double[ELLIPSE_SEGMENTS + 1];
+        double step = 2 * Math.PI / ELLIPSE_SEGMENTS;
+        for (int k = 1; k <= ELLIPSE_SEGMENTS; k++) {
+            double mid = (k - 0.5) * step;
+            cumulative[k] = cumulative[k - 1]
+                    + step * Math.hypot(rx * Math.sin(mid), ry * Math.cos(mid));
+        }
+        double total = cumulative[ELLIPSE_SEGMENTS];
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        fillParallel(count, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double s = total * i / count;
+                int k = Arrays.binarySearch(cumulative, s);
+                if (k < 0) {
+                    k = -k - 1;
+                }
+                k = Math.max(1, Math.min(ELLIPSE_SEGMENTS, k));
+                double length = cumulative[k] - cumulative[k - 1];
+                double angle = (k - 1 + (length == 0 ? 0 : (s - cumulative[k - 1]) / length)) * step;
+                xs[i] = (int) Math.round(cx + rx * Math.cos(angle));
+                ys[i] = (int) Math.round(cy + ry * Math.sin(angle));
+            }
+        });
+        return new Points(xs, ys, count);
+    }
+
+    /**
+     * 泊松圆盘散布（Bridson 算法，按竖条分两个阶段并行）
+     */
+    private final class Scatter {
+        private final int x0 = args[0];
+        private final int y0 = args[1];
+        private final int width = args[2];
+        private final int height = args[3];
+        private final int radius = args[4];
+        private final long radiusSquared = (long) radius * radius;
+        private final double cellSize = radius / Math.sqrt(2);
+        private final int gridColumns = (int) Math.ceil(width / cellSize);
+        private final int gridRows = (int) Math.ceil(height / cellSize);
+
+        /**
+         * 背景网格：每格最多一个点（格子对角线等于最小距离），保存点的坐标，空格为 {@link Integer#MIN_VALUE}
+         */
+        private final int[] cellX = new int[gridColumns * gridRows];
+        private final int[] cellY = new int[gridColumns * gridRows];
+
+        /**
+         * 每个竖条的格数（至少2格，保证竖条宽度不小于最小距离）
+         */
+        private final int stripeColumns;
+        private final int stripes;
+        private final int[][] stripeXs;
+        private final int[][] stripeYs;
+        private final int[] stripeSizes;
+
+        Scatter() {
+            Arrays.fill(cellX, Integer.MIN_VALUE);
+            int parallelism = ForkJoinPool.getCommonPoolParallelism();
+            stripeColumns = Math.max(2, gridColumns / Math.max(1, 4 * parallelism));
+            stripes = (gridColumns + stripeColumns - 1) / stripeColumns;
+            stripeXs = new int[stripes][];
+            stripeYs = new int[stripes][];
+            stripeSizes = new int[stripes];
+        }
+
+        Points generate() {
+            for (int phase = 0; phase < 2; phase++) {
+                int first = phase;
+                int count = (stripes - first + 1) / 2;
+                if (count <= 0) {
+                    continue;
+                }
+                if (count == 1) {
+                    fillStripe(first);
+                } else {
+                    ForkJoinPool.commonPool().invoke(new StripeTask(first, count));
+                }
+            }
+            int total = 0;
+            for (int size : stripeSizes) {
+                total += size;
+            }
+            total = Math.min(total, MAX_POINTS);
+            int[] xs = new int[total];
+            int[] ys = new int[total];
+            int offset = 0;
+            for (int s = 0; s < stripes && offset < total; s++) {
+                int n = Math.min(stripeSizes[s], total - offset);
+                System.arraycopy(stripeXs[s], 0, xs, offset, n);
+                System.arraycopy(stripeYs[s], 0, ys, offset, n);
+                offset += n;
+            }
+            return new Points(xs, ys, total);
+        }
+
+        /**
+         * 并行填充同一阶段的竖条（第 first, first+2, first+4... 条）
+         */
+        private final class StripeTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int first;
+            private final int count;
+
+            StripeTask(int first, int count) {
+                this.first = first;
+                this.count = count;
+            }
+
+            @Override
+            protected void compute() {
+                if (count == 1) {
+                    fillStripe(first);
+                    return;
+                }
+                int half = count / 2;
+                invokeAll(new StripeTask(first, half), new StripeTask(first + 2 * half, count - half));
+            }
+        }
+
+        private void fillStripe(int stripe) {
+            SplittableRandom random = new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * (stripe + 1)));
+            int columnFrom = stripe * stripeColumns;
+            int columnTo = Math.min(gridColumns, columnFrom + stripeColumns);
+            int minX = x0 + (int) Math.ceil(columnFrom * cellSize);
+            int maxX = columnTo == gridColumns ? x0 + width : x0 + (int) Math.ceil(columnTo * cellSize);
+            int[] xs = new int[16];
+            int[] ys = new int[16];
+            int size = 0;
+            int[] active = new int[16];
+            int activeCount = 0;
+
+            // 初始点：随机尝试若干次，直到与相邻竖条已有的点不冲突
+            for (int attempt = 0; attempt < SCATTER_ATTEMPTS && activeCount == 0; attempt++) {
+                int x = minX + random.nextInt(maxX - minX);
+                int y = y0 + random.nextInt(height);
+                if (accept(x, y)) {
+                    xs[0] = x;
+                    ys[0] = y;
+                    size = 1;
+                    active[activeCount++] = 0;
+                }
+            }
+            while (activeCount > 0) {
+                int slot = random.nextInt(activeCount);
+                int index = active[slot];
+                boolean placed = false;
+                for (int attempt = 0; attempt < SCATTER_ATTEMPTS; attempt++) {
+                    double angle = random.nextDouble() * 2 * Math.PI;
+                    double distance = radius * (1 + random.nextDouble());
+                    int x = (int) Math.round(xs[index] + distance * Math.cos(angle));
+                    int y = (int) Math.round(ys[index] + distance * Math.sin(angle));
+                    if (x < minX || x >= maxX || y < y0 || y >= y0 + height || !accept(x, y)) {
+                        continue;
+                    }
+                    if (size == xs.length) {
+                        xs = Arrays.copyOf(xs, size * 2);
+                        ys = Arrays.copyOf(ys, size * 2);
+                    }
+                    xs[size] = x;
+                    ys[size] = y;
+                    if (activeCount == active.length) {
+                        active = Arrays.copyOf(active, activeCount * 2);
+                    }
+                    active[activeCount++] = size;
+                    size++;
+                    placed = true;
+                    break;
+                }
+                if (!placed) {
+                    active[slot] = active[--activeCount];
+                }
+            }
+            stripeXs[stripe] = xs;
+            stripeYs[stripe] = ys;
+            stripeSizes[stripe] = size;
+        }
+
+        /**
+         * 检查周围格子中没有距离过近的点，通过时把点写入网格
+         */
+        private boolean accept(int x, int y) {
+            int column = (int) ((x - x0) / cellSize);
+            int row = (int) ((y - y0) / cellSize);
+            for (int r = Math.max(0, row - 2); r <= Math.min(gridRows - 1, row + 2); r++) {
+                for (int c = Math.max(0, column - 2); c <= Math.min(gridColumns - 1, column + 2); c++) {
+                    int cell = r * gridColumns + c;
+                    if (cellX[cell] == Integer.MIN_VALUE) {
+                        continue;
+                    }
+                    long dx = cellX[cell] - x;
+                    long dy = cellY[cell] - y;
+                    if (dx * dx + dy * dy < radiusSquared) {
+                        return false;
+                    }
+                }
+            }
+            int cell = row * gridColumns + column;
+            cellX[cell] = x;
+            cellY[cell] = y;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package src.main.java;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * 位置编辑的撤销/重做历史
+ *
+ * <p>设计要点：
+ * <ul>
+ *   <li>所有编辑通过本类执行，每次编辑记录一条命令，只保存变化的部分而不是整个列表的副本</li>
+ *   <li>插入和删除是同一种区间命令：区间在列表中时只记下标和个数，被移出列表时才保存坐标和属性引用，
+ *       因此添加、生成、导入这类插入在撤销前几乎不占内存，清空百万个位置也只保存 12 字节/位置</li>
+ *   <li>历史按步数和保存的位置总数两个上限淘汰最早的命令，最近一条命令总是保留</li>
+ *   <li>只在 EDT 上使用</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class PositionHistory {
+
+    /**
+     * 默认撤销步数
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * 历史中最多保存的位置数（约 24MB）
+     */
+    public static final long MAX_STORED_POSITIONS = 2_000_000L;
+
+    /**
+     * 可撤销的命令
+     */
+    private abstract static class Command {
+        final String label;
+
+        Command(String label) {
+            this.label = label;
+        }
+
+        abstract void undo(PositionStore store);
+
+        abstract void redo(PositionStore store);
+
+        /**
+         * 当前保存的位置数
+         */
+        long storedPositions() {
+            return 0;
+        }
+    }
+
+    /**
+     * 插入或删除一段区间（撤销和重做都是把区间移入或移出列表）
+     */
+    private static final class RangeCommand extends Command {
+        private final int index;
+        private final int count;
+
+        /**
+         * 区间不在列表中时保存的内容，在列表中时为 null
+         */
+        private PositionStore.Segment removed;
+
+        RangeCommand(String label, int index, int count, PositionStore.Segment removed) {
+            super(label);
+            this.index = index;
+            this.count = count;
+            this.removed = removed;
+        }
+
+        private void toggle(PositionStore store) {
+            if (removed == null) {
+                removed = store.copyRange(index, index + count);
+                store.removeRange(index, index + count);
+            } else {
+                store.insert(index, removed);
+                removed = null;
+            }
+        }
+
+        @Override
+        void undo(PositionStore store) {
+            toggle(store);
+        }
+
+        @Override
+        void redo(PositionStore store) {
+            toggle(store);
+        }
+
+        @Override
+        long storedPositions() {
+            return removed != null ? count : 0;
+        }
+    }
+
+    /**
+     * 交换两个位置
+     */
+    private static final class SwapCommand extends Command {
+        private final int first;
+        private final int second;
+
+        SwapCommand(String label, int first, int second) {
+            super(label);
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        void undo(PositionStore store) {
+            store.swap(first, second);
+        }
+
+        @Override
+        void redo(PositionStore store) {
+            store.swap(first, second);
+        }
+    }
+
+    /**
+     * 修改一个位置的坐标和属性
+     */
+    private static final class SetCommand extends Command {
+        private final int index;
+        private final int oldX;
+        private final int oldY;
+        private final PositionStore.Attributes oldAttributes;
+        private final int newX;
+        private final int newY;
+        private final PositionStore.Attributes newAttributes;
+
+        SetCommand(String label, int index, int oldX, int oldY, PositionStore.Attributes oldAttributes,
+                int newX, int newY, PositionStore.Attributes newAttributes) {
+            super(label);
+            this.index = index;
+            this.oldX = oldX;
+            this.oldY = oldY;
+            this.oldAttributes = oldAttributes;
+            this.newX = newX;
+            this.newY = newY;
+            this.newAttributes = newAttributes;
+        }
+
+        @Override
+        void undo(PositionStore store) {
+            store.set(index, oldX, oldY, oldAttributes);
+        }
+
+        @Override
+        void redo(PositionStore store) {
+            store.set(index, newX, newY, newAttributes);
+        }
+
+        @Override
+        long storedPositions() {
+            return 2;
+        }
+    }
+
+    /**
+     * 移动一段区间
+     */
+    private static final class MoveCommand extends Command {
+        private final int from;
+        private final int count;
+        private final int dest;
+
+        MoveCommand(String label, int from, int count, int dest) {
+            super(label);
+            this.from = from;
+            this.count = count;
+            this.dest = dest;
+        }
+
+        @Override
+        void undo(PositionStore store) {
+            store.moveRange(dest, dest + count, from);
+        }
+
+        @Override
+        void redo(PositionStore store) {
+            store.moveRange(from, from + count, dest);
+        }
+    }
+
+    /**
+     * 批量修改多个位置（保存不在列表中的那一组值，撤销和重做都是交换）
+     */
+    private static final class ExchangeCommand extends Command {
+        private final int[] indices;
+        private final int[] xs;
+        private final int[] ys;
+        private final PositionStore.Attributes[] attrs;
+
+        ExchangeCommand(String label, int[] indices, int[] xs, int[] ys, PositionStore.Attributes[] attrs) {
+            super(label);
+            this.indices = indices;
+            this.xs = xs;
+            this.ys = ys;
+            this.attrs = attrs;
+        }
+
+        @Override
+        void undo(PositionStore store) {
+            store.exchange(indices, xs, ys, attrs);
+        }
+
+        @Override
+        void redo(PositionStore store) {
+            store.exchange(indices, xs, ys, attrs);
+        }
+
+        @Override
+        long storedPositions() {
+            return indices.length;
+        }
+    }
+
+    /**
+     * 作为一步撤销的多条命令
+     */
+    private static final class CompoundCommand extends Command {
+        private final Command[] parts;
+
+        CompoundCommand(String label, Command... parts) {
+            super(label);
+            this.parts = parts;
+        }
+
+        @Override
+        void undo(PositionStore store) {
+            for (int i = parts.length - 1; i >= 0; i--) {
+                parts[i].undo(store);
+            }
+        }
+
+        @Override
+        void redo(PositionStore store) {
+            for (Command part : parts) {
+                part.redo(store);
+            }
+        }
+
+        @Override
+        long storedPositions() {
+            long total = 0;
+            for (Command part : parts) {
+                total += part.storedPositions();
+            }
+            return total;
+        }
+    }
+
+    private final PositionStore store;
+    private final Deque<Command> undoStack = new ArrayDeque<>();
+    private final Deque<Command> redoStack = new ArrayDeque<>();
+    private int limit;
+
+    /**
+     * 构造函数
+     *
+     * @param store 位置存储
+     * @param limit 撤销步数（0 表示不记录历史）
+     */
+    public PositionHistory(PositionStore store, int limit) {
+        this.store = store;
+        setLimit(limit);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 设置撤销步数，超出的最早历史立即丢弃
+     */
+    public void setLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("撤销步数不能为负数: " + limit);
+        }
+        this.limit = limit;
+        trim();
+    }
+
+    /**
+     * 在末尾添加位置
+     *
+     * @return 新位置的下标
+     */
+    public int add(String label, int x, int y, PositionStore.Attributes attrs) {
+        int index = store.add(x, y, attrs);
+        record(new RangeCommand(label, index, 1, null));
+        return index;
+    }
+
+    /**
+     * 插入暂存区中的所有位置
+     */
+    public void insert(String label, int index, PositionStore.Batch batch) {
+        store.insert(index, batch);
+        record(new RangeCommand(label, index, batch.size(), null));
+    }
+
+    /**
+     * 在 index 处插入 count 个位置（每个位置各自的属性）
+     */
+    public void insertRange(String label, int index, int[] xs, int[] ys, int offset, int count,
+            PositionStore.Attributes[] attrs) {
+        store.insertRange(index, xs, ys, offset, count, attrs);
+        record(new RangeCommand(label, index, count, null));
+    }
+
+    /**
+     * 用暂存区中的位置替换整个列表（作为一步撤销）
+     */
+    public void replaceAll(String label, PositionStore.Batch batch) {
+        RangeCommand removal = removeCommand(label, 0, store.size());
+        store.insert(0, batch);
+        record(new CompoundCommand(label, removal, new RangeCommand(label, 0, batch.size(), null)));
+    }
+
+    /**
+     * 删除 [from, to) 区间
+     */
+    public void removeRange(String label, int from, int to) {
+        record(removeCommand(label, from, to));
+    }
+
+    private RangeCommand removeCommand(String label, int from, int to) {
+        PositionStore.Segment removed = store.copyRange(from, to);
+        store.removeRange(from, to);
+        return new RangeCommand(label, from, to - from, removed);
+    }
+
+    /**
+     * 删除多个位置（作为一步撤销）
+     *
+     * @param rows 升序排列、不重复的下标
+     */
+    public void removeAll(String label, int[] rows) {
+        int[][] runs = runs(rows);
+        Command[] parts = new Command[runs.length];
+        // 从后往前删除，前面的下标不受影响
+        for (int r = runs.length - 1; r >= 0; r--) {
+            parts[runs.length - 1 - r] = removeCommand(label, runs[r][0], runs[r][1]);
+        }
+        record(parts.length == 1 ? parts[0] : new CompoundCommand(label, parts));
+    }
+
+    /**
+     * 把多个位置各自所在的连续区间整体上移或下移一位（作为一步撤销）
+     *
+     * <p>已在列表顶端（或底端）的区间不移动。
+     *
+     * @param rows 升序排列、不重复的下标
+     * @param up true 上移，false 下移
+     * @return 移动后这些位置的下标（升序），没有区间能移动时返回 null
+     */
+    public int[] moveRows(String label, int[] rows, boolean up) {
+        int[][] runs = runs(rows);
+        int size = store.size();
+        Command[] parts = new Command[runs.length];
+        int count = 0;
+        int[] moved = rows.clone();
+        int k = 0;
+        for (int[] run : runs) {
+            int from = run[0];
+            int to = run[1];
+            boolean blocked = up ? from == 0 : to == size;
+            if (!blocked) {
+                int dest = up ? from - 1 : from + 1;
+                store.moveRange(from, to, dest);
+                parts[count++] = new MoveCommand(label, from, to - from, dest);
+                for (int i = from; i < to; i++) {
+                    moved[k + i - from] = up ? i - 1 : i + 1;
+                }
+            }
+            k += to - from;
+        }
+        if (count == 0) {
+            return null;
+        }
+        record(count == 1 ? parts[0] : new CompoundCommand(label, Arrays.copyOf(parts, count)));
+        return moved;
+    }
+
+    /**
+     * 批量修改多个位置（作为一步撤销）
+     *
+     * @param indices 不重复的下标
+     * @param xs 新的 X 坐标（数组由本类接管）
+     * @param ys 新的 Y 坐标（数组由本类接管）
+     * @param attrs 新的属性（数组由本类接管）
+     */
+    public void setAll(String label, int[] indices, int[] xs, int[] ys, PositionStore.Attributes[] attrs) {
+        store.exchange(indices, xs, ys, attrs);
+        record(new ExchangeCommand(label, indices, xs, ys, attrs));
+    }
+
+    /**
+     * 清空列表
+     */
+    public void clear(String label) {
+        removeRange(label, 0, store.size());
+    }
+
+    public void swap(String label, int first, int second) {
+        store.swap(first, second);
+        record(new SwapCommand(label, first, second));
+    }
+
+    /**
+     * 修改一个位置
+     */
+    public void set(String label, int index, int x, int y, PositionStore.Attributes attrs) {
+        int oldX = store.getX(index);
+        int oldY = store.getY(index);
+        PositionStore.Attributes oldAttributes = store.getAttributes(index);
+        store.set(index, x, y, attrs);
+        record(new SetCommand(label, index, oldX, oldY, oldAttributes, x, y, attrs));
+    }
+
+    public void setAttributes(String label, int index, PositionStore.Attributes attrs) {
+        set(label, index, store.getX(index), store.getY(index), attrs);
+    }
+
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    /**
+     * 撤销最近一次编辑
+     *
+     * @return 被撤销的编辑名称，没有可撤销的编辑时返回 null
+     */
+    public String undo() {
+        Command command = undoStack.pollLast();
+        if (command == null) {
+            return null;
+        }
+        command.undo(store);
+        redoStack.addLast(command);
+        trim();
+        return command.label;
+    }
+
+    /**
+     * 重做最近一次撤销的编辑
+     *
+     * @return 被重做的编辑名称，没有可重做的编辑时返回 null
+     */
+    public String redo() {
+        Command command = redoStack.pollLast();
+        if (command == null) {
+            return null;
+        }
+        command.redo(store);
+        undoStack.addLast(command);
+        trim();
+        return command.label;
+    }
+
+    /**
+     * 丢弃所有历史
+     */
+    public void reset() {
+        undoStack.clear();
+        redoStack.clear();
+    }
+
+    /**
+     * 历史中保存的位置数
+     */
+    public long getStoredPositions() {
+        long total = 0;
+        for (Command command : undoStack) {
+            total += command.storedPositions();
+        }
+        for (Command command : redoStack) {
+            total += command.storedPositions();
+        }
+        return total;
+    }
+
+    /**
+     * 把升序下标分成连续区间 [from, to)
+     */
+    private static int[][] runs(int[] rows) {
+        int count = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (i == 0 || rows[i] != rows[i - 1] + 1) {
+                count++;
+            }
+        }
+        int[][] runs = new int[count][];
+        int r = -1;
+        for (int i = 0; i < rows.length; i++) {
+            if (i == 0 || rows[i] != rows[i - 1] + 1) {
+                runs[++r] = new int[]{rows[i], rows[i] + 1};
+            } else {
+                runs[r][1] = rows[i] + 1;
+            }
+        }
+        return runs;
+    }
+
+    private void record(Command command) {
+        redoStack.clear();
+        if (limit == 0) {
+            return;
+        }
+        undoStack.addLast(command);
+        trim();
+    }
+
+    /**
+     * 按步数和保存的位置数淘汰最早的历史（最早的重做记录也一并淘汰）
+     */
+    private void trim() {
+        while (undoStack.size() + redoStack.size() > limit && removeOldest()) {
+            // 逐条淘汰
+        }
+        long stored = getStoredPositions();
+        while (stored > MAX_STORED_POSITIONS && undoStack.size() + redoStack.size() > 1) {
+            Command oldest = !undoStack.isEmpty() ? undoStack.peekFirst() : redoStack.peekFirst();
+            stored -= oldest.storedPositions();
+            removeOldest();
+        }
+    }
+
+    /**
+     * 丢弃最早的一条历史：优先丢弃撤销栈底，撤销栈为空时丢弃最远的重做
+     */
+    private boolean removeOldest() {
+        if (!undoStack.isEmpty()) {
+            undoStack.pollFirst();
+            return true;
+        }
+        Iterator<Command> farthest = redoStack.iterator();
+        if (farthest.hasNext()) {
+            farthest.next();
+            farthest.remove();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,444 @@
+package src.main.java;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 位置标记覆盖层 - 在透明置顶窗口上一次性画出所有位置
+ *
+ * <p>设计要点：
+ * <ul>
+ *   <li>每个显示器一个透明、不抢焦点的置顶窗口，窗口只贴一张缓存图片</li>
+ *   <li>缓存图片按位置快照的版本号生成，只有位置被编辑后才重新绘制；连续多次编辑合并为一次绘制</li>
+ *   <li>标记画成空心圆环，圆心像素透明，点击仍能落到下面的程序上；圆环预先画成小图，直接写入图片像素，
+ *       百万个位置也能在一秒内画完</li>
+ *   <li>位置较少时画序号和顺序箭头，数量很多时只画标记，避免图片无法辨认</li>
+ *   <li>只在 EDT 上使用</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class PositionOverlay {
+
+    /**
+     * 超过该数量不画序号
+     */
+    public static final int LABEL_LIMIT = 2000;
+
+    /**
+     * 超过该数量不画顺序箭头
+     */
+    public static final int ARROW_LIMIT = 5000;
+
+    /**
+     * 超过该数量时箭头不开抗锯齿
+     */
+    private static final int ANTIALIAS_LIMIT = 2000;
+
+    private static final int RING_RADIUS = 7;
+    private static final int ARROW_SIZE = 8;
+
+    /**
+     * 屏幕坐标位置的标记颜色
+     */
+    public static final Color COLOR_ABSOLUTE = new Color(230, 40, 40, 230);
+
+    /**
+     * 图像锚点位置的标记颜色（画在录制时的坐标上）
+     */
+    public static final Color COLOR_IMAGE = new Color(240, 150, 0, 230);
+
+    /**
+     * 窗口相对位置的标记颜色
+     */
+    public static final Color COLOR_WINDOW = new Color(30, 110, 240, 230);
+
+    private static final Color COLOR_ARROW = new Color(40, 200, 80, 170);
+    private static final Color COLOR_LABEL_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final Font LABEL_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 11);
+
+    /**
+     * 计算位置所在的坐标原点
+     */
+    public interface OriginResolver {
+
+        /**
+         * @return 该属性的位置坐标要加上的原点（绝对坐标返回 (0, 0)），无法定位时返回 null
+         */
+        Point originOf(PositionStore.Attributes attrs);
+
+        /**
+         * @return 标记颜色
+         */
+        Color colorOf(PositionStore.Attributes attrs);
+    }
+
+    /**
+     * 预先画好的圆环（不透明像素相对圆心的偏移和颜色）
+     */
+    private static final class Ring {
+        private final int[] dx;
+        private final int[] dy;
+        private final int[] argb;
+
+        Ring(Color color) {
+            int size = RING_RADIUS * 2 + 5;
+            int center = size / 2;
+            BufferedImage sprite = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = sprite.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setStroke(new BasicStroke(2f));
+                g.setColor(color);
+                g.drawOval(center - RING_RADIUS, center - RING_RADIUS, RING_RADIUS * 2, RING_RADIUS * 2);
+            } finally {
+                g.dispose();
+            }
+            int[] pixels = sprite.getRGB(0, 0, size, size, null, 0, size);
+            int count = 0;
+            for (int pixel : pixels) {
+                if (pixel >>> 24 != 0) {
+                    count++;
+                }
+            }
+            dx = new int[count];
+            dy = new int[count];
+            argb = new int[count];
+            int k = 0;
+            for (int i = 0; i < pixels.length; i++) {
+                if (pixels[i] >>> 24 != 0) {
+                    dx[k] = i % size - center;
+                    dy[k] = i / size - center;
+                    argb[k] = pixels[i];
+                    k++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 一个显示器上的透明窗口
+     */
+    private static final class Layer {
+        private final JWindow window;
+        private final Rectangle bounds;
+        private BufferedImage image;
+
+        Layer(Rectangle bounds) {
+            this.bounds = bounds;
+            window = new JWindow();
+            window.setAlwaysOnTop(true);
+            window.setFocusableWindowState(false);
+            window.setBackground(new Color(0, 0, 0, 0));
+            JComponent canvas = new JComponent() {
+                @Override
+                protected void paintComponent(Graphics g) {
+                    if (image != null) {
+                        g.drawImage(image, 0, 0, null);
+                    }
+                }
+            };
+            canvas.setOpaque(false);
+            window.setContentPane(canvas);
+            window.setBounds(bounds);
+        }
+    }
+
+    private final OriginResolver resolver;
+    private final Map<Color, Ring> rings = new HashMap<>();
+    private final List<Layer> layers = new ArrayList<>();
+    private PositionStore.Snapshot snapshot;
+    private long renderedVersion = -1;
+    private boolean renderPending;
+    private boolean showing;
+    private int unresolved;
+
+    public PositionOverlay(OriginResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * 当前环境是否支持逐像素透明窗口
+     */
+    public static boolean isSupported() {
+        try {
+            GraphicsDevice device = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+            return device.isWindowTranslucencySupported(GraphicsDevice.WindowTranslucency.PERPIXEL_TRANSLUCENT);
+        } catch (HeadlessException e) {
+            return false;
+        }
+    }
+
+    public boolean isShowing() {
+        return showing;
+    }
+
+    /**
+     * 显示覆盖层
+     *
+     * @param snapshot 位置快照
+     * @param geometry 显示器布局
+     */
+    public void show(PositionStore.Snapshot snapshot, ScreenGeometry geometry) {
+        if (layers.isEmpty()) {
+            for (ScreenGeometry.Display display : geometry.getDisplays()) {
+                layers.add(new Layer(display.getBounds()));
+            }
+        }
+        this.snapshot = snapshot;
+        showing = true;
+        render();
+        for (Layer layer : layers) {
+            layer.window.setVisible(true);
+        }
+    }
+
+    /**
+     * 隐藏覆盖层（缓存图片保留，位置未修改时再次显示不重新绘制）
+     */
+    public void hide() {
+        showing = false;
+        for (Layer layer : layers) {
+            layer.window.setVisible(false);
+        }
+    }
+
+    /**
+     * 显示器布局变化后重建窗口
+     */
+    public void setGeometry(ScreenGeometry geometry) {
+        boolean wasShowing = showing;
+        hide();
+        for (Layer layer : layers) {
+            layer.window.dispose();
+        }
+        layers.clear();
+        renderedVersion = -1;
+        if (wasShowing) {
+            show(snapshot, geometry);
+        }
+    }
+
+    /**
+     * 位置被编辑后调用：覆盖层显示时，在当前事件处理完后重新绘制一次
+     */
+    public void update(PositionStore.Snapshot latest) {
+        snapshot = latest;
+        if (!showing || renderPending || latest.getVersion() == renderedVersion) {
+            return;
+        }
+        renderPending = true;
+        SwingUtilities.invokeLater(() -> {
+            renderPending = false;
+            if (showing) {
+                render();
+            }
+        });
+    }
+
+    /**
+     * 上次绘制时无法定位（窗口未找到）的位置数
+     */
+    public int getUnresolvedCount() {
+        return unresolved;
+    }
+
+    private void render() {
+        PositionStore.Snapshot current = snapshot;
+        if (current.getVersion() == renderedVersion) {
+            return;
+        }
+        int count = current.size();
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        boolean[] located = new boolean[count];
+        Color[] colors = new Color[count];
+        resolve(current, xs, ys, located, colors);
+
+        for (Layer layer : layers) {
+            Rectangle bounds = layer.bounds;
+            if (layer.image == null || layer.image.getWidth() != bounds.width
+                    || layer.image.getHeight() != bounds.height) {
+                layer.image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+            } else {
+                clear(layer.image);
+            }
+            paint(layer.image, bounds, xs, ys, located, colors);
+            layer.window.repaint();
+        }
+        renderedVersion = current.getVersion();
+    }
+
+    /**
+     * 计算每个位置的绝对坐标（每种属性只解析一次原点）
+     */
+    private void resolve(PositionStore.Snapshot current, int[] xs, int[] ys, boolean[] located, Color[] colors) {
+        Point[] origins = new Point[16];
+        Color[] originColors = new Color[16];
+        boolean[] resolved = new boolean[16];
+        unresolved = 0;
+        for (int i = 0; i < xs.length; i++) {
+            int id = current.getAttributeId(i);
+            if (id >= resolved.length) {
+                int capacity = Math.max(id + 1, resolved.length * 2);
+                origins = Arrays.copyOf(origins, capacity);
+                originColors = Arrays.copyOf(originColors, capacity);
+                resolved = Arrays.copyOf(resolved, capacity);
+            }
+            if (!resolved[id]) {
+                PositionStore.Attributes attrs = current.getAttributes(i);
+                origins[id] = resolver.originOf(attrs);
+                originColors[id] = resolver.colorOf(attrs);
+                resolved[id] = true;
+            }
+            Point origin = origins[id];
+            if (origin == null) {
+                unresolved++;
+                continue;
+            }
+            xs[i] = current.getX(i) + origin.x;
+            ys[i] = current.getY(i) + origin.y;
+            located[i] = true;
+            colors[i] = originColors[id];
+        }
+    }
+
+    private static void clear(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void paint(BufferedImage image, Rectangle bounds, int[] xs, int[] ys, boolean[] located,
+            Color[] colors) {
+        int count = xs.length;
+        Rectangle visible = new Rectangle(bounds);
+        visible.grow(RING_RADIUS * 4, RING_RADIUS * 4);
+
+        // 顺序箭头（从每个位置指向下一个，最后一个指回第一个）
+        if (count > 1 && count <= ARROW_LIMIT) {
+            Graphics2D g = image.createGraphics();
+            try {
+                g.translate(-bounds.x, -bounds.y);
+                // 数量多时用默认的 1 像素线宽、不开抗锯齿，走最快的画线路径
+                if (count <= ANTIALIAS_LIMIT) {
+                    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    g.setStroke(new BasicStroke(1.5f));
+                }
+                g.setColor(COLOR_ARROW);
+                int previous = -1;
+                int first = -1;
+                for (int i = 0; i < count; i++) {
+                    if (!located[i]) {
+                        continue;
+                    }
+                    if (previous >= 0) {
+                        drawArrow(g, visible, xs[previous], ys[previous], xs[i], ys[i]);
+                    } else {
+                        first = i;
+                    }
+                    previous = i;
+                }
+                if (first >= 0 && previous != first) {
+                    drawArrow(g, visible, xs[previous], ys[previous], xs[first], ys[first]);
+                }
+            } finally {
+                g.dispose();
+            }
+        }
+
+        // 空心圆环标记：直接写入像素
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Color ringColor = null;
+        Ring ring = null;
+        for (int i = 0; i < count; i++) {
+            if (!located[i] || !visible.contains(xs[i], ys[i])) {
+                continue;
+            }
+            if (colors[i] != ringColor) {
+                ringColor = colors[i];
+                ring = rings.computeIfAbsent(ringColor, Ring::new);
+            }
+            int cx = xs[i] - bounds.x;
+            int cy = ys[i] - bounds.y;
+            for (int k = 0; k < ring.argb.length; k++) {
+                int px = cx + ring.dx[k];
+                int py = cy + ring.dy[k];
+                if (px >= 0 && py >= 0 && px < width && py < height) {
+                    data[py * width + px] = ring.argb[k];
+                }
+            }
+        }
+
+        // 序号
+        if (count <= LABEL_LIMIT) {
+            Graphics2D g = image.createGraphics();
+            try {
+                g.translate(-bounds.x, -bounds.y);
+                g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g.setFont(LABEL_FONT);
+                FontMetrics metrics = g.getFontMetrics();
+                for (int i = 0; i < count; i++) {
+                    if (!located[i] || !visible.contains(xs[i], ys[i])) {
+                        continue;
+                    }
+                    String label = String.valueOf(i + 1);
+                    int x = xs[i] + RING_RADIUS + 2;
+                    int y = ys[i] - RING_RADIUS - 2;
+                    g.setColor(COLOR_LABEL_BACKGROUND);
+                    g.fillRect(x - 2, y - metrics.getAscent(), metrics.stringWidth(label) + 4, metrics.getHeight());
+                    g.setColor(Color.WHITE);
+                    g.drawString(label, x, y);
+                }
+            } finally {
+                g.dispose();
+            }
+        }
+    }
+
+    /**
+     * 画一条两端避开圆环、中点带箭头的线段
+     */
+    private static void drawArrow(Graphics2D g, Rectangle visible, int x1, int y1, int x2, int y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double length = Math.hypot(dx, dy);
+        if (length <= RING_RADIUS * 2) {
+            return;
+        }
+        if (!visible.intersectsLine(x1, y1, x2, y2)) {
+            return;
+        }
+        double ux = dx / length;
+        double uy = dy / length;
+        double sx = x1 + ux * RING_RADIUS;
+        double sy = y1 + uy * RING_RADIUS;
+        double ex = x2 - ux * RING_RADIUS;
+        double ey = y2 - uy * RING_RADIUS;
+        double mx = (sx + ex) / 2 + ux * ARROW_SIZE / 2;
+        double my = (sy + ey) / 2 + uy * ARROW_SIZE / 2;
+        int tipX = (int) Math.round(mx);
+        int tipY = (int) Math.round(my);
+        // drawLine 走整数画线的快速路径，比画 Path2D 快一个数量级
+        g.drawLine((int) Math.round(sx), (int) Math.round(sy), (int) Math.round(ex), (int) Math.round(ey));
+        g.drawLine((int) Math.round(mx - ux * ARROW_SIZE - uy * ARROW_SIZE / 2),
+                (int) Math.round(my - uy * ARROW_SIZE + ux * ARROW_SIZE / 2), tipX, tipY);
+        g.drawLine((int) Math.round(mx - ux * ARROW_SIZE + uy * ARROW_SIZE / 2),
+                (int) Math.round(my - uy * ARROW_SIZE - ux * ARROW_SIZE / 2), tipX, tipY);
+    }
+}
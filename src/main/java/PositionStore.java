@@ -0,0 +1,827 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 位置存储 - 以并列数组保存点击位置，界面、点击线程和持久化共用
+ *
+ * <p>设计要点：
+ * <ul>
+ *   <li>坐标保存在 {@code int[] xs/ys} 中，其余属性（备注、定位方式、条件、所在显示器）
+ *       合并为不可变的 {@link Attributes} 并去重，每个位置只保存属性编号，每个位置约 12 字节</li>
+ *   <li>属性池增长到一定大小时丢弃不再被引用的属性并重新编号，反复编辑不会让属性池一直变大</li>
+ *   <li>提供批量插入、区间移动、整体变换等操作，都只做数组拷贝</li>
+ *   <li>每次修改递增版本号；{@link #snapshot()} 返回不可变快照，版本不变时复用同一快照，
+ *       点击线程在快照上顺序遍历，不受界面修改影响</li>
+ *   <li>修改方法只应在同一个线程（EDT）中调用；快照可以在任意线程获取</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class PositionStore {
+
+    /**
+     * 位置文件魔数和格式版本
+     */
+    private static final int FILE_MAGIC = 0x4D435053;
+    private static final int FILE_VERSION = 1;
+
+    /**
+     * 初始容量
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 属性池至少有这么多个属性时才整理无用属性
+     */
+    private static final int MIN_COMPACT_THRESHOLD = 256;
+
+    /**
+     * 位置属性（不可变，按值去重）
+     */
+    public static final class Attributes {
+
+        /**
+         * 无备注、绝对坐标、无条件、显示器未知
+         */
+        public static final Attributes EMPTY = new Attributes("", "", "", "", 0, 0);
+
+        private final String note;
+        private final String anchor;
+        private final String condition;
+        private final String displayId;
+        private final int displayOriginX;
+        private final int displayOriginY;
+
+        public Attributes(String note, String anchor, String condition, String displayId,
+                int displayOriginX, int displayOriginY) {
+            this.note = note != null ? note : "";
+            this.anchor = anchor != null ? anchor : "";
+            this.condition = condition != null ? condition : "";
+            this.displayId = displayId != null ? displayId : "";
+            this.displayOriginX = displayOriginX;
+            this.displayOriginY = displayOriginY;
+        }
+
+        public String getNote() {
+            return note;
+        }
+
+        /**
+         * 定位方式（空表示绝对坐标）
+         */
+        public String getAnchor() {
+            return anchor;
+        }
+
+        /**
+         * 等待条件文本（空表示无条件）
+         */
+        public String getCondition() {
+            return condition;
+        }
+
+        /**
+         * 坐标所在显示器的ID（空表示未知）
+         */
+        public String getDisplayId() {
+            return displayId;
+        }
+
+        /**
+         * 记录坐标时所在显示器的左上角
+         */
+        public int getDisplayOriginX() {
+            return displayOriginX;
+        }
+
+        public int getDisplayOriginY() {
+            return displayOriginY;
+        }
+
+        public Attributes withNote(String newNote) {
+            return new Attributes(newNote, anchor, condition, displayId, displayOriginX, displayOriginY);
+        }
+
+        public Attributes withCondition(String newCondition) {
+            return new Attributes(note, anchor, newCondition, displayId, displayOriginX, displayOriginY);
+        }
+
+        public Attributes withDisplay(String newDisplayId, int originX, int originY) {
+            return new Attributes(note, anchor, condition, newDisplayId, originX, originY);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Attributes)) {
+                return false;
+            }
+            Attributes other = (Attributes) o;
+            return displayOriginX == other.displayOriginX && displayOriginY == other.displayOriginY
+                    && note.equals(other.note) && anchor.equals(other.anchor)
+                    && condition.equals(other.condition) && displayId.equals(other.displayId);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = note.hashCode();
+            h = 31 * h + anchor.hashCode();
+            h = 31 * h + condition.hashCode();
+            h = 31 * h + displayId.hashCode();
+            h = 31 * h + displayOriginX;
+            return 31 * h + displayOriginY;
+        }
+    }
+
+    /**
+     * 不可变快照
+     */
+    public static final class Snapshot {
+        private final int[] xs;
+        private final int[] ys;
+        private final int[] attributeIds;
+        private final Attributes[] attributes;
+        private final int size;
+        private final long version;
+
+        private Snapshot(int[] xs, int[] ys, int[] attributeIds, Attributes[] attributes, int size, long version) {
+            this.xs = xs;
+            this.ys = ys;
+            this.attributeIds = attributeIds;
+            this.attributes = attributes;
+            this.size = size;
+            this.version = version;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int getX(int index) {
+            return xs[index];
+        }
+
+        public int getY(int index) {
+            return ys[index];
+        }
+
+        public Attributes getAttributes(int index) {
+            return attributes[attributeIds[index]];
+        }
+
+        /**
+         * 属性编号（编号相同的位置属性完全相同）
+         */
+        public int getAttributeId(int index) {
+            return attributeIds[index];
+        }
+
+        public String describe(int index) {
+            return PositionStore.describe(xs[index], ys[index], getAttributes(index));
+        }
+    }
+
+    /**
+     * 批量插入的暂存区：逐个追加位置，再用 {@link #insert(int, Batch)} 一次插入
+     *
+     * <p>相同的属性只保留一个对象，插入时每段相同属性只查找一次编号。
+     */
+    public static final class Batch {
+        private int[] xs = new int[INITIAL_CAPACITY];
+        private int[] ys = new int[INITIAL_CAPACITY];
+        private Attributes[] attributes = new Attributes[INITIAL_CAPACITY];
+        private int size;
+        private final Map<Attributes, Attributes> canonical = new HashMap<>();
+
+        public void add(int x, int y, Attributes attrs) {
+            if (size == xs.length) {
+                int newCapacity = size + (size >> 1);
+                xs = Arrays.copyOf(xs, newCapacity);
+                ys = Arrays.copyOf(ys, newCapacity);
+                attributes = Arrays.copyOf(attributes, newCapacity);
+            }
+            Attributes shared = canonical.get(attrs);
+            if (shared == null) {
+                shared = attrs;
+                canonical.put(attrs, attrs);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            attributes[size] = shared;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 一段连续位置的副本（保存属性对象而不是编号，属性池整理后仍能插回）
+     */
+    public static final class Segment {
+        private final int[] xs;
+        private final int[] ys;
+        private final Attributes[] attributes;
+
+        private Segment(int[] xs, int[] ys, Attributes[] attributes) {
+            this.xs = xs;
+            this.ys = ys;
+            this.attributes = attributes;
+        }
+
+        public int size() {
+            return xs.length;
+        }
+    }
+
+    private int[] xs = new int[INITIAL_CAPACITY];
+    private int[] ys = new int[INITIAL_CAPACITY];
+    private int[] attributeIds = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final List<Attributes> attributes = new ArrayList<>();
+    private final Map<Attributes, Integer> attributeIndex = new HashMap<>();
+
+    /**
+     * 属性池达到该大小时整理一次（整理后为存活属性数的两倍）
+     */
+    private int compactThreshold = MIN_COMPACT_THRESHOLD;
+
+    private volatile long version;
+    private Snapshot snapshot;
+
+    public PositionStore() {
+        intern(Attributes.EMPTY);
+    }
+
+    /**
+     * 位置描述，用于日志
+     */
+    public static String describe(int x, int y, Attributes attributes) {
+        return "(" + x + ", " + y + ")" + (!attributes.note.isEmpty() ? " - " + attributes.note : "")
+                + (!attributes.anchor.isEmpty() ? " [" + attributes.anchor + "]" : "");
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 版本号，每次修改递增
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    public Attributes getAttributes(int index) {
+        checkIndex(index);
+        return attributes.get(attributeIds[index]);
+    }
+
+    public String describe(int index) {
+        return describe(getX(index), getY(index), getAttributes(index));
+    }
+
+    /**
+     * 查找坐标相同的第一个位置
+     *
+     * @return 位置下标，不存在时返回 -1
+     */
+    public int indexOf(int x, int y) {
+        for (int i = 0; i < size; i++) {
+            if (xs[i] == x && ys[i] == y) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 在末尾添加位置
+     *
+     * @return 新位置的下标
+     */
+    public synchronized int add(int x, int y, Attributes attrs) {
+        ensureCapacity(size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        attributeIds[size] = intern(attrs);
+        size++;
+        modified();
+        return size - 1;
+    }
+
+    /**
+     * 批量插入相同属性的位置
+     *
+     * @param index 插入位置
+     * @param newXs X坐标
+     * @param newYs Y坐标
+     * @param offset 坐标数组的起始下标
+     * @param count 插入个数
+     * @param attrs 属性
+     */
+    public synchronized void insertRange(int index, int[] newXs, int[] newYs, int offset, int count,
+            Attributes attrs) {
+        if (!openGap(index, count)) {
+            return;
+        }
+        System.arraycopy(newXs, offset, xs, index, count);
+        System.arraycopy(newYs, offset, ys, index, count);
+        Arrays.fill(attributeIds, index, index + count, intern(attrs));
+        size += count;
+        modified();
+    }
+
+    /**
+     * 批量插入位置，每个位置可以有不同属性
+     *
+     * <p>属性数组中通常只有少数几个不同对象（例如每个显示器一个），相邻相同的对象只查找一次编号。
+     *
+     * @param attrs 属性，与坐标数组使用相同下标
+     */
+    public synchronized void insertRange(int index, int[] newXs, int[] newYs, int offset, int count,
+            Attributes[] attrs) {
+        if (!openGap(index, count)) {
+            return;
+        }
+        System.arraycopy(newXs, offset, xs, index, count);
+        System.arraycopy(newYs, offset, ys, index, count);
+        Attributes last = null;
+        int lastId = 0;
+        for (int i = 0; i < count; i++) {
+            Attributes current = attrs[offset + i];
+            if (current != last) {
+                last = current;
+                lastId = intern(current);
+            }
+            attributeIds[index + i] = lastId;
+        }
+        size += count;
+        modified();
+    }
+
+    /**
+     * 插入暂存区中的所有位置
+     */
+    public void insert(int index, Batch batch) {
+        insertRange(index, batch.xs, batch.ys, 0, batch.size, batch.attributes);
+    }
+
+    /**
+     * 复制 [from, to) 区间
+     */
+    public synchronized Segment copyRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("复制区间越界: [" + from + ", " + to + ")，共 " + size + " 个");
+        }
+        Attributes[] copied = new Attributes[to - from];
+        for (int i = from; i < to; i++) {
+            copied[i - from] = attributes.get(attributeIds[i]);
+        }
+        return new Segment(Arrays.copyOfRange(xs, from, to), Arrays.copyOfRange(ys, from, to), copied);
+    }
+
+    /**
+     * 插回由 {@link #copyRange} 复制的区间（编号相同的位置共用同一个属性对象，每段只查找一次编号）
+     */
+    public void insert(int index, Segment segment) {
+        insertRange(index, segment.xs, segment.ys, 0, segment.size(), segment.attributes);
+    }
+
+    /**
+     * 在 index 处腾出 count 个位置（不修改 size）
+     *
+     * @return 是否需要插入
+     */
+    private boolean openGap(int index, int count) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("插入位置越界: " + index + "，共 " + size + " 个");
+        }
+        if (count <= 0) {
+            return false;
+        }
+        ensureCapacity(size + count);
+        int tail = size - index;
+        System.arraycopy(xs, index, xs, index + count, tail);
+        System.arraycopy(ys, index, ys, index + count, tail);
+        System.arraycopy(attributeIds, index, attributeIds, index + count, tail);
+        return true;
+    }
+
+    /**
+     * 删除 [from, to) 区间的位置
+     */
+    public synchronized void removeRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("删除区间越界: [" + from + ", " + to + ")，共 " + size + " 个");
+        }
+        int tail = size - to;
+        System.arraycopy(xs, to, xs, from, tail);
+        System.arraycopy(ys, to, ys, from, tail);
+        System.arraycopy(attributeIds, to, attributeIds, from, tail);
+        size -= to - from;
+        modified();
+    }
+
+    public void remove(int index) {
+        removeRange(index, index + 1);
+    }
+
+    /**
+     * 移动 [from, to) 区间，使其在移动后从 dest 开始
+     *
+     * @param dest 移动后区间的起始下标（0 ~ size-(to-from)）
+     */
+    public synchronized void moveRange(int from, int to, int dest) {
+        int count = to - from;
+        if (from < 0 || to > size || count < 0 || dest < 0 || dest > size - count) {
+            throw new IndexOutOfBoundsException("移动区间越界: [" + from + ", " + to + ") -> " + dest);
+        }
+        if (count == 0 || dest == from) {
+            return;
+        }
+        moveRange(xs, from, count, dest);
+        moveRange(ys, from, count, dest);
+        moveRange(attributeIds, from, count, dest);
+        modified();
+    }
+
+    private static void moveRange(int[] array, int from, int count, int dest) {
+        int[] block = Arrays.copyOfRange(array, from, from + count);
+        if (dest < from) {
+            System.arraycopy(array, dest, array, dest + count, from - dest);
+        } else {
+            System.arraycopy(array, from + count, array, from, dest - from);
+        }
+        System.arraycopy(block, 0, array, dest, count);
+    }
+
+    /**
+     * 交换两个位置
+     */
+    public synchronized void swap(int i, int j) {
+        checkIndex(i);
+        checkIndex(j);
+        swap(xs, i, j);
+        swap(ys, i, j);
+        swap(attributeIds, i, j);
+        modified();
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int t = array[i];
+        array[i] = array[j];
+        array[j] = t;
+    }
+
+    public synchronized void set(int index, int x, int y, Attributes attrs) {
+        checkIndex(index);
+        xs[index] = x;
+        ys[index] = y;
+        attributeIds[index] = intern(attrs);
+        modified();
+    }
+
+    public synchronized void setAttributes(int index, Attributes attrs) {
+        checkIndex(index);
+        attributeIds[index] = intern(attrs);
+        modified();
+    }
+
+    /**
+     * 批量修改多个位置，并把各位置原来的值写回参数数组（再调用一次即恢复）
+     *
+     * @param indices 位置下标（不能重复）
+     * @param newXs 新的 X 坐标，返回时为原坐标
+     * @param newYs 新的 Y 坐标，返回时为原坐标
+     * @param attrs 新的属性，返回时为原属性
+     */
+    public synchronized void exchange(int[] indices, int[] newXs, int[] newYs, Attributes[] attrs) {
+        for (int index : indices) {
+            checkIndex(index);
+        }
+        for (int k = 0; k < indices.length; k++) {
+            int index = indices[k];
+            int x = xs[index];
+            int y = ys[index];
+            Attributes old = attributes.get(attributeIds[index]);
+            xs[index] = newXs[k];
+            ys[index] = newYs[k];
+            attributeIds[index] = intern(attrs[k]);
+            newXs[k] = x;
+            newYs[k] = y;
+            attrs[k] = old;
+        }
+        modified();
+    }
+
+    /**
+     * 对所有坐标做变换
+     */
+    public synchronized void transformAll(IntUnaryOperator fx, IntUnaryOperator fy) {
+        for (int i = 0; i < size; i++) {
+            xs[i] = fx.applyAsInt(xs[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            ys[i] = fy.applyAsInt(ys[i]);
+        }
+        modified();
+    }
+
+    /**
+     * 显示器位置变化后，保持每个位置相对所在显示器的偏移不变
+     *
+     * <p>每种属性只计算一次偏移量，再对所有位置做一遍加法。
+     *
+     * @return 被调整的位置个数
+     */
+    public synchronized int rebase(ScreenGeometry geometry) {
+        int attributeCount = attributes.size();
+        int[] dx = new int[attributeCount];
+        int[] dy = new int[attributeCount];
+        int[] remap = new int[attributeCount];
+        boolean any = false;
+        for (int id = 0; id < attributeCount; id++) {
+            remap[id] = id;
+            Attributes attrs = attributes.get(id);
+            if (attrs.displayId.isEmpty()) {
+                continue;
+            }
+            ScreenGeometry.Display display = geometry.findDisplay(attrs.displayId);
+            if (display == null) {
+                continue;
+            }
+            Rectangle bounds = display.getBounds();
+            if (bounds.x == attrs.displayOriginX && bounds.y == attrs.displayOriginY) {
+                continue;
+            }
+            dx[id] = bounds.x - attrs.displayOriginX;
+            dy[id] = bounds.y - attrs.displayOriginY;
+            remap[id] = intern(attrs.withDisplay(attrs.displayId, bounds.x, bounds.y));
+            any = true;
+        }
+        if (!any) {
+            return 0;
+        }
+        int moved = 0;
+        for (int i = 0; i < size; i++) {
+            int id = attributeIds[i];
+            if (remap[id] != id) {
+                xs[i] += dx[id];
+                ys[i] += dy[id];
+                attributeIds[i] = remap[id];
+                moved++;
+            }
+        }
+        modified();
+        return moved;
+    }
+
+    public synchronized void clear() {
+        size = 0;
+        modified();
+    }
+
+    /**
+     * 获取当前内容的不可变快照，版本未变时返回同一个对象
+     */
+    public synchronized Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null || current.version != version) {
+            current = new Snapshot(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size),
+                    Arrays.copyOf(attributeIds, size), attributes.toArray(new Attributes[0]), size, version);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * 保存到文件（先写临时文件再替换，写入过程中崩溃不会损坏原文件）
+     *
+     * <p>只保存被引用的属性，顺带清理编辑过程中产生的无用属性。
+     */
+    public void save(File file) throws IOException {
+        save(snapshot(), file);
+    }
+
+    /**
+     * 把快照保存到文件（快照不可变，可以在任意线程写入，不阻塞继续编辑）
+     */
+    public static void save(Snapshot data, File file) throws IOException {
+        int[] remap = new int[data.attributes.length];
+        Arrays.fill(remap, -1);
+        List<Attributes> used = new ArrayList<>();
+        int[] ids = new int[data.size];
+        for (int i = 0; i < data.size; i++) {
+            int id = data.attributeIds[i];
+            if (remap[id] < 0) {
+                remap[id] = used.size();
+                used.add(data.attributes[id]);
+            }
+            ids[i] = remap[id];
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(FILE_VERSION);
+        out.writeInt(data.size);
+        out.writeInt(used.size());
+        for (Attributes attrs : used) {
+            out.writeUTF(attrs.note);
+            out.writeUTF(attrs.anchor);
+            out.writeUTF(attrs.condition);
+            out.writeUTF(attrs.displayId);
+            out.writeInt(attrs.displayOriginX);
+            out.writeInt(attrs.displayOriginY);
+        }
+        out.flush();
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建目录: " + directory);
+        }
+        File temp = new File(directory, file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.wrap(header.toByteArray()));
+            ByteBuffer body = ByteBuffer.allocate(data.size * 3 * 4);
+            body.asIntBuffer().put(data.xs, 0, data.size).put(data.ys, 0, data.size).put(ids, 0, data.size);
+            writeFully(channel, body);
+            channel.force(false);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 从文件加载，替换当前内容（属性编号重新分配）
+     *
+     * @throws IOException 文件不存在、格式错误或读取失败
+     */
+    public synchronized void load(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != FILE_MAGIC) {
+            throw new IOException("不是位置文件: " + file);
+        }
+        int fileVersion = in.readInt();
+        if (fileVersion != FILE_VERSION) {
+            throw new IOException("不支持的位置文件版本: " + fileVersion);
+        }
+        int count = in.readInt();
+        int attributeCount = in.readInt();
+        if (count < 0 || attributeCount < 1) {
+            throw new IOException("位置文件已损坏: " + file);
+        }
+        Attributes[] loaded = new Attributes[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            loaded[i] = new Attributes(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                    in.readInt(), in.readInt());
+        }
+        int bodyOffset = bytes.length - in.available();
+        if (in.available() < count * 3L * 4) {
+            throw new IOException("位置文件不完整: " + file);
+        }
+        ByteBuffer body = ByteBuffer.wrap(bytes, bodyOffset, count * 3 * 4);
+        int[] newXs = new int[Math.max(INITIAL_CAPACITY, count)];
+        int[] newYs = new int[newXs.length];
+        int[] newIds = new int[newXs.length];
+        body.asIntBuffer().get(newXs, 0, count).get(newYs, 0, count).get(newIds, 0, count);
+
+        attributes.clear();
+        attributeIndex.clear();
+        intern(Attributes.EMPTY);
+        int[] remap = new int[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            remap[i] = intern(loaded[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            if (newIds[i] < 0 || newIds[i] >= attributeCount) {
+                throw new IOException("位置文件已损坏: " + file);
+            }
+            newIds[i] = remap[newIds[i]];
+        }
+        xs = newXs;
+        ys = newYs;
+        attributeIds = newIds;
+        size = count;
+        compactThreshold = Math.max(MIN_COMPACT_THRESHOLD, attributes.size() * 2);
+        modified();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private int intern(Attributes attrs) {
+        Integer id = attributeIndex.get(attrs);
+        if (id == null) {
+            id = attributes.size();
+            attributes.add(attrs);
+            attributeIndex.put(attrs, id);
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= xs.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, xs.length + (xs.length >> 1));
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        attributeIds = Arrays.copyOf(attributeIds, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("位置下标越界: " + index + "，共 " + size + " 个");
+        }
+    }
+
+    /**
+     * 每次修改结束时调用（数组处于一致状态）
+     */
+    private void modified() {
+        if (attributes.size() >= compactThreshold) {
+            compactAttributes();
+        }
+        version++;
+    }
+
+    /**
+     * 丢弃不再被任何位置引用的属性并重新编号
+     *
+     * <p>编辑备注、条件和删除位置都会留下无用属性，属性池只增不减时内存和每次运行按编号分配的数组会一直变大。
+     * 属性池增长到上次整理后的两倍才整理一次，扫描位置数组的开销分摊到每次修改上。
+     * 快照和 {@link Segment} 各自保存属性对象，不受重新编号影响。
+     */
+    private void compactAttributes() {
+        int[] remap = new int[attributes.size()];
+        Arrays.fill(remap, -1);
+        List<Attributes> used = new ArrayList<>();
+        // 空属性始终是 0 号
+        remap[0] = 0;
+        used.add(attributes.get(0));
+        for (int i = 0; i < size; i++) {
+            int id = attributeIds[i];
+            if (remap[id] < 0) {
+                remap[id] = used.size();
+                used.add(attributes.get(id));
+            }
+            attributeIds[i] = remap[id];
+        }
+        attributes.clear();
+        attributes.addAll(used);
+        attributeIndex.clear();
+        for (int id = 0; id < used.size(); id++) {
+            attributeIndex.put(used.get(id), id);
+        }
+        compactThreshold = Math.max(MIN_COMPACT_THRESHOLD, used.size() * 2);
+    }
+}
@@ -0,0 +1,609 @@
+package src.main.java;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 位置导入导出 - 以流方式读写 CSV/JSON 位置文件
+ *
+ * <p>文件格式：
+ * <ul>
+ *   <li>CSV：每行 {@code x,y,备注,定位,条件}，首行可以是表头（按表头名称对应列，支持中文或
+ *       {@code x,y,note,anchor,condition}），字段可以用双引号包围</li>
+ *   <li>JSON：对象数组 {@code [{"x":1,"y":2,"note":"","anchor":"","condition":""}, ...]}，
+ *       缺少的字段为空</li>
+ * </ul>
+ *
+ * <p>读取时边解析边交给 {@link RowSink} 校验，不把整个文件读入内存；
+ * 单行错误记录行号后跳过，文件结构错误（如 JSON 括号不匹配）时停止并报告行号。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class PositionTransfer {
+
+    /**
+     * 报告中最多保留的错误条数
+     */
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    /**
+     * 读取缓冲区大小（字符）
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * CSV 导出的表头
+     */
+    private static final String CSV_HEADER = "x,y,备注,定位,条件";
+
+    /**
+     * 字段顺序
+     */
+    private static final int FIELD_X = 0;
+    private static final int FIELD_Y = 1;
+    private static final int FIELD_NOTE = 2;
+    private static final int FIELD_ANCHOR = 3;
+    private static final int FIELD_CONDITION = 4;
+    private static final int FIELD_COUNT = 5;
+
+    /**
+     * 各字段可识别的名称（CSV 表头或 JSON 键）
+     */
+    private static final String[][] FIELD_NAMES = {
+            {"x"},
+            {"y"},
+            {"note", "备注"},
+            {"anchor", "定位"},
+            {"condition", "条件"}
+    };
+
+    /**
+     * 文件格式
+     */
+    public enum Format {
+        CSV,
+        JSON;
+
+        /**
+         * 按扩展名判断格式，{@code .json} 为 JSON，其他为 CSV
+         */
+        public static Format of(File file) {
+            return file.getName().toLowerCase().endsWith(".json") ? JSON : CSV;
+        }
+    }
+
+    /**
+     * 接收解析出的一行
+     */
+    public interface RowSink {
+
+        /**
+         * 校验并接收一行
+         *
+         * @return 错误信息，接收时返回 null
+         */
+        String accept(int x, int y, String note, String anchor, String condition);
+    }
+
+    /**
+     * 导入结果
+     */
+    public static final class Report {
+        private int rows;
+        private int accepted;
+        private int errorCount;
+        private final List<String> errors = new ArrayList<>();
+
+        /**
+         * 读取的数据行数（不含表头）
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        public int getAccepted() {
+            return accepted;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * 前 {@link #MAX_REPORTED_ERRORS} 条错误，格式为"第 N 行: 原因"
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        void error(int line, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("第 " + line + " 行: " + message);
+            }
+        }
+    }
+
+    private PositionTransfer() {
+    }
+
+    /**
+     * 读取位置文件
+     *
+     * @param file 文件（按扩展名判断格式）
+     * @param sink 接收每一行
+     * @return 导入结果
+     * @throws IOException 读取失败或文件结构错误
+     */
+    public static Report read(File file, RowSink sink) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            Report report = new Report();
+            Scanner scanner = new Scanner(reader);
+            if (Format.of(file) == Format.JSON) {
+                readJson(scanner, sink, report);
+            } else {
+                readCsv(scanner, sink, report);
+            }
+            return report;
+        }
+    }
+
+    /**
+     * 写出位置文件
+     *
+     * @param file 文件（按扩展名判断格式）
+     * @param snapshot 位置快照
+     * @return 写出的位置数
+     */
+    public static int write(File file, PositionStore.Snapshot snapshot) throws IOException {
+        boolean json = Format.of(file) == Format.JSON;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            StringBuilder line = new StringBuilder(128);
+            out.write(json ? "[\n" : CSV_HEADER + "\n");
+            for (int i = 0; i < snapshot.size(); i++) {
+                PositionStore.Attributes attrs = snapshot.getAttributes(i);
+                line.setLength(0);
+                if (json) {
+                    line.append("{\"x\":").append(snapshot.getX(i)).append(",\"y\":").append(snapshot.getY(i))
+                            .append(",\"note\":");
+                    appendJsonString(line, attrs.getNote());
+                    line.append(",\"anchor\":");
+                    appendJsonString(line, attrs.getAnchor());
+                    line.append(",\"condition\":");
+                    appendJsonString(line, attrs.getCondition());
+                    line.append(i < snapshot.size() - 1 ? "},\n" : "}\n");
+                } else {
+                    line.append(snapshot.getX(i)).append(',').append(snapshot.getY(i)).append(',');
+                    appendCsvField(line, attrs.getNote());
+                    line.append(',');
+                    appendCsvField(line, attrs.getAnchor());
+                    line.append(',');
+                    appendCsvField(line, attrs.getCondition());
+                    line.append('\n');
+                }
+                out.write(line.toString());
+            }
+            if (json) {
+                out.write("]\n");
+            }
+            return snapshot.size();
+        }
+    }
+
+    private static void appendCsvField(StringBuilder sb, String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0;
+        if (!quote) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * 把一行字段交给接收方，字段错误时记录到报告
+     */
+    private static void deliver(String[] fields, int line, RowSink sink, Report report) {
+        report.rows++;
+        String xText = fields[FIELD_X] != null ? fields[FIELD_X].trim() : "";
+        String yText = fields[FIELD_Y] != null ? fields[FIELD_Y].trim() : "";
+        if (xText.isEmpty() || yText.isEmpty()) {
+            report.error(line, "缺少坐标");
+            return;
+        }
+        int x;
+        int y;
+        try {
+            x = Integer.parseInt(xText);
+            y = Integer.parseInt(yText);
+        } catch (NumberFormatException e) {
+            report.error(line, "坐标不是整数: " + xText + ", " + yText);
+            return;
+        }
+        String error = sink.accept(x, y, valueOf(fields[FIELD_NOTE]), valueOf(fields[FIELD_ANCHOR]).trim(),
+                valueOf(fields[FIELD_CONDITION]).trim());
+        if (error != null) {
+            report.error(line, error);
+        } else {
+            report.accepted++;
+        }
+    }
+
+    private static String valueOf(String field) {
+        return field != null ? field : "";
+    }
+
+    /**
+     * 按名称查找字段序号
+     *
+     * @return 字段序号，不认识时返回 -1
+     */
+    private static int fieldIndex(String name) {
+        String key = name.trim().toLowerCase();
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            for (String candidate : FIELD_NAMES[i]) {
+                if (candidate.equals(key)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static void readCsv(Scanner in, RowSink sink, Report report) throws IOException {
+        List<String> record = new ArrayList<>();
+        int[] columns = {FIELD_X, FIELD_Y, FIELD_NOTE, FIELD_ANCHOR, FIELD_CONDITION};
+        String[] fields = new String[FIELD_COUNT];
+        boolean first = true;
+        int line;
+        while ((line = readCsvRecord(in, record)) > 0) {
+            if (record.size() == 1 && record.get(0).trim().isEmpty()) {
+                continue;
+            }
+            // 首行第一列不是数字时作为表头
+            if (first) {
+                first = false;
+                if (!isInteger(record.get(0))) {
+                    columns = new int[record.size()];
+                    for (int i = 0; i < record.size(); i++) {
+                        columns[i] = fieldIndex(record.get(i));
+                    }
+                    continue;
+                }
+            }
+            Arrays.fill(fields, null);
+            for (int i = 0; i < record.size() && i < columns.length; i++) {
+                if (columns[i] >= 0) {
+                    fields[columns[i]] = record.get(i);
+                }
+            }
+            deliver(fields, line, sink, report);
+        }
+    }
+
+    private static boolean isInteger(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return false;
+        }
+        for (int i = trimmed.charAt(0) == '-' ? 1 : 0; i < trimmed.length(); i++) {
+            if (!Character.isDigit(trimmed.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取一条 CSV 记录（引号内可以包含逗号和换行）
+     *
+     * @return 记录开始的行号，文件结束时返回 0
+     */
+    private static int readCsvRecord(Scanner in, List<String> record) throws IOException {
+        record.clear();
+        int c = in.read();
+        if (c < 0) {
+            return 0;
+        }
+        int startLine = in.line;
+        StringBuilder field = in.text;
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("第 " + startLine + " 行: 引号没有闭合");
+                }
+                if (c == '"') {
+                    if (in.peek() == '"') {
+                        in.read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c < 0 || c == '\n') {
+                record.add(field.toString());
+                return startLine;
+            } else if (c == '\r') {
+                if (in.peek() == '\n') {
+                    in.read();
+                }
+                record.add(field.toString());
+                return startLine;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+
+    private static void readJson(Scanner in, RowSink sink, Report report) throws IOException {
+        String[] fields = new String[FIELD_COUNT];
+        in.expect('[');
+        if (in.peekToken() == ']') {
+            in.read();
+            return;
+        }
+        while (true) {
+            in.expect('{');
+            int line = in.line;
+            Arrays.fill(fields, null);
+            if (in.peekToken() == '}') {
+                in.read();
+            } else {
+                while (true) {
+                    in.skipWhitespace();
+                    String key = in.readString();
+                    in.expect(':');
+                    String value = in.readValue();
+                    int index = fieldIndex(key);
+                    if (index >= 0) {
+                        fields[index] = value;
+                    }
+                    int c = in.nextToken();
+                    if (c == '}') {
+                        break;
+                    }
+                    if (c != ',') {
+                        throw in.syntaxError("应为 , 或 }");
+                    }
+                }
+            }
+            deliver(fields, line, sink, report);
+            int c = in.nextToken();
+            if (c == ']') {
+                break;
+            }
+            if (c != ',') {
+                throw in.syntaxError("应为 , 或 ]");
+            }
+        }
+        if (in.nextToken() >= 0) {
+            throw in.syntaxError("数组结束后还有多余内容");
+        }
+    }
+
+    /**
+     * 带行号的字符读取器（自带缓冲，不依赖 BufferedReader）
+     */
+    private static final class Scanner {
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final StringBuilder text = new StringBuilder();
+        private int position;
+        private int limit;
+        private int line = 1;
+        private boolean pendingNewline;
+
+        Scanner(Reader reader) throws IOException {
+            this.reader = reader;
+            // 跳过 UTF-8 BOM
+            if (peek() == '\uFEFF') {
+                position++;
+            }
+        }
+
+        int peek() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        int read() throws IOException {
+            int c = peek();
+            if (c >= 0) {
+                position++;
+                // 行号在换行之后的第一个字符处增加，换行符本身仍属于上一行
+                if (pendingNewline) {
+                    line++;
+                    pendingNewline = false;
+                }
+                if (c == '\n') {
+                    pendingNewline = true;
+                }
+            }
+            return c;
+        }
+
+        void skipWhitespace() throws IOException {
+            int c = peek();
+            while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                read();
+                c = peek();
+            }
+        }
+
+        /**
+         * 跳过空白后查看下一个字符
+         */
+        int peekToken() throws IOException {
+            skipWhitespace();
+            return peek();
+        }
+
+        /**
+         * 跳过空白后读取下一个字符
+         */
+        int nextToken() throws IOException {
+            skipWhitespace();
+            return read();
+        }
+
+        void expect(char expected) throws IOException {
+            if (nextToken() != expected) {
+                throw syntaxError("应为 " + expected);
+            }
+        }
+
+        /**
+         * 读取字符串、数字、true/false 或 null（null 返回 null，其他返回文本）
+         */
+        String readValue() throws IOException {
+            int c = peekToken();
+            if (c == '"') {
+                return readString();
+            }
+            text.setLength(0);
+            while (c >= 0 && c != ',' && c != '}' && c != ']' && c != ' ' && c != '\t' && c != '\n'
+                    && c != '\r') {
+                if (c == '{' || c == '[' || c == '"' || c == ':') {
+                    throw syntaxError("不支持嵌套的值");
+                }
+                text.append((char) read());
+                c = peek();
+            }
+            if (text.length() == 0) {
+                throw syntaxError("缺少值");
+            }
+            String value = text.toString();
+            return "null".equals(value) ? null : value;
+        }
+
+        String readString() throws IOException {
+            if (read() != '"') {
+                throw syntaxError("应为字符串");
+            }
+            text.setLength(0);
+            while (true) {
+                int c = read();
+                if (c < 0 || c == '\n') {
+                    throw syntaxError("字符串没有闭合");
+                }
+                if (c == '"') {
+                    return text.toString();
+                }
+                if (c != '\\') {
+                    text.append((char) c);
+                    continue;
+                }
+                c = read();
+                switch (c) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        text.append((char) c);
+                        break;
+                    case 'n':
+                        text.append('\n');
+                        break;
+                    case 'r':
+                        text.append('\r');
+                        break;
+                    case 't':
+                        text.append('\t');
+                        break;
+                    case 'b':
+                        text.append('\b');
+                        break;
+                    case 'f':
+                        text.append('\f');
+                        break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw syntaxError("\\u 转义格式错误");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        text.append((char) code);
+                        break;
+                    default:
+                        throw syntaxError("无法识别的转义字符");
+                }
+            }
+        }
+
+        IOException syntaxError(String message) {
+            return new IOException("第 " + line + " 行: JSON 格式错误，" + message);
+        }
+    }
+}
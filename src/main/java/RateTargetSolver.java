@@ -0,0 +1,143 @@
+package src.main.java;
+
+/**
+ * 目标速率求解器 - 按"次/秒"或"轮/分钟"的目标速率在线计算每次点击前的等待时间
+ *
+ * <p>设计要点：
+ * <ul>
+ *   <li>每次点击的实际间隔 = 等待 + 步骤耗时（条件等待、定位、移动、移动后等待、按下保持），
+ *       步骤耗时随列表、延迟设置和目标程序变化，因此不在开始前固定，而是每次点击后测量并做指数平滑</li>
+ *   <li>按目标周期排出每次点击的预定时刻，等待时间 = 下一个预定时刻 - 当前时刻 - 预计步骤耗时，
+ *       等待的毫秒取整误差和偶尔的超时会在后续等待中自动补偿，长期平均速率等于目标速率</li>
+ *   <li>落后超过一个周期（暂停、条件等待过久）时从当前时刻重新排期，不会连续补点</li>
+ *   <li>点击线程调用 {@link #nextWaitNanos} 和 {@link #onClick}，界面线程只读取速率</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class RateTargetSolver {
+
+    /**
+     * 速率目标的单位
+     */
+    public enum Unit {
+        CLICKS_PER_SECOND("次/秒"),
+        CYCLES_PER_MINUTE("轮/分钟");
+
+        private final String label;
+
+        Unit(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * 步骤耗时和实际间隔的平滑系数
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final double targetRate;
+    private final long periodNanos;
+    private long nextDueNanos;
+    private long lastClickNanos;
+    private long waitEndNanos = -1;
+    private volatile double stepCostNanos;
+    private volatile double achievedIntervalNanos;
+
+    /**
+     * @param target 目标速率
+     * @param unit 目标速率的单位
+     * @param positionCount 每轮的位置数（单位为轮/分钟时换算成次/秒）
+     * @param estimatedStepCostNanos 开始前估计的步骤耗时（第一次测量后被替换）
+     */
+    public RateTargetSolver(double target, Unit unit, int positionCount, double estimatedStepCostNanos) {
+        this.targetRate = toClicksPerSecond(target, unit, positionCount);
+        if (!(targetRate > 0) || Double.isInfinite(targetRate)) {
+            throw new IllegalArgumentException("目标速率必须大于0: " + target);
+        }
+        this.periodNanos = Math.max(1, Math.round(1_000_000_000.0 / targetRate));
+        this.stepCostNanos = Math.max(0, estimatedStepCostNanos);
+    }
+
+    /**
+     * 把目标速率换算为次/秒
+     */
+    public static double toClicksPerSecond(double target, Unit unit, int positionCount) {
+        return unit == Unit.CYCLES_PER_MINUTE ? target * Math.max(1, positionCount) / 60.0 : target;
+    }
+
+    /**
+     * 计算下一次点击前的等待时间
+     *
+     * @param nowNanos 当前时刻（System.nanoTime）
+     * @return 等待时间（纳秒，不小于0）
+     */
+    public long nextWaitNanos(long nowNanos) {
+        long due = lastClickNanos == 0 ? nowNanos + periodNanos : nextDueNanos;
+        long wait = Math.max(0, due - nowNanos - Math.round(stepCostNanos));
+        waitEndNanos = nowNanos + wait;
+        return wait;
+    }
+
+    /**
+     * 记录一次点击完成
+     *
+     * @param clickNanos 点击完成时刻（System.nanoTime）
+     */
+    public void onClick(long clickNanos) {
+        if (waitEndNanos >= 0) {
+            // 只有前面有等待时才能测出步骤耗时（连发的点击跳过等待）
+            double cost = Math.max(0, clickNanos - waitEndNanos);
+            stepCostNanos = stepCostNanos == 0 ? cost : stepCostNanos + SMOOTHING * (cost - stepCostNanos);
+            waitEndNanos = -1;
+        }
+        if (lastClickNanos != 0) {
+            double interval = clickNanos - lastClickNanos;
+            double previous = achievedIntervalNanos;
+            achievedIntervalNanos = previous == 0 ? interval : previous + SMOOTHING * (interval - previous);
+            nextDueNanos += periodNanos;
+            if (clickNanos - nextDueNanos > periodNanos) {
+                nextDueNanos = clickNanos + periodNanos;
+            }
+        } else {
+            nextDueNanos = clickNanos + periodNanos;
+        }
+        lastClickNanos = clickNanos;
+    }
+
+    /**
+     * 目标速率（次/秒）
+     */
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * 按当前测得的步骤耗时能达到的速率（次/秒）：步骤耗时超过目标周期时达不到目标
+     */
+    public double getPredictedRate() {
+        return 1_000_000_000.0 / Math.max(periodNanos, stepCostNanos);
+    }
+
+    /**
+     * 最近的实际速率（次/秒，还没有两次点击时为0）
+     */
+    public double getAchievedRate() {
+        double interval = achievedIntervalNanos;
+        return interval > 0 ? 1_000_000_000.0 / interval : 0;
+    }
+
+    /**
+     * 当前测得的步骤耗时（毫秒）
+     */
+    public double getStepCostMillis() {
+        return stepCostNanos / 1_000_000.0;
+    }
+}
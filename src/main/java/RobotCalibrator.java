@@ -0,0 +1,303 @@
+package src.main.java;
+
+import javax.swing.JPanel;
+import javax.swing.JWindow;
+import javax.swing.SwingUtilities;
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Robot延迟校准 - 测量本机 Robot 调用耗时和目标看到鼠标移动所需的时间
+ *
+ * <p>校准过程：
+ * <ol>
+ *   <li>在屏幕中央显示一个测试窗口，窗口颜色由鼠标所在的左右半边和点击次数决定</li>
+ *   <li>鼠标在左右半边之间来回移动，记录 {@code mouseMove} 的耗时，
+ *       并读取窗口角落的像素，直到颜色变化，得到移动后窗口实际收到鼠标事件并重绘的时间（稳定时间）</li>
+ *   <li>每次移动后在测试窗口内点击，记录 {@code mousePress}/{@code mouseRelease} 的耗时和点击生效的时间</li>
+ * </ol>
+ * 根据稳定时间的 P90 得到极速模式的移动后等待，P99 加余量得到普通模式的移动后等待。
+ * 等待超时的移动按 {@link #RESPONSE_TIMEOUT_MS} 计入稳定时间；超时过多时校准失败，不给出结果。
+ * 必须在点击线程以外、非 EDT 的线程上调用 {@link #run}。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class RobotCalibrator {
+
+    /**
+     * 测试窗口尺寸
+     */
+    private static final int WINDOW_WIDTH = 240;
+    private static final int WINDOW_HEIGHT = 120;
+
+    /**
+     * 读取颜色的位置距窗口左上角的偏移（远离鼠标所在位置）
+     */
+    private static final int PROBE_OFFSET = 4;
+
+    /**
+     * 颜色比较的容差（各通道）
+     */
+    private static final int COLOR_TOLERANCE = 8;
+
+    /**
+     * 单次等待窗口响应的最长时间（毫秒）
+     */
+    private static final int RESPONSE_TIMEOUT_MS = 1000;
+
+    /**
+     * 普通模式在 P99 稳定时间之上的余量系数
+     */
+    private static final double NORMAL_MODE_MARGIN = 1.5;
+
+    /**
+     * 移动后至少要有这个比例的采样在超时前看到窗口响应，否则 P90 只反映超时，校准无效
+     */
+    private static final double MIN_SETTLE_FRACTION = 0.9;
+
+    /**
+     * 测试窗口颜色：[左/右半边][点击次数奇偶]
+     */
+    private static final Color[][] STATE_COLORS = {
+            {new Color(0x20, 0x60, 0xC0), new Color(0x20, 0xC0, 0x60)},
+            {new Color(0xC0, 0x40, 0x20), new Color(0xC0, 0xA0, 0x20)}
+    };
+
+    /**
+     * 一组耗时样本的统计
+     */
+    public static final class Stats {
+        private final long[] sortedNanos;
+
+        Stats(long[] samples, int count) {
+            this.sortedNanos = Arrays.copyOf(samples, count);
+            Arrays.sort(sortedNanos);
+        }
+
+        public int getCount() {
+            return sortedNanos.length;
+        }
+
+        /**
+         * 百分位（纳秒），没有样本时返回 0
+         */
+        public long percentileNanos(double percentile) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(sortedNanos.length * percentile / 100.0);
+            return sortedNanos[Math.max(0, Math.min(sortedNanos.length - 1, rank - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("P50 %.2fms / P90 %.2fms / P99 %.2fms / 最大 %.2fms",
+                    percentileNanos(50) / 1_000_000.0, percentileNanos(90) / 1_000_000.0,
+                    percentileNanos(99) / 1_000_000.0, percentileNanos(100) / 1_000_000.0);
+        }
+    }
+
+    /**
+     * 校准结果
+     */
+    public static final class Result {
+        public final Stats move;
+        public final Stats press;
+        public final Stats release;
+        public final Stats moveSettle;
+        public final Stats clickResponse;
+        public final int timeouts;
+        public final int settleTimeouts;
+        public final int fastMoveDelayMs;
+        public final int normalMoveDelayMs;
+
+        Result(Stats move, Stats press, Stats release, Stats moveSettle, Stats clickResponse, int timeouts,
+                int settleTimeouts) {
+            this.move = move;
+            this.press = press;
+            this.release = release;
+            this.moveSettle = moveSettle;
+            this.clickResponse = clickResponse;
+            this.timeouts = timeouts;
+            this.settleTimeouts = settleTimeouts;
+            this.fastMoveDelayMs = Math.max(1, ceilMillis(moveSettle.percentileNanos(90)));
+            this.normalMoveDelayMs = Math.max(fastMoveDelayMs,
+                    ceilMillis((long) (moveSettle.percentileNanos(99) * NORMAL_MODE_MARGIN)));
+        }
+
+        private static int ceilMillis(long nanos) {
+            return (int) ((nanos + 999_999) / 1_000_000);
+        }
+    }
+
+    private final Robot robot;
+    private final int samples;
+
+    /**
+     * 构造函数
+     *
+     * @param robot 用于校准的Robot（应与点击使用同一个）
+     * @param samples 采样次数
+     */
+    public RobotCalibrator(Robot robot, int samples) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("采样次数必须大于0: " + samples);
+        }
+        this.robot = robot;
+        this.samples = samples;
+    }
+
+    /**
+     * 执行校准
+     *
+     * @param screen 测试窗口所在的屏幕区域（窗口显示在其中央）
+     * @return 校准结果
+     * @throws IllegalStateException 测试窗口经常没有响应（例如被其他窗口遮挡）
+     * @throws InterruptedException 校准被中断
+     */
+    public Result run(Rectangle screen) throws InterruptedException {
+        TestWindow window = TestWindow.show(screen);
+        try {
+            Rectangle bounds = window.bounds;
+            int y = bounds.y + bounds.height / 2;
+            int[] xs = {bounds.x + bounds.width / 4, bounds.x + bounds.width * 3 / 4};
+            int probeX = bounds.x + PROBE_OFFSET;
+            int probeY = bounds.y + PROBE_OFFSET;
+
+            long[] moveNanos = new long[samples];
+            long[] pressNanos = new long[samples];
+            long[] releaseNanos = new long[samples];
+            long[] settleNanos = new long[samples];
+            long[] responseNanos = new long[samples];
+            int responseCount = 0;
+            int settleTimeouts = 0;
+            int timeouts = 0;
+            int clicks = 0;
+
+            // 先把鼠标放到左半边，并等待窗口进入初始状态
+            robot.mouseMove(xs[0], y);
+            awaitColor(probeX, probeY, STATE_COLORS[0][0]);
+
+            for (int i = 0; i < samples; i++) {
+                int side = (i + 1) % 2;
+                long start = System.nanoTime();
+                robot.mouseMove(xs[side], y);
+                moveNanos[i] = System.nanoTime() - start;
+                long settled = awaitColor(probeX, probeY, STATE_COLORS[side][clicks % 2]);
+                if (settled > 0) {
+                    settleNanos[i] = settled - start;
+                } else {
+                    // 超时的移动正是移动后等待需要覆盖的慢样本，按超时时间计入
+                    settleNanos[i] = TimeUnit.MILLISECONDS.toNanos(RESPONSE_TIMEOUT_MS);
+                    settleTimeouts++;
+                    timeouts++;
+                }
+
+                start = System.nanoTime();
+                robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
+                long pressed = System.nanoTime();
+                robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
+                long released = System.nanoTime();
+                clicks++;
+                pressNanos[i] = pressed - start;
+                releaseNanos[i] = released - pressed;
+                long responded = awaitColor(probeX, probeY, STATE_COLORS[side][clicks % 2]);
+                if (responded > 0) {
+                    responseNanos[responseCount++] = responded - start;
+                } else {
+                    timeouts++;
+                }
+            }
+            if (samples - settleTimeouts < samples * MIN_SETTLE_FRACTION) {
+                throw new IllegalStateException("测试窗口没有响应（移动后 " + settleTimeouts + "/" + samples
+                        + " 次超时），请确认窗口没有被遮挡");
+            }
+            return new Result(new Stats(moveNanos, samples), new Stats(pressNanos, samples),
+                    new Stats(releaseNanos, samples), new Stats(settleNanos, samples),
+                    new Stats(responseNanos, responseCount), timeouts, settleTimeouts);
+        } finally {
+            window.close();
+        }
+    }
+
+    /**
+     * 读取像素直到颜色匹配
+     *
+     * @return 匹配时的时间（System.nanoTime），超时返回 0
+     */
+    private long awaitColor(int x, int y, Color expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESPONSE_TIMEOUT_MS);
+        while (System.nanoTime() - deadline < 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Color actual = robot.getPixelColor(x, y);
+            if (Math.abs(actual.getRed() - expected.getRed()) <= COLOR_TOLERANCE
+                    && Math.abs(actual.getGreen() - expected.getGreen()) <= COLOR_TOLERANCE
+                    && Math.abs(actual.getBlue() - expected.getBlue()) <= COLOR_TOLERANCE) {
+                return System.nanoTime();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 测试窗口：颜色由鼠标所在半边和点击次数决定
+     */
+    private static final class TestWindow {
+        private JWindow window;
+        private Rectangle bounds;
+
+        static TestWindow show(Rectangle screen) throws InterruptedException {
+            TestWindow testWindow = new TestWindow();
+            try {
+                SwingUtilities.invokeAndWait(() -> testWindow.create(screen));
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("无法显示测试窗口: " + e.getCause(), e.getCause());
+            }
+            return testWindow;
+        }
+
+        private void create(Rectangle screen) {
+            window = new JWindow();
+            window.setAlwaysOnTop(true);
+            JPanel panel = new JPanel();
+            int[] state = new int[2];
+            panel.setBackground(STATE_COLORS[0][0]);
+            MouseAdapter listener = new MouseAdapter() {
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    state[0] = e.getX() < panel.getWidth() / 2 ? 0 : 1;
+                    panel.setBackground(STATE_COLORS[state[0]][state[1] % 2]);
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    state[1]++;
+                    panel.setBackground(STATE_COLORS[state[0]][state[1] % 2]);
+                }
+            };
+            panel.addMouseListener(listener);
+            panel.addMouseMotionListener(listener);
+            window.setContentPane(panel);
+            bounds = new Rectangle(screen.x + (screen.width - WINDOW_WIDTH) / 2,
+                    screen.y + (screen.height - WINDOW_HEIGHT) / 2, WINDOW_WIDTH, WINDOW_HEIGHT);
+            window.setBounds(bounds);
+            window.setVisible(true);
+            window.toFront();
+        }
+
+        void close() {
+            SwingUtilities.invokeLater(() -> window.dispose());
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package src.main.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 运行断点 - 把点击进度写入一个很小的内存映射文件，程序崩溃后可从断点继续
+ *
+ * <p>文件结构（固定 192 字节）：
+ * <ul>
+ *   <li>文件头（运行开始时写一次）：标识、版本、状态、轮次预算、位置数、位置指纹、随机种子、开始时间</li>
+ *   <li>两个进度槽轮流写入：序号、已完成轮数、下一个位置、总点击数、更新时间、校验值。
+ *       写到一半崩溃时该槽校验失败，读取时使用另一个槽</li>
+ * </ul>
+ * 每次点击后的更新只是对映射内存的几次写入，没有系统调用；
+ * 进程崩溃时操作系统仍会把映射页写回文件，另有后台线程定期刷盘，防止断电丢失。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class RunCheckpoint implements AutoCloseable {
+
+    /**
+     * 断点文件名
+     */
+    public static final String FILE_NAME = "checkpoint.dat";
+
+    private static final int MAGIC = 0x4D43434B;
+    private static final int FORMAT_VERSION = 1;
+    private static final int STATUS_FINISHED = 0;
+    private static final int STATUS_RUNNING = 1;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_STATUS = 8;
+    private static final int OFFSET_CLICK_COUNT = 12;
+    private static final int OFFSET_POSITION_COUNT = 16;
+    private static final int OFFSET_FINGERPRINT = 24;
+    private static final int OFFSET_SEED = 32;
+    private static final int OFFSET_START_MILLIS = 40;
+
+    /**
+     * 进度槽：序号(8) + 已完成轮数(4) + 下一个位置(4) + 总点击数(8) + 更新时间(8) + 校验值(8)
+     */
+    private static final int SLOT_OFFSET = 64;
+    private static final int SLOT_SIZE = 64;
+    private static final int SLOT_SEQUENCE = 0;
+    private static final int SLOT_CYCLE = 8;
+    private static final int SLOT_POSITION = 12;
+    private static final int SLOT_CLICKS = 16;
+    private static final int SLOT_UPDATE_MILLIS = 24;
+    private static final int SLOT_CHECKSUM = 32;
+    private static final int FILE_SIZE = SLOT_OFFSET + SLOT_SIZE * 2;
+
+    /**
+     * 后台刷盘周期（秒）
+     */
+    private static final int FSYNC_INTERVAL_SECONDS = 5;
+
+    /**
+     * 断点中保存的运行进度
+     */
+    public static final class State {
+        private final int clickCount;
+        private final int positionCount;
+        private final long fingerprint;
+        private final long seed;
+        private final long startMillis;
+        private final int cycle;
+        private final int position;
+        private final long totalClicks;
+        private final long updateMillis;
+
+        State(int clickCount, int positionCount, long fingerprint, long seed, long startMillis,
+                int cycle, int position, long totalClicks, long updateMillis) {
+            this.clickCount = clickCount;
+            this.positionCount = positionCount;
+            this.fingerprint = fingerprint;
+            this.seed = seed;
+            this.startMillis = startMillis;
+            this.cycle = cycle;
+            this.position = position;
+            this.totalClicks = totalClicks;
+            this.updateMillis = updateMillis;
+        }
+
+        /**
+         * 运行开始时的循环次数（0 表示无限）
+         */
+        public int getClickCount() {
+            return clickCount;
+        }
+
+        public int getPositionCount() {
+            return positionCount;
+        }
+
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        /**
+         * 已完成的轮数
+         */
+        public int getCycle() {
+            return cycle;
+        }
+
+        /**
+         * 本轮下一个要点击的位置下标
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        public long getTotalClicks() {
+            return totalClicks;
+        }
+
+        public long getUpdateMillis() {
+            return updateMillis;
+        }
+
+        /**
+         * 是否还有剩余的轮次
+         */
+        public boolean hasRemaining() {
+            return clickCount == 0 || cycle < clickCount;
+        }
+    }
+
+    private final MappedByteBuffer buffer;
+    private final ScheduledExecutorService syncExecutor;
+    /**
+     * 点击线程写入、刷盘线程读取（每次点击一次 volatile 写，相对 Robot 调用可以忽略）
+     */
+    private volatile long sequence;
+    private volatile long syncedSequence;
+
+    private RunCheckpoint(MappedByteBuffer buffer, long sequence) {
+        this.buffer = buffer;
+        this.sequence = sequence;
+        this.syncedSequence = sequence;
+        this.syncExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "RunCheckpointSync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 计算位置列表的指纹，用于确认恢复时位置列表没有变化
+     */
+    public static long fingerprint(PositionStore.Snapshot snapshot) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < snapshot.size(); i++) {
+            h = 31 * h + snapshot.getX(i);
+            h = 31 * h + snapshot.getY(i);
+            h = 31 * h + snapshot.getAttributes(i).hashCode();
+        }
+        return 31 * h + snapshot.size();
+    }
+
+    /**
+     * 开始记录一次运行
+     *
+     * @param file 断点文件
+     * @param snapshot 本次运行的位置快照
+     * @param clickCount 循环次数（0 表示无限）
+     * @param seed 随机种子
+     * @param startMillis 运行开始时间
+     * @param resumed 从断点继续时为断点进度，否则为 null
+     * @throws IOException 文件无法创建或映射
+     */
+    public static RunCheckpoint begin(File file, PositionStore.Snapshot snapshot, int clickCount, long seed,
+            long startMillis, State resumed) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录: " + dir);
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射建立后关闭通道不影响映射
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(OFFSET_STATUS, STATUS_FINISHED);
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_VERSION, FORMAT_VERSION);
+        buffer.putInt(OFFSET_CLICK_COUNT, clickCount);
+        buffer.putInt(OFFSET_POSITION_COUNT, snapshot.size());
+        buffer.putLong(OFFSET_FINGERPRINT, fingerprint(snapshot));
+        buffer.putLong(OFFSET_SEED, seed);
+        buffer.putLong(OFFSET_START_MILLIS, resumed != null ? resumed.getStartMillis() : startMillis);
+
+        RunCheckpoint checkpoint = new RunCheckpoint(buffer, 0);
+        checkpoint.writeSlot(1, 0, 0, 0, System.currentTimeMillis());
+        checkpoint.writeSlot(2, resumed != null ? resumed.getCycle() : 0,
+                resumed != null ? resumed.getPosition() : 0,
+                resumed != null ? resumed.getTotalClicks() : 0, System.currentTimeMillis());
+        checkpoint.sequence = 2;
+        buffer.putInt(OFFSET_STATUS, STATUS_RUNNING);
+        buffer.force();
+        checkpoint.syncedSequence = 2;
+        checkpoint.syncExecutor.scheduleWithFixedDelay(checkpoint::syncIfDirty,
+                FSYNC_INTERVAL_SECONDS, FSYNC_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return checkpoint;
+    }
+
+    /**
+     * 记录进度（点击线程调用，只写映射内存）
+     *
+     * @param cycle 已完成的轮数
+     * @param position 本轮下一个要点击的位置下标
+     * @param totalClicks 总点击数
+     */
+    public void update(int cycle, int position, long totalClicks) {
+        long next = sequence + 1;
+        writeSlot(next, cycle, position, totalClicks, System.currentTimeMillis());
+        sequence = next;
+    }
+
+    /**
+     * 运行正常结束：标记为已完成并刷盘
+     */
+    @Override
+    public void close() throws IOException {
+        syncExecutor.shutdownNow();
+        buffer.putInt(OFFSET_STATUS, STATUS_FINISHED);
+        buffer.force();
+    }
+
+    /**
+     * 读取未正常结束的运行
+     *
+     * @return 断点进度，文件不存在、已正常结束或已损坏时返回 null
+     */
+    public static State readPending(File file) throws IOException {
+        if (!file.isFile() || file.length() < FILE_SIZE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 读满整个文件
+            }
+        }
+        if (buffer.hasRemaining() || buffer.getInt(OFFSET_MAGIC) != MAGIC
+                || buffer.getInt(OFFSET_VERSION) != FORMAT_VERSION
+                || buffer.getInt(OFFSET_STATUS) != STATUS_RUNNING) {
+            return null;
+        }
+        int best = -1;
+        long bestSequence = -1;
+        for (int slot = 0; slot < 2; slot++) {
+            int base = SLOT_OFFSET + slot * SLOT_SIZE;
+            long seq = buffer.getLong(base + SLOT_SEQUENCE);
+            int cycle = buffer.getInt(base + SLOT_CYCLE);
+            int position = buffer.getInt(base + SLOT_POSITION);
+            long clicks = buffer.getLong(base + SLOT_CLICKS);
+            long updateMillis = buffer.getLong(base + SLOT_UPDATE_MILLIS);
+            if (buffer.getLong(base + SLOT_CHECKSUM) == checksum(seq, cycle, position, clicks, updateMillis)
+                    && seq > bestSequence) {
+                best = base;
+                bestSequence = seq;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        int positionCount = buffer.getInt(OFFSET_POSITION_COUNT);
+        int cycle = buffer.getInt(best + SLOT_CYCLE);
+        int position = buffer.getInt(best + SLOT_POSITION);
+        // 一轮的最后一个位置点完、循环间隔还没结束时中断，从下一轮开头继续
+        if (position >= positionCount) {
+            cycle++;
+            position = 0;
+        }
+        return new State(buffer.getInt(OFFSET_CLICK_COUNT), positionCount, buffer.getLong(OFFSET_FINGERPRINT),
+                buffer.getLong(OFFSET_SEED), buffer.getLong(OFFSET_START_MILLIS), cycle, position,
+                buffer.getLong(best + SLOT_CLICKS), buffer.getLong(best + SLOT_UPDATE_MILLIS));
+    }
+
+    /**
+     * 放弃未完成的运行（不再提示继续）
+     */
+    public static void discard(File file) throws IOException {
+        if (!file.isFile() || file.length() < FILE_SIZE) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            ByteBuffer status = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            status.putInt(0, STATUS_FINISHED);
+            channel.write(status, OFFSET_STATUS);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * 写入序号对应的进度槽，校验值最后写入
+     */
+    private void writeSlot(long seq, int cycle, int position, long totalClicks, long updateMillis) {
+        int base = SLOT_OFFSET + (int) (seq & 1) * SLOT_SIZE;
+        buffer.putLong(base + SLOT_SEQUENCE, seq);
+        buffer.putInt(base + SLOT_CYCLE, cycle);
+        buffer.putInt(base + SLOT_POSITION, position);
+        buffer.putLong(base + SLOT_CLICKS, totalClicks);
+        buffer.putLong(base + SLOT_UPDATE_MILLIS, updateMillis);
+        buffer.putLong(base + SLOT_CHECKSUM, checksum(seq, cycle, position, totalClicks, updateMillis));
+    }
+
+    /**
+     * 进度槽校验值（不分配对象的简单散列，只用于识别写了一半的槽）
+     */
+    private static long checksum(long seq, int cycle, int position, long totalClicks, long updateMillis) {
+        long h = seq * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 29)) + cycle;
+        h = h * 0xBF58476D1CE4E5B9L + position;
+        h = h * 0x94D049BB133111EBL + totalClicks;
+        h = h * 0x9E3779B97F4A7C15L + updateMillis;
+        return h ^ (h >>> 31) ^ MAGIC;
+    }
+
+    /**
+     * 后台定期刷盘（进度有变化时）
+     */
+    private void syncIfDirty() {
+        long current = sequence;
+        if (current == syncedSequence) {
+            return;
+        }
+        buffer.force();
+        syncedSequence = current;
+    }
+}
@@ -0,0 +1,450 @@
+package src.main.java;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 运行记录日志 - 只追加的二进制运行历史
+ *
+ * <p>文件结构：
+ * <ul>
+ *   <li>{@code runs.journal} - 记录依次追加，每条为 长度(4) + 内容 + CRC32(4)</li>
+ *   <li>{@code runs.idx} - 每条记录一个定长索引项：偏移、开始/结束时间、点击数、轮数、配置编号
+ *       （配置名在日志中首次出现的顺序，打开时从该配置的首条记录读取配置名）</li>
+ * </ul>
+ * 打开时只读取索引（并补齐崩溃时未写入索引的记录），"最近N次"按索引定位读取，
+ * 按配置汇总直接由内存中的索引计算，都不需要扫描整个日志。
+ * 写入后不立即 fsync，由后台线程定期批量刷盘，关闭时再刷一次。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class RunJournal implements AutoCloseable {
+
+    private static final String JOURNAL_FILE = "runs.journal";
+    private static final String INDEX_FILE = "runs.idx";
+
+    /**
+     * 旧版本按配置名哈希的索引，哈希冲突会合并不同配置；打开时删除，由日志重建新索引
+     */
+    private static final String LEGACY_INDEX_FILE = "runs.index";
+
+    /**
+     * 记录格式版本
+     */
+    private static final byte RECORD_VERSION = 1;
+
+    /**
+     * 索引项长度：偏移(8) + 开始(8) + 结束(8) + 点击数(8) + 轮数(4) + 配置编号(4)
+     */
+    private static final int INDEX_ENTRY_SIZE = 40;
+
+    /**
+     * 记录头尾长度：长度(4) + CRC32(4)
+     */
+    private static final int FRAME_OVERHEAD = 8;
+
+    /**
+     * 单条记录内容的最大长度，超过视为损坏
+     */
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    /**
+     * 批量刷盘周期（秒）
+     */
+    private static final int FSYNC_INTERVAL_SECONDS = 5;
+
+    /**
+     * 一次运行的记录
+     */
+    public static final class Record {
+        public final String profile;
+        public final long startMillis;
+        public final long endMillis;
+        public final int cycles;
+        public final long clicks;
+        public final int p50Ms;
+        public final int p90Ms;
+        public final int p99Ms;
+        public final String stopReason;
+        public final long seed;
+
+        public Record(String profile, long startMillis, long endMillis, int cycles, long clicks,
+                int p50Ms, int p90Ms, int p99Ms, String stopReason, long seed) {
+            this.profile = profile;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.cycles = cycles;
+            this.clicks = clicks;
+            this.p50Ms = p50Ms;
+            this.p90Ms = p90Ms;
+            this.p99Ms = p99Ms;
+            this.stopReason = stopReason;
+            this.seed = seed;
+        }
+
+        /**
+         * 实际点击速率（次/秒）
+         */
+        public double achievedRate() {
+            long millis = endMillis - startMillis;
+            return millis > 0 ? clicks * 1000.0 / millis : 0;
+        }
+    }
+
+    /**
+     * 单个配置的汇总
+     */
+    public static final class Aggregate {
+        public final String profile;
+        public int runs;
+        public int cycles;
+        public long clicks;
+        public long totalMillis;
+        public long lastStartMillis;
+
+        Aggregate(String profile) {
+            this.profile = profile;
+        }
+
+        /**
+         * 平均点击速率（次/秒）
+         */
+        public double averageRate() {
+            return totalMillis > 0 ? clicks * 1000.0 / totalMillis : 0;
+        }
+    }
+
+    private final FileChannel journal;
+    private final FileChannel index;
+    private final ScheduledExecutorService syncExecutor;
+
+    /**
+     * 索引在内存中的副本：按记录顺序的日志偏移
+     */
+    private long[] offsets = new long[64];
+    private int count;
+
+    /**
+     * 按配置汇总，下标即索引项中的配置编号
+     */
+    private final List<Aggregate> aggregates = new ArrayList<>();
+    private final Map<String, Integer> profileIds = new HashMap<>();
+
+    private boolean dirty;
+
+    private RunJournal(FileChannel journal, FileChannel index) {
+        this.journal = journal;
+        this.index = index;
+        this.syncExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "RunJournalSync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 打开（或创建）运行记录
+     *
+     * @param directory 数据目录
+     * @return 运行记录
+     */
+    public static RunJournal open(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建目录: " + directory);
+        }
+        File legacyIndex = new File(directory, LEGACY_INDEX_FILE);
+        if (legacyIndex.isFile() && !legacyIndex.delete()) {
+            throw new IOException("无法删除旧索引: " + legacyIndex);
+        }
+        FileChannel journal = FileChannel.open(new File(directory, JOURNAL_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index;
+        try {
+            index = FileChannel.open(new File(directory, INDEX_FILE).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            journal.close();
+            throw e;
+        }
+        RunJournal runJournal = new RunJournal(journal, index);
+        try {
+            runJournal.recover();
+        } catch (IOException e) {
+            runJournal.close();
+            throw e;
+        }
+        runJournal.syncExecutor.scheduleWithFixedDelay(runJournal::syncIfDirty,
+                FSYNC_INTERVAL_SECONDS, FSYNC_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return runJournal;
+    }
+
+    /**
+     * 加载索引，丢弃指向不完整记录的索引项，并为索引之后的完整记录补写索引
+     *
+     * <p>索引项的偏移必须从0开始严格递增，相邻偏移即隐含了记录长度，
+     * 因此只需校验最后一项指向的记录，不必逐条读取日志。
+     */
+    private void recover() throws IOException {
+        long journalSize = journal.size();
+        int entries = (int) (index.size() / INDEX_ENTRY_SIZE);
+        ByteBuffer all = ByteBuffer.allocate(entries * INDEX_ENTRY_SIZE);
+        readFully(index, all, 0);
+        int valid = 0;
+        long previous = -1;
+        for (int i = 0; i < entries; i++) {
+            long offset = all.getLong(i * INDEX_ENTRY_SIZE);
+            if ((i == 0 ? offset != 0 : offset <= previous) || offset + FRAME_OVERHEAD > journalSize) {
+                break;
+            }
+            previous = offset;
+            valid++;
+        }
+        // 末尾的记录可能没有完整写入
+        while (valid > 0 && readRecordAt(all.getLong((valid - 1) * INDEX_ENTRY_SIZE)) == null) {
+            valid--;
+        }
+        for (int i = 0; i < valid; i++) {
+            all.limit((i + 1) * INDEX_ENTRY_SIZE).position(i * INDEX_ENTRY_SIZE);
+            addToMemory(all.getLong(i * INDEX_ENTRY_SIZE), all.slice());
+        }
+        index.truncate((long) count * INDEX_ENTRY_SIZE);
+        long nextOffset = 0;
+        if (count > 0) {
+            long last = offsets[count - 1];
+            nextOffset = last + FRAME_OVERHEAD + readLength(last);
+        }
+
+        // 补齐崩溃前已写入日志但未写入索引的记录，遇到不完整的记录时截断
+        while (nextOffset + FRAME_OVERHEAD <= journalSize) {
+            Record record = readRecordAt(nextOffset);
+            if (record == null) {
+                break;
+            }
+            int length = readLength(nextOffset);
+            writeIndex(nextOffset, record);
+            nextOffset += FRAME_OVERHEAD + length;
+        }
+        journal.truncate(nextOffset);
+    }
+
+    /**
+     * 追加一条运行记录（不立即刷盘）
+     */
+    public synchronized void append(Record record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RECORD_VERSION);
+        out.writeLong(record.startMillis);
+        out.writeLong(record.endMillis);
+        out.writeUTF(record.profile);
+        out.writeInt(record.cycles);
+        out.writeLong(record.clicks);
+        out.writeInt(record.p50Ms);
+        out.writeInt(record.p90Ms);
+        out.writeInt(record.p99Ms);
+        out.writeUTF(record.stopReason);
+        out.writeLong(record.seed);
+        out.flush();
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_OVERHEAD + body.length);
+        frame.putInt(body.length).put(body).putInt((int) crc.getValue());
+        frame.flip();
+        long offset = journal.size();
+        while (frame.hasRemaining()) {
+            journal.write(frame, offset + frame.position());
+        }
+        writeIndex(offset, record);
+        dirty = true;
+    }
+
+    /**
+     * 最近的运行记录
+     *
+     * @param limit 最多返回的条数
+     * @return 运行记录，最新的在前
+     */
+    public synchronized List<Record> lastRuns(int limit) throws IOException {
+        List<Record> records = new ArrayList<>();
+        for (int i = count - 1; i >= 0 && records.size() < limit; i--) {
+            Record record = readRecordAt(offsets[i]);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 按配置汇总
+     *
+     * @return 各配置的汇总，按最近运行时间倒序
+     */
+    public synchronized List<Aggregate> aggregates() {
+        List<Aggregate> list = new ArrayList<>(aggregates);
+        Collections.sort(list, (a, b) -> Long.compare(b.lastStartMillis, a.lastStartMillis));
+        return list;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 刷盘并关闭
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        syncExecutor.shutdownNow();
+        try {
+            if (dirty) {
+                journal.force(false);
+                index.force(false);
+                dirty = false;
+            }
+        } finally {
+            journal.close();
+            index.close();
+        }
+    }
+
+    private synchronized void syncIfDirty() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            journal.force(false);
+            index.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            // 下个周期重试
+        }
+    }
+
+    private void writeIndex(long offset, Record record) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+        entry.putLong(offset).putLong(record.startMillis).putLong(record.endMillis).putLong(record.clicks)
+                .putInt(record.cycles).putInt(profileIdFor(record.profile));
+        entry.flip();
+        long position = (long) count * INDEX_ENTRY_SIZE;
+        while (entry.hasRemaining()) {
+            index.write(entry, position + entry.position());
+        }
+        addToMemory(offset, entry);
+    }
+
+    /**
+     * 把索引项加入内存副本并更新汇总
+     */
+    private void addToMemory(long offset, ByteBuffer entry) throws IOException {
+        if (count == offsets.length) {
+            long[] grown = new long[count * 2];
+            System.arraycopy(offsets, 0, grown, 0, count);
+            offsets = grown;
+        }
+        offsets[count++] = offset;
+
+        int profileId = entry.getInt(36);
+        if (profileId < 0 || profileId >= aggregates.size()) {
+            // 配置第一次出现，从记录中读取配置名
+            Record first = readRecordAt(offset);
+            profileId = profileIdFor(first != null ? first.profile : "?");
+        }
+        Aggregate aggregate = aggregates.get(profileId);
+        long start = entry.getLong(8);
+        aggregate.runs++;
+        aggregate.totalMillis += Math.max(0, entry.getLong(16) - start);
+        aggregate.clicks += entry.getLong(24);
+        aggregate.cycles += entry.getInt(32);
+        aggregate.lastStartMillis = Math.max(aggregate.lastStartMillis, start);
+    }
+
+    /**
+     * 配置名对应的编号，新配置按出现顺序分配
+     */
+    private int profileIdFor(String profile) {
+        Integer id = profileIds.get(profile);
+        if (id == null) {
+            id = aggregates.size();
+            aggregates.add(new Aggregate(profile));
+            profileIds.put(profile, id);
+        }
+        return id;
+    }
+
+    private int readLength(long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        readFully(journal, buffer, offset);
+        int length = buffer.getInt(0);
+        return length > 0 && length <= MAX_RECORD_SIZE ? length : -1;
+    }
+
+    /**
+     * 读取并校验一条记录
+     *
+     * @return 记录，不完整或校验失败时返回 null
+     */
+    private Record readRecordAt(long offset) throws IOException {
+        if (offset + FRAME_OVERHEAD > journal.size()) {
+            return null;
+        }
+        int length = readLength(offset);
+        if (length < 0 || offset + FRAME_OVERHEAD + length > journal.size()) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length + 4);
+        readFully(journal, buffer, offset + 4);
+        byte[] body = new byte[length];
+        buffer.flip();
+        buffer.get(body);
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        if ((int) crc.getValue() != buffer.getInt()) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        if (in.readByte() != RECORD_VERSION) {
+            return null;
+        }
+        long start = in.readLong();
+        long end = in.readLong();
+        String profile = in.readUTF();
+        int cycles = in.readInt();
+        long clicks = in.readLong();
+        int p50 = in.readInt();
+        int p90 = in.readInt();
+        int p99 = in.readInt();
+        String stopReason = in.readUTF();
+        long seed = in.readLong();
+        return new Record(profile, start, end, cycles, clicks, p50, p90, p99, stopReason, seed);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("文件意外结束");
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package src.main.java;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 计划运行调度器
+ *
+ * <p>所有计划的下一次触发时间放在 {@link TimerWheel} 中，每个刻度的检查与计划数量无关。
+ * 时间来源通过 {@link Clock} 注入；后台线程按刻度调用 {@link #advance()}，
+ * 测试时可以使用固定时钟并直接调用 {@link #advance()}。
+ *
+ * <p>触发时间比当前时间晚超过容忍时间（例如系统休眠、时钟调整）视为错过，
+ * 按计划的错过处理方式决定是否补跑；连续错过多次只处理一次。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class RunScheduler {
+
+    /**
+     * 时间轮槽数
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    /**
+     * 触发延迟超过该时间视为错过（毫秒）
+     */
+    private static final long MISSED_GRACE_MS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 错过触发时间后的处理方式
+     */
+    public enum MissedRunPolicy {
+        SKIP("跳过"),
+        RUN_ONCE("补跑一次");
+
+        private final String displayName;
+
+        MissedRunPolicy(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * 按名称解析，未知名称返回 {@link #SKIP}
+         */
+        public static MissedRunPolicy parse(String name) {
+            for (MissedRunPolicy policy : values()) {
+                if (policy.name().equals(name)) {
+                    return policy;
+                }
+            }
+            return SKIP;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 调度回调，在调度线程上调用
+     */
+    public interface Listener {
+
+        /**
+         * 计划到期
+         *
+         * @param schedule 计划
+         * @param scheduledMillis 原定触发时间
+         * @param missed 是否是错过后补跑
+         */
+        void onFire(Schedule schedule, long scheduledMillis, boolean missed);
+
+        /**
+         * 计划错过且按策略跳过
+         *
+         * @param schedule 计划
+         * @param scheduledMillis 原定触发时间
+         */
+        void onSkipped(Schedule schedule, long scheduledMillis);
+    }
+
+    /**
+     * 一条计划
+     */
+    public static final class Schedule {
+        private final ScheduleTrigger trigger;
+        private final MissedRunPolicy missedRunPolicy;
+        private volatile long nextFireMillis = ScheduleTrigger.NEVER;
+        private TimerWheel.Timeout<Schedule> timeout;
+        private boolean active;
+
+        public Schedule(ScheduleTrigger trigger, MissedRunPolicy missedRunPolicy) {
+            this.trigger = trigger;
+            this.missedRunPolicy = missedRunPolicy;
+        }
+
+        public ScheduleTrigger getTrigger() {
+            return trigger;
+        }
+
+        public MissedRunPolicy getMissedRunPolicy() {
+            return missedRunPolicy;
+        }
+
+        /**
+         * 下一次触发时间（毫秒），没有时为 {@link ScheduleTrigger#NEVER}
+         */
+        public long getNextFireMillis() {
+            return nextFireMillis;
+        }
+    }
+
+    private final Clock clock;
+    private final long tickMillis;
+    private final Listener listener;
+    private final TimerWheel<Schedule> wheel;
+    private final List<Schedule> schedules = new ArrayList<>();
+    private Thread driver;
+
+    /**
+     * 构造函数
+     *
+     * @param clock 时间来源（同时提供时区）
+     * @param tickMillis 检查刻度（毫秒）
+     * @param listener 调度回调
+     */
+    public RunScheduler(Clock clock, long tickMillis, Listener listener) {
+        this.clock = clock;
+        this.tickMillis = tickMillis;
+        this.listener = listener;
+        this.wheel = new TimerWheel<>(tickMillis, WHEEL_SIZE, clock.millis());
+    }
+
+    /**
+     * 添加计划
+     */
+    public synchronized void add(Schedule schedule) {
+        if (schedule.active) {
+            return;
+        }
+        schedule.active = true;
+        schedules.add(schedule);
+        arm(schedule, clock.millis());
+    }
+
+    /**
+     * 删除计划
+     */
+    public synchronized void remove(Schedule schedule) {
+        if (schedule.active && schedules.remove(schedule)) {
+            schedule.active = false;
+            wheel.cancel(schedule.timeout);
+            schedule.timeout = null;
+            schedule.nextFireMillis = ScheduleTrigger.NEVER;
+        }
+    }
+
+    /**
+     * 当前所有计划（按添加顺序）
+     */
+    public synchronized List<Schedule> getSchedules() {
+        return Collections.unmodifiableList(new ArrayList<>(schedules));
+    }
+
+    /**
+     * 预览规则接下来的触发时间
+     *
+     * @param trigger 规则
+     * @param count 最多返回的个数
+     * @return 触发时间列表（毫秒）
+     */
+    public List<Long> preview(ScheduleTrigger trigger, int count) {
+        List<Long> times = new ArrayList<>();
+        long after = clock.millis();
+        while (times.size() < count) {
+            after = trigger.nextFireAfter(after, clock.getZone());
+            if (after == ScheduleTrigger.NEVER) {
+                break;
+            }
+            times.add(after);
+        }
+        return times;
+    }
+
+    /**
+     * 推进到当前时间并处理到期的计划
+     */
+    public void advance() {
+        List<Schedule> expired;
+        long now;
+        synchronized (this) {
+            now = clock.millis();
+            expired = wheel.advance(now);
+        }
+        for (Schedule schedule : expired) {
+            long scheduled;
+            synchronized (this) {
+                if (!schedule.active) {
+                    continue;
+                }
+                scheduled = schedule.nextFireMillis;
+                schedule.timeout = null;
+                arm(schedule, now);
+            }
+            boolean missed = now - scheduled > MISSED_GRACE_MS;
+            if (!missed || schedule.missedRunPolicy == MissedRunPolicy.RUN_ONCE) {
+                listener.onFire(schedule, scheduled, missed);
+            } else {
+                listener.onSkipped(schedule, scheduled);
+            }
+        }
+    }
+
+    /**
+     * 启动后台调度线程
+     */
+    public synchronized void start() {
+        if (driver != null) {
+            return;
+        }
+        driver = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    advance();
+                    Thread.sleep(tickMillis);
+                }
+            } catch (InterruptedException e) {
+                // 正常停止
+            }
+        }, "RunScheduler");
+        driver.setDaemon(true);
+        driver.start();
+    }
+
+    /**
+     * 停止后台调度线程
+     */
+    public synchronized void stop() {
+        if (driver != null) {
+            driver.interrupt();
+            driver = null;
+        }
+    }
+
+    /**
+     * 计算下一次触发并放入时间轮，从 afterMillis 之后算起（错过的多次只保留一次）
+     */
+    private void arm(Schedule schedule, long afterMillis) {
+        long next = schedule.trigger.nextFireAfter(afterMillis, clock.getZone());
+        schedule.nextFireMillis = next;
+        if (next != ScheduleTrigger.NEVER) {
+            schedule.timeout = wheel.schedule(schedule, next);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package src.main.java;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 计划运行的触发规则
+ *
+ * <p>规则文本格式：
+ * <ul>
+ *   <li>{@code 每隔:N秒|分|时} - 固定间隔，按本地时间的整点对齐（例如每隔15分在 :00 :15 :30 :45 触发）</li>
+ *   <li>{@code 定时:HH:mm} - 每天在指定时间触发</li>
+ *   <li>{@code 定时:yyyy-MM-dd HH:mm} - 只在指定时间触发一次</li>
+ *   <li>{@code cron:分 时 日 月 周} - 标准5段 cron 表达式，支持 {@code * , - /}，周日为0或7</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class ScheduleTrigger {
+
+    /**
+     * 没有下一次触发
+     */
+    public static final long NEVER = -1L;
+
+    /**
+     * cron 最多向后搜索的天数（覆盖2月29日这类每4年一次的规则）
+     */
+    private static final int CRON_SEARCH_DAYS = 366 * 4 + 1;
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("H:mm");
+
+    private enum Kind {
+        INTERVAL,
+        DAILY,
+        ONCE,
+        CRON
+    }
+
+    private final String spec;
+    private final Kind kind;
+    private final long periodMillis;
+    private final LocalTime dailyTime;
+    private final LocalDateTime onceTime;
+
+    /**
+     * cron 各字段允许的取值位图
+     */
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private ScheduleTrigger(String spec, Kind kind, long periodMillis, LocalTime dailyTime,
+            LocalDateTime onceTime, long[] cron, boolean dayOfMonthRestricted, boolean dayOfWeekRestricted) {
+        this.spec = spec;
+        this.kind = kind;
+        this.periodMillis = periodMillis;
+        this.dailyTime = dailyTime;
+        this.onceTime = onceTime;
+        this.minutes = cron[0];
+        this.hours = cron[1];
+        this.daysOfMonth = cron[2];
+        this.months = cron[3];
+        this.daysOfWeek = cron[4];
+        this.dayOfMonthRestricted = dayOfMonthRestricted;
+        this.dayOfWeekRestricted = dayOfWeekRestricted;
+    }
+
+    /**
+     * 解析规则文本
+     *
+     * @throws IllegalArgumentException 格式错误
+     */
+    public static ScheduleTrigger parse(String spec) {
+        String text = spec.trim();
+        String[] kv = text.split("[:：]", 2);
+        if (kv.length != 2 || kv[1].trim().isEmpty()) {
+            throw new IllegalArgumentException("格式应为 类型:参数，例如 每隔:15分");
+        }
+        String keyword = kv[0].trim();
+        String value = kv[1].trim();
+        long[] noCron = new long[5];
+        if ("每隔".equals(keyword)) {
+            return new ScheduleTrigger(text, Kind.INTERVAL, parsePeriod(value), null, null, noCron, false, false);
+        }
+        if ("定时".equals(keyword)) {
+            try {
+                if (value.contains("-")) {
+                    return new ScheduleTrigger(text, Kind.ONCE, 0, null,
+                            LocalDateTime.parse(value, DATE_TIME), noCron, false, false);
+                }
+                return new ScheduleTrigger(text, Kind.DAILY, 0, LocalTime.parse(value, TIME), null,
+                        noCron, false, false);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("时间格式应为 HH:mm 或 yyyy-MM-dd HH:mm: " + value);
+            }
+        }
+        if ("cron".equalsIgnoreCase(keyword)) {
+            String[] fields = value.split("\\s+");
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("cron 表达式需要5段（分 时 日 月 周）: " + value);
+            }
+            long[] cron = {
+                parseField(fields[0], 0, 59, "分"),
+                parseField(fields[1], 0, 23, "时"),
+                parseField(fields[2], 1, 31, "日"),
+                parseField(fields[3], 1, 12, "月"),
+                parseField(fields[4], 0, 7, "周")
+            };
+            // 周日可以写作0或7
+            if ((cron[4] & (1L << 7)) != 0) {
+                cron[4] |= 1L;
+            }
+            return new ScheduleTrigger(text, Kind.CRON, 0, null, null, cron,
+                    !"*".equals(fields[2]), !"*".equals(fields[4]));
+        }
+        throw new IllegalArgumentException("未知的规则类型: " + keyword + "（支持 每隔、定时、cron）");
+    }
+
+    private static long parsePeriod(String value) {
+        long unit = ChronoUnit.MINUTES.getDuration().toMillis();
+        String number = value;
+        char suffix = value.charAt(value.length() - 1);
+        if (suffix == '秒' || suffix == '分' || suffix == '时') {
+            ChronoUnit chronoUnit = suffix == '秒' ? ChronoUnit.SECONDS
+                    : suffix == '分' ? ChronoUnit.MINUTES : ChronoUnit.HOURS;
+            unit = chronoUnit.getDuration().toMillis();
+            number = value.substring(0, value.length() - 1);
+        }
+        try {
+            long count = Long.parseLong(number.trim());
+            if (count <= 0) {
+                throw new IllegalArgumentException("间隔必须大于0: " + value);
+            }
+            return count * unit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("间隔格式应为 数字+秒/分/时: " + value);
+        }
+    }
+
+    private static long parseField(String field, int min, int max, String name) {
+        long bits = 0;
+        for (String item : field.split(",")) {
+            String range = item;
+            int step = 1;
+            int slash = item.indexOf('/');
+            if (slash >= 0) {
+                range = item.substring(0, slash);
+                step = parseNumber(item.substring(slash + 1), 1, max, name);
+            }
+            int from;
+            int to;
+            if ("*".equals(range)) {
+                from = min;
+                to = max;
+            } else if (range.contains("-")) {
+                String[] bounds = range.split("-", 2);
+                from = parseNumber(bounds[0], min, max, name);
+                to = parseNumber(bounds[1], min, max, name);
+                if (from > to) {
+                    throw new IllegalArgumentException(name + "字段范围无效: " + range);
+                }
+            } else {
+                from = parseNumber(range, min, max, name);
+                to = slash >= 0 ? max : from;
+            }
+            for (int v = from; v <= to; v += step) {
+                bits |= 1L << v;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseNumber(String text, int min, int max, String name) {
+        try {
+            int value = Integer.parseInt(text.trim());
+            if (value < min || value > max) {
+                throw new IllegalArgumentException(name + "字段取值应在 " + min + "-" + max + " 之间: " + value);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + "字段不是有效的数字: " + text);
+        }
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    /**
+     * 计算指定时间之后的下一次触发时间
+     *
+     * @param afterMillis 起点（不含）
+     * @param zone 时区
+     * @return 下一次触发时间（毫秒），没有时返回 {@link #NEVER}
+     */
+    public long nextFireAfter(long afterMillis, ZoneId zone) {
+        switch (kind) {
+            case INTERVAL:
+                long offset = zone.getRules().getOffset(Instant.ofEpochMilli(afterMillis)).getTotalSeconds() * 1000L;
+                long local = afterMillis + offset;
+                return (Math.floorDiv(local, periodMillis) + 1) * periodMillis - offset;
+            case DAILY:
+                ZonedDateTime now = Instant.ofEpochMilli(afterMillis).atZone(zone);
+                ZonedDateTime today = now.toLocalDate().atTime(dailyTime).atZone(zone);
+                ZonedDateTime fire = today.isAfter(now) ? today
+                        : now.toLocalDate().plusDays(1).atTime(dailyTime).atZone(zone);
+                return fire.toInstant().toEpochMilli();
+            case ONCE:
+                long once = onceTime.atZone(zone).toInstant().toEpochMilli();
+                return once > afterMillis ? once : NEVER;
+            case CRON:
+            default:
+                return nextCron(afterMillis, zone);
+        }
+    }
+
+    private long nextCron(long afterMillis, ZoneId zone) {
+        ZonedDateTime start = Instant.ofEpochMilli(afterMillis).atZone(zone)
+                .truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        LocalDate date = start.toLocalDate();
+        int fromHour = start.getHour();
+        int fromMinute = start.getMinute();
+        for (int day = 0; day < CRON_SEARCH_DAYS; day++) {
+            if (dayMatches(date)) {
+                for (int h = fromHour; h < 24; h++) {
+                    if ((hours & (1L << h)) == 0) {
+                        continue;
+                    }
+                    long candidates = minutes & (-1L << (h == fromHour ? fromMinute : 0));
+                    if (candidates == 0) {
+                        continue;
+                    }
+                    int m = Long.numberOfTrailingZeros(candidates);
+                    long fire = date.atTime(h, m).atZone(zone).toInstant().toEpochMilli();
+                    if (fire > afterMillis) {
+                        return fire;
+                    }
+                }
+            }
+            date = date.plusDays(1);
+            fromHour = 0;
+            fromMinute = 0;
+        }
+        return NEVER;
+    }
+
+    private boolean dayMatches(LocalDate date) {
+        if ((months & (1L << date.getMonthValue())) == 0) {
+            return false;
+        }
+        boolean domMatch = (daysOfMonth & (1L << date.getDayOfMonth())) != 0;
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        boolean dowMatch = (daysOfWeek & (1L << (dayOfWeek.getValue() % 7))) != 0;
+        // 与标准 cron 一致：日和周都有限制时满足其一即可
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return domMatch || dowMatch;
+        }
+        return domMatch && dowMatch;
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
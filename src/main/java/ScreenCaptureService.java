@@ -0,0 +1,584 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 屏幕截图服务 - 所有基于像素的功能共享的截图线程
+ *
+ * <p>设计要点：
+ * <ul>
+ *   <li>消费者通过 {@link #subscribe} 订阅屏幕区域，截图在独立的 ScreenCaptureThread 上进行</li>
+ *   <li>相邻的订阅区域合并为簇，每簇只截取其并集，相距很远的区域分别截取</li>
+ *   <li>每簇的像素缓冲区和分块哈希表在帧之间复用，不随帧分配</li>
+ *   <li>按 32x32 分块计算哈希与上一帧比较，消费者可以跳过未变化的区域</li>
+ *   <li>订阅变化重建簇时，范围不变的簇沿用原来的帧和截图时刻；没有上一帧可比较时报告为未变化</li>
+ *   <li>一次性截图请求（{@link #snapshot}）也在同一线程上执行</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class ScreenCaptureService {
+
+    /**
+     * 分块边长（像素）
+     */
+    static final int TILE_SIZE = 32;
+
+    /**
+     * 默认截图周期（毫秒）
+     */
+    public static final int DEFAULT_FRAME_INTERVAL_MS = 10;
+
+    /**
+     * 一次性截图请求的最长等待时间（毫秒）
+     */
+    private static final int SNAPSHOT_TIMEOUT_MS = 2000;
+
+    /**
+     * 停止时等待截图线程退出的最长时间（毫秒）
+     */
+    private static final int STOP_TIMEOUT_MS = 2000;
+
+    /**
+     * 帧回调接口，在截图线程上调用，不应执行耗时操作
+     */
+    public interface Listener {
+        /**
+         * 收到新帧
+         *
+         * @param frame 当前帧，仅在回调期间有效
+         * @param changed 订阅区域与上一帧相比是否有变化（没有上一帧时为 false）
+         */
+        void onFrame(Frame frame, boolean changed);
+    }
+
+    /**
+     * 订阅句柄
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Rectangle region;
+        private final int intervalMs;
+        private final Listener listener;
+        private volatile long lastChangeNanos;
+        private volatile long lastFrameNanos;
+
+        private Subscription(Rectangle region, int intervalMs, Listener listener) {
+            this.region = new Rectangle(region);
+            this.intervalMs = Math.max(1, intervalMs);
+            this.listener = listener;
+        }
+
+        public Rectangle getRegion() {
+            return new Rectangle(region);
+        }
+
+        /**
+         * 订阅区域最近一次发生变化的帧时间（System.nanoTime），0表示尚无帧
+         */
+        public long getLastChangeNanos() {
+            return lastChangeNanos;
+        }
+
+        /**
+         * 最近一次收到帧的时间（System.nanoTime），0表示尚无帧
+         */
+        public long getLastFrameNanos() {
+            return lastFrameNanos;
+        }
+
+        /**
+         * 取消订阅
+         */
+        @Override
+        public void close() {
+            unsubscribe(this);
+        }
+    }
+
+    /**
+     * 一帧截图（某个区域簇），对象和缓冲区在帧之间复用
+     */
+    public static final class Frame {
+        private Rectangle bounds = new Rectangle();
+        private int[] pixels = new int[0];
+        private int[] previousPixels = new int[0];
+        private long[] tileHashes = new long[0];
+        private long[] previousTileHashes = new long[0];
+        private int tilesX;
+        private boolean hasPrevious;
+        private long timestampNanos;
+        private long sequence;
+
+        /**
+         * 帧覆盖的屏幕区域
+         */
+        public Rectangle getBounds() {
+            return new Rectangle(bounds);
+        }
+
+        /**
+         * 截图时间（System.nanoTime）
+         */
+        public long getTimestampNanos() {
+            return timestampNanos;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * 是否有同一范围的上一帧可供比较
+         */
+        public boolean hasPrevious() {
+            return hasPrevious;
+        }
+
+        /**
+         * 读取屏幕坐标处的像素
+         */
+        public int getRGB(int screenX, int screenY) {
+            return pixels[(screenY - bounds.y) * bounds.width + (screenX - bounds.x)] & 0xFFFFFF;
+        }
+
+        /**
+         * 计算屏幕区域的像素哈希（区域必须位于帧内）
+         */
+        public long hashRegion(Rectangle region) {
+            Rectangle r = region.intersection(bounds);
+            long hash = 0xcbf29ce484222325L;
+            for (int y = r.y; y < r.y + r.height; y++) {
+                int row = (y - bounds.y) * bounds.width - bounds.x;
+                for (int x = r.x; x < r.x + r.width; x++) {
+                    hash ^= pixels[row + x] & 0xFFFFFF;
+                    hash *= 0x100000001b3L;
+                }
+            }
+            return hash;
+        }
+
+        /**
+         * 区域内是否有分块与上一帧不同（没有上一帧时不能说明变化，返回 false）
+         */
+        public boolean regionChanged(Rectangle region) {
+            if (!hasPrevious) {
+                return false;
+            }
+            Rectangle r = region.intersection(bounds);
+            if (r.isEmpty()) {
+                return false;
+            }
+            int tx0 = (r.x - bounds.x) / TILE_SIZE;
+            int ty0 = (r.y - bounds.y) / TILE_SIZE;
+            int tx1 = (r.x + r.width - 1 - bounds.x) / TILE_SIZE;
+            int ty1 = (r.y + r.height - 1 - bounds.y) / TILE_SIZE;
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    int index = ty * tilesX + tx;
+                    if (tileHashes[index] != previousTileHashes[index]) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 将帧内区域转换为图像（会分配新图像，仅用于模板匹配等一次性用途）
+         */
+        public BufferedImage toImage(Rectangle region) {
+            Rectangle r = region.intersection(bounds);
+            BufferedImage image = new BufferedImage(Math.max(1, r.width), Math.max(1, r.height),
+                    BufferedImage.TYPE_INT_RGB);
+            int[] out = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            for (int y = 0; y < r.height; y++) {
+                System.arraycopy(pixels, (r.y - bounds.y + y) * bounds.width + (r.x - bounds.x),
+                        out, y * r.width, r.width);
+            }
+            return image;
+        }
+
+        /**
+         * 载入新截图，复用缓冲区并计算分块哈希
+         */
+        void load(BufferedImage image, Rectangle region, long nanos) {
+            boolean sameShape = region.equals(bounds);
+            if (!sameShape) {
+                bounds = new Rectangle(region);
+                hasPrevious = false;
+            }
+            // 交换当前帧与上一帧缓冲区
+            int[] swapPixels = previousPixels;
+            previousPixels = pixels;
+            pixels = swapPixels;
+            long[] swapHashes = previousTileHashes;
+            previousTileHashes = tileHashes;
+            tileHashes = swapHashes;
+
+            int size = region.width * region.height;
+            if (pixels.length != size) {
+                pixels = new int[size];
+            }
+            tilesX = (region.width + TILE_SIZE - 1) / TILE_SIZE;
+            int tilesY = (region.height + TILE_SIZE - 1) / TILE_SIZE;
+            if (tileHashes.length != tilesX * tilesY) {
+                tileHashes = new long[tilesX * tilesY];
+            }
+            copyPixels(image, pixels, region.width, region.height);
+            computeTileHashes(tilesY);
+            hasPrevious = sameShape && sequence > 0;
+            timestampNanos = nanos;
+            sequence++;
+        }
+
+        private void computeTileHashes(int tilesY) {
+            int w = bounds.width;
+            int h = bounds.height;
+            for (int ty = 0; ty < tilesY; ty++) {
+                for (int tx = 0; tx < tilesX; tx++) {
+                    long hash = 0xcbf29ce484222325L;
+                    int yEnd = Math.min(h, (ty + 1) * TILE_SIZE);
+                    int xEnd = Math.min(w, (tx + 1) * TILE_SIZE);
+                    for (int y = ty * TILE_SIZE; y < yEnd; y++) {
+                        int row = y * w;
+                        for (int x = tx * TILE_SIZE; x < xEnd; x++) {
+                            hash ^= pixels[row + x] & 0xFFFFFF;
+                            hash *= 0x100000001b3L;
+                        }
+                    }
+                    tileHashes[ty * tilesX + tx] = hash;
+                }
+            }
+        }
+
+        private static void copyPixels(BufferedImage image, int[] dst, int w, int h) {
+            if ((image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB)
+                    && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                    && image.getRaster().getParent() == null && image.getWidth() == w) {
+                int[] src = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                System.arraycopy(src, 0, dst, 0, w * h);
+            } else {
+                image.getRGB(0, 0, w, h, dst, 0, w);
+            }
+        }
+    }
+
+    /**
+     * 区域簇：一组相邻订阅共享一次截图
+     */
+    private static final class Cluster {
+        final Rectangle bounds;
+        final List<Subscription> members = new ArrayList<>();
+        Frame frame = new Frame();
+        int intervalMs = Integer.MAX_VALUE;
+        long nextDueNanos;
+
+        Cluster(Rectangle bounds) {
+            this.bounds = bounds;
+        }
+    }
+
+    private final ScreenSource source;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<SnapshotRequest> snapshotRequests = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 截图线程持有的簇列表，订阅变化时重建
+     */
+    private List<Cluster> clusters = new ArrayList<>();
+    private volatile boolean clustersDirty = true;
+
+    private volatile boolean running;
+
+    /**
+     * 当前的截图线程，停止时置空；每个截图循环只在自己仍是当前线程时运行，
+     * 停止后立即重新启动也不会让旧循环继续运行
+     */
+    private volatile Thread captureThread;
+
+    private volatile long frameCount;
+    private volatile long capturedPixels;
+
+    /**
+     * 构造函数
+     *
+     * @param source 屏幕来源
+     */
+    public ScreenCaptureService(ScreenSource source) {
+        this.source = source;
+    }
+
+    /**
+     * 启动截图线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::captureLoop, "ScreenCaptureThread");
+        thread.setDaemon(true);
+        captureThread = thread;
+        thread.start();
+    }
+
+    /**
+     * 停止截图线程，并等待正在进行的截图结束（在截图线程上调用时不等待）
+     */
+    public synchronized void stop() {
+        running = false;
+        Thread thread = captureThread;
+        if (thread == null) {
+            return;
+        }
+        captureThread = null;
+        LockSupport.unpark(thread);
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join(STOP_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 订阅屏幕区域
+     *
+     * @param region 屏幕区域
+     * @param intervalMs 最长截图周期（毫秒）
+     * @param listener 帧回调
+     * @return 订阅句柄
+     */
+    public Subscription subscribe(Rectangle region, int intervalMs, Listener listener) {
+        Subscription subscription = new Subscription(region, intervalMs, listener);
+        subscriptions.add(subscription);
+        clustersDirty = true;
+        wakeUp();
+        return subscription;
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        if (subscriptions.remove(subscription)) {
+            clustersDirty = true;
+            wakeUp();
+        }
+    }
+
+    /**
+     * 当前订阅数量
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * 已截取的帧数
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 已截取的像素总数
+     */
+    public long getCapturedPixels() {
+        return capturedPixels;
+    }
+
+    /**
+     * 在截图线程上执行一次性截图并等待结果
+     *
+     * @param region 屏幕区域
+     * @return 截图，失败时返回 null
+     */
+    public BufferedImage snapshot(Rectangle region) {
+        if (!running || Thread.currentThread() == captureThread) {
+            return source.capture(region);
+        }
+        SnapshotRequest request = new SnapshotRequest(new Rectangle(region));
+        snapshotRequests.add(request);
+        wakeUp();
+        try {
+            return request.result.get(SNAPSHOT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    private void wakeUp() {
+        Thread thread = captureThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 截图线程主循环
+     */
+    private void captureLoop() {
+        Thread self = Thread.currentThread();
+        while (captureThread == self) {
+            serveSnapshots();
+            if (clustersDirty) {
+                clustersDirty = false;
+                clusters = carryOver(buildClusters(subscriptions), clusters);
+            }
+            if (clusters.isEmpty()) {
+                if (snapshotRequests.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                continue;
+            }
+            long now = System.nanoTime();
+            long nextDue = Long.MAX_VALUE;
+            for (Cluster cluster : clusters) {
+                if (now - cluster.nextDueNanos >= 0) {
+                    captureCluster(cluster, now);
+                    cluster.nextDueNanos = now + TimeUnit.MILLISECONDS.toNanos(cluster.intervalMs);
+                }
+                nextDue = Math.min(nextDue, cluster.nextDueNanos);
+            }
+            long waitNanos = nextDue - System.nanoTime();
+            if (waitNanos > 0 && snapshotRequests.isEmpty() && !clustersDirty) {
+                LockSupport.parkNanos(this, waitNanos);
+            }
+        }
+        // 停止后释放所有等待中的请求（已被新的截图线程接替时留给新线程处理）
+        if (captureThread != null) {
+            return;
+        }
+        SnapshotRequest pending;
+        while ((pending = snapshotRequests.poll()) != null) {
+            pending.result.complete(null);
+        }
+    }
+
+    private void serveSnapshots() {
+        SnapshotRequest request;
+        while ((request = snapshotRequests.poll()) != null) {
+            try {
+                request.result.complete(source.capture(request.region));
+            } catch (RuntimeException e) {
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void captureCluster(Cluster cluster, long now) {
+        BufferedImage image;
+        try {
+            image = source.capture(cluster.bounds);
+        } catch (RuntimeException e) {
+            return;
+        }
+        long timestamp = System.nanoTime();
+        cluster.frame.load(image, cluster.bounds, timestamp);
+        frameCount++;
+        capturedPixels += (long) cluster.bounds.width * cluster.bounds.height;
+        for (Subscription subscription : cluster.members) {
+            boolean changed = cluster.frame.regionChanged(subscription.region);
+            subscription.lastFrameNanos = timestamp;
+            if (changed) {
+                subscription.lastChangeNanos = timestamp;
+            }
+            try {
+                subscription.listener.onFrame(cluster.frame, changed);
+            } catch (RuntimeException e) {
+                // 单个消费者异常不影响其他消费者
+            }
+        }
+    }
+
+    /**
+     * 将订阅区域按邻近关系合并为簇
+     */
+    static List<Cluster> buildClusters(List<Subscription> subscriptions) {
+        List<Cluster> result = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+            Cluster target = null;
+            Rectangle grown = new Rectangle(subscription.region);
+            grown.grow(TILE_SIZE, TILE_SIZE);
+            for (Cluster cluster : result) {
+                if (cluster.bounds.intersects(grown)) {
+                    target = cluster;
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new Cluster(new Rectangle(subscription.region));
+                result.add(target);
+            } else {
+                target.bounds.add(subscription.region);
+            }
+            target.members.add(subscription);
+            target.intervalMs = Math.min(target.intervalMs, subscription.intervalMs);
+        }
+        // 合并后的簇可能彼此相邻，继续合并直到稳定
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            outer:
+            for (int i = 0; i < result.size(); i++) {
+                Rectangle grown = new Rectangle(result.get(i).bounds);
+                grown.grow(TILE_SIZE, TILE_SIZE);
+                for (int j = i + 1; j < result.size(); j++) {
+                    if (grown.intersects(result.get(j).bounds)) {
+                        Cluster a = result.get(i);
+                        Cluster b = result.remove(j);
+                        a.bounds.add(b.bounds);
+                        a.members.addAll(b.members);
+                        a.intervalMs = Math.min(a.intervalMs, b.intervalMs);
+                        merged = true;
+                        break outer;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 范围不变的簇沿用原来的帧和下次截图时刻，避免重建后第一帧失去比较基准
+     */
+    static List<Cluster> carryOver(List<Cluster> fresh, List<Cluster> previous) {
+        for (Cluster cluster : fresh) {
+            for (Cluster old : previous) {
+                if (old.bounds.equals(cluster.bounds)) {
+                    cluster.frame = old.frame;
+                    cluster.nextDueNanos = old.nextDueNanos;
+                    break;
+                }
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * 一次性截图请求
+     */
+    private static final class SnapshotRequest {
+        final Rectangle region;
+        final CompletableFuture<BufferedImage> result = new CompletableFuture<>();
+
+        SnapshotRequest(Rectangle region) {
+            this.region = region;
+        }
+    }
+}
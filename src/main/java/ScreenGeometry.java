@@ -0,0 +1,240 @@
+package src.main.java;
+
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+
+/**
+ * 屏幕几何信息 - 覆盖所有显示器的虚拟桌面坐标模型
+ *
+ * <p>设计要点：
+ * <ul>
+ *   <li>一次性读取所有 {@link GraphicsDevice} 的边界和缩放比例，缓存为不可变快照</li>
+ *   <li>坐标检查先与虚拟桌面外接矩形比较，再在显示器数组中查找，不分配对象</li>
+ *   <li>显示器变化时调用 {@link #invalidate()}，下次访问时重新读取</li>
+ *   <li>每个显示器以 {@link GraphicsDevice#getIDstring()} 标识，位置可以相对显示器保存</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class ScreenGeometry {
+
+    /**
+     * 显示器信息
+     */
+    public static final class Display {
+        private final String id;
+        private final Rectangle bounds;
+        private final double scaleX;
+        private final double scaleY;
+
+        Display(String id, Rectangle bounds, double scaleX, double scaleY) {
+            this.id = id;
+            this.bounds = bounds;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * 显示器在虚拟桌面中的边界（逻辑坐标）
+         */
+        public Rectangle getBounds() {
+            return new Rectangle(bounds);
+        }
+
+        public double getScaleX() {
+            return scaleX;
+        }
+
+        public double getScaleY() {
+            return scaleY;
+        }
+
+        @Override
+        public String toString() {
+            String scale = scaleX == 1.0 && scaleY == 1.0 ? "" : String.format(" @%.0f%%", scaleX * 100);
+            return id + " " + bounds.width + "x" + bounds.height + "+" + bounds.x + "+" + bounds.y + scale;
+        }
+    }
+
+    private static volatile ScreenGeometry current;
+
+    private final Display[] displays;
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+    private final String signature;
+
+    private ScreenGeometry(Display[] displays) {
+        this.displays = displays;
+        int x0 = Integer.MAX_VALUE;
+        int y0 = Integer.MAX_VALUE;
+        int x1 = Integer.MIN_VALUE;
+        int y1 = Integer.MIN_VALUE;
+        StringBuilder sb = new StringBuilder();
+        for (Display d : displays) {
+            x0 = Math.min(x0, d.bounds.x);
+            y0 = Math.min(y0, d.bounds.y);
+            x1 = Math.max(x1, d.bounds.x + d.bounds.width);
+            y1 = Math.max(y1, d.bounds.y + d.bounds.height);
+            sb.append(d).append(';');
+        }
+        this.minX = x0;
+        this.minY = y0;
+        this.maxX = x1;
+        this.maxY = y1;
+        this.signature = sb.toString();
+    }
+
+    /**
+     * 获取当前屏幕几何信息（缓存）
+     */
+    public static ScreenGeometry get() {
+        ScreenGeometry geometry = current;
+        if (geometry == null) {
+            geometry = read();
+            current = geometry;
+        }
+        return geometry;
+    }
+
+    /**
+     * 使缓存失效，下次访问时重新读取
+     */
+    public static void invalidate() {
+        current = null;
+    }
+
+    /**
+     * 重新读取显示器信息，如果布局发生变化则更新缓存
+     *
+     * @return 布局是否发生变化
+     */
+    public static boolean refresh() {
+        ScreenGeometry fresh = read();
+        ScreenGeometry old = current;
+        current = fresh;
+        return old != null && !old.signature.equals(fresh.signature);
+    }
+
+    private static ScreenGeometry read() {
+        try {
+            GraphicsDevice[] devices = GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices();
+            Display[] displays = new Display[devices.length];
+            for (int i = 0; i < devices.length; i++) {
+                GraphicsConfiguration config = devices[i].getDefaultConfiguration();
+                AffineTransform transform = config.getDefaultTransform();
+                displays[i] = new Display(devices[i].getIDstring(), config.getBounds(),
+                        transform.getScaleX(), transform.getScaleY());
+            }
+            return new ScreenGeometry(displays);
+        } catch (HeadlessException e) {
+            return new ScreenGeometry(new Display[0]);
+        }
+    }
+
+    /**
+     * 坐标是否位于某个显示器上
+     */
+    public boolean contains(int x, int y) {
+        return displayIndexAt(x, y) >= 0;
+    }
+
+    /**
+     * 获取坐标所在的显示器
+     *
+     * @return 显示器，不在任何显示器上时返回 null
+     */
+    public Display displayAt(int x, int y) {
+        int index = displayIndexAt(x, y);
+        return index >= 0 ? displays[index] : null;
+    }
+
+    private int displayIndexAt(int x, int y) {
+        // 先用虚拟桌面外接矩形快速排除
+        if (x < minX || x >= maxX || y < minY || y >= maxY) {
+            return -1;
+        }
+        for (int i = 0; i < displays.length; i++) {
+            Rectangle b = displays[i].bounds;
+            if (x >= b.x && x < b.x + b.width && y >= b.y && y < b.y + b.height) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 坐标是否位于某个显示器的角落
+     *
+     * @param size 角落的判定范围（像素）
+     */
+    public boolean isInCorner(int x, int y, int size) {
+        int index = displayIndexAt(x, y);
+        if (index < 0) {
+            return false;
+        }
+        Rectangle b = displays[index].bounds;
+        boolean nearLeft = x < b.x + size;
+        boolean nearRight = x >= b.x + b.width - size;
+        boolean nearTop = y < b.y + size;
+        boolean nearBottom = y >= b.y + b.height - size;
+        return (nearLeft || nearRight) && (nearTop || nearBottom);
+    }
+
+    /**
+     * 按ID查找显示器
+     *
+     * @return 显示器，不存在时返回 null
+     */
+    public Display findDisplay(String id) {
+        for (Display d : displays) {
+            if (d.id.equals(id)) {
+                return d;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 虚拟桌面外接矩形
+     */
+    public Rectangle getVirtualBounds() {
+        return new Rectangle(minX, minY, Math.max(0, maxX - minX), Math.max(0, maxY - minY));
+    }
+
+    /**
+     * 所有显示器
+     */
+    public Display[] getDisplays() {
+        return displays.clone();
+    }
+
+    public int getDisplayCount() {
+        return displays.length;
+    }
+
+    /**
+     * 描述当前显示器布局，用于错误提示
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Display d : displays) {
+            if (sb.length() > 0) {
+                sb.append("\n");
+            }
+            sb.append(d);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,56 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.image.BufferedImage;
+
+/**
+ * 屏幕像素来源 - 对屏幕截图的抽象
+ *
+ * <p>生产环境使用 {@link Robot} 截图，测试时可以替换为合成图像实现。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public interface ScreenSource {
+
+    /**
+     * 截取屏幕区域
+     *
+     * @param region 屏幕区域（全局坐标）
+     * @return 区域图像，类型为 {@link BufferedImage#TYPE_INT_RGB} 或兼容类型
+     */
+    BufferedImage capture(Rectangle region);
+
+    /**
+     * 读取单个像素颜色
+     *
+     * @param x 屏幕X坐标
+     * @param y 屏幕Y坐标
+     * @return RGB颜色值（不含透明度）
+     */
+    default int getPixel(int x, int y) {
+        return capture(new Rectangle(x, y, 1, 1)).getRGB(0, 0) & 0xFFFFFF;
+    }
+
+    /**
+     * 基于Robot的屏幕来源
+     *
+     * @param robot Robot对象
+     * @return 屏幕来源
+     */
+    static ScreenSource fromRobot(Robot robot) {
+        return new ScreenSource() {
+            @Override
+            public BufferedImage capture(Rectangle region) {
+                return robot.createScreenCapture(region);
+            }
+
+            @Override
+            public int getPixel(int x, int y) {
+                return robot.getPixelColor(x, y).getRGB() & 0xFFFFFF;
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * 按脚本变化的屏幕来源 - 不截取真实屏幕，由代码决定画面在第几次截图时变化
+ *
+ * <p>用于检查脚本和调试：每次截图返回一张纯色图像，到达预定的截图次数时换一种颜色，
+ * 其余截图与上一帧完全相同。这样可以精确控制 {@link ScreenCaptureService} 的订阅者
+ * 何时看到"区域变化"，例如模拟目标程序在点击后立即响应或一直不响应。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class ScriptedScreenSource implements ScreenSource {
+
+    /**
+     * 预定变化的截图序号（从0开始计数）
+     */
+    private final TreeSet<Long> changes = new TreeSet<>();
+
+    private int color;
+    private long captures;
+
+    /**
+     * 构造函数
+     *
+     * @param color 初始颜色（RGB）
+     */
+    public ScriptedScreenSource(int color) {
+        this.color = color & 0xFFFFFF;
+    }
+
+    /**
+     * 预定一次画面变化
+     *
+     * @param frames 从下一次截图开始再经过多少次截图后变化，0表示下一次截图就变化
+     */
+    public synchronized void changeAfter(int frames) {
+        changes.add(captures + Math.max(0, frames));
+    }
+
+    /**
+     * 取消尚未发生的变化
+     */
+    public synchronized void cancelChanges() {
+        changes.clear();
+    }
+
+    /**
+     * 已截图的次数
+     */
+    public synchronized long getCaptureCount() {
+        return captures;
+    }
+
+    /**
+     * 当前画面颜色（RGB）
+     */
+    public synchronized int getColor() {
+        return color;
+    }
+
+    @Override
+    public synchronized BufferedImage capture(Rectangle region) {
+        if (!changes.isEmpty() && changes.first() <= captures) {
+            changes.pollFirst();
+            color ^= 0xFFFFFF;
+        }
+        captures++;
+        BufferedImage image = new BufferedImage(Math.max(1, region.width), Math.max(1, region.height),
+                BufferedImage.TYPE_INT_RGB);
+        Arrays.fill(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), color);
+        return image;
+    }
+}
@@ -0,0 +1,140 @@
+package src.main.java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟全局快捷键来源 - 不读取系统设备，由代码或脚本"按下"快捷键
+ *
+ * <p>用于没有键盘设备权限的环境和调试：事件和真实来源一样在自己的守护线程上回调，不经过 EDT。
+ * 脚本格式为逗号分隔的"延迟毫秒:动作"，例如 {@code 5000:PAUSE,8000:PAUSE,12000:STOP}，
+ * 延迟从 {@link #start} 开始计算。启动程序时用系统属性 {@value #SCRIPT_PROPERTY} 指定脚本即可启用。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class SimulatedHotkeySource implements GlobalHotkeySource {
+
+    /**
+     * 启用模拟来源的系统属性
+     */
+    public static final String SCRIPT_PROPERTY = "mouseclicker.simulatedHotkeys";
+
+    /**
+     * 一个脚本步骤
+     */
+    private static final class Step {
+        private final long delayMs;
+        private final Hotkey hotkey;
+
+        Step(long delayMs, Hotkey hotkey) {
+            this.delayMs = delayMs;
+            this.hotkey = hotkey;
+        }
+    }
+
+    private final List<Step> script;
+    private final LinkedBlockingQueue<Hotkey> pending = new LinkedBlockingQueue<>();
+    private Thread dispatcher;
+
+    /**
+     * 构造没有脚本的模拟来源，只能通过 {@link #press} 触发
+     */
+    public SimulatedHotkeySource() {
+        this.script = new ArrayList<>();
+    }
+
+    /**
+     * 构造按脚本触发的模拟来源
+     *
+     * @param script 脚本，例如 {@code 5000:PAUSE,12000:STOP}
+     * @throws IllegalArgumentException 脚本格式错误
+     */
+    public SimulatedHotkeySource(String script) {
+        this.script = parse(script);
+    }
+
+    private static List<Step> parse(String text) {
+        List<Step> steps = new ArrayList<>();
+        for (String part : text.split(",")) {
+            String item = part.trim();
+            if (item.isEmpty()) {
+                continue;
+            }
+            int colon = item.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("快捷键脚本格式错误（应为 延迟毫秒:动作）: " + item);
+            }
+            try {
+                long delay = Long.parseLong(item.substring(0, colon).trim());
+                Hotkey hotkey = Hotkey.valueOf(item.substring(colon + 1).trim().toUpperCase());
+                if (delay < 0) {
+                    throw new IllegalArgumentException("快捷键脚本延迟不能为负数: " + item);
+                }
+                steps.add(new Step(delay, hotkey));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("快捷键脚本延迟格式错误: " + item, e);
+            }
+        }
+        steps.sort((a, b) -> Long.compare(a.delayMs, b.delayMs));
+        return steps;
+    }
+
+    /**
+     * 模拟按下快捷键，事件在分发线程上回调
+     */
+    public void press(Hotkey hotkey) {
+        pending.add(hotkey);
+    }
+
+    @Override
+    public synchronized void start(Listener listener) {
+        if (dispatcher != null) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        dispatcher = new Thread(() -> dispatch(listener, startNanos), "SimulatedHotkey");
+        dispatcher.setDaemon(true);
+        dispatcher.setPriority(Thread.MAX_PRIORITY);
+        dispatcher.start();
+    }
+
+    private void dispatch(Listener listener, long startNanos) {
+        int next = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long waitNanos = Long.MAX_VALUE;
+                if (next < script.size()) {
+                    long dueNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(script.get(next).delayMs);
+                    waitNanos = dueNanos - System.nanoTime();
+                    if (waitNanos <= 0) {
+                        listener.onHotkey(script.get(next++).hotkey, System.nanoTime());
+                        continue;
+                    }
+                }
+                Hotkey hotkey = pending.poll(waitNanos, TimeUnit.NANOSECONDS);
+                if (hotkey != null) {
+                    listener.onHotkey(hotkey, System.nanoTime());
+                }
+            }
+        } catch (InterruptedException e) {
+            // 停止监听
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            dispatcher = null;
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "模拟，脚本 " + script.size() + " 步";
+    }
+}
@@ -0,0 +1,607 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 模板匹配器 - 在屏幕截图中定位参考图像
+ *
+ * <p>实现要点：
+ * <ul>
+ *   <li>基于积分图的归一化互相关（NCC），窗口均值和方差为 O(1) 计算</li>
+ *   <li>所有计算都在灰度 int 数组上进行，不创建中间对象</li>
+ *   <li>先用各错开位置平均的降采样模板在降采样图上粗搜索（目标不与降采样块对齐时得分也比较稳定），
+ *       再在候选点附近用错开半个块的降采样模板重新评分，最后在原图的小邻域内精确定位</li>
+ *   <li>按行分块，使用 fork-join 并行搜索</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class TemplateMatcher {
+
+    /**
+     * 每个并行任务处理的行数
+     */
+    private static final int TILE_ROWS = 16;
+
+    /**
+     * 搜索范围不少于该宽度时按整行计算互相关（向量化），否则逐个位置计算
+     */
+    private static final int ROW_SPAN = 32;
+
+    /**
+     * 粗搜索保留的候选点数量
+     */
+    private static final int COARSE_CANDIDATES = 32;
+
+    /**
+     * 重新评分后在原图上精确定位的候选点数量
+     */
+    private static final int REFINE_CANDIDATES = 8;
+
+    /**
+     * 降采样后模板的目标最小边长（像素）
+     */
+    private static final int COARSE_TEMPLATE_SIZE = 8;
+
+    /**
+     * 最大降采样倍数
+     */
+    private static final int MAX_SCALE = 4;
+
+    /**
+     * 方差小于该值的窗口视为纯色区域，不参与匹配
+     */
+    private static final double MIN_VARIANCE = 1e-6;
+
+    private TemplateMatcher() {
+    }
+
+    /**
+     * 预处理后的模板
+     */
+    public static final class Template {
+        final int width;
+        final int height;
+        final Gray full;
+        final int scale;
+
+        /**
+         * 粗搜索模板：所有错开位置降采样结果的平均
+         */
+        final Gray coarse;
+
+        /**
+         * 错开半个降采样块的降采样模板，shifted[i] 从原模板的 (shiftX[i], shiftY[i]) 开始降采样，
+         * 只在粗搜索候选点附近使用
+         */
+        final Gray[] shifted;
+        final int[] shiftX;
+        final int[] shiftY;
+
+        private Template(Gray full) {
+            this.width = full.width;
+            this.height = full.height;
+            this.full = full;
+            this.scale = chooseScale(full.width, full.height);
+            full.ensureSums();
+            int[] offsets = scale > 1 ? new int[]{0, scale / 2} : new int[0];
+            this.coarse = scale > 1 ? full.phaseAverage(scale) : full;
+            this.shifted = new Gray[offsets.length * offsets.length];
+            this.shiftX = new int[shifted.length];
+            this.shiftY = new int[shifted.length];
+            for (int i = 0; i < shifted.length; i++) {
+                shiftX[i] = offsets[i % offsets.length];
+                shiftY[i] = offsets[i / offsets.length];
+                shifted[i] = full.downsample(scale, shiftX[i], shiftY[i]);
+                shifted[i].ensureSums();
+            }
+            coarse.ensureSums();
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+
+    /**
+     * 匹配结果
+     */
+    public static final class Match {
+        /**
+         * 匹配位置左上角（相对于搜索图像）
+         */
+        public final int x;
+        public final int y;
+
+        /**
+         * NCC得分，范围 [-1, 1]
+         */
+        public final double score;
+
+        Match(int x, int y, double score) {
+            this.x = x;
+            this.y = y;
+            this.score = score;
+        }
+    }
+
+    /**
+     * 预处理模板图像
+     */
+    public static Template prepare(BufferedImage image) {
+        return new Template(Gray.of(image, new Rectangle(0, 0, image.getWidth(), image.getHeight())));
+    }
+
+    /**
+     * 在图像的指定区域内查找模板
+     *
+     * @param frame 截图
+     * @param roi 搜索区域（相对于截图坐标）
+     * @param template 模板
+     * @param threshold 最低接受得分
+     * @return 匹配结果（坐标相对于截图），未找到时返回 null
+     */
+    public static Match find(BufferedImage frame, Rectangle roi, Template template, double threshold) {
+        Rectangle bounds = roi.intersection(new Rectangle(0, 0, frame.getWidth(), frame.getHeight()));
+        if (bounds.width < template.width || bounds.height < template.height) {
+            return null;
+        }
+        Match best;
+        if (template.scale > 1 && bounds.width / template.scale >= template.coarse.width
+                && bounds.height / template.scale >= template.coarse.height) {
+            best = coarseToFine(frame, bounds, template);
+        } else {
+            Gray image = Gray.of(frame, bounds);
+            best = search(image, template.full, 0, 0,
+                    image.width - template.width, image.height - template.height);
+        }
+        if (best == null || best.score < threshold) {
+            return null;
+        }
+        return new Match(best.x + bounds.x, best.y + bounds.y, best.score);
+    }
+
+    /**
+     * 粗搜索 + 候选点重新评分 + 局部精确搜索
+     */
+    private static Match coarseToFine(BufferedImage frame, Rectangle bounds, Template template) {
+        int scale = template.scale;
+        Gray coarseImage = Gray.downsampled(frame, bounds, scale);
+        Match[] candidates = new SearchTask(coarseImage, template.coarse, 0,
+                coarseImage.width - template.coarse.width, 0,
+                coarseImage.height - template.coarse.height, COARSE_CANDIDATES).invokeTop();
+
+        // 在候选点附近用错开半个块的模板重新评分，得到误差不超过半个块的原图位置
+        Match[] shortlist = new Match[REFINE_CANDIDATES];
+        for (Match candidate : candidates) {
+            if (candidate == null) {
+                continue;
+            }
+            Match rescored = null;
+            for (int i = 0; i < template.shifted.length; i++) {
+                Gray shifted = template.shifted[i];
+                Match m = search(coarseImage, shifted, Math.max(0, candidate.x - 1), Math.max(0, candidate.y - 1),
+                        Math.min(coarseImage.width - shifted.width, candidate.x + 1),
+                        Math.min(coarseImage.height - shifted.height, candidate.y + 1));
+                if (m != null && (rescored == null || m.score > rescored.score)) {
+                    rescored = new Match(m.x * scale - template.shiftX[i], m.y * scale - template.shiftY[i], m.score);
+                }
+            }
+            SearchTask.insert(shortlist, rescored);
+        }
+
+        // 只在候选位置附近裁剪一小块原图做精确搜索，避免为整幅原图构建积分图
+        int margin = scale / 2 + 1;
+        Match best = null;
+        for (Match candidate : shortlist) {
+            if (candidate == null) {
+                continue;
+            }
+            int left = Math.max(0, candidate.x - margin);
+            int top = Math.max(0, candidate.y - margin);
+            int right = Math.min(bounds.width, candidate.x + margin + template.width);
+            int bottom = Math.min(bounds.height, candidate.y + margin + template.height);
+            if (right - left < template.width || bottom - top < template.height) {
+                continue;
+            }
+            Gray local = Gray.of(frame, new Rectangle(bounds.x + left, bounds.y + top,
+                    right - left, bottom - top));
+            Match refined = search(local, template.full, 0, 0,
+                    local.width - template.width, local.height - template.height);
+            if (refined != null && (best == null || refined.score > best.score)) {
+                best = new Match(refined.x + left, refined.y + top, refined.score);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 在 [x0, x1] x [y0, y1] 范围内搜索最佳匹配（闭区间）
+     */
+    private static Match search(Gray image, Gray template, int x0, int y0, int x1, int y1) {
+        if (x1 < x0 || y1 < y0) {
+            return null;
+        }
+        Match[] top = new SearchTask(image, template, x0, x1, y0, y1, 1).invokeTop();
+        return top[0];
+    }
+
+    private static ForkJoinPool pool() {
+        return ForkJoinPool.commonPool();
+    }
+
+    private static int chooseScale(int width, int height) {
+        int scale = Math.min(width, height) / COARSE_TEMPLATE_SIZE;
+        return Math.max(1, Math.min(MAX_SCALE, scale));
+    }
+
+    /**
+     * 灰度图像及其积分图
+     */
+    static final class Gray {
+        final int width;
+        final int height;
+        final int[] pixels;
+        private long sum = -1;
+        private long sumSq;
+        private long[] integral;
+        private long[] integralSq;
+
+        Gray(int width, int height, int[] pixels) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+        }
+
+        /**
+         * 计算像素总和与平方和（仅模板需要）
+         */
+        synchronized void ensureSums() {
+            if (sum >= 0) {
+                return;
+            }
+            long s = 0;
+            long sq = 0;
+            for (int p : pixels) {
+                s += p;
+                sq += (long) p * p;
+            }
+            sumSq = sq;
+            sum = s;
+        }
+
+        /**
+         * 将图像区域转换为灰度（亮度）数组
+         */
+        static Gray of(BufferedImage image, Rectangle region) {
+            int w = region.width;
+            int h = region.height;
+            int[] out = new int[w * h];
+            int[] rgb = directPixels(image);
+            if (rgb != null) {
+                int stride = image.getWidth();
+                for (int y = 0; y < h; y++) {
+                    int src = (region.y + y) * stride + region.x;
+                    int dst = y * w;
+                    for (int x = 0; x < w; x++) {
+                        out[dst + x] = luma(rgb[src + x]);
+                    }
+                }
+            } else {
+                image.getRGB(region.x, region.y, w, h, out, 0, w);
+                for (int i = 0; i < out.length; i++) {
+                    out[i] = luma(out[i]);
+                }
+            }
+            return new Gray(w, h, out);
+        }
+
+        /**
+         * 对 int 像素图像直接访问底层数组，避免逐像素 getRGB 调用
+         */
+        private static int[] directPixels(BufferedImage image) {
+            int type = image.getType();
+            if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                    && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                    && image.getRaster().getParent() == null) {
+                return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            }
+            return null;
+        }
+
+        private static int luma(int rgb) {
+            int r = (rgb >> 16) & 0xFF;
+            int g = (rgb >> 8) & 0xFF;
+            int b = rgb & 0xFF;
+            return (r * 77 + g * 150 + b * 29) >> 8;
+        }
+
+        /**
+         * 直接从RGB图像生成降采样灰度图，不经过全分辨率灰度数组。
+         * 红蓝和绿通道分别按打包的 int 累加（每块最多 16 个像素，不会溢出到相邻通道），
+         * 每块只计算一次亮度
+         */
+        static Gray downsampled(BufferedImage image, Rectangle region, int scale) {
+            int w = region.width / scale;
+            int h = region.height / scale;
+            int[] out = new int[w * h];
+            int area = scale * scale;
+            int[] rgb = directPixels(image);
+            int columns = w * scale;
+            int[] row = new int[columns];
+            int stride = image.getWidth();
+            int[] redBlue = new int[columns];
+            int[] green = new int[columns];
+            for (int y = 0; y < h; y++) {
+                // 先按列累加块内各行（连续访问，可以向量化），再把每块的列合并
+                Arrays.fill(redBlue, 0);
+                Arrays.fill(green, 0);
+                for (int dy = 0; dy < scale; dy++) {
+                    int srcY = region.y + y * scale + dy;
+                    // 复制到从0开始的数组，与累加数组下标对齐，JIT 才会向量化下面的循环
+                    if (rgb == null) {
+                        image.getRGB(region.x, srcY, columns, 1, row, 0, columns);
+                    } else {
+                        System.arraycopy(rgb, srcY * stride + region.x, row, 0, columns);
+                    }
+                    for (int i = 0; i < columns; i++) {
+                        int pixel = row[i];
+                        redBlue[i] += pixel & 0xFF00FF;
+                        green[i] += pixel & 0x00FF00;
+                    }
+                }
+                int dst = y * w;
+                for (int x = 0; x < w; x++) {
+                    int rb = 0;
+                    int g = 0;
+                    for (int dx = x * scale; dx < x * scale + scale; dx++) {
+                        rb += redBlue[dx];
+                        g += green[dx];
+                    }
+                    out[dst + x] = (((rb >>> 16) * 77 + (g >>> 8) * 150 + (rb & 0xFFFF) * 29) >> 8) / area;
+                }
+            }
+            return new Gray(w, h, out);
+        }
+
+        /**
+         * 所有错开位置 (0..scale-1, 0..scale-1) 降采样结果的平均，每个像素覆盖 2*scale-1 宽的三角形窗口
+         */
+        Gray phaseAverage(int scale) {
+            int w = (width - scale + 1) / scale;
+            int h = (height - scale + 1) / scale;
+            int[] out = new int[w * h];
+            for (int offsetY = 0; offsetY < scale; offsetY++) {
+                for (int offsetX = 0; offsetX < scale; offsetX++) {
+                    Gray part = downsample(scale, offsetX, offsetY);
+                    for (int y = 0; y < h; y++) {
+                        for (int x = 0; x < w; x++) {
+                            out[y * w + x] += part.pixels[y * part.width + x];
+                        }
+                    }
+                }
+            }
+            int count = scale * scale;
+            for (int i = 0; i < out.length; i++) {
+                out[i] /= count;
+            }
+            return new Gray(w, h, out);
+        }
+
+        /**
+         * 从 (offsetX, offsetY) 开始按块平均降采样
+         */
+        Gray downsample(int scale, int offsetX, int offsetY) {
+            int w = (width - offsetX) / scale;
+            int h = (height - offsetY) / scale;
+            int[] out = new int[w * h];
+            int area = scale * scale;
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    int acc = 0;
+                    for (int dy = 0; dy < scale; dy++) {
+                        int row = (offsetY + y * scale + dy) * width + offsetX + x * scale;
+                        for (int dx = 0; dx < scale; dx++) {
+                            acc += pixels[row + dx];
+                        }
+                    }
+                    out[y * w + x] = acc / area;
+                }
+            }
+            return new Gray(w, h, out);
+        }
+
+        /**
+         * 构建积分图（仅在作为搜索图像时需要）
+         */
+        synchronized void ensureIntegral() {
+            if (integral != null) {
+                return;
+            }
+            int stride = width + 1;
+            long[] s = new long[stride * (height + 1)];
+            long[] sq = new long[stride * (height + 1)];
+            for (int y = 0; y < height; y++) {
+                long rowSum = 0;
+                long rowSq = 0;
+                for (int x = 0; x < width; x++) {
+                    int p = pixels[y * width + x];
+                    rowSum += p;
+                    rowSq += (long) p * p;
+                    s[(y + 1) * stride + x + 1] = s[y * stride + x + 1] + rowSum;
+                    sq[(y + 1) * stride + x + 1] = sq[y * stride + x + 1] + rowSq;
+                }
+            }
+            integralSq = sq;
+            integral = s;
+        }
+
+        long windowSum(long[] table, int x, int y, int w, int h) {
+            int stride = width + 1;
+            return table[(y + h) * stride + x + w] - table[y * stride + x + w]
+                    - table[(y + h) * stride + x] + table[y * stride + x];
+        }
+    }
+
+    /**
+     * 按行分块的并行搜索任务，返回得分最高的若干候选点
+     */
+    private static final class SearchTask extends RecursiveTask<Match[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Gray image;
+        private final Gray template;
+        private final int x0;
+        private final int x1;
+        private final int y0;
+        private final int y1;
+        private final int count;
+
+        SearchTask(Gray image, Gray template, int x0, int x1, int y0, int y1, int count) {
+            this.image = image;
+            this.template = template;
+            this.x0 = x0;
+            this.x1 = x1;
+            this.y0 = y0;
+            this.y1 = y1;
+            this.count = count;
+        }
+
+        Match[] invokeTop() {
+            image.ensureIntegral();
+            // 不需要分块的小范围搜索直接在当前线程完成
+            return y1 - y0 + 1 <= TILE_ROWS ? compute() : pool().invoke(this);
+        }
+
+        @Override
+        protected Match[] compute() {
+            if (y1 - y0 + 1 <= TILE_ROWS) {
+                return scan();
+            }
+            int mid = (y0 + y1) >>> 1;
+            SearchTask upper = new SearchTask(image, template, x0, x1, y0, mid, count);
+            SearchTask lower = new SearchTask(image, template, x0, x1, mid + 1, y1, count);
+            upper.fork();
+            Match[] right = lower.compute();
+            Match[] left = upper.join();
+            for (Match m : right) {
+                insert(left, m);
+            }
+            return left;
+        }
+
+        private Match[] scan() {
+            Match[] top = new Match[count];
+            int tw = template.width;
+            int th = template.height;
+            int n = tw * th;
+            double templateVar = template.sumSq - (double) template.sum * template.sum / n;
+            if (templateVar < MIN_VARIANCE) {
+                return top;
+            }
+            double inverseN = 1.0 / n;
+            double templateMean = template.sum * inverseN;
+            int[] img = image.pixels;
+            int[] tpl = template.pixels;
+            int iw = image.width;
+            int span = x1 - x0 + 1;
+            long[] cross = new long[span];
+            int[] rowCross = new int[span];
+            int[] segment = new int[span];
+            for (int y = y0; y <= y1; y++) {
+                if (span >= ROW_SPAN) {
+                    // 一次算出整行所有位置的互相关：每个模板像素乘以一段连续的图像行。
+                    // 图像段先复制到从0开始的数组，两个数组下标对齐时 JIT 才会向量化内层循环
+                    // （模板一行不超过 33025 个像素时 int 不会溢出）
+                    Arrays.fill(cross, 0);
+                    for (int ty = 0; ty < th; ty++) {
+                        Arrays.fill(rowCross, 0);
+                        int ib = (y + ty) * iw + x0;
+                        int tb = ty * tw;
+                        for (int tx = 0; tx < tw; tx++) {
+                            int t = tpl[tb + tx];
+                            System.arraycopy(img, ib + tx, segment, 0, span);
+                            for (int i = 0; i < span; i++) {
+                                rowCross[i] += segment[i] * t;
+                            }
+                        }
+                        for (int i = 0; i < span; i++) {
+                            cross[i] += rowCross[i];
+                        }
+                    }
+                } else {
+                    // 范围很窄（精确定位的小邻域）时逐个位置计算，复制图像段反而更慢
+                    for (int x = x0; x <= x1; x++) {
+                        long sum = 0;
+                        for (int ty = 0; ty < th; ty++) {
+                            int ib = (y + ty) * iw + x;
+                            int tb = ty * tw;
+                            for (int tx = 0; tx < tw; tx++) {
+                                sum += img[ib + tx] * tpl[tb + tx];
+                            }
+                        }
+                        cross[x - x0] = sum;
+                    }
+                }
+                for (int x = x0; x <= x1; x++) {
+                    long s = image.windowSum(image.integral, x, y, tw, th);
+                    long sq = image.windowSum(image.integralSq, x, y, tw, th);
+                    double windowVar = sq - (double) s * s * inverseN;
+                    if (windowVar < MIN_VARIANCE) {
+                        continue;
+                    }
+                    double numerator = cross[x - x0] - s * templateMean;
+                    Match last = top[top.length - 1];
+                    // 候选点已满时先用平方比较淘汰，大部分位置不需要开方和除法
+                    if (last != null && last.score >= 0 && (numerator <= 0
+                            || numerator * numerator <= last.score * last.score * templateVar * windowVar)) {
+                        continue;
+                    }
+                    double score = numerator / Math.sqrt(templateVar * windowVar);
+                    if (last == null || score > last.score) {
+                        insert(top, new Match(x, y, score));
+                    }
+                }
+            }
+            return top;
+        }
+
+        /**
+         * 按得分插入候选点；相邻（各方向相差不超过1像素）的候选点只保留得分高的一个，
+         * 避免所有候选点都落在同一个峰的周围
+         */
+        private static void insert(Match[] top, Match m) {
+            if (m == null) {
+                return;
+            }
+            for (int i = 0; i < top.length && top[i] != null; i++) {
+                if (Math.abs(top[i].x - m.x) <= 1 && Math.abs(top[i].y - m.y) <= 1) {
+                    if (top[i].score >= m.score) {
+                        return;
+                    }
+                    System.arraycopy(top, i + 1, top, i, top.length - i - 1);
+                    top[top.length - 1] = null;
+                    break;
+                }
+            }
+            for (int i = 0; i < top.length; i++) {
+                if (top[i] == null || m.score > top[i].score) {
+                    System.arraycopy(top, i, top, i + 1, top.length - i - 1);
+                    top[i] = m;
+                    return;
+                }
+            }
+        }
+    }
+}
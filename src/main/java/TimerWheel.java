@@ -0,0 +1,160 @@
+package src.main.java;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 哈希时间轮 - 大量定时任务的 O(1) 插入、取消和到期检查
+ *
+ * <p>时间按固定刻度划分，任务按到期刻度放入 {@code 刻度 % 槽数} 的槽中（双向链表）。
+ * 推进时每个刻度只检查一个槽，与任务总数无关。时间跳跃超过一整圈时（例如系统休眠后）
+ * 每个槽最多检查一次。本类不是线程安全的，由调用方加锁。
+ *
+ * @param <T> 任务类型
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class TimerWheel<T> {
+
+    /**
+     * 时间轮中的一个任务
+     */
+    public static final class Timeout<T> {
+        private final T task;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private int bucket = -1;
+
+        private Timeout(T task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getTask() {
+            return task;
+        }
+
+        /**
+         * 是否仍在时间轮中等待
+         */
+        public boolean isPending() {
+            return bucket >= 0;
+        }
+    }
+
+    private final long tickMillis;
+    private final Timeout<T>[] heads;
+    private final int mask;
+
+    /**
+     * 已处理到的刻度
+     */
+    private long currentTick;
+    private int size;
+
+    /**
+     * 构造函数
+     *
+     * @param tickMillis 刻度长度（毫秒）
+     * @param wheelSize 槽数，向上取整为2的幂
+     * @param startMillis 起始时间（毫秒）
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("刻度和槽数必须大于0");
+        }
+        int buckets = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.heads = (Timeout<T>[]) new Timeout[buckets];
+        this.mask = buckets - 1;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * 添加任务
+     *
+     * @param task 任务
+     * @param deadlineMillis 到期时间（毫秒），已过期的任务在下一刻度到期
+     * @return 任务句柄，用于取消
+     */
+    public Timeout<T> schedule(T task, long deadlineMillis) {
+        long tick = Math.max(currentTick + 1, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        Timeout<T> timeout = new Timeout<>(task, tick);
+        int bucket = (int) (tick & mask);
+        timeout.bucket = bucket;
+        timeout.next = heads[bucket];
+        if (heads[bucket] != null) {
+            heads[bucket].prev = timeout;
+        }
+        heads[bucket] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * 取消任务
+     *
+     * @return 任务是否仍在等待并被取消
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.bucket < 0) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * 推进到指定时间，返回期间到期的任务
+     *
+     * @param nowMillis 当前时间（毫秒）
+     * @return 到期任务，按槽顺序
+     */
+    public List<T> advance(long nowMillis) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        List<T> expired = new ArrayList<>();
+        if (nowTick <= currentTick) {
+            return expired;
+        }
+        long steps = Math.min(nowTick - currentTick, heads.length);
+        for (long step = 1; step <= steps; step++) {
+            int bucket = (int) ((currentTick + step) & mask);
+            Timeout<T> timeout = heads[bucket];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.deadlineTick <= nowTick) {
+                    unlink(timeout);
+                    expired.add(timeout.task);
+                }
+                timeout = next;
+            }
+        }
+        currentTick = nowTick;
+        return expired;
+    }
+
+    /**
+     * 等待中的任务数
+     */
+    public int size() {
+        return size;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            heads[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+        size--;
+    }
+}
@@ -0,0 +1,354 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 等待条件 - 点击前等待屏幕达到指定状态
+ *
+ * <p>条件文本格式（各段以分号分隔，超时和失败处理可省略）：
+ * <ul>
+ *   <li>{@code 像素:x,y,#RRGGBB,容差} - 等待像素颜色匹配（各通道差值不超过容差）</li>
+ *   <li>{@code 变化:x,y,宽,高} - 等待区域发生变化</li>
+ *   <li>{@code 稳定:x,y,宽,高,毫秒} - 等待区域持续指定时间不再变化</li>
+ *   <li>{@code ;超时:毫秒} - 最长等待时间，默认 5000</li>
+ *   <li>{@code ;失败:跳过|停止|重来|转到N} - 超时后的处理，默认跳过本步点击</li>
+ * </ul>
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class WaitCondition {
+
+    /**
+     * 默认超时时间（毫秒）
+     */
+    public static final int DEFAULT_TIMEOUT_MS = 5000;
+
+    /**
+     * 条件检测周期（毫秒）
+     */
+    private static final int POLL_INTERVAL_MS = ScreenCaptureService.DEFAULT_FRAME_INTERVAL_MS;
+
+    /**
+     * 条件类型
+     */
+    public enum Type {
+        PIXEL("像素"),
+        CHANGE("变化"),
+        STABLE("稳定");
+
+        private final String keyword;
+
+        Type(String keyword) {
+            this.keyword = keyword;
+        }
+    }
+
+    /**
+     * 超时后的处理方式
+     */
+    public enum FailAction {
+        SKIP("跳过"),
+        STOP("停止"),
+        RESTART("重来"),
+        GOTO("转到");
+
+        private final String keyword;
+
+        FailAction(String keyword) {
+            this.keyword = keyword;
+        }
+    }
+
+    private final Type type;
+    private final Rectangle region;
+    private final int color;
+    private final int tolerance;
+    private final int stableMs;
+    private final int timeoutMs;
+    private final FailAction failAction;
+    private final int gotoStep;
+
+    private WaitCondition(Type type, Rectangle region, int color, int tolerance, int stableMs,
+            int timeoutMs, FailAction failAction, int gotoStep) {
+        this.type = type;
+        this.region = region;
+        this.color = color;
+        this.tolerance = tolerance;
+        this.stableMs = stableMs;
+        this.timeoutMs = timeoutMs;
+        this.failAction = failAction;
+        this.gotoStep = gotoStep;
+    }
+
+    /**
+     * 创建像素匹配条件文本
+     */
+    public static String pixelSpec(int x, int y, int rgb, int tolerance) {
+        return Type.PIXEL.keyword + ":" + x + "," + y + "," + String.format("#%06X", rgb & 0xFFFFFF)
+                + "," + tolerance;
+    }
+
+    /**
+     * 解析条件文本
+     *
+     * @param spec 条件文本
+     * @return 条件对象
+     * @throws IllegalArgumentException 格式错误
+     */
+    public static WaitCondition parse(String spec) {
+        String[] parts = spec.trim().split("[;；]");
+        String[] head = splitKeyword(parts[0]);
+        String[] args = head[1].split(",");
+        Type type = null;
+        for (Type t : Type.values()) {
+            if (t.keyword.equals(head[0])) {
+                type = t;
+            }
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("未知的条件类型: " + head[0]);
+        }
+
+        Rectangle region;
+        int color = 0;
+        int tolerance = 0;
+        int stableMs = 0;
+        switch (type) {
+            case PIXEL:
+                requireArgs(args, 4, spec);
+                region = new Rectangle(parseInt(args[0]), parseInt(args[1]), 1, 1);
+                String hex = args[2].trim();
+                color = Integer.parseInt(hex.startsWith("#") ? hex.substring(1) : hex, 16) & 0xFFFFFF;
+                tolerance = parseInt(args[3]);
+                break;
+            case STABLE:
+                requireArgs(args, 5, spec);
+                region = parseRect(args);
+                stableMs = parseInt(args[4]);
+                break;
+            case CHANGE:
+            default:
+                requireArgs(args, 4, spec);
+                region = parseRect(args);
+                break;
+        }
+        if (region.width <= 0 || region.height <= 0) {
+            throw new IllegalArgumentException("区域宽高必须大于0: " + spec);
+        }
+
+        int timeoutMs = DEFAULT_TIMEOUT_MS;
+        FailAction failAction = FailAction.SKIP;
+        int gotoStep = 0;
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].trim().isEmpty()) {
+                continue;
+            }
+            String[] option = splitKeyword(parts[i]);
+            if ("超时".equals(option[0])) {
+                timeoutMs = parseInt(option[1]);
+            } else if ("失败".equals(option[0])) {
+                String value = option[1].trim();
+                failAction = null;
+                for (FailAction action : FailAction.values()) {
+                    if (value.startsWith(action.keyword)) {
+                        failAction = action;
+                    }
+                }
+                if (failAction == null) {
+                    throw new IllegalArgumentException("未知的失败处理: " + value);
+                }
+                if (failAction == FailAction.GOTO) {
+                    gotoStep = parseInt(value.substring(FailAction.GOTO.keyword.length()));
+                    if (gotoStep < 1) {
+                        throw new IllegalArgumentException("转到的位置序号必须从1开始: " + value);
+                    }
+                }
+            } else {
+                throw new IllegalArgumentException("未知的条件选项: " + option[0]);
+            }
+        }
+        return new WaitCondition(type, region, color, tolerance, stableMs, timeoutMs, failAction, gotoStep);
+    }
+
+    private static String[] splitKeyword(String text) {
+        String[] kv = text.trim().split("[:：]", 2);
+        if (kv.length != 2) {
+            throw new IllegalArgumentException("缺少冒号: " + text);
+        }
+        return new String[]{kv[0].trim(), kv[1].trim()};
+    }
+
+    private static void requireArgs(String[] args, int count, String spec) {
+        if (args.length != count) {
+            throw new IllegalArgumentException("参数个数应为 " + count + ": " + spec);
+        }
+    }
+
+    private static Rectangle parseRect(String[] args) {
+        return new Rectangle(parseInt(args[0]), parseInt(args[1]), parseInt(args[2]), parseInt(args[3]));
+    }
+
+    private static int parseInt(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("不是有效的整数: " + text.trim());
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public FailAction getFailAction() {
+        return failAction;
+    }
+
+    /**
+     * 失败时转到的位置序号（从1开始），仅 {@link FailAction#GOTO} 有效
+     */
+    public int getGotoStep() {
+        return gotoStep;
+    }
+
+    /**
+     * 失败处理的文字描述
+     */
+    public String describeFailAction() {
+        return failAction == FailAction.GOTO ? failAction.keyword + gotoStep : failAction.keyword;
+    }
+
+    /**
+     * 为本条件创建监视器，运行期间保持订阅
+     */
+    public Monitor monitor(ScreenCaptureService captureService) {
+        return new Monitor(captureService);
+    }
+
+    /**
+     * 条件监视器
+     *
+     * <p>运行开始时订阅条件区域；点击线程调用 {@link #await} 时才开始判定，
+     * 判定在截图线程上完成，满足时立即唤醒点击线程，不需要点击线程轮询。
+     */
+    public final class Monitor implements AutoCloseable {
+        private final ScreenCaptureService.Subscription subscription;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition satisfiedSignal = lock.newCondition();
+
+        /**
+         * 以下字段只在截图线程中写入，armed/satisfied 用锁保护
+         */
+        private long lastHash;
+        private boolean hasHash;
+        private boolean armed;
+        private boolean satisfied;
+        private long baselineHash;
+        private boolean hasBaseline;
+        private long lastChangeNanos;
+
+        private Monitor(ScreenCaptureService captureService) {
+            this.subscription = captureService.subscribe(region, POLL_INTERVAL_MS, this::onFrame);
+        }
+
+        /**
+         * 等待条件满足
+         *
+         * @return 在超时前满足返回 true
+         * @throws InterruptedException 等待被中断
+         */
+        public boolean await() throws InterruptedException {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            lock.lock();
+            try {
+                armed = true;
+                satisfied = false;
+                // 变化条件以开始等待时的画面为基准
+                hasBaseline = hasHash;
+                baselineHash = lastHash;
+                lastChangeNanos = System.nanoTime();
+                while (!satisfied && remaining > 0) {
+                    remaining = satisfiedSignal.awaitNanos(remaining);
+                }
+                return satisfied;
+            } finally {
+                armed = false;
+                lock.unlock();
+            }
+        }
+
+        private void onFrame(ScreenCaptureService.Frame frame, boolean changed) {
+            long hash = 0;
+            if (type != Type.PIXEL && (changed || !hasHash)) {
+                hash = frame.hashRegion(region);
+            }
+            lock.lock();
+            try {
+                if (type != Type.PIXEL && (changed || !hasHash)) {
+                    lastHash = hash;
+                    hasHash = true;
+                }
+                if (!armed || satisfied) {
+                    return;
+                }
+                if (evaluate(frame)) {
+                    satisfied = true;
+                    satisfiedSignal.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean evaluate(ScreenCaptureService.Frame frame) {
+            switch (type) {
+                case PIXEL:
+                    return colorMatches(frame.getRGB(region.x, region.y));
+                case CHANGE:
+                    if (!hasBaseline) {
+                        hasBaseline = true;
+                        baselineHash = lastHash;
+                        return false;
+                    }
+                    return lastHash != baselineHash;
+                case STABLE:
+                default:
+                    if (!hasBaseline || lastHash != baselineHash) {
+                        hasBaseline = true;
+                        baselineHash = lastHash;
+                        lastChangeNanos = frame.getTimestampNanos();
+                        return false;
+                    }
+                    return frame.getTimestampNanos() - lastChangeNanos
+                            >= TimeUnit.MILLISECONDS.toNanos(stableMs);
+            }
+        }
+
+        /**
+         * 取消订阅
+         */
+        @Override
+        public void close() {
+            subscription.close();
+        }
+    }
+
+    /**
+     * 颜色是否在容差范围内
+     */
+    boolean colorMatches(int rgb) {
+        int dr = Math.abs(((rgb >> 16) & 0xFF) - ((color >> 16) & 0xFF));
+        int dg = Math.abs(((rgb >> 8) & 0xFF) - ((color >> 8) & 0xFF));
+        int db = Math.abs((rgb & 0xFF) - (color & 0xFF));
+        return Math.max(dr, Math.max(dg, db)) <= tolerance;
+    }
+}
@@ -0,0 +1,135 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 窗口位置缓存 - 在短时间内复用窗口查询结果
+ *
+ * <p>点击循环中每个窗口相对位置都需要窗口原点，直接查询窗口系统的代价远高于点击本身。
+ * 查询结果（包括未找到）缓存一个较短的有效期，有效期内的重复查询直接返回。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class WindowGeometryCache {
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+        final Rectangle bounds;
+        final long expiresAtNanos;
+
+        Entry(Rectangle bounds, long expiresAtNanos) {
+            this.bounds = bounds;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final WindowGeometryProvider provider;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private long lookups;
+    private long hits;
+    private long queryNanos;
+    private long maxQueryNanos;
+
+    /**
+     * 构造函数
+     *
+     * @param provider 窗口来源
+     * @param ttlMs 缓存有效期（毫秒）
+     */
+    public WindowGeometryCache(WindowGeometryProvider provider, int ttlMs) {
+        this(provider, ttlMs, System::nanoTime);
+    }
+
+    /**
+     * 构造函数（指定时间来源，测试时可以手动推进时间）
+     *
+     * @param provider 窗口来源
+     * @param ttlMs 缓存有效期（毫秒）
+     * @param nanoTime 单调时间来源（纳秒）
+     */
+    public WindowGeometryCache(WindowGeometryProvider provider, int ttlMs, LongSupplier nanoTime) {
+        this.provider = provider;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * 查找窗口，有效期内直接返回缓存结果
+     *
+     * @param title 窗口标题（部分匹配）
+     * @return 窗口边界，未找到时返回 null
+     * @throws IOException 查询窗口系统失败
+     */
+    public synchronized Rectangle find(String title) throws IOException {
+        lookups++;
+        long now = nanoTime.getAsLong();
+        Entry entry = entries.get(title);
+        if (entry != null && entry.expiresAtNanos - now > 0) {
+            hits++;
+            return entry.bounds != null ? new Rectangle(entry.bounds) : null;
+        }
+        Rectangle bounds = provider.findWindow(title);
+        long end = nanoTime.getAsLong();
+        queryNanos += end - now;
+        maxQueryNanos = Math.max(maxQueryNanos, end - now);
+        entries.put(title, new Entry(bounds, end + ttlNanos));
+        return bounds != null ? new Rectangle(bounds) : null;
+    }
+
+    /**
+     * 跳过缓存直接查询，并用结果刷新缓存
+     */
+    public synchronized Rectangle findFresh(String title) throws IOException {
+        entries.remove(title);
+        return find(title);
+    }
+
+    /**
+     * 清空缓存和统计
+     */
+    public synchronized void reset() {
+        entries.clear();
+        lookups = 0;
+        hits = 0;
+        queryNanos = 0;
+        maxQueryNanos = 0;
+    }
+
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * 缓存命中率（0~1），没有查询时返回 0
+     */
+    public synchronized double getHitRate() {
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * 实际查询窗口系统的平均耗时（纳秒）
+     */
+    public synchronized long getAverageQueryNanos() {
+        long queries = lookups - hits;
+        return queries == 0 ? 0 : queryNanos / queries;
+    }
+
+    /**
+     * 实际查询窗口系统的最长耗时（纳秒）
+     */
+    public synchronized long getMaxQueryNanos() {
+        return maxQueryNanos;
+    }
+}
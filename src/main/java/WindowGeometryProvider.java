@@ -0,0 +1,40 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+
+/**
+ * 窗口几何信息来源 - 按标题查询顶层窗口在屏幕上的位置
+ *
+ * <p>生产环境在 Linux 上通过 X11 窗口管理器查询，测试时可以替换为固定数据实现。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public interface WindowGeometryProvider {
+
+    /**
+     * 查找标题包含指定文本的窗口
+     *
+     * @param title 窗口标题（部分匹配）
+     * @return 窗口边界（屏幕坐标），未找到时返回 null
+     * @throws IOException 查询窗口系统失败
+     */
+    Rectangle findWindow(String title) throws IOException;
+
+    /**
+     * 当前系统的窗口来源
+     *
+     * @return 窗口来源，当前系统不支持时每次查询都会抛出 {@link IOException}
+     */
+    static WindowGeometryProvider forCurrentPlatform() {
+        String osName = System.getProperty("os.name").toLowerCase();
+        if (osName.contains("linux") || osName.contains("bsd")) {
+            return new X11WindowGeometryProvider();
+        }
+        return title -> {
+            throw new IOException("当前系统不支持窗口定位（仅支持 Linux X11）");
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package src.main.java;
+
+import java.awt.Rectangle;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * X11 窗口来源 - 通过 wmctrl 读取窗口管理器的 _NET_CLIENT_LIST
+ *
+ * <p>每次查询启动一次 {@code wmctrl -lG} 子进程，开销在毫秒级，
+ * 因此应通过 {@link WindowGeometryCache} 使用，避免每次点击都查询。
+ *
+ * @author zhouzh
+ * @date 2026-10-19
+ * @version 2.2
+ */
+public final class X11WindowGeometryProvider implements WindowGeometryProvider {
+
+    /**
+     * 查询命令
+     */
+    private static final String[] COMMAND = {"wmctrl", "-lG"};
+
+    /**
+     * 子进程最长等待时间（毫秒）
+     */
+    private static final long PROCESS_TIMEOUT_MS = 2000;
+
+    /**
+     * 输出列数：窗口ID、桌面、X、Y、宽、高、主机名、标题
+     */
+    private static final int COLUMN_COUNT = 8;
+
+    @Override
+    public Rectangle findWindow(String title) throws IOException {
+        Process process;
+        try {
+            process = new ProcessBuilder(COMMAND).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            throw new IOException("无法执行 wmctrl，请先安装（例如 sudo apt install wmctrl）", e);
+        }
+        Rectangle found = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Rectangle bounds = parseLine(line, title);
+                if (bounds != null && found == null) {
+                    found = bounds;
+                }
+            }
+            if (!process.waitFor(PROCESS_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new IOException("wmctrl 执行超时");
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("wmctrl 执行失败，退出码 " + process.exitValue());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("窗口查询被中断", e);
+        } finally {
+            process.destroy();
+        }
+        return found;
+    }
+
+    /**
+     * 解析一行 wmctrl 输出
+     *
+     * @return 标题匹配时返回窗口边界，否则返回 null
+     */
+    static Rectangle parseLine(String line, String title) {
+        String[] columns = line.trim().split("\\s+", COLUMN_COUNT);
+        if (columns.length < COLUMN_COUNT || !columns[COLUMN_COUNT - 1].contains(title)) {
+            return null;
+        }
+        try {
+            return new Rectangle(Integer.parseInt(columns[2]), Integer.parseInt(columns[3]),
+                    Integer.parseInt(columns[4]), Integer.parseInt(columns[5]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}